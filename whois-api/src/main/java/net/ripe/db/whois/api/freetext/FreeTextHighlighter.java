@@ -0,0 +1,171 @@
+package net.ripe.db.whois.api.freetext;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.postingshighlight.Passage;
+import org.apache.lucene.search.postingshighlight.PassageFormatter;
+import org.apache.lucene.search.postingshighlight.PostingsHighlighter;
+import org.apache.lucene.search.postingshighlight.WholeBreakIterator;
+
+import java.io.IOException;
+import java.text.BreakIterator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Highlight the values of matching fields using the offsets stored in the postings, instead of analyzing every field
+ * of every document again.
+ * <p/>
+ * The field values are taken from the documents already loaded for the response. Values of a field are separated by
+ * a newline, which never occurs in a value as control characters are removed before indexing, and which takes the
+ * place of the offset gap of 1 between values at index time.
+ */
+class FreeTextHighlighter extends PostingsHighlighter {
+    private static final char VALUE_SEPARATOR = '\n';
+    private static final Joiner VALUE_JOINER = Joiner.on(VALUE_SEPARATOR);
+
+    private final Map<Integer, Document> documents;
+    private final PassageFormatter formatter;
+
+    FreeTextHighlighter(final String preTag, final String postTag, final Map<Integer, Document> documents) {
+        super(Integer.MAX_VALUE - 1);
+        this.documents = documents;
+        this.formatter = new ValuesFormatter(preTag, postTag);
+    }
+
+    /**
+     * @return for every document, the highlighted values of the fields with a matching value.
+     */
+    @SuppressWarnings("unchecked")
+    Map<Integer, Map<String, List<String>>> highlight(final String[] fields, final Query query, final IndexSearcher indexSearcher, final int[] docids) throws IOException {
+        final int[] maxPassages = new int[fields.length];
+        Arrays.fill(maxPassages, 1);
+
+        final Map<String, Object[]> highlights = highlightFieldsAsObjects(fields, query, indexSearcher, docids, maxPassages);
+
+        final Map<Integer, Map<String, List<String>>> result = Maps.newHashMapWithExpectedSize(docids.length);
+        for (int i = 0; i < docids.length; i++) {
+            final Map<String, List<String>> documentHighlights = Maps.newLinkedHashMap();
+            for (final String field : fields) {
+                final Object values = highlights.get(field)[i];
+                if (values != null) {
+                    documentHighlights.put(field, (List<String>) values);
+                }
+            }
+            result.put(docids[i], documentHighlights);
+        }
+
+        return result;
+    }
+
+    @Override
+    protected String[][] loadFieldValues(final IndexSearcher searcher, final String[] fields, final int[] docids, final int maxLength) throws IOException {
+        final String[][] contents = new String[fields.length][docids.length];
+        for (int i = 0; i < docids.length; i++) {
+            final Document document = documents.get(docids[i]);
+            for (int j = 0; j < fields.length; j++) {
+                contents[j][i] = document == null ? "" : VALUE_JOINER.join(document.getValues(fields[j]));
+            }
+        }
+        return contents;
+    }
+
+    @Override
+    protected char getMultiValuedSeparator(final String field) {
+        return VALUE_SEPARATOR;
+    }
+
+    @Override
+    protected BreakIterator getBreakIterator(final String field) {
+        return new WholeBreakIterator();
+    }
+
+    @Override
+    protected PassageFormatter getFormatter(final String field) {
+        return formatter;
+    }
+
+    @Override
+    protected Passage[] getEmptyHighlight(final String fieldName, final BreakIterator bi, final int maxPassages) {
+        return new Passage[0];
+    }
+
+    /**
+     * Formats every value containing a match on its own, so a multi-valued field gives a highlight per matching
+     * value, like highlighting the fields one by one.
+     */
+    private static final class ValuesFormatter extends PassageFormatter {
+        private final String preTag;
+        private final String postTag;
+
+        private ValuesFormatter(final String preTag, final String postTag) {
+            this.preTag = preTag;
+            this.postTag = postTag;
+        }
+
+        @Override
+        public Object format(final Passage[] passages, final String content) {
+            if (passages.length == 0) {
+                return null;
+            }
+
+            final List<String> values = Lists.newArrayList();
+            int valueStart = 0;
+            int passage = 0;
+            int match = 0;
+
+            while (valueStart <= content.length() && passage < passages.length) {
+                int valueEnd = content.indexOf(VALUE_SEPARATOR, valueStart);
+                if (valueEnd < 0) {
+                    valueEnd = content.length();
+                }
+
+                final StringBuilder value = new StringBuilder();
+                int position = valueStart;
+                boolean matched = false;
+
+                while (passage < passages.length) {
+                    final Passage current = passages[passage];
+                    if (match >= current.getNumMatches()) {
+                        passage++;
+                        match = 0;
+                        continue;
+                    }
+
+                    final int start = current.getMatchStarts()[match];
+                    if (start >= valueEnd) {
+                        break;
+                    }
+
+                    final int end = Math.min(current.getMatchEnds()[match], valueEnd);
+                    if (start > position) {
+                        value.append(content, position, start);
+                    }
+
+                    if (end > position) {
+                        value.append(preTag).append(content, Math.max(position, start), end).append(postTag);
+                        position = end;
+                        matched = true;
+                    }
+
+                    match++;
+                }
+
+                if (matched) {
+                    value.append(content, position, valueEnd);
+                    values.add(value.toString());
+                }
+
+                valueStart = valueEnd + 1;
+            }
+
+            return values.isEmpty() ? null : Collections.unmodifiableList(values);
+        }
+    }
+}
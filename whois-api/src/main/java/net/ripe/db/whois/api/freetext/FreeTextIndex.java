@@ -2,13 +2,14 @@ package net.ripe.db.whois.api.freetext;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import net.ripe.db.whois.api.search.IndexTemplate;
 import net.ripe.db.whois.api.search.RebuildableIndex;
 import net.ripe.db.whois.common.dao.jdbc.JdbcRpslObjectOperations;
 import net.ripe.db.whois.common.dao.jdbc.JdbcStreamingHelper;
-import net.ripe.db.whois.common.domain.serials.SerialEntry;
+import net.ripe.db.whois.common.domain.serials.Operation;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.RpslAttribute;
 import net.ripe.db.whois.common.rpsl.RpslObject;
@@ -20,6 +21,7 @@ import org.apache.lucene.document.FieldType;
 import org.apache.lucene.facet.FacetField;
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
@@ -30,21 +32,26 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 import java.io.IOException;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -56,7 +63,10 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class FreeTextIndex extends RebuildableIndex {
     private static final Logger LOGGER = getLogger(FreeTextIndex.class);
 
-    private static final int INDEX_UPDATE_INTERVAL_IN_SECONDS = 60;
+    private static final int UPDATE_BATCH_SIZE = 10000;
+
+    // increase when the way documents are indexed changes, to rebuild existing indexes (2: offsets for highlighting)
+    private static final String INDEX_VERSION = "2";
 
     static final String OBJECT_TYPE_FIELD_NAME = "object-type";
     static final String PRIMARY_KEY_FIELD_NAME = "primary-key";
@@ -86,6 +96,7 @@ public class FreeTextIndex extends RebuildableIndex {
         INDEXED_AND_TOKENIZED.setIndexed(true);
         INDEXED_AND_TOKENIZED.setStored(true);
         INDEXED_AND_TOKENIZED.setTokenized(true);
+        INDEXED_AND_TOKENIZED.setIndexOptions(FieldInfo.IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
         INDEXED_AND_TOKENIZED.freeze();
 
         INDEXED_NOT_TOKENIZED = new FieldType();
@@ -137,6 +148,13 @@ public class FreeTextIndex extends RebuildableIndex {
                                 rebuild(indexWriter, taxonomyWriter);
                                 return;
                             }
+
+                            final String committedVersion = commitData.get("version");
+                            if (!INDEX_VERSION.equals(committedVersion)) {
+                                LOGGER.warn("Index {} has version: {}, rebuild to version {}", indexDir, committedVersion, INDEX_VERSION);
+                                rebuild(indexWriter, taxonomyWriter);
+                                return;
+                            }
                         }
                     }
                 }
@@ -154,11 +172,7 @@ public class FreeTextIndex extends RebuildableIndex {
         indexWriter.deleteAll();
         final int maxSerial = JdbcRpslObjectOperations.getSerials(jdbcTemplate).getEnd();
 
-        // sadly Executors don't offer a bounded/blocking submit() implementation
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        final ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(numThreads * 64);
-        final ExecutorService executorService = new ThreadPoolExecutor(numThreads, numThreads,
-                0L, TimeUnit.MILLISECONDS, workQueue, new ThreadPoolExecutor.CallerRunsPolicy());
+        final ExecutorService executorService = createExecutorService();
 
         JdbcStreamingHelper.executeStreaming(jdbcTemplate, "" +
                         "SELECT object_id, object " +
@@ -195,12 +209,18 @@ public class FreeTextIndex extends RebuildableIndex {
         updateMetadata(indexWriter, source, maxSerial);
     }
 
-    @Scheduled(fixedDelay = INDEX_UPDATE_INTERVAL_IN_SECONDS * 1000)
+    @Scheduled(fixedDelayString = "${freetext.index.update.interval:10000}")
     public void scheduledUpdate() {
         if (StringUtils.isBlank(indexDir)) return;
         update();
     }
 
+    @Scheduled(fixedDelayString = "${freetext.index.commit.interval:300000}")
+    public void scheduledCommit() {
+        if (StringUtils.isBlank(indexDir)) return;
+        commit();
+    }
+
     protected void update(final IndexWriter indexWriter, final TaxonomyWriter taxonomyWriter) throws IOException {
         final Map<String, String> metadata = indexWriter.getCommitData();
         final int end = JdbcRpslObjectOperations.getSerials(jdbcTemplate).getEnd();
@@ -213,23 +233,14 @@ public class FreeTextIndex extends RebuildableIndex {
             LOGGER.debug("Updating index {} from {} to {}", indexDir, last, end);
 
             final Stopwatch stopwatch = Stopwatch.createStarted();
-            for (int serial = last + 1; serial <= end; serial++) {
-                final SerialEntry serialEntry = JdbcRpslObjectOperations.getSerialEntry(jdbcTemplate, serial);
-                if (serialEntry == null) {
-                    // suboptimal;there could be big gaps in serial entries.
-                    continue;
-                }
-                final RpslObject rpslObject = serialEntry.getRpslObject();
-
-                switch (serialEntry.getOperation()) {
-                    case UPDATE:
-                        deleteEntry(indexWriter, rpslObject);
-                        addEntry(indexWriter, taxonomyWriter, rpslObject);
-                        break;
-                    case DELETE:
-                        deleteEntry(indexWriter, rpslObject);
-                        break;
+            final ExecutorService executorService = createExecutorService();
+            try {
+                for (int from = last + 1; from <= end; from += UPDATE_BATCH_SIZE) {
+                    final int to = Math.min(from + UPDATE_BATCH_SIZE - 1, end);
+                    update(indexWriter, taxonomyWriter, executorService, from, to);
                 }
+            } finally {
+                executorService.shutdown();
             }
 
             LOGGER.debug("Updated index {} in {}", indexDir, stopwatch.stop());
@@ -238,10 +249,71 @@ public class FreeTextIndex extends RebuildableIndex {
         updateMetadata(indexWriter, source, end);
     }
 
+    /**
+     * Index the latest state of every object changed in the serial range. Documents are added by the executor, and
+     * all of them are added before returning, so a later batch can't delete a document before it is added.
+     */
+    private void update(final IndexWriter indexWriter, final TaxonomyWriter taxonomyWriter, final ExecutorService executorService, final int from, final int to) throws IOException {
+        final Map<Integer, SerialChange> changes = JdbcStreamingHelper.executeStreaming(jdbcTemplate, "" +
+                        "SELECT serials.object_id, serials.operation, last.sequence_id, last.object " +
+                        "FROM serials " +
+                        "LEFT JOIN last ON last.object_id = serials.object_id " +
+                        "WHERE serials.serial_id BETWEEN ? AND ? " +
+                        "ORDER BY serials.serial_id",
+                new PreparedStatementSetter() {
+                    @Override
+                    public void setValues(final PreparedStatement ps) throws SQLException {
+                        ps.setInt(1, from);
+                        ps.setInt(2, to);
+                    }
+                },
+                new ResultSetExtractor<Map<Integer, SerialChange>>() {
+                    @Override
+                    public Map<Integer, SerialChange> extractData(final ResultSet rs) throws SQLException, DataAccessException {
+                        final Map<Integer, SerialChange> result = Maps.newLinkedHashMap();
+                        while (rs.next()) {
+                            final int objectId = rs.getInt(1);
+                            final boolean exists = Operation.getByCode(rs.getInt(2)) == Operation.UPDATE && rs.getInt(3) != 0;
+                            result.put(objectId, new SerialChange(objectId, exists ? rs.getBytes(4) : null));
+                        }
+                        return result;
+                    }
+                }
+        );
+
+        final List<Future<?>> futures = Lists.newArrayListWithExpectedSize(changes.size());
+        for (final SerialChange change : changes.values()) {
+            indexWriter.deleteDocuments(new Term(PRIMARY_KEY_FIELD_NAME, Integer.toString(change.objectId)));
+            if (change.object != null) {
+                futures.add(executorService.submit(new DatabaseObjectProcessor(change.objectId, change.object, indexWriter, taxonomyWriter)));
+            }
+        }
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted updating index", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Updating index", e.getCause());
+            }
+        }
+    }
+
+    // sadly Executors don't offer a bounded/blocking submit() implementation
+    private static ExecutorService createExecutorService() {
+        final int numThreads = Runtime.getRuntime().availableProcessors();
+        final ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(numThreads * 64);
+        return new ThreadPoolExecutor(numThreads, numThreads,
+                0L, TimeUnit.MILLISECONDS, workQueue, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     private void updateMetadata(final IndexWriter indexWriter, final String source, final int serial) {
         final Map<String, String> metadata = Maps.newHashMap();
         metadata.put("serial", Integer.toString(serial));
         metadata.put("source", source);
+        metadata.put("version", INDEX_VERSION);
         indexWriter.setCommitData(metadata);
     }
 
@@ -266,8 +338,14 @@ public class FreeTextIndex extends RebuildableIndex {
         return CharMatcher.JAVA_ISO_CONTROL.removeFrom(value);
     }
 
-    private void deleteEntry(final IndexWriter indexWriter, final RpslObject rpslObject) throws IOException {
-        indexWriter.deleteDocuments(new Term(PRIMARY_KEY_FIELD_NAME, Integer.toString(rpslObject.getObjectId())));
+    private static final class SerialChange {
+        private final int objectId;
+        @Nullable private final byte[] object;
+
+        private SerialChange(final int objectId, @Nullable final byte[] object) {
+            this.objectId = objectId;
+            this.object = object;
+        }
     }
 
     final class DatabaseObjectProcessor implements Runnable {
@@ -1,7 +1,11 @@
 package net.ripe.db.whois.api.freetext;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import net.ripe.db.whois.api.search.IndexTemplate;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.facet.FacetResult;
@@ -22,12 +26,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
-import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
-import org.apache.lucene.search.highlight.Highlighter;
-import org.apache.lucene.search.highlight.QueryScorer;
-import org.apache.lucene.search.highlight.SimpleFragmenter;
-import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,11 +36,13 @@ import org.springframework.stereotype.Component;
 import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
-import static net.ripe.db.whois.api.freetext.FreeTextIndex.INDEX_ANALYZER;
 import static net.ripe.db.whois.api.freetext.FreeTextIndex.PRIMARY_KEY_FIELD_NAME;
 
 @Component
@@ -50,6 +51,9 @@ class FreeTextSearch {
 
     static final Sort SORT_BY_OBJECT_TYPE = new Sort(new SortField(FreeTextIndex.OBJECT_TYPE_FIELD_NAME, SortField.Type.STRING));
 
+    private static final FacetsConfig FACETS_CONFIG = new FacetsConfig();
+    private static final Set<String> HIGHLIGHT_FIELD_NAMES = ImmutableSet.copyOf(FreeTextIndex.FIELD_NAMES);
+
     private final FreeTextIndex freeTextIndex;
     private final Marshaller marshaller;
 
@@ -91,38 +95,36 @@ class FreeTextSearch {
             @Override
             public Void search(final IndexReader indexReader, final TaxonomyReader taxonomyReader, final IndexSearcher indexSearcher) throws IOException {
 
-                final int maxResults = Math.max(100, indexReader.numDocs());
-                final TopFieldCollector topFieldCollector = TopFieldCollector.create(SORT_BY_OBJECT_TYPE, maxResults, false, false, false, false);
+                final int start = Math.max(0, searchRequest.getStart());
+                final int rows = searchRequest.getRows();
+                final TopFieldCollector topFieldCollector = TopFieldCollector.create(SORT_BY_OBJECT_TYPE, getMaxResults(indexReader, start, rows), false, false, false, false);
                 final FacetsCollector facetsCollector = new FacetsCollector();
 
                 indexSearcher.search(query, MultiCollector.wrap(topFieldCollector, facetsCollector));
 
-                final List<Document> documents = Lists.newArrayList();
+                // stored fields are only loaded for the returned rows, and reused for highlighting
+                final Map<Integer, Document> documents = Maps.newLinkedHashMap();
 
-                final TopDocs topDocs = topFieldCollector.topDocs();
-                final int start = Math.max(0, searchRequest.getStart());
-                final int end = Math.min(start + searchRequest.getRows(), topDocs.totalHits);
-                for (int index = start; index < end; index++) {
-                    final ScoreDoc scoreDoc = topDocs.scoreDocs[index];
-                    documents.add(indexSearcher.doc(scoreDoc.doc));
+                final int totalHits = topFieldCollector.getTotalHits();
+                for (final ScoreDoc scoreDoc : topFieldCollector.topDocs(start, rows).scoreDocs) {
+                    documents.put(scoreDoc.doc, indexSearcher.doc(scoreDoc.doc));
                 }
 
                 final List<SearchResponse.Lst> responseLstList = Lists.newArrayList();
                 responseLstList.add(getResponseHeader(searchRequest, stopwatch.elapsed(TimeUnit.MILLISECONDS)));
 
                 if (searchRequest.isHighlight()) {
-                    responseLstList.add(createHighlights(searchRequest, query, documents));
+                    responseLstList.add(createHighlights(searchRequest, query, indexSearcher, documents));
                 }
 
                 if (searchRequest.isFacet()) {
-                    final FacetsConfig facetsConfig = new FacetsConfig();
-                    final Facets facets = new FastTaxonomyFacetCounts(taxonomyReader, facetsConfig, facetsCollector);
+                    final Facets facets = new FastTaxonomyFacetCounts(taxonomyReader, FACETS_CONFIG, facetsCollector);
 
                     responseLstList.add(getFacet(facets));
                 }
 
                 final SearchResponse searchResponse = new SearchResponse();
-                searchResponse.setResult(createResult(searchRequest, documents, topDocs.totalHits));
+                searchResponse.setResult(createResult(searchRequest, documents.values(), totalHits));
                 searchResponse.setLsts(responseLstList);
 
                 marshaller.marshal(searchResponse, new StreamResult(writer));
@@ -131,6 +133,14 @@ class FreeTextSearch {
         });
     }
 
+    /**
+     * Only the hits up to the last requested row are collected, instead of every document in the index.
+     */
+    private static int getMaxResults(final IndexReader indexReader, final int start, final int rows) {
+        final long requested = (long) start + Math.max(0, rows);
+        return (int) Math.max(1, Math.min(requested, indexReader.maxDoc()));
+    }
+
     private SearchResponse.Lst getResponseHeader(SearchRequest searchRequest, final long elapsedTime) {
         SearchResponse.Lst responseHeader = new SearchResponse.Lst("responseHeader");
         final List<SearchResponse.Int> responseHeaderInts = Lists.newArrayList(new SearchResponse.Int("status", "0"), new SearchResponse.Int("QTime", Long.toString(elapsedTime)));
@@ -147,7 +157,7 @@ class FreeTextSearch {
         return responseHeader;
     }
 
-    private SearchResponse.Result createResult(final SearchRequest searchRequest, final List<Document> documents, final int totalHits) {
+    private SearchResponse.Result createResult(final SearchRequest searchRequest, final Collection<Document> documents, final int totalHits) {
         final SearchResponse.Result result = new SearchResponse.Result("response", totalHits, searchRequest.getStart());
 
         final List<SearchResponse.Result.Doc> resultDocumentList = Lists.newArrayList();
@@ -167,29 +177,24 @@ class FreeTextSearch {
         return result;
     }
 
-    private SearchResponse.Lst createHighlights(final SearchRequest searchRequest, final Query query, final List<Document> documents) {
+    private SearchResponse.Lst createHighlights(final SearchRequest searchRequest, final Query query, final IndexSearcher indexSearcher, final Map<Integer, Document> documents) throws IOException {
         final SearchResponse.Lst highlight = new SearchResponse.Lst("highlighting");
         final List<SearchResponse.Lst> highlightDocs = Lists.newArrayList();
 
-        final SimpleHTMLFormatter formatter = new SimpleHTMLFormatter(searchRequest.getHighlightPre(), searchRequest.getHighlightPost());
+        final Map<Integer, Map<String, List<String>>> highlights = highlight(searchRequest, query, indexSearcher, documents);
 
-        final Highlighter highlighter = new Highlighter(formatter, new QueryScorer(query));
-        highlighter.setTextFragmenter(new SimpleFragmenter(Integer.MAX_VALUE));
-
-        for (final Document document : documents) {
-            final SearchResponse.Lst documentLst = new SearchResponse.Lst(document.get(PRIMARY_KEY_FIELD_NAME));
+        for (final Map.Entry<Integer, Document> entry : documents.entrySet()) {
+            final SearchResponse.Lst documentLst = new SearchResponse.Lst(entry.getValue().get(PRIMARY_KEY_FIELD_NAME));
             final List<SearchResponse.Arr> documentArrs = Lists.newArrayList();
 
-            for (final IndexableField field : document.getFields()) {
-                try {
-                    final String highlightedValue = highlighter.getBestFragment(INDEX_ANALYZER, field.stringValue(), field.stringValue());
-                    if (highlightedValue != null) {
-                        final SearchResponse.Arr arr = new SearchResponse.Arr(field.name());
+            final Map<String, List<String>> documentHighlights = highlights.get(entry.getKey());
+            if (documentHighlights != null) {
+                for (final Map.Entry<String, List<String>> fieldHighlights : documentHighlights.entrySet()) {
+                    for (final String highlightedValue : fieldHighlights.getValue()) {
+                        final SearchResponse.Arr arr = new SearchResponse.Arr(fieldHighlights.getKey());
                         arr.setStr(new SearchResponse.Str(null, highlightedValue));
                         documentArrs.add(arr);
                     }
-                } catch (Exception e) {
-                    LOGGER.warn("Field name: " + field.name() + " value:" + field.stringValue(), e);
                 }
             }
 
@@ -201,6 +206,34 @@ class FreeTextSearch {
         return highlight;
     }
 
+    /**
+     * Only the searchable fields of the returned documents are highlighted, and only their values matching the query.
+     */
+    private Map<Integer, Map<String, List<String>>> highlight(final SearchRequest searchRequest, final Query query, final IndexSearcher indexSearcher, final Map<Integer, Document> documents) throws IOException {
+        final Set<String> fields = Sets.newLinkedHashSet();
+        for (final Document document : documents.values()) {
+            for (final IndexableField field : document.getFields()) {
+                if (HIGHLIGHT_FIELD_NAMES.contains(field.name())) {
+                    fields.add(field.name());
+                }
+            }
+        }
+
+        if (fields.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final int[] docids = Ints.toArray(documents.keySet());
+        final FreeTextHighlighter highlighter = new FreeTextHighlighter(searchRequest.getHighlightPre(), searchRequest.getHighlightPost(), documents);
+
+        try {
+            return highlighter.highlight(fields.toArray(new String[fields.size()]), query, indexSearcher, docids);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unable to highlight query: {}", query, e);
+            return Collections.emptyMap();
+        }
+    }
+
     private SearchResponse.Lst getFacet(final Facets facets) throws IOException {
         final SearchResponse.Lst facetCounts = new SearchResponse.Lst("facet_counts");
         final List<SearchResponse.Lst> facetCountsList = Lists.newArrayList();
@@ -3,15 +3,13 @@ package net.ripe.db.whois.api.search;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import org.apache.commons.lang.StringUtils;
 import org.apache.lucene.facet.taxonomy.FacetLabel;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
 import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
-import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyReader;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
-import org.apache.lucene.index.ReaderManager;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -35,7 +33,7 @@ public class IndexTemplate implements Closeable {
     private final Semaphore updateLock = new Semaphore(1);
 
     private IndexWriter indexWriter;
-    private ReaderManager readerManager;
+    private volatile SearcherTaxonomyManager searcherManager;
     private DirectoryTaxonomyWriter taxonomyWriter;
     private IndexWriterConfig config;
 
@@ -66,24 +64,24 @@ public class IndexTemplate implements Closeable {
         updateLock.acquireUninterruptibly();
 
         try {
-            closeWhileHandlingException(readerManager, indexWriter, taxonomyWriter, index, taxonomy);
+            commitWriters();
         } finally {
+            closeWhileHandlingException(searcherManager, indexWriter, taxonomyWriter, index, taxonomy);
             updateLock.release();
         }
     }
 
+    /**
+     * Changes are visible to searches as soon as the write returns, through near-real-time readers opened from the
+     * writers, but they are only durable after the next {@link #commit()}. If the write fails, all changes since the
+     * last commit are rolled back, together with the commit data describing them.
+     */
     public void write(final WriteCallback writeCallback) throws IOException {
         updateLock.acquireUninterruptibly();
 
         try {
             writeCallback.write(indexWriter, taxonomyWriter);
-            taxonomyWriter.prepareCommit();
-            indexWriter.prepareCommit();
-
-            taxonomyWriter.commit();
-            indexWriter.commit();
-
-            readerManager.maybeRefresh();
+            searcherManager.maybeRefresh();
         } catch (IOException e) {
             LOGGER.error("Unexpected", e);
             rollback();
@@ -101,6 +99,33 @@ public class IndexTemplate implements Closeable {
         }
     }
 
+    public void commit() throws IOException {
+        updateLock.acquireUninterruptibly();
+
+        try {
+            commitWriters();
+        } catch (IOException e) {
+            LOGGER.error("Unexpected", e);
+            rollback();
+            throw e;
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected", e);
+            rollback();
+            throw e;
+        } finally {
+            updateLock.release();
+        }
+    }
+
+    // the taxonomy is committed first, so the committed index never refers to missing categories
+    private void commitWriters() throws IOException {
+        taxonomyWriter.prepareCommit();
+        indexWriter.prepareCommit();
+
+        taxonomyWriter.commit();
+        indexWriter.commit();
+    }
+
     private void rollback() throws IOException {
         try {
             indexWriter.rollback();
@@ -111,7 +136,7 @@ public class IndexTemplate implements Closeable {
     }
 
     private void createNewWriters() throws IOException {
-        closeWhileHandlingException(taxonomyWriter, indexWriter);
+        closeWhileHandlingException(searcherManager, taxonomyWriter, indexWriter);
         taxonomyWriter = new DirectoryTaxonomyWriter(taxonomy);
         addFacetCategories(taxonomyWriter);
 
@@ -121,7 +146,7 @@ public class IndexTemplate implements Closeable {
         taxonomyWriter.commit();
         indexWriter.commit();
 
-        readerManager = new ReaderManager(indexWriter, true);
+        searcherManager = new SearcherTaxonomyManager(indexWriter, true, null, taxonomyWriter);
     }
 
     private static void addFacetCategories(final TaxonomyWriter taxonomyWriter) throws IOException {
@@ -132,30 +157,29 @@ public class IndexTemplate implements Closeable {
     }
 
     public <T> T read(final ReadCallback<T> readCallback) throws IOException {
-        DirectoryReader indexReader = null;
-        TaxonomyReader taxonomyReader = null;
+        return search(new SearchCallback<T>() {
+            @Override
+            public T search(final IndexReader indexReader, final TaxonomyReader taxonomyReader, final IndexSearcher indexSearcher) throws IOException {
+                return readCallback.read(indexReader, taxonomyReader);
+            }
+        });
+    }
 
-        try {
-            indexReader = readerManager.acquire();
-            taxonomyReader = new DirectoryTaxonomyReader(taxonomy);
+    /**
+     * The searcher and taxonomy reader are shared between searches, and refreshed together after every write.
+     */
+    public <T> T search(final SearchCallback<T> searchCallback) throws IOException {
+        final SearcherTaxonomyManager manager = searcherManager;
+        final SearcherTaxonomyManager.SearcherAndTaxonomy searcherAndTaxonomy = manager.acquire();
 
-            return readCallback.read(indexReader, taxonomyReader);
+        try {
+            final IndexSearcher indexSearcher = searcherAndTaxonomy.searcher;
+            return searchCallback.search(indexSearcher.getIndexReader(), searcherAndTaxonomy.taxonomyReader, indexSearcher);
         } finally {
-            closeWhileHandlingException(taxonomyReader);
-            readerManager.release(indexReader);
+            manager.release(searcherAndTaxonomy);
         }
     }
 
-    public <T> T search(final SearchCallback<T> searchCallback) throws IOException {
-        return read(new ReadCallback<T>() {
-            @Override
-            public T read(final IndexReader indexReader, final TaxonomyReader taxonomyReader) throws IOException {
-                final IndexSearcher indexSearcher = new IndexSearcher(indexReader);
-                return searchCallback.search(indexReader, taxonomyReader, indexSearcher);
-            }
-        });
-    }
-
     public interface WriteCallback {
         void write(IndexWriter indexWriter, TaxonomyWriter taxonomyWriter) throws IOException;
     }
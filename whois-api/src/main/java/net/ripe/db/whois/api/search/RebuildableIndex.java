@@ -32,6 +32,7 @@ public abstract class RebuildableIndex {
         try {
             index = new IndexTemplate(indexDir, config);
             index.write(initializer);
+            index.commit();
         } catch (IOException e) {
             throw new IllegalStateException(String.format("Initializing index in %s", indexDir), e);
         } finally {
@@ -54,6 +55,7 @@ public abstract class RebuildableIndex {
                     rebuild(indexWriter, taxonomyWriter);
                 }
             });
+            index.commit();
             logger.info("Rebuilt index {} in {}", indexDir, stopwatch.stop());
         } catch (IOException e) {
             logger.error("Rebuilding index: {}", indexDir, e);
@@ -86,6 +88,25 @@ public abstract class RebuildableIndex {
         }
     }
 
+    /**
+     * Make the changes since the last commit durable. Updates are searchable before they are committed; after a crash
+     * the index continues from the state, including the commit data, of the last commit.
+     */
+    public final void commit() {
+        if (!updateLock.tryAcquire()) {
+            logger.warn("Indexing in progress, skipping commit for {}", indexDir);
+            return;
+        }
+
+        try {
+            index.commit();
+        } catch (IOException e) {
+            logger.error("Committing index: {}", indexDir, e);
+        } finally {
+            updateLock.release();
+        }
+    }
+
     public void delete(final Query query) {
         if (!updateLock.tryAcquire()) {
             logger.warn("Indexing in progress, skipping delete for {}", query.toString());
@@ -99,6 +120,7 @@ public abstract class RebuildableIndex {
                     indexWriter.deleteDocuments(query);
                 }
             });
+            index.commit();
         } catch (IOException e) {
             logger.error("Updating index: {}", indexDir, e);
         } finally {
@@ -0,0 +1,154 @@
+package net.ripe.db.whois.api.freetext;
+
+import net.ripe.db.whois.api.AbstractIntegrationTest;
+import net.ripe.db.whois.common.IntegrationTest;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+@Category(IntegrationTest.class)
+public class FreeTextSearchLoadTestIntegration extends AbstractIntegrationTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FreeTextSearchLoadTestIntegration.class);
+
+    private static final int NR_OBJECTS = 5000;
+    private static final int NR_THREADS = 8;
+    private static final int NR_QUERIES_PER_THREAD = 500;
+    private static final int NR_WARMUP_QUERIES = 100;
+
+    // average latency budget of broad highlight queries, only asserted when set, e.g. -Dfreetext.highlight.budget.millis=100
+    private static final Long LATENCY_BUDGET_IN_MILLIS = Long.getLong("freetext.highlight.budget.millis");
+
+    private static final String[] QUERIES = {
+            "q=ripe&facet=true",
+            "q=network&facet=true&rows=50",
+            "q=person&start=100&rows=10",
+            "q=TP1234-RIPE",
+            "q=10.0.1.0",
+    };
+
+    private static final String[] HIGHLIGHT_QUERIES = {
+            "q=ripe&hl=true",
+            "q=network&hl=true&rows=50",
+    };
+
+    @Autowired FreeTextIndex freeTextIndex;
+    @Autowired FreeTextSearch freeTextSearch;
+
+    @BeforeClass
+    public static void setProperty() {
+        System.setProperty("dir.freetext.index", "var${jvmId:}/idx");
+    }
+
+    @AfterClass
+    public static void clearProperty() {
+        System.clearProperty("dir.freetext.index");
+    }
+
+    @Test
+    public void search_concurrently() throws Exception {
+        addObjects();
+
+        assertThat(search("q=TP1234-RIPE"), containsString("numFound=\"1\""));
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(NR_THREADS);
+        final List<Future<Long>> futures = newArrayList();
+
+        final long start = System.nanoTime();
+        for (int thread = 0; thread < NR_THREADS; thread++) {
+            futures.add(executorService.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    long maxNanos = 0;
+                    for (int i = 0; i < NR_QUERIES_PER_THREAD; i++) {
+                        final long queryStart = System.nanoTime();
+                        search(QUERIES[i % QUERIES.length]);
+                        maxNanos = Math.max(maxNanos, System.nanoTime() - queryStart);
+                    }
+                    return maxNanos;
+                }
+            }));
+        }
+
+        long maxNanos = 0;
+        for (final Future<Long> future : futures) {
+            maxNanos = Math.max(maxNanos, future.get());
+        }
+
+        final long nanos = System.nanoTime() - start;
+        executorService.shutdown();
+
+        final int nrQueries = NR_THREADS * NR_QUERIES_PER_THREAD;
+        LOGGER.info("{} queries on {} threads: {} queries/s, {} ms average, {} ms maximum",
+                nrQueries, NR_THREADS,
+                nrQueries * TimeUnit.SECONDS.toNanos(1) / nanos,
+                TimeUnit.NANOSECONDS.toMillis(nanos * NR_THREADS / nrQueries),
+                TimeUnit.NANOSECONDS.toMillis(maxNanos));
+    }
+
+    @Test
+    public void highlight_broad_terms() throws Exception {
+        addObjects();
+
+        for (final String query : HIGHLIGHT_QUERIES) {
+            for (int i = 0; i < NR_WARMUP_QUERIES; i++) {
+                search(query);
+            }
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < NR_QUERIES_PER_THREAD; i++) {
+                search(query);
+            }
+            final long averageMillis = TimeUnit.NANOSECONDS.toMillis((System.nanoTime() - start) / NR_QUERIES_PER_THREAD);
+
+            LOGGER.info("{}: {} ms average, budget {} ms", query, averageMillis, LATENCY_BUDGET_IN_MILLIS);
+            if (LATENCY_BUDGET_IN_MILLIS != null) {
+                assertThat(query, averageMillis, lessThanOrEqualTo(LATENCY_BUDGET_IN_MILLIS));
+            }
+        }
+    }
+
+    private void addObjects() {
+        databaseHelper.addObject("mntner: RIPE-MNT\nsource: RIPE");
+        for (int i = 0; i < NR_OBJECTS; i++) {
+            databaseHelper.addObject(RpslObject.parse("" +
+                    "person:  Test Person\n" +
+                    "address: Singel 258\n" +
+                    "phone:   +31 20 535 4444\n" +
+                    "nic-hdl: TP" + i + "-RIPE\n" +
+                    "mnt-by:  RIPE-MNT\n" +
+                    "source:  RIPE"));
+            databaseHelper.addObject(RpslObject.parse("" +
+                    "inetnum: 10." + (i / 256) + "." + (i % 256) + ".0 - 10." + (i / 256) + "." + (i % 256) + ".255\n" +
+                    "netname: NETWORK-" + i + "\n" +
+                    "descr:   RIPE network " + i + "\n" +
+                    "admin-c: TP" + i + "-RIPE\n" +
+                    "mnt-by:  RIPE-MNT\n" +
+                    "source:  RIPE"));
+        }
+        freeTextIndex.rebuild();
+    }
+
+    private String search(final String query) throws Exception {
+        final StringWriter writer = new StringWriter();
+        freeTextSearch.freeTextSearch(query, writer);
+        return writer.toString();
+    }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -120,6 +121,26 @@ public class FreeTextSearchTestIntegration extends AbstractIntegrationTest {
         assertThat(map.keySet(), contains("remarks"));
     }
 
+    @Test
+    public void search_highlights_only_matching_values() throws Exception {
+        databaseHelper.addObject(RpslObject.parse("" +
+                "mntner: DEV1-MNT\n" +
+                "descr: RIPE network\n" +
+                "remarks: another network\n" +
+                "remarks: no match\n" +
+                "source: RIPE"));
+        freeTextIndex.rebuild();
+
+        final QueryResponse queryResponse = parseResponse(query("q=network&hl=true"));
+
+        assertThat(queryResponse.getStatus(), is(0));
+        assertThat(queryResponse.getResults().getNumFound(), is(1L));
+        final Map<String, List<String>> map = queryResponse.getHighlighting().get("1");
+        assertThat(map.keySet(), containsInAnyOrder("descr", "remarks"));
+        assertThat(map.get("descr"), contains("RIPE <b>network</b>"));
+        assertThat(map.get("remarks"), contains("another <b>network</b>"));
+    }
+
     @Test
     public void search_multiple_results_with_facet() throws Exception {
         databaseHelper.addObject(RpslObject.parse("" +
@@ -357,6 +378,37 @@ public class FreeTextSearchTestIntegration extends AbstractIntegrationTest {
         assertThat(query("q=JM1-RIPE"), containsString("numFound=\"0\""));
     }
 
+    @Test
+    public void search_for_object_changed_many_times_since_update() {
+        final RpslObject deleted = RpslObject.parse("" +
+                "person: John McDonald\n" +
+                "nic-hdl: JM1-RIPE\n" +
+                "source: RIPE");
+        databaseHelper.addObject(deleted);
+        databaseHelper.addObject(RpslObject.parse("" +
+                "mntner: DEV-MNT\n" +
+                "remarks: first\n" +
+                "source: RIPE"));
+        freeTextIndex.update();
+
+        databaseHelper.deleteObject(deleted);
+        databaseHelper.updateObject(RpslObject.parse("" +
+                "mntner: DEV-MNT\n" +
+                "remarks: second\n" +
+                "source: RIPE"));
+        databaseHelper.updateObject(RpslObject.parse("" +
+                "mntner: DEV-MNT\n" +
+                "remarks: third\n" +
+                "source: RIPE"));
+        freeTextIndex.update();
+
+        assertThat(query("q=JM1-RIPE"), containsString("numFound=\"0\""));
+        assertThat(query("q=DEV-MNT"), containsString("numFound=\"1\""));
+        assertThat(query("q=first"), containsString("numFound=\"0\""));
+        assertThat(query("q=second"), containsString("numFound=\"0\""));
+        assertThat(query("q=third"), containsString("numFound=\"1\""));
+    }
+
     @Test
     public void search_with_forward_slash() {
         databaseHelper.addObject(RpslObject.parse(
@@ -7,6 +7,7 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
 import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
@@ -16,6 +17,8 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Version;
 import org.junit.After;
 import org.junit.Before;
@@ -23,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -259,6 +263,66 @@ public class IndexTemplateTest {
         }
     }
 
+    @Test
+    public void write_searchable_before_commit() throws IOException {
+        subject.write(new IndexTemplate.WriteCallback() {
+            @Override
+            public void write(final IndexWriter indexWriter, final TaxonomyWriter taxonomyWriter) throws IOException {
+                addDoc(indexWriter, "title", "isbn");
+            }
+        });
+
+        assertThat(numDocs(), is(1));
+        assertThat(numCommittedDocs(), is(0));
+
+        subject.commit();
+
+        assertThat(numDocs(), is(1));
+        assertThat(numCommittedDocs(), is(1));
+    }
+
+    @Test
+    public void rollback_to_last_commit() throws IOException {
+        subject.write(new IndexTemplate.WriteCallback() {
+            @Override
+            public void write(final IndexWriter indexWriter, final TaxonomyWriter taxonomyWriter) throws IOException {
+                addDoc(indexWriter, "title", "isbn");
+            }
+        });
+        subject.commit();
+
+        subject.write(new IndexTemplate.WriteCallback() {
+            @Override
+            public void write(final IndexWriter indexWriter, final TaxonomyWriter taxonomyWriter) throws IOException {
+                addDoc(indexWriter, "title", "isbn");
+            }
+        });
+
+        try {
+            subject.write(new IndexTemplate.WriteCallback() {
+                @Override
+                public void write(final IndexWriter indexWriter, final TaxonomyWriter taxonomyWriter) throws IOException {
+                    addDoc(indexWriter, "title", "isbn");
+                    throw new IllegalStateException();
+                }
+            });
+
+            fail("Expected exception");
+        } catch (IllegalStateException ignored) {
+        }
+
+        assertThat(numDocs(), is(1));
+    }
+
+    int numCommittedDocs() throws IOException {
+        final Directory directory = FSDirectory.open(new File(folder.getRoot(), "index"));
+        try (final DirectoryReader directoryReader = DirectoryReader.open(directory)) {
+            return directoryReader.numDocs();
+        } finally {
+            directory.close();
+        }
+    }
+
     int numDocs() throws IOException {
         return subject.read(new IndexTemplate.ReadCallback<Integer>() {
             @Override
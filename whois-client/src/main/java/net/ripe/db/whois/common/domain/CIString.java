@@ -9,12 +9,22 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Set;
 
+/**
+ * Case insensitive string, comparing like the lower case of the value.
+ * <p/>
+ * Values with only ISO-8859-1 characters, created in a locale without special lower case rules, are compared by
+ * converting their characters to lower case on the fly, and create the lower case value only when it is asked for.
+ * Other values keep their lower case value.
+ */
 @Immutable
 public final class CIString implements Comparable<CIString>, CharSequence {
     private final String value;
-    private final String lcValue;
+    private final boolean foldCharacters;
+    private String lcValue;
+    private int hash;
 
     @Nullable @Contract("null -> null;!null -> !null")
     public static CIString ciString(final String value) {
@@ -58,7 +68,29 @@ public final class CIString implements Comparable<CIString>, CharSequence {
 
     private CIString(final String value) {
         this.value = value;
-        this.lcValue = value.toLowerCase();
+        this.foldCharacters = isLatin1(value) && hasSimpleLowerCase(Locale.getDefault());
+        if (!foldCharacters) {
+            this.lcValue = value.toLowerCase();
+        }
+    }
+
+    private static boolean isLatin1(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > '\u00ff') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * String.toLowerCase() has special rules for Turkish, Azerbaijani and Lithuanian,
+     * otherwise it converts ISO-8859-1 characters one by one like Character.toLowerCase().
+     */
+    private static boolean hasSimpleLowerCase(final Locale locale) {
+        final String language = locale.getLanguage();
+        return !("tr".equals(language) || "az".equals(language) || "lt".equals(language));
     }
 
     @Override
@@ -75,17 +107,71 @@ public final class CIString implements Comparable<CIString>, CharSequence {
             return value.equalsIgnoreCase((String) o);
         }
 
-        return getClass() == o.getClass() && lcValue.equals(((CIString) o).lcValue);
+        if (getClass() != o.getClass()) {
+            return false;
+        }
+
+        final CIString other = (CIString) o;
+        if (foldCharacters && other.foldCharacters) {
+            if (value.length() != other.value.length()) {
+                return false;
+            }
+
+            if (hash != 0 && other.hash != 0 && hash != other.hash) {
+                return false;
+            }
+
+            return compareFolded(other) == 0;
+        }
+
+        return toLowerCase().equals(other.toLowerCase());
     }
 
     @Override
     public int hashCode() {
-        return lcValue.hashCode();
+        int result = hash;
+        if (result == 0) {
+            if (foldCharacters) {
+                for (int i = 0; i < value.length(); i++) {
+                    result = 31 * result + Character.toLowerCase(value.charAt(i));
+                }
+            } else {
+                result = lcValue.hashCode();
+            }
+
+            hash = result;
+        }
+
+        return result;
     }
 
     @Override
     public int compareTo(@Nonnull final CIString o) {
-        return lcValue.compareTo(o.lcValue);
+        if (foldCharacters && o.foldCharacters) {
+            return compareFolded(o);
+        }
+
+        return toLowerCase().compareTo(o.toLowerCase());
+    }
+
+    /**
+     * @return the same result as comparing the lower case values.
+     */
+    private int compareFolded(final CIString other) {
+        final int length = Math.min(value.length(), other.value.length());
+        for (int i = 0; i < length; i++) {
+            final char c1 = value.charAt(i);
+            final char c2 = other.value.charAt(i);
+            if (c1 != c2) {
+                final char lc1 = Character.toLowerCase(c1);
+                final char lc2 = Character.toLowerCase(c2);
+                if (lc1 != lc2) {
+                    return lc1 - lc2;
+                }
+            }
+        }
+
+        return value.length() - other.value.length();
     }
 
     @Override @Nonnull
@@ -94,7 +180,13 @@ public final class CIString implements Comparable<CIString>, CharSequence {
     }
 
     public String toLowerCase() {
-        return lcValue;
+        String result = lcValue;
+        if (result == null) {
+            result = value.toLowerCase();
+            lcValue = result;
+        }
+
+        return result;
     }
 
     public String toUpperCase() {
@@ -121,27 +213,27 @@ public final class CIString implements Comparable<CIString>, CharSequence {
     }
 
     public boolean startsWith(final CIString value) {
-        return lcValue.startsWith(value.lcValue);
+        return toLowerCase().startsWith(value.toLowerCase());
     }
 
     public boolean startsWith(final String value) {
-        return lcValue.startsWith(value.toLowerCase());
+        return toLowerCase().startsWith(value.toLowerCase());
     }
 
     public boolean contains(final CIString value) {
-        return lcValue.contains(value.lcValue);
+        return toLowerCase().contains(value.toLowerCase());
     }
 
     public boolean contains(final String value) {
-        return lcValue.contains(value.toLowerCase());
+        return toLowerCase().contains(value.toLowerCase());
     }
 
     public boolean endsWith(final CIString value) {
-        return lcValue.endsWith(value.lcValue);
+        return toLowerCase().endsWith(value.toLowerCase());
     }
 
     public boolean endsWith(final String value) {
-        return lcValue.endsWith(value.toLowerCase());
+        return toLowerCase().endsWith(value.toLowerCase());
     }
 
     public CIString append(final CIString other) {
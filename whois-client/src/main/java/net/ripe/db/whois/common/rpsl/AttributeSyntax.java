@@ -73,10 +73,10 @@ public interface AttributeSyntax extends Documented {
             "name components of a hierarchical as-name have to be as-set\n" +
             "names.\n");
 
-    AttributeSyntax AGGR_BNDRY_SYNTAX = new AttributeSyntaxParser(new AggrBndryParser(), "" +
+    AttributeSyntax AGGR_BNDRY_SYNTAX = new GeneratedSyntax(AggrBndryParser.class, "" +
             "[<as-expression>]\n");
 
-    AttributeSyntax AGGR_MTD_SYNTAX = new AttributeSyntaxParser(new AggrMtdParser(), "" +
+    AttributeSyntax AGGR_MTD_SYNTAX = new GeneratedSyntax(AggrMtdParser.class, "" +
             "inbound | outbound [<as-expression>]\n");
 
     AttributeSyntax AUTH_SCHEME_SYNTAX = new AttributeSyntaxRegexp(
@@ -123,12 +123,12 @@ public interface AttributeSyntax extends Documented {
             "An e-mail address as defined in RFC 2822, followed by a date\n" +
             "in the format YYYYMMDD.\n");
 
-    AttributeSyntax COUNTRY_CODE_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("(?i)^[a-z]{2}$"),
+    AttributeSyntax COUNTRY_CODE_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("(?i)^[a-z]{2}$"), AttributeValueMatchers.TWO_LETTERS,
             "Valid two-letter ISO 3166 country code.");
 
     AttributeSyntax COMPONENTS_SYNTAX = new ComponentsSyntax();
 
-    AttributeSyntax DEFAULT_SYNTAX = new AttributeSyntaxParser(new DefaultParser(), "" +
+    AttributeSyntax DEFAULT_SYNTAX = new GeneratedSyntax(DefaultParser.class, "" +
             "to <peering> [action <action>] [networks <filter>]");
 
     AttributeSyntax DOMAIN_SYNTAX = new AttributeSyntaxParser(new AttributeParser.DomainParser(), "" +
@@ -150,12 +150,12 @@ public interface AttributeSyntax extends Documented {
             "\n" +
             "For more details, see RFC4034.\n");
 
-    AttributeSyntax EMAIL_SYNTAX = new AttributeSyntaxRegexp(80, Pattern.compile("(?i)^.+@([^.]+[.])+[^.]+$"),
+    AttributeSyntax EMAIL_SYNTAX = new AttributeSyntaxRegexp(80, Pattern.compile("(?i)^.+@([^.]+[.])+[^.]+$"), AttributeValueMatchers.EMAIL,
             "An e-mail address as defined in RFC 2822.\n");
 
     AttributeSyntax EXPORT_COMPS_SYNTAX = new ExportCompsSyntax();
 
-    AttributeSyntax EXPORT_SYNTAX = new AttributeSyntaxParser(new ExportParser(), "" +
+    AttributeSyntax EXPORT_SYNTAX = new GeneratedSyntax(ExportParser.class, "" +
             "[protocol <protocol-1>] [into <protocol-1>]\n" +
             "to <peering-1> [action <action-1>]\n" +
             "    .\n" +
@@ -164,7 +164,7 @@ public interface AttributeSyntax extends Documented {
             "to <peering-N> [action <action-N>]\n" +
             "announce <filter>\n");
 
-    AttributeSyntax FILTER_SYNTAX = new AttributeSyntaxParser(new FilterParser(), "" +
+    AttributeSyntax FILTER_SYNTAX = new GeneratedSyntax(FilterParser.class, "" +
             "Logical expression which when applied to a set of routes\n" +
             "returns a subset of these routes. Please refer to RFC 2622\n" +
             "for more information.\n");
@@ -182,7 +182,7 @@ public interface AttributeSyntax extends Documented {
             "set name components of a hierarchical filter-name have to be\n" +
             "filter-set names.\n");
 
-    AttributeSyntax FREE_FORM_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("(?s)^.*$"), "" +
+    AttributeSyntax FREE_FORM_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("(?s)^.*$"), AttributeValueMatchers.FREE_FORM, "" +
             "A sequence of ASCII characters.\n");
 
     AttributeSyntax GENERATED_SYNTAX = new AnySyntax("" +
@@ -190,7 +190,7 @@ public interface AttributeSyntax extends Documented {
 
     AttributeSyntax GEOLOC_SYNTAX = new GeolocSyntax();
     AttributeSyntax HOLES_SYNTAX = new RoutePrefixSyntax();
-    AttributeSyntax IMPORT_SYNTAX = new AttributeSyntaxParser(new ImportParser(), "" +
+    AttributeSyntax IMPORT_SYNTAX = new GeneratedSyntax(ImportParser.class, "" +
             "[protocol <protocol-1>] [into <protocol-1>]\n" +
             "from <peering-1> [action <action-1>]\n" +
             "    .\n" +
@@ -206,12 +206,12 @@ public interface AttributeSyntax extends Documented {
             "254 characters (octets).\n"
     );
 
-    AttributeSyntax IFADDR_SYNTAX = new AttributeSyntaxParser(new IfaddrParser(), "" +
+    AttributeSyntax IFADDR_SYNTAX = new GeneratedSyntax(IfaddrParser.class, "" +
             "<ipv4-address> masklen <integer> [action <action>]");
 
     AttributeSyntax INJECT_SYNTAX = new InjectSyntax();
 
-    AttributeSyntax INTERFACE_SYNTAX = new AttributeSyntaxParser(new InterfaceParser(), "" +
+    AttributeSyntax INTERFACE_SYNTAX = new GeneratedSyntax(InterfaceParser.class, "" +
             "afi <afi> <ipv4-address> masklen <integer> [action <action>]\n" +
             "afi <afi> <ipv6-address> masklen <integer> [action <action>]\n" +
             "          [tunnel <remote-endpoint-address>,<encapsulation>]\n");
@@ -236,7 +236,7 @@ public interface AttributeSyntax extends Documented {
             "hexadecimal format without \"0x\" prefix."
     );
 
-    AttributeSyntax LANGUAGE_CODE_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("(?i)^[a-z]{2}$"), "" +
+    AttributeSyntax LANGUAGE_CODE_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("(?i)^[a-z]{2}$"), AttributeValueMatchers.TWO_LETTERS, "" +
             "Valid two-letter ISO 639-1 language code.\n");
 
     AttributeSyntax MBRS_BY_REF_SYNTAX = new AnySyntax("" +
@@ -257,10 +257,10 @@ public interface AttributeSyntax extends Documented {
         put(ObjectType.ROUTE6, "<mnt-name> [ { list of <ipv6-address>/<prefix> } | ANY ]\n");
     }}));
 
-    AttributeSyntax MP_DEFAULT_SYNTAX = new AttributeSyntaxParser(new MpDefaultParser(), "" +
+    AttributeSyntax MP_DEFAULT_SYNTAX = new GeneratedSyntax(MpDefaultParser.class, "" +
             "to <peering> [action <action>] [networks <filter>]\n");
 
-    AttributeSyntax MP_EXPORT_SYNTAX = new AttributeSyntaxParser(new MpExportParser(), "" +
+    AttributeSyntax MP_EXPORT_SYNTAX = new GeneratedSyntax(MpExportParser.class, "" +
             "[protocol <protocol-1>] [into <protocol-1>]\n" +
             "afi <afi-list>\n" +
             "to <peering-1> [action <action-1>]\n" +
@@ -270,7 +270,7 @@ public interface AttributeSyntax extends Documented {
             "to <peering-N> [action <action-N>]\n" +
             "announce <filter>\n");
 
-    AttributeSyntax EXPORT_VIA_SYNTAX = new AttributeSyntaxParser(new ExportViaParser(), "" +
+    AttributeSyntax EXPORT_VIA_SYNTAX = new GeneratedSyntax(ExportViaParser.class, "" +
             "[protocol <protocol-1>] [into <protocol-2>]   \n" +
             "afi <afi-list>\n" +
             "<peering-1>\n" +
@@ -282,12 +282,12 @@ public interface AttributeSyntax extends Documented {
             "to <peering-M> [action <action-1>; <action-2>; ... <action-N>;]\n" +
             "announce <filter>\n");
 
-    AttributeSyntax MP_FILTER_SYNTAX = new AttributeSyntaxParser(new MpFilterParser(), "" +
+    AttributeSyntax MP_FILTER_SYNTAX = new GeneratedSyntax(MpFilterParser.class, "" +
             "Logical expression which when applied to a set of multiprotocol\n" +
             "routes returns a subset of these routes. Please refer to RPSLng\n" +
             "Internet Draft for more information.\n");
 
-    AttributeSyntax MP_IMPORT_SYNTAX = new AttributeSyntaxParser(new MpImportParser(), "" +
+    AttributeSyntax MP_IMPORT_SYNTAX = new GeneratedSyntax(MpImportParser.class, "" +
             "[protocol <protocol-1>] [into <protocol-1>]\n" +
             "afi <afi-list>\n" +
             "from <peering-1> [action <action-1>]\n" +
@@ -298,7 +298,7 @@ public interface AttributeSyntax extends Documented {
             "accept (<filter>|<filter> except <importexpression>|\n" +
             "        <filter> refine <importexpression>)\n");
 
-    AttributeSyntax IMPORT_VIA_SYNTAX = new AttributeSyntaxParser(new ImportViaParser(), "" +
+    AttributeSyntax IMPORT_VIA_SYNTAX = new GeneratedSyntax(ImportViaParser.class, "" +
             "[protocol <protocol-1>] [into <protocol-2>]\n" +
             "afi <afi-list>\n" +
             "<peering-1>\n" +
@@ -313,7 +313,7 @@ public interface AttributeSyntax extends Documented {
 
     AttributeSyntax MP_MEMBERS_SYNTAX = new MembersSyntax(true);
 
-    AttributeSyntax MP_PEER_SYNTAX = new AttributeSyntaxParser(new MpPeerParser(), new Multiple(new HashMap<ObjectType, String>() {{
+    AttributeSyntax MP_PEER_SYNTAX = new GeneratedSyntax(MpPeerParser.class, new Multiple(new HashMap<ObjectType, String>() {{
         put(ObjectType.INET_RTR, "" +
                 "<protocol> afi <afi> <ipv4- or ipv6- address> <options>\n" +
                 "| <protocol> <inet-rtr-name> <options>\n" +
@@ -325,16 +325,16 @@ public interface AttributeSyntax extends Documented {
 
     }}));
 
-    AttributeSyntax MP_PEERING_SYNTAX = new AttributeSyntaxParser(new MpPeeringParser(), "" +
+    AttributeSyntax MP_PEERING_SYNTAX = new GeneratedSyntax(MpPeeringParser.class, "" +
             "afi <afi> <peering>\n");
 
-    AttributeSyntax NETNAME_SYNTAX = new AttributeSyntaxRegexp(80, Pattern.compile("(?i)^[A-Z]([A-Z0-9_-]*[A-Z0-9])?$"), "" +
+    AttributeSyntax NETNAME_SYNTAX = new AttributeSyntaxRegexp(80, Pattern.compile("(?i)^[A-Z]([A-Z0-9_-]*[A-Z0-9])?$"), AttributeValueMatchers.NETNAME, "" +
             "Made up of letters, digits, the character underscore \"_\",\n" +
             "and the character hyphen \"-\"; the first character of a name\n" +
             "must be a letter, and the last character of a name must be a\n" +
             "letter or a digit.\n");
 
-    AttributeSyntax NIC_HANDLE_SYNTAX = new AttributeSyntaxRegexp(30, Pattern.compile("(?i)^([A-Z]{2,4}([1-9][0-9]{0,5})?(-[A-Z]{2,10})?|AUTO-[1-9][0-9]*([A-Z]{2,4})?)$"), "" +
+    AttributeSyntax NIC_HANDLE_SYNTAX = new AttributeSyntaxRegexp(30, Pattern.compile("(?i)^([A-Z]{2,4}([1-9][0-9]{0,5})?(-[A-Z]{2,10})?|AUTO-[1-9][0-9]*([A-Z]{2,4})?)$"), AttributeValueMatchers.NIC_HANDLE, "" +
             "From 2 to 4 characters optionally followed by up to 6 digits\n" +
             "optionally followed by a source specification.  The first digit\n" +
             "must not be \"0\".  Source specification starts with \"-\" followed\n" +
@@ -352,7 +352,7 @@ public interface AttributeSyntax extends Documented {
             "The nameserver name may be followed by an IP address only when\n" +
             "the name is inside of the domain being delegated.\n");
 
-    AttributeSyntax NUMBER_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("^[0-9]+$"), "" +
+    AttributeSyntax NUMBER_SYNTAX = new AttributeSyntaxRegexp(Pattern.compile("^[0-9]+$"), AttributeValueMatchers.NUMBER, "" +
             "Specifies a numeric value.\n");
 
     AttributeSyntax OBJECT_NAME_SYNTAX = new AttributeSyntaxParser(new AttributeParser.NameParser(), "" +
@@ -378,7 +378,7 @@ public interface AttributeSyntax extends Documented {
     AttributeSyntax REFERRAL_SYNTAX = new AttributeSyntaxParser(new AttributeParser.NameParser());
 
     AttributeSyntax SOURCE_SYNTAX = new AttributeSyntaxRegexp(80,
-            Pattern.compile("(?i)^[A-Z][A-Z0-9_-]*[A-Z0-9]$"), "" +
+            Pattern.compile("(?i)^[A-Z][A-Z0-9_-]*[A-Z0-9]$"), AttributeValueMatchers.SOURCE, "" +
             "Made up of letters, digits, the character underscore \"_\",\n" +
             "and the character hyphen \"-\"; the first character of a\n" +
             "registry name must be a letter, and the last character of a\n" +
@@ -402,13 +402,13 @@ public interface AttributeSyntax extends Documented {
 
     AttributeSyntax ORG_TYPE_SYNTAX = new OrgTypeSyntax();
 
-    AttributeSyntax PEER_SYNTAX = new AttributeSyntaxParser(new PeerParser(), "" +
+    AttributeSyntax PEER_SYNTAX = new GeneratedSyntax(PeerParser.class, "" +
             "<protocol> <ipv4-address> <options>\n" +
             "| <protocol> <inet-rtr-name> <options>\n" +
             "| <protocol> <rtr-set-name> <options>\n" +
             "| <protocol> <peering-set-name> <options>\n");
 
-    AttributeSyntax PEERING_SYNTAX = new AttributeSyntaxParser(new PeeringParser(), "" +
+    AttributeSyntax PEERING_SYNTAX = new GeneratedSyntax(PeeringParser.class, "" +
             "<peering>\n");
 
     AttributeSyntax PERSON_ROLE_NAME_SYNTAX = new PersonRoleSyntax();
@@ -437,7 +437,7 @@ public interface AttributeSyntax extends Documented {
                     "[+][0-9. -]+" +                   // "normal" phone numbers
                     "(?:[(][0-9. -]+[)][0-9. -]+)?" +  // a possible '(123)' at the end
                     "(?:ext[.][0-9. -]+)?" +           // a possible 'ext. 123' at the end
-                    "$"), "" +
+                    "$"), AttributeValueMatchers.PHONE, "" +
             "Contact telephone number. Can take one of the forms:\n" +
             "\n" +
             "'+' <integer-list>\n" +
@@ -501,24 +501,50 @@ public interface AttributeSyntax extends Documented {
     class AttributeSyntaxRegexp implements AttributeSyntax {
         private final Integer maxLength;
         private final Pattern matchPattern;
+        private final AttributeValueMatchers.ValueMatcher valueMatcher;
         private final String description;
 
         AttributeSyntaxRegexp(final Pattern matchPattern, final String description) {
-            this(null, matchPattern, description);
+            this(null, matchPattern, null, description);
+        }
+
+        AttributeSyntaxRegexp(final Pattern matchPattern, final AttributeValueMatchers.ValueMatcher valueMatcher, final String description) {
+            this(null, matchPattern, valueMatcher, description);
         }
 
         AttributeSyntaxRegexp(final Integer maxLength, final Pattern matchPattern, final String description) {
+            this(maxLength, matchPattern, null, description);
+        }
+
+        /**
+         * @param valueMatcher matcher accepting exactly the same values as the pattern, used instead of the pattern if not null.
+         */
+        AttributeSyntaxRegexp(final Integer maxLength, final Pattern matchPattern, final AttributeValueMatchers.ValueMatcher valueMatcher, final String description) {
             this.maxLength = maxLength;
             this.matchPattern = matchPattern;
+            this.valueMatcher = valueMatcher;
             this.description = description;
         }
 
+        Pattern getMatchPattern() {
+            return matchPattern;
+        }
+
+        AttributeValueMatchers.ValueMatcher getValueMatcher() {
+            return valueMatcher;
+        }
+
         @Override
         public boolean matches(final ObjectType objectType, final String value) {
-            final boolean lengthOk = maxLength == null || value.length() <= maxLength;
-            final boolean matches = matchPattern.matcher(value).matches();
+            if (maxLength != null && value.length() > maxLength) {
+                return false;
+            }
 
-            return lengthOk && matches;
+            if (valueMatcher != null) {
+                return valueMatcher.matches(value);
+            }
+
+            return matchPattern.matcher(value).matches();
         }
 
         @Override
@@ -924,13 +950,16 @@ public interface AttributeSyntax extends Documented {
     }
 
     class ComponentsSyntax implements AttributeSyntax {
+        private final AttributeSyntax routeSyntax = new GeneratedSyntax(ComponentsParser.class);
+        private final AttributeSyntax route6Syntax = new GeneratedSyntax(ComponentsR6Parser.class);
+
         @Override
         public boolean matches(final ObjectType objectType, final String value) {
             switch (objectType) {
                 case ROUTE:
-                    return new AttributeSyntaxParser(new ComponentsParser()).matches(objectType, value);
+                    return routeSyntax.matches(objectType, value);
                 case ROUTE6:
-                    return new AttributeSyntaxParser(new ComponentsR6Parser()).matches(objectType, value);
+                    return route6Syntax.matches(objectType, value);
                 default:
                     return false;
             }
@@ -950,13 +979,16 @@ public interface AttributeSyntax extends Documented {
 
 
     class ExportCompsSyntax implements AttributeSyntax {
+        private final AttributeSyntax routeSyntax = new GeneratedSyntax(FilterParser.class);
+        private final AttributeSyntax route6Syntax = new GeneratedSyntax(V6FilterParser.class);
+
         @Override
         public boolean matches(final ObjectType objectType, final String value) {
             switch (objectType) {
                 case ROUTE:
-                    return new AttributeSyntaxParser(new FilterParser()).matches(objectType, value);
+                    return routeSyntax.matches(objectType, value);
                 case ROUTE6:
-                    return new AttributeSyntaxParser(new V6FilterParser()).matches(objectType, value);
+                    return route6Syntax.matches(objectType, value);
                 default:
                     return false;
             }
@@ -982,14 +1014,17 @@ public interface AttributeSyntax extends Documented {
     }
 
     class InjectSyntax implements AttributeSyntax {
+        private final AttributeSyntax routeSyntax = new GeneratedSyntax(InjectParser.class);
+        private final AttributeSyntax route6Syntax = new GeneratedSyntax(InjectR6Parser.class);
+
         @Override
         public boolean matches(final ObjectType objectType, final String value) {
             switch (objectType) {
                 case ROUTE:
-                    return new AttributeSyntaxParser(new InjectParser()).matches(objectType, value);
+                    return routeSyntax.matches(objectType, value);
 
                 case ROUTE6:
-                    return new AttributeSyntaxParser(new InjectR6Parser()).matches(objectType, value);
+                    return route6Syntax.matches(objectType, value);
 
                 default:
                     return false;
@@ -1038,5 +1073,45 @@ public interface AttributeSyntax extends Documented {
         }
     }
 
+    /**
+     * Syntax checked by a parser generated by byacc, with a parser per thread that is reused for every value.
+     */
+    class GeneratedSyntax implements AttributeSyntax {
+        private final ThreadLocal<GeneratedParser> parsers;
+        private final Documented description;
+
+        public GeneratedSyntax(final Class<? extends GeneratedParser> parserClass) {
+            this(parserClass, "");
+        }
+
+        public GeneratedSyntax(final Class<? extends GeneratedParser> parserClass, final String description) {
+            this(parserClass, new Single(description));
+        }
+
+        public GeneratedSyntax(final Class<? extends GeneratedParser> parserClass, final Documented description) {
+            this.parsers = new ThreadLocal<GeneratedParser>() {
+                @Override
+                protected GeneratedParser initialValue() {
+                    try {
+                        return parserClass.newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException("Unable to create " + parserClass.getName(), e);
+                    }
+                }
+            };
+            this.description = description;
+        }
+
+        @Override
+        public boolean matches(final ObjectType objectType, final String value) {
+            return parsers.get().validate(value) == null;
+        }
+
+        @Override
+        public String getDescription(final ObjectType objectType) {
+            return description.getDescription(objectType);
+        }
+    }
+
     boolean matches(ObjectType objectType, String value);
 }
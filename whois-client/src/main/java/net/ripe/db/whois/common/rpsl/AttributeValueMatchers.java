@@ -0,0 +1,297 @@
+package net.ripe.db.whois.common.rpsl;
+
+/**
+ * Hand-written equivalents of the regular expressions of frequently validated syntaxes, working directly on the value
+ * without creating a {@link java.util.regex.Matcher} or backtracking.
+ * <p/>
+ * Every matcher must accept exactly the values accepted by the regular expression of its syntax, which is verified by
+ * AttributeValueMatchersTest. Letters are matched case insensitive, like the (?i) flag does for US-ASCII.
+ */
+final class AttributeValueMatchers {
+    private AttributeValueMatchers() {
+    }
+
+    interface ValueMatcher {
+        boolean matches(CharSequence value);
+    }
+
+    /**
+     * (?i)^.+@([^.]+[.])+[^.]+$
+     */
+    static final ValueMatcher EMAIL = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            final int length = value.length();
+            for (int at = 1; at < length; at++) {
+                final char c = value.charAt(at - 1);
+                if (isLineTerminator(c)) {
+                    return false;
+                }
+
+                if (value.charAt(at) == '@' && isDomain(value, at + 1)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean isDomain(final CharSequence value, final int start) {
+            boolean emptyLabel = true;
+            int dots = 0;
+
+            for (int i = start; i < value.length(); i++) {
+                if (value.charAt(i) == '.') {
+                    if (emptyLabel) {
+                        return false;
+                    }
+
+                    dots++;
+                    emptyLabel = true;
+                } else {
+                    emptyLabel = false;
+                }
+            }
+
+            return dots > 0 && !emptyLabel;
+        }
+    };
+
+    /**
+     * (?s)^.*$
+     */
+    static final ValueMatcher FREE_FORM = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            return true;
+        }
+    };
+
+    /**
+     * (?i)^[a-z]{2}$
+     */
+    static final ValueMatcher TWO_LETTERS = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            return value.length() == 2 && isLetter(value.charAt(0)) && isLetter(value.charAt(1));
+        }
+    };
+
+    /**
+     * (?i)^[A-Z]([A-Z0-9_-]*[A-Z0-9])?$
+     */
+    static final ValueMatcher NETNAME = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            final int length = value.length();
+            if (length == 0 || !isLetter(value.charAt(0))) {
+                return false;
+            }
+
+            return length == 1 || isName(value, 1, length);
+        }
+    };
+
+    /**
+     * (?i)^([A-Z]{2,4}([1-9][0-9]{0,5})?(-[A-Z]{2,10})?|AUTO-[1-9][0-9]*([A-Z]{2,4})?)$
+     */
+    static final ValueMatcher NIC_HANDLE = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            return isNicHandle(value) || isAutoKey(value);
+        }
+
+        private boolean isNicHandle(final CharSequence value) {
+            final int length = value.length();
+
+            int i = skipLetters(value, 0);
+            if (i < 2 || i > 4) {
+                return false;
+            }
+
+            if (i < length && isNonZeroDigit(value.charAt(i))) {
+                final int start = i;
+                i = skipDigits(value, i);
+                if (i - start > 6) {
+                    return false;
+                }
+            }
+
+            if (i < length && value.charAt(i) == '-') {
+                final int start = ++i;
+                i = skipLetters(value, i);
+                if (i - start < 2 || i - start > 10) {
+                    return false;
+                }
+            }
+
+            return i == length;
+        }
+
+        private boolean isAutoKey(final CharSequence value) {
+            final int length = value.length();
+            if (!regionMatchesIgnoreCase(value, 0, "AUTO-")) {
+                return false;
+            }
+
+            int i = 5;
+            if (i >= length || !isNonZeroDigit(value.charAt(i))) {
+                return false;
+            }
+
+            i = skipDigits(value, i);
+            final int start = i;
+            i = skipLetters(value, i);
+
+            final int letters = i - start;
+            return i == length && (letters == 0 || (letters >= 2 && letters <= 4));
+        }
+    };
+
+    /**
+     * ^[0-9]+$
+     */
+    static final ValueMatcher NUMBER = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            return value.length() > 0 && skipDigits(value, 0) == value.length();
+        }
+    };
+
+    /**
+     * (?i)^[+][0-9. -]+(?:[(][0-9. -]+[)][0-9. -]+)?(?:ext[.][0-9. -]+)?$
+     */
+    static final ValueMatcher PHONE = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            final int length = value.length();
+            if (length == 0 || value.charAt(0) != '+') {
+                return false;
+            }
+
+            int i = skipPhoneNumber(value, 1);
+            if (i < 0) {
+                return false;
+            }
+
+            if (i < length && value.charAt(i) == '(') {
+                i = skipPhoneNumber(value, i + 1);
+                if (i < 0 || i >= length || value.charAt(i) != ')') {
+                    return false;
+                }
+
+                i = skipPhoneNumber(value, i + 1);
+                if (i < 0) {
+                    return false;
+                }
+            }
+
+            if (regionMatchesIgnoreCase(value, i, "EXT.")) {
+                i = skipPhoneNumber(value, i + 4);
+                if (i < 0) {
+                    return false;
+                }
+            }
+
+            return i == length;
+        }
+
+        /**
+         * @return the index after at least one phone number character, or -1 if there is none.
+         */
+        private int skipPhoneNumber(final CharSequence value, final int start) {
+            int i = start;
+            while (i < value.length() && isPhoneNumberCharacter(value.charAt(i))) {
+                i++;
+            }
+
+            return i == start ? -1 : i;
+        }
+
+        private boolean isPhoneNumberCharacter(final char c) {
+            return isDigit(c) || c == '.' || c == ' ' || c == '-';
+        }
+    };
+
+    /**
+     * (?i)^[A-Z][A-Z0-9_-]*[A-Z0-9]$
+     */
+    static final ValueMatcher SOURCE = new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+            final int length = value.length();
+            return length >= 2 && isLetter(value.charAt(0)) && isName(value, 1, length);
+        }
+    };
+
+    /**
+     * [A-Z0-9_-]*[A-Z0-9] from start to end.
+     */
+    private static boolean isName(final CharSequence value, final int start, final int end) {
+        for (int i = start; i < end - 1; i++) {
+            final char c = value.charAt(i);
+            if (!isLetterOrDigit(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+
+        return end > start && isLetterOrDigit(value.charAt(end - 1));
+    }
+
+    private static int skipLetters(final CharSequence value, final int start) {
+        int i = start;
+        while (i < value.length() && isLetter(value.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static int skipDigits(final CharSequence value, final int start) {
+        int i = start;
+        while (i < value.length() && isDigit(value.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static boolean regionMatchesIgnoreCase(final CharSequence value, final int start, final String upperCase) {
+        if (start + upperCase.length() > value.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < upperCase.length(); i++) {
+            final char c = value.charAt(start + i);
+            final char expected = upperCase.charAt(i);
+            if (c != expected && !(isLetter(c) && (c & ~0x20) == expected)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNonZeroDigit(final char c) {
+        return c >= '1' && c <= '9';
+    }
+
+    private static boolean isLetterOrDigit(final char c) {
+        return isLetter(c) || isDigit(c);
+    }
+
+    /**
+     * Characters not matched by '.' without the DOTALL flag.
+     */
+    private static boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,16 @@
+package net.ripe.db.whois.common.rpsl;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Parser generated by byacc from the grammars in src/main/parser/byacc.
+ * <p/>
+ * Instances keep their parser and lexer state between calls, so they can be reused, but not shared between threads.
+ */
+public interface GeneratedParser extends AttributeParser<Void> {
+    /**
+     * @return null if the value is valid, or the syntax error otherwise.
+     */
+    @CheckForNull
+    String validate(String value);
+}
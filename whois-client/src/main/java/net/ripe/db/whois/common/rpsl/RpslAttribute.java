@@ -130,8 +130,15 @@ public final class RpslAttribute {
     }
 
     private void extractCleanValueAndComment(final String value) {
+        final String cleanValue = getSimpleCleanValue(value);
+        if (cleanValue != null) {
+            this.cleanComment = null;
+            setCleanValues(cleanValue);
+            return;
+        }
+
         final StringBuilder cleanedValue = new StringBuilder(value.length());
-        final StringBuilder commentValue = new StringBuilder(value.length());
+        StringBuilder commentValue = null;
 
         boolean comment = false;
         boolean space = false;
@@ -139,7 +146,8 @@ public final class RpslAttribute {
         boolean valueWritten = false;
         boolean commentWritten = false;
 
-        for (final char c : value.toCharArray()) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
             if (c == '\n') {
                 newline = true;
                 space = true;
@@ -172,6 +180,7 @@ public final class RpslAttribute {
                     }
                 } else {
                     commentWritten = true;
+                    commentValue = new StringBuilder(value.length() - i);
                     space = false;
                 }
                 commentValue.append(c);
@@ -192,12 +201,53 @@ public final class RpslAttribute {
         }
 
         this.cleanComment = commentWritten ? commentValue.toString() : null;
+        setCleanValues(cleanedValue.toString());
+    }
 
+    private void setCleanValues(final String cleanedValue) {
         if (type == null) {
-            cleanValues = Collections.singleton(ciString(cleanedValue.toString()));
+            cleanValues = Collections.singleton(ciString(cleanedValue));
         } else {
-            cleanValues = ciImmutableSet(type.splitValue(cleanedValue.toString()));
+            cleanValues = ciImmutableSet(type.splitValue(cleanedValue));
+        }
+    }
+
+    /**
+     * Most values are on a single line without comments, and only need leading and trailing spaces removed.
+     *
+     * @return the clean value if it is the value without leading and trailing spaces, or null otherwise.
+     */
+    @CheckForNull
+    private static String getSimpleCleanValue(final String value) {
+        int start = 0;
+        int end = value.length();
+
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
         }
+
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        for (int i = start; i < end; i++) {
+            switch (value.charAt(i)) {
+                case '\n':
+                case '\r':
+                case '\t':
+                case '#':
+                    return null;
+                case ' ':
+                    if (value.charAt(i - 1) == ' ') {
+                        return null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return value.substring(start, end);
     }
 
     public void validateSyntax(final ObjectType objectType, final ObjectMessages objectMessages) {
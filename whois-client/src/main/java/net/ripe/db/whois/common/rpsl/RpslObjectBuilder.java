@@ -4,9 +4,33 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.Validate;
 
+import javax.annotation.CheckForNull;
 import java.util.*;
 
 public class RpslObjectBuilder {
+    private static final AttributeType[][] ATTRIBUTE_TYPES_BY_NAME_LENGTH;
+
+    static {
+        int maxLength = 0;
+        for (final AttributeType attributeType : AttributeType.values()) {
+            maxLength = Math.max(maxLength, attributeType.getName().length());
+        }
+
+        final List<List<AttributeType>> attributeTypes = Lists.newArrayList();
+        for (int length = 0; length <= maxLength; length++) {
+            attributeTypes.add(Lists.<AttributeType>newArrayList());
+        }
+
+        for (final AttributeType attributeType : AttributeType.values()) {
+            attributeTypes.get(attributeType.getName().length()).add(attributeType);
+        }
+
+        ATTRIBUTE_TYPES_BY_NAME_LENGTH = new AttributeType[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            ATTRIBUTE_TYPES_BY_NAME_LENGTH[length] = attributeTypes.get(length).toArray(new AttributeType[0]);
+        }
+    }
+
     private RpslObject original;
     private final List<RpslAttribute> attributes;
 
@@ -70,7 +94,8 @@ public class RpslObjectBuilder {
             if (!readKey) throw new IllegalArgumentException("No key found");
             if (start == pos) throw new IllegalArgumentException("Read zero sized key");
 
-            final String key = new String(buf, start, pos - start, Charsets.ISO_8859_1);
+            final AttributeType attributeType = getAttributeType(buf, start, pos);
+            final String key = attributeType == null ? new String(buf, start, pos - start, Charsets.ISO_8859_1) : null;
 
             // skip over ':' and continue reading the attribute value
             start = ++pos;
@@ -101,12 +126,39 @@ public class RpslObjectBuilder {
             }
 
             final String value = new String(buf, start, stop - start, Charsets.ISO_8859_1);
-            newAttributes.add(new RpslAttribute(key, value));
+            newAttributes.add(attributeType == null ? new RpslAttribute(key, value) : new RpslAttribute(attributeType, value));
         }
 
         return newAttributes;
     }
 
+    /**
+     * @return the attribute type with the key as full name, matched ignoring case without creating a string, or null otherwise.
+     */
+    @CheckForNull
+    private static AttributeType getAttributeType(final byte[] buf, final int start, final int end) {
+        final int length = end - start;
+        if (length >= ATTRIBUTE_TYPES_BY_NAME_LENGTH.length) {
+            return null;
+        }
+
+        nextAttributeType:
+        for (final AttributeType attributeType : ATTRIBUTE_TYPES_BY_NAME_LENGTH[length]) {
+            final String name = attributeType.getName();
+            for (int i = 0; i < length; i++) {
+                // names are lower case letters, digits and '-', which all have bit 0x20 set, and keys only contain
+                // letters, digits, '-', ':', '*' and ' ', of which only upper case letters differ from their lower case
+                if ((buf[start + i] | 0x20) != name.charAt(i)) {
+                    continue nextAttributeType;
+                }
+            }
+
+            return attributeType;
+        }
+
+        return null;
+    }
+
     public int size() {
         return attributes.size();
     }
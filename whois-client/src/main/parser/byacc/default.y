@@ -1,5 +1,5 @@
 %{
-import net.ripe.db.whois.common.rpsl.AttributeParser;
+import net.ripe.db.whois.common.rpsl.GeneratedParser;
 import net.ripe.db.whois.common.rpsl.ParserHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -258,6 +258,7 @@ filter_aspath_range:
 protected final Logger LOGGER = LoggerFactory.getLogger(DefaultParser.class);
 
 private DefaultLexer lexer;
+private String syntaxError;
 
 private int yylex () {
 	int yyl_return = -1;
@@ -272,15 +273,37 @@ private int yylex () {
 
 public void yyerror (final String error) {
     String errorMessage = (yylval.sval == null ? error : yylval.sval);
-    ParserHelper.parserError(errorMessage);
+    if (syntaxError == null) {
+        syntaxError = errorMessage;
+    }
 }
 
 @Override
 public Void parse(final String attributeValue) {
-	lexer = new DefaultLexer(new StringReader(attributeValue), this);
-    final int result = yyparse();
-	if (result > 0) {
-	    throw new IllegalArgumentException("Unexpected parse result: " + result);
-	}
-	return null;
+    final String error = validate(attributeValue);
+    if (error != null) {
+        ParserHelper.parserError(error);
+    }
+    return null;
+}
+
+@Override
+public String validate(final String attributeValue) {
+    final StringReader reader = new StringReader(attributeValue);
+    if (lexer == null) {
+        lexer = new DefaultLexer(reader, this);
+    } else {
+        lexer.yyreset(reader);
+    }
+
+    syntaxError = null;
+    try {
+        final int result = yyparse();
+        if (result > 0 && syntaxError == null) {
+            syntaxError = "Unexpected parse result: " + result;
+        }
+    } catch (IllegalArgumentException e) {
+        syntaxError = (e.getMessage() == null ? "invalid syntax" : e.getMessage());
+    }
+    return syntaxError;
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 %{
-import net.ripe.db.whois.common.rpsl.AttributeParser;
+import net.ripe.db.whois.common.rpsl.GeneratedParser;
 import net.ripe.db.whois.common.rpsl.ParserHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -150,18 +150,38 @@ ipv6_address: TKN_IPV6
 protected final Logger LOGGER = LoggerFactory.getLogger(InterfaceParser.class);
 
 private InterfaceLexer lexer;
+private String syntaxError;
 
 @Override
 public Void parse(final String attributeValue) {
-    lexer = new InterfaceLexer(new StringReader(attributeValue), this);
-    final int result = yyparse();
-    if (result > 0) {
-        LOGGER.error("can't parse " + attributeValue);
-        throw new IllegalArgumentException("Unexpected parse result: " + result);
+    final String error = validate(attributeValue);
+    if (error != null) {
+        ParserHelper.parserError(error);
     }
     return null;
 }
 
+@Override
+public String validate(final String attributeValue) {
+    final StringReader reader = new StringReader(attributeValue);
+    if (lexer == null) {
+        lexer = new InterfaceLexer(reader, this);
+    } else {
+        lexer.yyreset(reader);
+    }
+
+    syntaxError = null;
+    try {
+        final int result = yyparse();
+        if (result > 0 && syntaxError == null) {
+            syntaxError = "Unexpected parse result: " + result;
+        }
+    } catch (IllegalArgumentException e) {
+        syntaxError = (e.getMessage() == null ? "invalid syntax" : e.getMessage());
+    }
+    return syntaxError;
+}
+
 public int yylex () {
     int yyl_return = -1;
     try {
@@ -176,7 +196,9 @@ public int yylex () {
 
 public void yyerror (final String error) {
     String errorMessage = (yylval.sval == null ? error : yylval.sval);
-    ParserHelper.parserError(errorMessage);
+    if (syntaxError == null) {
+        syntaxError = errorMessage;
+    }
 }
 
 
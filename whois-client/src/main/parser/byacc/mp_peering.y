@@ -1,5 +1,5 @@
 %{
-import net.ripe.db.whois.common.rpsl.AttributeParser;
+import net.ripe.db.whois.common.rpsl.GeneratedParser;
 import net.ripe.db.whois.common.rpsl.ParserHelper;
 /*
   filename: mp_peering.y
@@ -84,6 +84,7 @@ domain_name: TKN_DNS
 %%
 
 private MpPeeringLexer lexer;
+private String syntaxError;
 
 private int yylex() {
 	int yyl_return = -1;
@@ -97,15 +98,37 @@ private int yylex() {
 }
 
 public void yyerror(final String error) {
-    ParserHelper.parserError(error);
+    if (syntaxError == null) {
+        syntaxError = error;
+    }
 }
 
 @Override
 public Void parse(final String attributeValue) {
-	lexer = new MpPeeringLexer(new java.io.StringReader(attributeValue), this);
-    final int result = yyparse();
-	if (result > 0) {
-	    throw new IllegalArgumentException("Unexpected parse result: " + result);
-	}
-	return null;
+    final String error = validate(attributeValue);
+    if (error != null) {
+        ParserHelper.parserError(error);
+    }
+    return null;
+}
+
+@Override
+public String validate(final String attributeValue) {
+    final java.io.StringReader reader = new java.io.StringReader(attributeValue);
+    if (lexer == null) {
+        lexer = new MpPeeringLexer(reader, this);
+    } else {
+        lexer.yyreset(reader);
+    }
+
+    syntaxError = null;
+    try {
+        final int result = yyparse();
+        if (result > 0 && syntaxError == null) {
+            syntaxError = "Unexpected parse result: " + result;
+        }
+    } catch (IllegalArgumentException e) {
+        syntaxError = (e.getMessage() == null ? "invalid syntax" : e.getMessage());
+    }
+    return syntaxError;
 }
@@ -1,5 +1,5 @@
 %{
-import net.ripe.db.whois.common.rpsl.AttributeParser;
+import net.ripe.db.whois.common.rpsl.GeneratedParser;
 import net.ripe.db.whois.common.rpsl.ParserHelper;
 
 /*
@@ -83,6 +83,7 @@ domain_name: TKN_DNS
 %%
 
 private PeeringLexer lexer;
+private String syntaxError;
 
 private int yylex () {
 	int yyl_return = -1;
@@ -96,15 +97,37 @@ private int yylex () {
 }
 
 public void yyerror (final String error) {
-    ParserHelper.parserError(error);
+    if (syntaxError == null) {
+        syntaxError = error;
+    }
 }
 
 @Override
 public Void parse(final String attributeValue) {
-	lexer = new PeeringLexer(new java.io.StringReader(attributeValue), this);
-    final int result = yyparse();
-	if (result > 0) {
-	    throw new IllegalArgumentException("Unexpected parse result: " + result);
-	}
-	return null;
+    final String error = validate(attributeValue);
+    if (error != null) {
+        ParserHelper.parserError(error);
+    }
+    return null;
+}
+
+@Override
+public String validate(final String attributeValue) {
+    final java.io.StringReader reader = new java.io.StringReader(attributeValue);
+    if (lexer == null) {
+        lexer = new PeeringLexer(reader, this);
+    } else {
+        lexer.yyreset(reader);
+    }
+
+    syntaxError = null;
+    try {
+        final int result = yyparse();
+        if (result > 0 && syntaxError == null) {
+            syntaxError = "Unexpected parse result: " + result;
+        }
+    } catch (IllegalArgumentException e) {
+        syntaxError = (e.getMessage() == null ? "invalid syntax" : e.getMessage());
+    }
+    return syntaxError;
 }
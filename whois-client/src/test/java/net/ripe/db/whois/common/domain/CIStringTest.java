@@ -40,6 +40,21 @@ public class CIStringTest {
         assertThat(ciString("ABC").hashCode(), is(ciString("aBc").hashCode()));
     }
 
+    @Test
+    public void same_as_lower_case() {
+        final String[] values = {"", "ab", "abc", "ABC", "aBcD", "\u00c0bc", "\u00e0BC", "\u00ff", "\u0130stanbul", "istanbul", "\u03a3\u0391\u03a3", "\u03c3\u03b1\u03c2"};
+
+        for (final String value : values) {
+            assertThat(ciString(value).toLowerCase(), is(value.toLowerCase()));
+            assertThat(ciString(value).hashCode(), is(value.toLowerCase().hashCode()));
+
+            for (final String other : values) {
+                assertThat(value + " equals " + other, ciString(value).equals(ciString(other)), is(value.toLowerCase().equals(other.toLowerCase())));
+                assertThat(value + " compared to " + other, ciString(value).compareTo(ciString(other)), is(value.toLowerCase().compareTo(other.toLowerCase())));
+            }
+        }
+    }
+
     @Test
     public void ciset() {
         assertThat(ciSet("a", "b"), is(ciSet("A", "b")));
@@ -1,5 +1,6 @@
 package net.ripe.db.whois.common.rpsl;
 
+import com.google.common.base.Stopwatch;
 import net.ripe.db.whois.common.IntegrationTest;
 import net.ripe.db.whois.common.domain.CIString;
 import org.junit.Test;
@@ -15,12 +16,20 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
 // TODO: [AH] make this rely on downloader (or make it more visible if those files are missing and no tests are actually run)
 @Category(IntegrationTest.class)
 public class AttributeParserTestIntegration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AttributeParserTestIntegration.class);
 
+    // import, export, mp-import and mp-export attributes in /rpsl/aut-num.db
+    private static final int AUT_NUM_POLICY_ATTRIBUTES = 1470;
+    private static final int BENCHMARK_ITERATIONS = 100;
+
     @Test
     public void parseAutnumAttributes() throws Exception {
         parseAttributes("/export/opt/ripe.db.aut-num.gz",
@@ -36,6 +45,19 @@ public class AttributeParserTestIntegration {
         );
     }
 
+    @Test
+    public void benchmarkAutnumAttributes() throws Exception {
+        final AttributeType[] types = {AttributeType.EXPORT, AttributeType.IMPORT, AttributeType.MP_EXPORT, AttributeType.MP_IMPORT};
+
+        for (int run = 0; run < 3; run++) {
+            final Stopwatch stopwatch = Stopwatch.createStarted();
+            for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; iteration++) {
+                assertThat(parseResource("/rpsl/aut-num.db", types), is(AUT_NUM_POLICY_ATTRIBUTES));
+            }
+            LOGGER.info("Parsed {} aut-num attributes {} times in {}", AUT_NUM_POLICY_ATTRIBUTES, BENCHMARK_ITERATIONS, stopwatch.stop());
+        }
+    }
+
     @Test
     public void parseInetRtrAttributes() throws Exception {
         parseAttributes("/export/opt/ripe.db.inet-rtr.gz",
@@ -144,47 +166,64 @@ public class AttributeParserTestIntegration {
         );
     }
 
-    private void parseAttributes(final String file, final AttributeType[] types) throws IOException {
+    private int parseAttributes(final String file, final AttributeType[] types) throws IOException {
+        final InputStream inputStream;
         try {
-            InputStream inputStream = new GZIPInputStream((new FileInputStream(file)));
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-
-            StringBuilder builder = new StringBuilder();
-
-            try {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.length() == 0) {
-                        final String rpslString = builder.toString().trim();
-                        builder.setLength(0);
-
-                        if (rpslString.length() > 0) {
-                            RpslObject rpslObject;
-                            try {
-                                rpslObject = RpslObject.parse(rpslString);
-                            } catch (IllegalArgumentException e) {
-                                LOGGER.info("RpslObject {} could not be parsed", rpslString);
-                                continue;
-                            }
-
-                            parseAttributes(rpslObject, types);
-                        }
-                    } else {
-                        if (!line.startsWith("#")) {
-                            builder.append(line);
+            inputStream = new GZIPInputStream((new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+
+        return parseAttributes(inputStream, types);
+    }
+
+    private int parseResource(final String resource, final AttributeType[] types) throws IOException {
+        final InputStream inputStream = getClass().getResourceAsStream(resource);
+        assertNotNull("Missing resource " + resource, inputStream);
+
+        return parseAttributes(inputStream, types);
+    }
+
+    private int parseAttributes(final InputStream inputStream, final AttributeType[] types) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+
+        StringBuilder builder = new StringBuilder();
+        int parsed = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0) {
+                    final String rpslString = builder.toString().trim();
+                    builder.setLength(0);
+
+                    if (rpslString.length() > 0) {
+                        RpslObject rpslObject;
+                        try {
+                            rpslObject = RpslObject.parse(rpslString);
+                        } catch (IllegalArgumentException e) {
+                            LOGGER.info("RpslObject {} could not be parsed", rpslString);
+                            continue;
                         }
-                        builder.append('\n');
+
+                        parsed += parseAttributes(rpslObject, types);
+                    }
+                } else {
+                    if (!line.startsWith("#")) {
+                        builder.append(line);
                     }
+                    builder.append('\n');
                 }
-            } finally {
-                reader.close();
             }
-        } catch (FileNotFoundException e) {
-            // ignore
+        } finally {
+            reader.close();
         }
+
+        return parsed;
     }
 
-    private void parseAttributes(final RpslObject rpslObject, final AttributeType[] types) {
+    private int parseAttributes(final RpslObject rpslObject, final AttributeType[] types) {
+        int parsed = 0;
         for (AttributeType type : types) {
             for (RpslAttribute attribute : rpslObject.findAttributes(type)) {
                 for (CIString cleanValue : attribute.getCleanValues()) {
@@ -192,7 +231,10 @@ public class AttributeParserTestIntegration {
                         LOGGER.info("FAIL: type={}.{} value={}", rpslObject.getType().getName(), type, cleanValue);
                     }
                 }
+                parsed++;
             }
         }
+
+        return parsed;
     }
 }
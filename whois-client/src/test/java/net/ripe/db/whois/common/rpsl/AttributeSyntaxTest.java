@@ -1,7 +1,14 @@
 package net.ripe.db.whois.common.rpsl;
 
+import com.google.common.collect.Lists;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -1276,6 +1283,29 @@ public class AttributeSyntaxTest {
         verifySuccess(ObjectType.AS_SET, AttributeType.TECH_C, "HIA1-ARIN");
     }
 
+    @Test
+    public void generated_parser_used_concurrently() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = Lists.newArrayList();
+            for (int i = 0; i < 1000; i++) {
+                final String value = (i % 2 == 0) ? "from AS" + i + " accept ANY" : "from AS" + i + " accept";
+                results.add(executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return AttributeSyntax.IMPORT_SYNTAX.matches(ObjectType.AUT_NUM, value);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get(), is(i % 2 == 0));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     private void verifySuccess(final ObjectType objectType, final AttributeType attributeType, final String value) {
         verify(objectType, attributeType, value, false);
     }
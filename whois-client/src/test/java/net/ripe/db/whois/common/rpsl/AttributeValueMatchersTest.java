@@ -0,0 +1,78 @@
+package net.ripe.db.whois.common.rpsl;
+
+import com.google.common.collect.Lists;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AttributeValueMatchersTest {
+    private static final List<String> TOKENS = Arrays.asList(
+            "a", "Z", "x", "K", "0", "1", "9", "123456", "abcdef", "-", "_", ".", "@", "+", "(", ")", " ", "\n", "\u2028", "\u00e9",
+            "AUTO-", "auto-", "ext.", "EXT.", "ORG-", "RIPE", "ripe.net");
+
+    private static final List<String> VALUES = Arrays.asList(
+            "", "AA1-RIPE", "aa1-ripe", "AA1234567-RIPE", "AA01-RIPE", "ABCDE1-RIPE", "AA1-R", "AUTO-1", "AUTO-1AB", "AUTO-0", "AUTO-1A",
+            "user@ripe.net", "user@host", "@ripe.net", "a@b.c", "a@b..c", "a@.b", "a@b.c.", "a\n@b.c", "a@b\n.c", "a@b@c.d",
+            "+31 20 535 4444", "+31 (20) 535 4444", "+31 20 535 4444 ext. 123", "+31 20 535 4444 EXT. 1", "+31 ()1", "+", "31 20",
+            "NL", "nl", "N", "NLD", "N1",
+            "RIPE", "RIPE-GRS", "R", "RIPE-", "1RIPE", "TEST_NET-1", "TEST_NET_",
+            "0", "123", "12a");
+
+    private static List<AttributeSyntax.AttributeSyntaxRegexp> syntaxes;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        syntaxes = Lists.newArrayList();
+        for (final Field field : AttributeSyntax.class.getFields()) {
+            final Object value = field.get(null);
+            if (value instanceof AttributeSyntax.AttributeSyntaxRegexp && ((AttributeSyntax.AttributeSyntaxRegexp) value).getValueMatcher() != null) {
+                syntaxes.add((AttributeSyntax.AttributeSyntaxRegexp) value);
+            }
+        }
+    }
+
+    @Test
+    public void syntaxes_with_matcher() {
+        assertThat(syntaxes.size(), greaterThan(0));
+    }
+
+    @Test
+    public void same_result_as_pattern_for_values() {
+        for (final AttributeSyntax.AttributeSyntaxRegexp syntax : syntaxes) {
+            for (final String value : VALUES) {
+                verify(syntax, value);
+            }
+        }
+    }
+
+    @Test
+    public void same_result_as_pattern_for_random_values() {
+        final Random random = new Random(0);
+
+        for (final AttributeSyntax.AttributeSyntaxRegexp syntax : syntaxes) {
+            for (int i = 0; i < 100000; i++) {
+                final StringBuilder builder = new StringBuilder();
+                final int nrTokens = random.nextInt(20);
+                for (int token = 0; token < nrTokens; token++) {
+                    builder.append(TOKENS.get(random.nextInt(TOKENS.size())));
+                }
+
+                verify(syntax, builder.toString());
+            }
+        }
+    }
+
+    private static void verify(final AttributeSyntax.AttributeSyntaxRegexp syntax, final String value) {
+        final Pattern pattern = syntax.getMatchPattern();
+        assertThat(pattern + ": " + value, syntax.getValueMatcher().matches(value), is(pattern.matcher(value).matches()));
+    }
+}
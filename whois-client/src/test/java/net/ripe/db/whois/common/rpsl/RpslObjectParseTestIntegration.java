@@ -0,0 +1,99 @@
+package net.ripe.db.whois.common.rpsl;
+
+import com.google.common.base.Charsets;
+import net.ripe.db.whois.common.IntegrationTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+@Category(IntegrationTest.class)
+public class RpslObjectParseTestIntegration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RpslObjectParseTestIntegration.class);
+
+    private static final byte[] AUT_NUM = ("" +
+            "aut-num:        AS3333\n" +
+            "as-name:        RIPE-NCC-AS\n" +
+            "descr:          Reseaux IP Europeens Network Coordination Centre (RIPE NCC)\n" +
+            "org:            ORG-RIEN1-RIPE\n" +
+            "import:         from AS1257 accept ANY\n" +
+            "export:         to AS1257 announce AS3333\n" +
+            "mp-import:      afi ipv6.unicast from AS1257 accept ANY\n" +
+            "mp-export:      afi ipv6.unicast to AS1257 announce AS3333\n" +
+            "import:         from AS2121 accept AS2121   # comment\n" +
+            "export:         to AS2121 announce AS3333\n" +
+            "remarks:        multiple lines\n" +
+            "                with continuation\n" +
+            "+               and plus\n" +
+            "admin-c:        RD132-RIPE\n" +
+            "tech-c:         RD132-RIPE\n" +
+            "mnt-by:         RIPE-NCC-MNT\n" +
+            "changed:        hostmaster@ripe.net 20130101\n" +
+            "source:         RIPE\n").getBytes(Charsets.ISO_8859_1);
+
+    private static final int WARMUP = 100000;
+    private static final int ITERATIONS = 1000000;
+
+    @Test
+    public void parse() {
+        for (int i = 0; i < WARMUP; i++) {
+            RpslObject.parse(AUT_NUM);
+        }
+
+        benchmark("parse", new Runnable() {
+            @Override
+            public void run() {
+                RpslObject.parse(AUT_NUM);
+            }
+        });
+    }
+
+    @Test
+    public void parse_and_clean_values() {
+        for (int i = 0; i < WARMUP; i++) {
+            cleanValues(RpslObject.parse(AUT_NUM));
+        }
+
+        benchmark("parse and clean values", new Runnable() {
+            @Override
+            public void run() {
+                cleanValues(RpslObject.parse(AUT_NUM));
+            }
+        });
+    }
+
+    private static void cleanValues(final RpslObject rpslObject) {
+        for (final RpslAttribute attribute : rpslObject.getAttributes()) {
+            attribute.getCleanValues();
+        }
+    }
+
+    private static void benchmark(final String name, final Runnable runnable) {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        final long allocatedBefore = getAllocatedBytes(threadMXBean, threadId);
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+
+        final long nanos = System.nanoTime() - start;
+        final long allocatedAfter = getAllocatedBytes(threadMXBean, threadId);
+
+        LOGGER.info("{}: {} ns and {} bytes allocated per object", name, nanos / ITERATIONS,
+                allocatedBefore < 0 ? "unknown" : (allocatedAfter - allocatedBefore) / ITERATIONS);
+    }
+
+    private static long getAllocatedBytes(final ThreadMXBean threadMXBean, final long threadId) {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId);
+        }
+
+        return -1;
+    }
+}
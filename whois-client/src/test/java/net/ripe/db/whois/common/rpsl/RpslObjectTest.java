@@ -108,6 +108,20 @@ public class RpslObjectTest {
         assertThat(subject.getValueForAttribute(AttributeType.MNTNER).toString(), is("DEV-MNT"));
     }
 
+    @Test
+    public void parseKeyAsAttributeTypeName() {
+        parseAndAssign("MNTNER: DEV-MNT\nMnt-By: DEV-MNT\n*mb: DEV-MNT\nunknown: value");
+
+        final List<RpslAttribute> attributes = subject.getAttributes();
+        assertThat(attributes.get(0).getKey(), sameInstance(AttributeType.MNTNER.getName()));
+        assertThat(attributes.get(1).getKey(), sameInstance(AttributeType.MNT_BY.getName()));
+        assertThat(attributes.get(1).getType(), is(AttributeType.MNT_BY));
+        assertThat(attributes.get(2).getKey(), is("*mb"));
+        assertThat(attributes.get(2).getType(), is(AttributeType.MNT_BY));
+        assertThat(attributes.get(3).getKey(), is("unknown"));
+        assertThat(attributes.get(3).getType(), is(nullValue()));
+    }
+
     @Test
     public void parseGarbageValue() {
         String key = "mntner";
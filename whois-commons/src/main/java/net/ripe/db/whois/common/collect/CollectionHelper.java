@@ -9,7 +9,9 @@ import net.ripe.db.whois.common.domain.ResponseObject;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.apache.commons.lang.StringUtils;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.concurrent.Executor;
 
 public final class CollectionHelper {
 
@@ -41,7 +43,11 @@ public final class CollectionHelper {
 
     // TODO: [AH] result is wrapped by 2 iterable wrappers in this method - optimize!
     public static Iterable<ResponseObject> iterateProxy(final ProxyLoader<Identifiable, RpslObject> rpslObjectLoader, final Iterable<? extends Identifiable> identifiables) {
-        final ProxyIterable<Identifiable, ? extends ResponseObject> rpslObjects = new ProxyIterable<>((Iterable<Identifiable>) identifiables, rpslObjectLoader, 100);
+        return iterateProxy(rpslObjectLoader, identifiables, null);
+    }
+
+    public static Iterable<ResponseObject> iterateProxy(final ProxyLoader<Identifiable, RpslObject> rpslObjectLoader, final Iterable<? extends Identifiable> identifiables, @Nullable final Executor prefetchExecutor) {
+        final ProxyIterable<Identifiable, ? extends ResponseObject> rpslObjects = new ProxyIterable<>((Iterable<Identifiable>) identifiables, rpslObjectLoader, 100, prefetchExecutor);
         return (Iterable<ResponseObject>) Iterables.filter(rpslObjects, Predicates.notNull());
     }
 }
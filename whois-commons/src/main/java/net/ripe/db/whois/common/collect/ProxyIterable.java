@@ -1,23 +1,40 @@
 package net.ripe.db.whois.common.collect;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class ProxyIterable<P, R> implements Iterable<R> {
     private final ProxyLoader<P, R> loader;
     private final int prefetch;
+    @Nullable private final Executor executor;
 
     private final List<R> initialBatch;
     private final Iterable<P> source;
 
     public ProxyIterable(final Iterable<P> source, final ProxyLoader<P, R> loader, final int prefetch) {
+        this(source, loader, prefetch, null);
+    }
+
+    /**
+     * @param executor if not null, the next batch is loaded using the executor while the current batch is iterated.
+     */
+    public ProxyIterable(final Iterable<P> source, final ProxyLoader<P, R> loader, final int prefetch, @Nullable final Executor executor) {
         this.loader = loader;
         this.prefetch = prefetch;
+        this.executor = executor;
 
         final List<P> initialProxyBatch = nextBatch(source.iterator());
         this.initialBatch = load(initialProxyBatch);
@@ -29,27 +46,46 @@ public class ProxyIterable<P, R> implements Iterable<R> {
         return new Iterator<R>() {
             private final Iterator<P> sourceIterator = source.iterator();
             private List<R> batch = initialBatch;
+            private Future<List<R>> pendingBatch;
             private int idx;
 
             @Override
             public boolean hasNext() {
-                return idx < batch.size() || sourceIterator.hasNext();
+                return idx < batch.size() || pendingBatch != null || sourceIterator.hasNext();
             }
 
             @Override
             public R next() {
                 if (idx == batch.size()) {
                     idx = 0;
-                    batch = load(nextBatch(sourceIterator));
+                    if (pendingBatch != null) {
+                        batch = getPendingBatch();
+                    } else {
+                        batch = load(nextBatch(sourceIterator));
+                    }
                 }
 
                 if (idx >= batch.size()) {
                     throw new NoSuchElementException();
                 }
 
+                if (idx == 0 && executor != null && sourceIterator.hasNext()) {
+                    pendingBatch = loadInBackground(nextBatch(sourceIterator));
+                }
+
                 return batch.get(idx++);
             }
 
+            private List<R> getPendingBatch() {
+                try {
+                    return Uninterruptibles.getUninterruptibly(pendingBatch);
+                } catch (ExecutionException e) {
+                    throw Throwables.propagate(e.getCause());
+                } finally {
+                    pendingBatch = null;
+                }
+            }
+
             @Override
             public void remove() {
                 throw new UnsupportedOperationException();
@@ -71,6 +107,18 @@ public class ProxyIterable<P, R> implements Iterable<R> {
         return result;
     }
 
+    private Future<List<R>> loadInBackground(final List<P> proxyBatch) {
+        final FutureTask<List<R>> result = new FutureTask<>(new Callable<List<R>>() {
+            @Override
+            public List<R> call() {
+                return load(proxyBatch);
+            }
+        });
+
+        executor.execute(result);
+        return result;
+    }
+
     private List<P> nextBatch(final Iterator<P> sourceIterator) {
         if (!sourceIterator.hasNext()) {
             return Collections.emptyList();
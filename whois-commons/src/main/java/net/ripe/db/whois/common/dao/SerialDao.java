@@ -11,5 +11,15 @@ public interface SerialDao {
 
     SerialEntry getByIdForNrtm(int serialId);
 
+    /**
+     * Passes the entries of all serials from serialIdBegin up to and including serialIdEnd to the handler,
+     * in ascending order of serial. The entries are the same as returned by {@link #getByIdForNrtm(int)}.
+     */
+    void getByIdRangeForNrtm(int serialIdBegin, int serialIdEnd, SerialEntryHandler handler);
+
     Integer getAgeOfExactOrNextExistingSerial(int serialId);
+
+    interface SerialEntryHandler {
+        void handle(int serialId, SerialEntry serialEntry);
+    }
 }
@@ -1,5 +1,35 @@
 package net.ripe.db.whois.common.dao;
 
+import net.ripe.db.whois.common.rpsl.AttributeType;
+
+import java.util.Collection;
+
 public interface UpdateLockDao {
+    /**
+     * Lock all updates until the transaction ends.
+     */
     void setUpdateLock();
+
+    /**
+     * Lock updates of the given resources until the transaction ends.
+     * <p/>
+     * Updates of other resources are not blocked, updates holding the global update lock are.
+     * All resources of a transaction must be locked in a single call, to prevent deadlocks.
+     */
+    void setUpdateLock(Collection<String> resources);
+
+    /**
+     * Lock claiming keys of the key attribute type until the transaction ends.
+     * <p/>
+     * May be called after {@link #setUpdateLock(Collection)}, but no resources may be locked after it.
+     */
+    void setAutoKeyLock(AttributeType keyAttributeType);
+
+    /**
+     * Lock writing serials until the transaction ends, so serials are committed in the order of their serial_id.
+     * <p/>
+     * Readers following serials (serial_id > last serial read) would otherwise skip a serial committed after a higher one.
+     * Must be the last lock of a transaction, taken just before the first insert into serials.
+     */
+    void setSerialLock();
 }
@@ -5,8 +5,10 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.dao.UpdateLockDao;
+import net.ripe.db.whois.common.dao.jdbc.index.IndexRows;
 import net.ripe.db.whois.common.dao.jdbc.index.IndexStrategies;
 import net.ripe.db.whois.common.dao.jdbc.index.IndexStrategy;
+import net.ripe.db.whois.common.dao.jdbc.index.ResolvedReferences;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.domain.ConcurrentState;
 import net.ripe.db.whois.common.rpsl.AttributeSanitizer;
@@ -108,6 +110,7 @@ public class JdbcIndexDao implements IndexDao {
     private void rebuildIndexes(final Iterable<Integer> objectIds, final Phase phase) {
         updateLockDao.setUpdateLock();
 
+        final List<RpslObject> rpslObjects = Lists.newArrayList();
         for (final Integer objectId : objectIds) {
             try {
                 final Map<String, Object> map = jdbcTemplate.queryForMap(
@@ -122,6 +125,19 @@ public class JdbcIndexDao implements IndexDao {
                     rpslObject = sanitizeObject(rpslObject, pkey);
                 }
 
+                rpslObjects.add(rpslObject);
+            } catch (EmptyResultDataAccessException e) {
+                LOGGER.debug("Missing: {}", objectId);
+            } catch (RuntimeException e) {
+                LOGGER.error("Rebuilding indexes: {}", objectId, e);
+            }
+        }
+
+        // keys have no references, other attributes refer to keys indexed in the previous phase
+        final ResolvedReferences references = Phase.KEYS.equals(phase) ? ResolvedReferences.NONE : ResolvedReferences.resolve(jdbcTemplate, rpslObjects);
+
+        for (final RpslObject rpslObject : rpslObjects) {
+            try {
                 final ObjectTemplate objectTemplate = ObjectTemplate.getTemplate(rpslObject.getType());
                 final Set<AttributeType> keyAttributes = objectTemplate.getKeyAttributes();
                 final Set<AttributeType> otherAttributes = Sets.newHashSet();
@@ -132,22 +148,21 @@ public class JdbcIndexDao implements IndexDao {
                 final Set<AttributeType> updateAttributes = Phase.KEYS.equals(phase) ? keyAttributes : otherAttributes;
 
                 for (final AttributeType attributeType : updateAttributes) {
-                    updateAttributeIndex(rpslObject, attributeType);
+                    updateAttributeIndex(rpslObject, attributeType, references);
                 }
 
-            } catch (EmptyResultDataAccessException e) {
-                LOGGER.debug("Missing: {}", objectId);
             } catch (RuntimeException e) {
-                LOGGER.error("Rebuilding indexes: {}", objectId, e);
+                LOGGER.error("Rebuilding indexes: {}", rpslObject.getObjectId(), e);
             }
         }
     }
 
-    private void updateAttributeIndex(final RpslObject rpslObject, final AttributeType attributeType) {
+    private void updateAttributeIndex(final RpslObject rpslObject, final AttributeType attributeType, final ResolvedReferences references) {
         final RpslObjectInfo rpslObjectInfo = new RpslObjectInfo(rpslObject.getObjectId(), rpslObject.getType(), rpslObject.getKey());
         final IndexStrategy indexStrategy = IndexStrategies.get(attributeType);
+        final IndexRows indexRows = new IndexRows(jdbcTemplate, references);
 
-        indexStrategy.removeFromIndex(jdbcTemplate, rpslObjectInfo);
+        indexStrategy.removeFromIndex(indexRows, rpslObjectInfo);
 
         final Set<CIString> uniqueValues = Sets.newHashSet();
         for (final RpslAttribute attribute : rpslObject.findAttributes(attributeType)) {
@@ -159,13 +174,15 @@ public class JdbcIndexDao implements IndexDao {
                     }
 
                     try {
-                        indexStrategy.addToIndex(jdbcTemplate, rpslObjectInfo, rpslObject, value.toString());
+                        indexStrategy.addToIndex(indexRows, rpslObjectInfo, rpslObject, value.toString());
                     } catch (IllegalArgumentException e) {
                         LOGGER.info("Missing reference for {}: {}", rpslObjectInfo, value);
                     }
                 }
             }
         }
+
+        indexRows.flush();
     }
 
     private RpslObject sanitizeObject(final RpslObject rpslObject, final String pkey) {
@@ -1,7 +1,5 @@
 package net.ripe.db.whois.common.dao.jdbc;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -32,6 +30,7 @@ import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.dao.RecoverableDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
@@ -39,12 +38,12 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -57,13 +56,24 @@ public class JdbcRpslObjectDao implements RpslObjectDao {
 
     private static final List<AttributeType> RELATED_TO_ATTRIBUTES = Lists.newArrayList(AttributeType.ADMIN_C, AttributeType.AUTHOR, AttributeType.ORG, AttributeType.PING_HDL, AttributeType.TECH_C, AttributeType.ZONE_C);
 
+    // statements for the batch sizes used by ProxyIterable, indexed by the number of object ids
+    private static final String[] LOAD_OBJECTS_QUERIES = new String[101];
+
+    static {
+        for (int i = 1; i < LOAD_OBJECTS_QUERIES.length; i++) {
+            LOAD_OBJECTS_QUERIES[i] = createLoadObjectsQuery(i);
+        }
+    }
+
     private final JdbcTemplate jdbcTemplate;
     private final SourceContext sourceContext;
+    private final RpslObjectCache rpslObjectCache;
 
     @Autowired
-    public JdbcRpslObjectDao(@Qualifier("sourceAwareDataSource") final DataSource dataSource, final SourceContext sourceContext) {
+    public JdbcRpslObjectDao(@Qualifier("sourceAwareDataSource") final DataSource dataSource, final SourceContext sourceContext, final RpslObjectCache rpslObjectCache) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.sourceContext = sourceContext;
+        this.rpslObjectCache = rpslObjectCache;
     }
 
     @Override
@@ -91,27 +101,16 @@ public class JdbcRpslObjectDao implements RpslObjectDao {
             }
         }
 
-        final List<RpslObject> rpslObjects = Lists.newArrayList(loadedObjects.values());
-        Collections.sort(rpslObjects, new Comparator<RpslObject>() {
-            final List<Integer> requestedIds = Lists.newArrayList(Iterables.transform(proxy, new Function<Identifiable, Integer>() {
-                @Override
-                public Integer apply(final Identifiable input) {
-                    return input.getObjectId();
-                }
-            }));
-
-            @Override
-            public int compare(final RpslObject o1, final RpslObject o2) {
-                return requestedIds.indexOf(o1.getObjectId()) - requestedIds.indexOf(o2.getObjectId());
+        for (final Identifiable identifiable : proxy) {
+            final RpslObject rpslObject = loadedObjects.remove(identifiable.getObjectId());
+            if (rpslObject != null) {
+                result.add(rpslObject);
             }
-        });
-
-        // TODO [AK] Return result rather than adding all to the collection
-        result.addAll(rpslObjects);
+        }
     }
 
     private Set<Integer> loadObjects(final List<Identifiable> proxy, final Map<Integer, RpslObject> loadedObjects) {
-        final StringBuilder queryBuilder = new StringBuilder();
+        final RpslObjectCache.View cacheView = rpslObjectCache.getView();
         final List<Integer> objectIds = Lists.newArrayListWithExpectedSize(proxy.size());
         for (final Identifiable identifiable : proxy) {
             final Integer objectId = identifiable.getObjectId();
@@ -121,36 +120,40 @@ public class JdbcRpslObjectDao implements RpslObjectDao {
 
             if (identifiable instanceof RpslObject) {
                 loadedObjects.put(objectId, (RpslObject) identifiable);
-            } else {
-                if (queryBuilder.length() > 0) {
-                    // In MySQL, UNION ALL is much faster than IN
-                    queryBuilder.append(" UNION ALL ");
-                }
-
-                queryBuilder.append("" +
-                        "SELECT object_id, object " +
-                        "FROM last " +
-                        "WHERE object_id = ? " +
-                        "AND sequence_id != 0");
+                continue;
+            }
 
+            final RpslObject cachedObject = cacheView == null ? null : cacheView.get(objectId);
+            if (cachedObject != null) {
+                loadedObjects.put(objectId, cachedObject);
+            } else {
                 objectIds.add(objectId);
             }
         }
 
-        final List<RpslObject> rpslObjects = jdbcTemplate.query(
-                queryBuilder.toString(),
-                new PreparedStatementSetter() {
-                    @Override
-                    public void setValues(final PreparedStatement ps) throws SQLException {
-                        for (int i = 0; i < objectIds.size(); i++) {
-                            ps.setInt(i + 1, objectIds.get(i));
+        if (!objectIds.isEmpty()) {
+            jdbcTemplate.query(
+                    getLoadObjectsQuery(objectIds.size()),
+                    new PreparedStatementSetter() {
+                        @Override
+                        public void setValues(final PreparedStatement ps) throws SQLException {
+                            for (int i = 0; i < objectIds.size(); i++) {
+                                ps.setInt(i + 1, objectIds.get(i));
+                            }
                         }
-                    }
-                },
-                new RpslObjectRowMapper());
-
-        for (final RpslObject rpslObject : rpslObjects) {
-            loadedObjects.put(rpslObject.getObjectId(), rpslObject);
+                    },
+                    new RowCallbackHandler() {
+                        final RpslObjectRowMapper rowMapper = new RpslObjectRowMapper();
+
+                        @Override
+                        public void processRow(final ResultSet rs) throws SQLException {
+                            final RpslObject rpslObject = rowMapper.mapRow(rs, 0);
+                            loadedObjects.put(rpslObject.getObjectId(), rpslObject);
+                            if (cacheView != null) {
+                                cacheView.put(rpslObject);
+                            }
+                        }
+                    });
         }
 
         if (proxy.size() == loadedObjects.size()) {
@@ -168,9 +171,46 @@ public class JdbcRpslObjectDao implements RpslObjectDao {
         return differences;
     }
 
+    private static String getLoadObjectsQuery(final int nrObjectIds) {
+        if (nrObjectIds < LOAD_OBJECTS_QUERIES.length) {
+            return LOAD_OBJECTS_QUERIES[nrObjectIds];
+        }
+
+        return createLoadObjectsQuery(nrObjectIds);
+    }
+
+    private static String createLoadObjectsQuery(final int nrObjectIds) {
+        final StringBuilder queryBuilder = new StringBuilder();
+        for (int i = 0; i < nrObjectIds; i++) {
+            if (queryBuilder.length() > 0) {
+                // In MySQL, UNION ALL is much faster than IN
+                queryBuilder.append(" UNION ALL ");
+            }
+
+            queryBuilder.append("" +
+                    "SELECT object_id, object " +
+                    "FROM last " +
+                    "WHERE object_id = ? " +
+                    "AND sequence_id != 0");
+        }
+
+        return queryBuilder.toString();
+    }
+
     @Override
     public RpslObject getById(final int objectId) {
-        return JdbcRpslObjectOperations.getObjectById(jdbcTemplate, objectId);
+        final RpslObjectCache.View cacheView = rpslObjectCache.getView();
+        if (cacheView == null) {
+            return JdbcRpslObjectOperations.getObjectById(jdbcTemplate, objectId);
+        }
+
+        RpslObject rpslObject = cacheView.get(objectId);
+        if (rpslObject == null) {
+            rpslObject = JdbcRpslObjectOperations.getObjectById(jdbcTemplate, objectId);
+            cacheView.put(rpslObject);
+        }
+
+        return rpslObject;
     }
 
     @Override
@@ -307,13 +347,11 @@ public class JdbcRpslObjectDao implements RpslObjectDao {
         final IndexStrategy indexStrategy = IndexStrategies.get(keyAttributes.iterator().next());
 
         final String query = MessageFormat.format(
-                "SELECT l.object_id, l.object_type, l.pkey " +
+                "SELECT member_of.object_id, member_of.object_type, member_of.pkey " +
                         "  FROM {0}, member_of" +
                         "  LEFT OUTER JOIN mnt_by ON member_of.object_id = mnt_by.object_id " +
-                        "  LEFT JOIN last l ON l.object_id = member_of.object_id " +
                         "  WHERE {0}.object_id = member_of.set_id " +
-                        "  AND {0}.{1} = ?" +
-                        "  AND l.sequence_id != 0 ",
+                        "  AND {0}.{1} = ?",
                 indexStrategy.getLookupTableName(),
                 indexStrategy.getLookupColumnName());
 
@@ -4,10 +4,13 @@ import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.DateTimeProvider;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.dao.RpslObjectUpdateInfo;
+import net.ripe.db.whois.common.dao.SerialDao;
 import net.ripe.db.whois.common.dao.jdbc.domain.ObjectTypeIds;
 import net.ripe.db.whois.common.dao.jdbc.domain.RpslObjectRowMapper;
+import net.ripe.db.whois.common.dao.jdbc.index.IndexRows;
 import net.ripe.db.whois.common.dao.jdbc.index.IndexStrategies;
 import net.ripe.db.whois.common.dao.jdbc.index.IndexStrategy;
+import net.ripe.db.whois.common.dao.jdbc.index.ResolvedReferences;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.domain.Identifiable;
 import net.ripe.db.whois.common.domain.serials.Operation;
@@ -27,7 +30,9 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
@@ -35,8 +40,10 @@ import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.CheckForNull;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -48,32 +55,90 @@ public class JdbcRpslObjectOperations {
     private static final Set<String> UNTRUNCATABLE_TABLES = Sets.newHashSet("version", "forgot_password_audit_log", "email_links");
 
     public static void insertIntoTables(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject) {
-        final Set<CIString> missing = insertIntoTablesIgnoreMissing(jdbcTemplate, rpslObjectInfo, rpslObject);
+        insertIntoTables(jdbcTemplate, rpslObjectInfo, rpslObject, ResolvedReferences.resolve(jdbcTemplate, Collections.singletonList(rpslObject)));
+    }
+
+    private static void insertIntoTables(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject, final ResolvedReferences references) {
+        final Set<CIString> missing = insertIntoTablesIgnoreMissing(jdbcTemplate, rpslObjectInfo, rpslObject, references);
         if (!missing.isEmpty()) {
             throw new IllegalArgumentException("Missing references: " + missing);
         }
     }
 
     public static Set<CIString> insertIntoTablesIgnoreMissing(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject) {
+        return insertIntoTablesIgnoreMissing(jdbcTemplate, rpslObjectInfo, rpslObject, ResolvedReferences.resolve(jdbcTemplate, Collections.singletonList(rpslObject)));
+    }
+
+    /**
+     * @param references references resolved beforehand, which can be resolved for many objects at once with {@link ResolvedReferences#resolve}.
+     */
+    public static Set<CIString> insertIntoTablesIgnoreMissing(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject, final ResolvedReferences references) {
         final Set<CIString> missingReferences = Sets.newHashSet();
-        final ObjectTemplate objectTemplate = ObjectTemplate.getTemplate(rpslObject.getType());
+        final IndexRows indexRows = new IndexRows(jdbcTemplate, references);
 
-        final Set<AttributeType> keyAttributes = objectTemplate.getKeyAttributes();
-        for (final AttributeType keyAttributeType : keyAttributes) {
-            missingReferences.addAll(insertAttributeIndex(jdbcTemplate, rpslObjectInfo, rpslObject, keyAttributeType));
+        missingReferences.addAll(addKeyIndexRows(indexRows, rpslObjectInfo, rpslObject));
+        // write the key first, an object can refer to itself
+        indexRows.flush();
+
+        missingReferences.addAll(addOtherIndexRows(indexRows, rpslObjectInfo, rpslObject));
+        indexRows.flush();
+
+        return missingReferences;
+    }
+
+    /**
+     * Update the index of a modified object, only deleting and inserting the rows that changed.
+     * <p/>
+     * Rows are compared with the rows stored in the lookup tables. The index is fully rewritten if rows cannot be
+     * compared (the object has missing references, or an index updates rows of other attributes).
+     */
+    public static void updateTables(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject) {
+        final ResolvedReferences references = ResolvedReferences.resolve(jdbcTemplate, Collections.singletonList(rpslObject));
+        final IndexRows rows = getIndexRows(new IndexRows(jdbcTemplate, references), rpslObjectInfo, rpslObject);
+
+        if (rows == null || !rows.isInsertOnly()) {
+            deleteFromTables(jdbcTemplate, rpslObjectInfo);
+            insertIntoTables(jdbcTemplate, rpslObjectInfo, rpslObject, references);
+        } else {
+            rows.flushChanges(rpslObjectInfo.getObjectId(), getDeleteRows(jdbcTemplate, rpslObjectInfo));
+        }
+    }
+
+    @CheckForNull
+    private static IndexRows getIndexRows(final IndexRows indexRows, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject) {
+        if (!addKeyIndexRows(indexRows, rpslObjectInfo, rpslObject).isEmpty() || !addOtherIndexRows(indexRows, rpslObjectInfo, rpslObject).isEmpty()) {
+            return null;
+        }
+
+        return indexRows;
+    }
+
+    private static Set<CIString> addKeyIndexRows(final IndexRows indexRows, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject) {
+        final Set<CIString> missingReferences = Sets.newHashSet();
+
+        for (final AttributeType keyAttributeType : ObjectTemplate.getTemplate(rpslObject.getType()).getKeyAttributes()) {
+            missingReferences.addAll(addAttributeIndexRows(indexRows, rpslObjectInfo, rpslObject, keyAttributeType));
         }
 
+        return missingReferences;
+    }
+
+    private static Set<CIString> addOtherIndexRows(final IndexRows indexRows, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject) {
+        final Set<CIString> missingReferences = Sets.newHashSet();
+        final ObjectTemplate objectTemplate = ObjectTemplate.getTemplate(rpslObject.getType());
+
+        final Set<AttributeType> keyAttributes = objectTemplate.getKeyAttributes();
         for (final AttributeTemplate attributeTemplate : objectTemplate.getAttributeTemplates()) {
             final AttributeType attributeType = attributeTemplate.getAttributeType();
             if (!keyAttributes.contains(attributeType)) {
-                missingReferences.addAll(insertAttributeIndex(jdbcTemplate, rpslObjectInfo, rpslObject, attributeType));
+                missingReferences.addAll(addAttributeIndexRows(indexRows, rpslObjectInfo, rpslObject, attributeType));
             }
         }
 
         return missingReferences;
     }
 
-    private static Set<CIString> insertAttributeIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject, final AttributeType attributeType) {
+    private static Set<CIString> addAttributeIndexRows(final IndexRows indexRows, final RpslObjectInfo rpslObjectInfo, final RpslObject rpslObject, final AttributeType attributeType) {
         final Set<CIString> missingReferences = Sets.newHashSet();
 
         final IndexStrategy indexStrategy = IndexStrategies.get(attributeType);
@@ -84,7 +149,7 @@ public class JdbcRpslObjectOperations {
             for (final CIString value : attribute.getCleanValues()) {
                 if (uniqueValues.add(value)) {
                     try {
-                        final int rows = indexStrategy.addToIndex(jdbcTemplate, rpslObjectInfo, rpslObject, value.toString());
+                        final int rows = indexStrategy.addToIndex(indexRows, rpslObjectInfo, rpslObject, value.toString());
                         if (rows < 1) {
                             throw new DataIntegrityViolationException("Rows affected: " + rows);
                         }
@@ -128,11 +193,18 @@ public class JdbcRpslObjectOperations {
     }
 
     public static void deleteFromTables(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo) {
+        getDeleteRows(jdbcTemplate, rpslObjectInfo).flush();
+    }
+
+    private static IndexRows getDeleteRows(final JdbcTemplate jdbcTemplate, final RpslObjectInfo rpslObjectInfo) {
         final ObjectTemplate objectTemplate = ObjectTemplate.getTemplate(rpslObjectInfo.getObjectType());
+        final IndexRows indexRows = new IndexRows(jdbcTemplate);
 
         for (AttributeTemplate attributeTemplate : objectTemplate.getAttributeTemplates()) {
-            IndexStrategies.get(attributeTemplate.getAttributeType()).removeFromIndex(jdbcTemplate, rpslObjectInfo);
+            IndexStrategies.get(attributeTemplate.getAttributeType()).removeFromIndex(indexRows, rpslObjectInfo);
         }
+
+        return indexRows;
     }
 
     public static void copyToHistoryAndUpdateSerials(final JdbcTemplate jdbcTemplate, final RpslObjectUpdateInfo rpslObjectInfo) {
@@ -501,36 +573,63 @@ public class JdbcRpslObjectOperations {
     }
 
 
+    private static final String SERIAL_ENTRY_FOR_NRTM_QUERY = "" +
+            "SELECT serials.operation, " +
+            "       serials.atlast, " +
+            "       serials.object_id, " +
+            "       IF(serials.operation = 2, " +
+            "                rdp_history.object, " +
+            "                COALESCE(legacy_history.object, last.object)) as object, " +
+            "       serials.serial_id, " +
+            "       IF(serials.operation = 2, serials.sequence_id - 1, serials.sequence_id) " +
+            "FROM   serials " +
+            "       LEFT JOIN last " +
+            "              ON last.object_id = serials.object_id" +
+            "                 AND last.sequence_id = serials.sequence_id  " +
+            "       LEFT JOIN history legacy_history " +
+            "              ON legacy_history.object_id = serials.object_id " +
+            "                 AND legacy_history.sequence_id = serials.sequence_id " +
+            "       LEFT JOIN history rdp_history " +
+            "              ON rdp_history.object_id = serials.object_id " +
+            "                 AND rdp_history.sequence_id = serials.sequence_id - 1 ";
+
     //   [TP] If operation is delete return the previous version of the object [needed by NRTM],
     //        otherwise return the exact version which is either in history or in last
     private static SerialEntry getSerialEntryWithBlobsForNrtm(final JdbcTemplate jdbcTemplate, final int serialId) {
-        return jdbcTemplate.queryForObject("" +
-                "SELECT serials.operation, " +
-                "       serials.atlast, " +
-                "       serials.object_id, " +
-                "       IF(serials.operation = 2, " +
-                "                rdp_history.object, " +
-                "                COALESCE(legacy_history.object, last.object)) as object " +
-                "FROM   serials " +
-                "       LEFT JOIN last " +
-                "              ON last.object_id = serials.object_id" +
-                "                 AND last.sequence_id = serials.sequence_id  " +
-                "       LEFT JOIN history legacy_history " +
-                "              ON legacy_history.object_id = serials.object_id " +
-                "                 AND legacy_history.sequence_id = serials.sequence_id " +
-                "       LEFT JOIN history rdp_history " +
-                "              ON rdp_history.object_id = serials.object_id " +
-                "                 AND rdp_history.sequence_id = serials.sequence_id - 1 " +
+        return jdbcTemplate.queryForObject(SERIAL_ENTRY_FOR_NRTM_QUERY +
                 "WHERE  serials.serial_id = ?", new RowMapper<SerialEntry>() {
             @Override
             public SerialEntry mapRow(ResultSet rs, int rowNum) throws SQLException {
-                try {
-                    return SerialEntry.createSerialEntryWithoutTimestamps
-                            (Operation.getByCode(rs.getInt(1)), rs.getBoolean(2), rs.getInt(3), rs.getBytes(4));
-                } catch (RuntimeException e) {
-                    throw new IllegalStateException("Failed at serial_id " + serialId, e);
-                }
+                return mapSerialEntryForNrtm(rs);
             }
         }, serialId);
     }
+
+    public static void getSerialEntriesForNrtm(final JdbcTemplate jdbcTemplate, final int serialIdBegin, final int serialIdEnd, final SerialDao.SerialEntryHandler handler) {
+        JdbcStreamingHelper.executeStreaming(jdbcTemplate, SERIAL_ENTRY_FOR_NRTM_QUERY +
+                        "WHERE  serials.serial_id BETWEEN ? AND ? " +
+                        "ORDER BY serials.serial_id ASC",
+                new PreparedStatementSetter() {
+                    @Override
+                    public void setValues(final PreparedStatement ps) throws SQLException {
+                        ps.setInt(1, serialIdBegin);
+                        ps.setInt(2, serialIdEnd);
+                    }
+                },
+                new RowCallbackHandler() {
+                    @Override
+                    public void processRow(final ResultSet rs) throws SQLException {
+                        handler.handle(rs.getInt(5), mapSerialEntryForNrtm(rs));
+                    }
+                });
+    }
+
+    private static SerialEntry mapSerialEntryForNrtm(final ResultSet rs) throws SQLException {
+        try {
+            return SerialEntry.createSerialEntryWithoutTimestamps
+                    (Operation.getByCode(rs.getInt(1)), rs.getBoolean(2), rs.getInt(3), rs.getInt(6), rs.getBytes(4));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Failed at serial_id " + rs.getInt(5), e);
+        }
+    }
 }
@@ -7,6 +7,7 @@ import net.ripe.db.whois.common.collect.CollectionHelper;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.dao.RpslObjectUpdateDao;
 import net.ripe.db.whois.common.dao.RpslObjectUpdateInfo;
+import net.ripe.db.whois.common.dao.UpdateLockDao;
 import net.ripe.db.whois.common.dao.jdbc.domain.RpslObjectRowMapper;
 import net.ripe.db.whois.common.dao.jdbc.index.IndexStrategies;
 import net.ripe.db.whois.common.dao.jdbc.index.IndexStrategy;
@@ -38,12 +39,15 @@ public class JdbcRpslObjectUpdateDao implements RpslObjectUpdateDao {
 
     private final JdbcTemplate jdbcTemplate;
     private final DateTimeProvider dateTimeProvider;
+    private final UpdateLockDao updateLockDao;
 
     @Autowired
     public JdbcRpslObjectUpdateDao(@Qualifier("sourceAwareDataSource") final DataSource dataSource,
-                                   final DateTimeProvider dateTimeProvider) {
+                                   final DateTimeProvider dateTimeProvider,
+                                   final UpdateLockDao updateLockDao) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.dateTimeProvider = dateTimeProvider;
+        this.updateLockDao = updateLockDao;
     }
 
     @Override
@@ -163,6 +167,7 @@ public class JdbcRpslObjectUpdateDao implements RpslObjectUpdateDao {
         final RpslObjectUpdateInfo rpslObjectInfo = lookupRpslObjectUpdateInfo(jdbcTemplate, objectId, pkey);
 
         deleteFromTables(jdbcTemplate, rpslObjectInfo);
+        updateLockDao.setSerialLock();
         copyToHistoryAndUpdateSerials(jdbcTemplate, rpslObjectInfo);
         deleteFromLastAndUpdateSerials(dateTimeProvider, jdbcTemplate, rpslObjectInfo);
 
@@ -192,6 +197,7 @@ public class JdbcRpslObjectUpdateDao implements RpslObjectUpdateDao {
             LOGGER.warn("Missing references undeleting object {}: {}", objectId, missingReferences);
         }
 
+        updateLockDao.setSerialLock();
         final int newSequenceId = updateLastAndUpdateSerials(dateTimeProvider, jdbcTemplate, updateInfo, rpslObject);
         return new RpslObjectUpdateInfo(objectId, newSequenceId, objectType, pkey);
     }
@@ -199,9 +205,8 @@ public class JdbcRpslObjectUpdateDao implements RpslObjectUpdateDao {
     @Override
     public RpslObjectUpdateInfo updateObject(final int objectId, final RpslObject object) {
         final RpslObjectUpdateInfo rpslObjectInfo = lookupRpslObjectUpdateInfo(jdbcTemplate, objectId, object.getKey().toString());
-
-        deleteFromTables(jdbcTemplate, rpslObjectInfo);
-        insertIntoTables(jdbcTemplate, rpslObjectInfo, object);
+        updateTables(jdbcTemplate, rpslObjectInfo, object);
+        updateLockDao.setSerialLock();
         copyToHistoryAndUpdateSerials(jdbcTemplate, rpslObjectInfo);
         final int newSequenceId = updateLastAndUpdateSerials(dateTimeProvider, jdbcTemplate, rpslObjectInfo, object);
 
@@ -210,6 +215,7 @@ public class JdbcRpslObjectUpdateDao implements RpslObjectUpdateDao {
 
     @Override
     public RpslObjectUpdateInfo createObject(final RpslObject object) {
+        updateLockDao.setSerialLock();
         final RpslObjectUpdateInfo rpslObjectInfo = insertIntoLastAndUpdateSerials(dateTimeProvider, jdbcTemplate, object);
 
         insertIntoTables(jdbcTemplate, rpslObjectInfo, object);
@@ -40,6 +40,11 @@ public class JdbcSerialDao implements SerialDao {
         return JdbcRpslObjectOperations.getSerialEntryForNrtm(jdbcTemplate, serialId);
     }
 
+    @Override
+    public void getByIdRangeForNrtm(final int serialIdBegin, final int serialIdEnd, final SerialEntryHandler handler) {
+        JdbcRpslObjectOperations.getSerialEntriesForNrtm(jdbcTemplate, serialIdBegin, serialIdEnd, handler);
+    }
+
     @Override
     public Integer getAgeOfExactOrNextExistingSerial(final int serialId) {
         return JdbcRpslObjectOperations.getAgeOfExactOrNextExistingSerial(dateTimeProvider, jdbcTemplate, serialId);
@@ -1,6 +1,8 @@
 package net.ripe.db.whois.common.dao.jdbc;
 
+import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.dao.UpdateLockDao;
+import net.ripe.db.whois.common.rpsl.AttributeType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -9,9 +11,23 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.SortedSet;
 
+/**
+ * Update locks are rows of the update_lock table, locked until the transaction ends.
+ * <p/>
+ * Row 0 is the global lock: it is locked exclusively by the global update lock, and shared by resource locks.
+ * Resources are hashed onto rows 1 to {@link #NR_RESOURCE_LOCKS}, and locked in ascending order.
+ * Auto key locks use negative rows, which are locked after resources.
+ * The serial lock is row {@link #SERIAL_LOCK}, which is locked last.
+ */
 @Repository
 class JdbcUpdateLockDao implements UpdateLockDao {
+    static final int NR_RESOURCE_LOCKS = 1 << 16;
+    static final int SERIAL_LOCK = Integer.MIN_VALUE;
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -22,11 +38,52 @@ class JdbcUpdateLockDao implements UpdateLockDao {
     @Override
     @Transactional(propagation = Propagation.MANDATORY)
     public void setUpdateLock() {
+        checkIsolationLevel();
+
+        jdbcTemplate.queryForInt("SELECT global_lock FROM update_lock WHERE global_lock = 0 FOR UPDATE");
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void setUpdateLock(final Collection<String> resources) {
+        checkIsolationLevel();
+
+        jdbcTemplate.queryForInt("SELECT global_lock FROM update_lock WHERE global_lock = 0 LOCK IN SHARE MODE");
+        for (final int lockId : getLockIds(resources)) {
+            lock(lockId);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void setAutoKeyLock(final AttributeType keyAttributeType) {
+        lock(-1 - keyAttributeType.ordinal());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void setSerialLock() {
+        lock(SERIAL_LOCK);
+    }
+
+    private void checkIsolationLevel() {
         final String isolationLevel = jdbcTemplate.queryForObject("select @@tx_isolation", String.class);
         if (!isolationLevel.equals("READ-COMMITTED")) {
             throw new IllegalStateException("Invalid isolation level: " + isolationLevel);
         }
+    }
 
-        jdbcTemplate.queryForInt("SELECT global_lock FROM update_lock WHERE global_lock = 0 FOR UPDATE");
+    private void lock(final int lockId) {
+        // rows are created on first use, updating an existing row locks it exclusively
+        jdbcTemplate.update("INSERT INTO update_lock (global_lock) VALUES (?) ON DUPLICATE KEY UPDATE global_lock = global_lock", lockId);
+    }
+
+    static SortedSet<Integer> getLockIds(final Collection<String> resources) {
+        final SortedSet<Integer> lockIds = Sets.newTreeSet();
+        for (final String resource : resources) {
+            lockIds.add(1 + (resource.toLowerCase(Locale.ENGLISH).hashCode() & Integer.MAX_VALUE) % NR_RESOURCE_LOCKS);
+        }
+
+        return lockIds;
     }
 }
@@ -0,0 +1,228 @@
+package net.ripe.db.whois.common.dao.jdbc;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+import net.ripe.db.whois.common.rpsl.RpslAttribute;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.common.source.Source;
+import net.ripe.db.whois.common.source.SourceConfiguration;
+import net.ripe.db.whois.common.source.SourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of parsed objects from the <code>last</code> table, by object id.
+ * <p/>
+ * Only objects read from slave sources are cached. For every cached source the serials table is tailed
+ * (in the same way the IP trees are updated), and every object with a new serial is removed from the cache.
+ * A cached object can therefore be out of date for at most {@link #UPDATE_IN_MILLIS}, which is no worse
+ * than the replication delay of a slave.
+ * <p/>
+ * The cache is disabled unless <code>whois.object.cache.size</code> is set, which is the approximate
+ * number of characters of object data to keep per source.
+ */
+@Component
+public class RpslObjectCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RpslObjectCache.class);
+
+    static final int UPDATE_IN_MILLIS = 1000;
+
+    private final SourceContext sourceContext;
+    private final long maximumSize;
+
+    private final ConcurrentMap<Source, CacheEntry> cache = Maps.newConcurrentMap();
+
+    @Autowired
+    public RpslObjectCache(final SourceContext sourceContext, @Value("${whois.object.cache.size:0}") final long maximumSize) {
+        this.sourceContext = sourceContext;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Objects that are loaded after calling this method can be cached using the returned view.
+     *
+     * @return a view on the cached objects of the current source, or null if objects of the current source are not cached.
+     */
+    @CheckForNull
+    public View getView() {
+        if (maximumSize <= 0) {
+            return null;
+        }
+
+        final SourceConfiguration sourceConfiguration = sourceContext.getCurrentSourceConfiguration();
+        if (!sourceConfiguration.getSource().getType().equals(Source.Type.SLAVE)) {
+            return null;
+        }
+
+        CacheEntry cacheEntry = cache.get(sourceConfiguration.getSource());
+        if (cacheEntry == null) {
+            final CacheEntry newCacheEntry = new CacheEntry(sourceConfiguration, maximumSize);
+            cacheEntry = cache.putIfAbsent(sourceConfiguration.getSource(), newCacheEntry);
+            if (cacheEntry == null) {
+                LOGGER.info("Caching objects for source {} from serial {}", sourceConfiguration.getSource(), newCacheEntry.lastSerial);
+                cacheEntry = newCacheEntry;
+            }
+        }
+
+        return new View(cacheEntry);
+    }
+
+    @Scheduled(fixedDelay = UPDATE_IN_MILLIS)
+    public void update() {
+        for (final CacheEntry cacheEntry : cache.values()) {
+            try {
+                update(cacheEntry);
+            } catch (RuntimeException e) {
+                LOGGER.error("Updating object cache for {}", cacheEntry.sourceConfiguration.getSource(), e);
+            }
+        }
+    }
+
+    private void update(final CacheEntry cacheEntry) {
+        // don't wait here if other thread is already busy updating the cache
+        if (!cacheEntry.updateLock.tryAcquire()) {
+            return;
+        }
+
+        try {
+            final JdbcTemplate jdbcTemplate = cacheEntry.sourceConfiguration.getJdbcTemplate();
+            final long fromExclusive = cacheEntry.lastSerial;
+            final long toInclusive = getLastSerial(jdbcTemplate);
+
+            if (fromExclusive == toInclusive) {
+                return;
+            }
+
+            cacheEntry.generation.incrementAndGet();
+
+            if (fromExclusive > toInclusive) {
+                LOGGER.warn("Database went away; serial in cache: {}; serial in DB: {}", fromExclusive, toInclusive);
+                cacheEntry.objects.invalidateAll();
+            } else {
+                jdbcTemplate.query("" +
+                                "SELECT object_id " +
+                                "FROM serials " +
+                                "WHERE serial_id > ? " +
+                                "AND serial_id <= ?",
+                        new RowCallbackHandler() {
+                            @Override
+                            public void processRow(final ResultSet rs) throws SQLException {
+                                cacheEntry.objects.invalidate(rs.getInt(1));
+                            }
+                        },
+                        fromExclusive, toInclusive);
+            }
+
+            cacheEntry.lastSerial = toInclusive;
+        } finally {
+            cacheEntry.updateLock.release();
+        }
+    }
+
+    public void invalidateAll() {
+        for (final CacheEntry cacheEntry : cache.values()) {
+            cacheEntry.generation.incrementAndGet();
+            cacheEntry.objects.invalidateAll();
+        }
+    }
+
+    public CacheStats getStats() {
+        CacheStats result = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (final CacheEntry cacheEntry : cache.values()) {
+            result = result.plus(cacheEntry.objects.stats());
+        }
+
+        return result;
+    }
+
+    public long getSize() {
+        long result = 0;
+        for (final CacheEntry cacheEntry : cache.values()) {
+            result += cacheEntry.objects.size();
+        }
+
+        return result;
+    }
+
+    private static long getLastSerial(final JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForInt("SELECT MAX(serial_id) FROM serials");
+    }
+
+    private static final class CacheEntry {
+        private final SourceConfiguration sourceConfiguration;
+        private final Cache<Integer, RpslObject> objects;
+        private final Semaphore updateLock = new Semaphore(1);
+        private final AtomicLong generation = new AtomicLong();
+        private volatile long lastSerial;
+
+        private CacheEntry(final SourceConfiguration sourceConfiguration, final long maximumSize) {
+            this.sourceConfiguration = sourceConfiguration;
+            this.objects = CacheBuilder.newBuilder()
+                    .maximumWeight(maximumSize)
+                    .weigher(new Weigher<Integer, RpslObject>() {
+                        @Override
+                        public int weigh(final Integer key, final RpslObject value) {
+                            int result = 0;
+                            for (final RpslAttribute attribute : value.getAttributes()) {
+                                result += attribute.getKey().length() + attribute.getValue().length();
+                            }
+
+                            return result;
+                        }
+                    })
+                    .recordStats()
+                    .build();
+            this.lastSerial = getLastSerial(sourceConfiguration.getJdbcTemplate());
+        }
+    }
+
+    /**
+     * Cached objects of a single source.
+     * <p/>
+     * An object is only added to the cache if no serials were processed since the view was created,
+     * so objects read from the database before a change are never cached after the change was processed.
+     */
+    public static final class View {
+        private final CacheEntry cacheEntry;
+        private final long generation;
+
+        private View(final CacheEntry cacheEntry) {
+            this.cacheEntry = cacheEntry;
+            this.generation = cacheEntry.generation.get();
+        }
+
+        @CheckForNull
+        public RpslObject get(final int objectId) {
+            return cacheEntry.objects.getIfPresent(objectId);
+        }
+
+        public void put(final RpslObject rpslObject) {
+            if (cacheEntry.generation.get() != generation) {
+                return;
+            }
+
+            cacheEntry.objects.put(rpslObject.getObjectId(), rpslObject);
+
+            // serials may have been processed while adding the object
+            if (cacheEntry.generation.get() != generation) {
+                cacheEntry.objects.invalidate(rpslObject.getObjectId());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package net.ripe.db.whois.common.dao.jdbc;
+
+import net.ripe.db.whois.common.jmx.JmxBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+
+@Component
+@ManagedResource(objectName = JmxBase.OBJECT_NAME_BASE + "RpslObjectCache", description = "Whois object cache")
+public class RpslObjectCacheJmx extends JmxBase {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RpslObjectCacheJmx.class);
+
+    private final RpslObjectCache rpslObjectCache;
+
+    @Autowired
+    public RpslObjectCacheJmx(final RpslObjectCache rpslObjectCache) {
+        super(LOGGER);
+        this.rpslObjectCache = rpslObjectCache;
+    }
+
+    @ManagedAttribute(description = "Number of cached objects")
+    public long getSize() {
+        return rpslObjectCache.getSize();
+    }
+
+    @ManagedAttribute(description = "Number of objects found in the cache")
+    public long getHitCount() {
+        return rpslObjectCache.getStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of objects not found in the cache")
+    public long getMissCount() {
+        return rpslObjectCache.getStats().missCount();
+    }
+
+    @ManagedAttribute(description = "Number of objects evicted from the cache because of its size")
+    public long getEvictionCount() {
+        return rpslObjectCache.getStats().evictionCount();
+    }
+
+    @ManagedOperation(description = "Remove all objects from the cache")
+    @ManagedOperationParameters({
+            @ManagedOperationParameter(name = "comment", description = "Optional comment for invoking the operation")
+    })
+    public String invalidateAll(final String comment) {
+        return invokeOperation("Invalidate object cache", comment, new Callable<String>() {
+            @Override
+            public String call() {
+                rpslObjectCache.invalidateAll();
+                return "Invalidated object cache";
+            }
+        });
+    }
+}
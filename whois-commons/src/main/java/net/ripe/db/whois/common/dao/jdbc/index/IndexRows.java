@@ -0,0 +1,309 @@
+package net.ripe.db.whois.common.dao.jdbc.index;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang.Validate;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index rows of a single object, written to the lookup tables with one JDBC batch per statement.
+ * <p/>
+ * Nothing is written until {@link #flush()}, so lookups while collecting rows do not see rows that are not flushed yet.
+ * Statements are executed in the order they were first added.
+ */
+public class IndexRows {
+    private static final Splitter COLUMN_SPLITTER = Splitter.on(',').trimResults();
+    private static final ConcurrentMap<String, List<String>> PRIMARY_KEYS = Maps.newConcurrentMap();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResolvedReferences references;
+    private final Map<String, Statement> statements = Maps.newLinkedHashMap();
+
+    public IndexRows(final JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, ResolvedReferences.NONE);
+    }
+
+    public IndexRows(final JdbcTemplate jdbcTemplate, final ResolvedReferences references) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.references = references;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public ResolvedReferences getReferences() {
+        return references;
+    }
+
+    /**
+     * @param columnNames comma separated column names, matching the values.
+     * @return the number of rows added, which is always 1.
+     */
+    public int insert(final String tableName, final String columnNames, final Object... values) {
+        final String sql = String.format("INSERT INTO %s (%s) VALUES (%s)", tableName, columnNames, Joiner.on(", ").join(Collections.nCopies(values.length, "?")));
+        getStatement(sql, tableName, columnNames, true).rows.add(Arrays.asList(values));
+        return 1;
+    }
+
+    public boolean contains(final String tableName, final String columnNames, final Object... values) {
+        for (final Statement statement : statements.values()) {
+            if (tableName.equals(statement.tableName) && columnNames.equals(statement.columnNames) && statement.rows.contains(Arrays.asList(values))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Statement that is not an insert of a row, but should affect at least one row, like an update of a row inserted before.
+     */
+    public int update(final String sql, final Object... args) {
+        getStatement(sql, null, null, true).rows.add(Arrays.asList(args));
+        return 1;
+    }
+
+    public void deleteAll(final String tableName, final int objectId) {
+        final Statement statement = getStatement(String.format("DELETE FROM %s WHERE object_id = ?", tableName), tableName, null, false);
+        final List<Object> args = Collections.<Object>singletonList(objectId);
+        if (!statement.rows.contains(args)) {
+            statement.rows.add(args);
+        }
+    }
+
+    /**
+     * @return true if all rows are inserts with the same columns per lookup table, so the rows can be compared to the rows stored.
+     */
+    public boolean isInsertOnly() {
+        final Set<String> tableNames = Sets.newHashSet();
+        for (final Statement statement : statements.values()) {
+            if (statement.columnNames == null || !tableNames.add(statement.tableName)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void flush() {
+        for (final Statement statement : statements.values()) {
+            statement.execute(jdbcTemplate);
+        }
+
+        statements.clear();
+    }
+
+    /**
+     * Replace the rows stored for an object by these rows, only deleting and inserting the rows that differ.
+     * <p/>
+     * Rows are compared with the rows read back from the lookup tables, not with the rows a previous version of the
+     * object would have, as stored rows may be incomplete (missing references) or written by an older version of an
+     * index. Lookup tables without rows in this instance are cleared by the deletes of <code>removeAll</code>.
+     */
+    public void flushChanges(final int objectId, final IndexRows removeAll) {
+        Validate.isTrue(isInsertOnly(), "Only inserted rows can be compared");
+
+        final List<Statement> deletes = Lists.newArrayList();
+        final List<Statement> inserts = Lists.newArrayList();
+        final Set<String> tableNames = Sets.newHashSet();
+
+        for (final Statement statement : statements.values()) {
+            tableNames.add(statement.tableName);
+
+            final List<List<Object>> storedRows = statement.selectRows(jdbcTemplate, objectId);
+
+            final Multiset<List<String>> unchanged = HashMultiset.create();
+            for (final List<Object> row : statement.rows) {
+                unchanged.add(normalize(row));
+            }
+
+            final List<List<Object>> removedRows = Lists.newArrayList();
+            for (final List<Object> row : storedRows) {
+                if (!unchanged.remove(normalize(row))) {
+                    removedRows.add(row);
+                }
+            }
+
+            if (!removedRows.isEmpty()) {
+                deletes.add(statement.toDelete(getPrimaryKey(statement.tableName), removedRows));
+            }
+
+            final Multiset<List<String>> stored = HashMultiset.create();
+            for (final List<Object> row : storedRows) {
+                stored.add(normalize(row));
+            }
+
+            final Statement insert = new Statement(statement.sql, statement.tableName, statement.columnNames, true);
+            for (final List<Object> row : statement.rows) {
+                if (!stored.remove(normalize(row))) {
+                    insert.rows.add(row);
+                }
+            }
+            inserts.add(insert);
+        }
+
+        for (final Statement statement : removeAll.statements.values()) {
+            if (statement.tableName != null && statement.columnNames == null && !tableNames.contains(statement.tableName)) {
+                deletes.add(statement);
+            }
+        }
+
+        for (final Statement delete : deletes) {
+            delete.execute(jdbcTemplate);
+        }
+
+        for (final Statement insert : inserts) {
+            insert.execute(jdbcTemplate);
+        }
+
+        statements.clear();
+    }
+
+    // inserted values and values read back can be of different types, e.g. Integer and Long
+    private static List<String> normalize(final List<Object> row) {
+        final List<String> result = Lists.newArrayListWithExpectedSize(row.size());
+        for (final Object value : row) {
+            result.add(value == null ? null : value.toString());
+        }
+
+        return result;
+    }
+
+    private List<String> getPrimaryKey(final String tableName) {
+        List<String> primaryKey = PRIMARY_KEYS.get(tableName);
+        if (primaryKey == null) {
+            primaryKey = jdbcTemplate.execute(new ConnectionCallback<List<String>>() {
+                @Override
+                public List<String> doInConnection(final Connection connection) throws SQLException, DataAccessException {
+                    final SortedMap<Short, String> columns = Maps.newTreeMap();
+
+                    ResultSet rs = null;
+                    try {
+                        rs = connection.getMetaData().getPrimaryKeys(connection.getCatalog(), null, tableName);
+                        while (rs.next()) {
+                            columns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME").toLowerCase());
+                        }
+                    } finally {
+                        JdbcUtils.closeResultSet(rs);
+                    }
+
+                    return ImmutableList.copyOf(columns.values());
+                }
+            });
+
+            PRIMARY_KEYS.putIfAbsent(tableName, primaryKey);
+        }
+
+        return primaryKey;
+    }
+
+    private Statement getStatement(final String sql, final String tableName, final String columnNames, final boolean affectsRows) {
+        Statement statement = statements.get(sql);
+        if (statement == null) {
+            statement = new Statement(sql, tableName, columnNames, affectsRows);
+            statements.put(sql, statement);
+        }
+
+        return statement;
+    }
+
+    private static final class Statement {
+        private final String sql;
+        private final String tableName;
+        private final String columnNames;
+        private final boolean affectsRows;
+        private final List<List<Object>> rows = Lists.newArrayList();
+
+        private Statement(final String sql, final String tableName, final String columnNames, final boolean affectsRows) {
+            this.sql = sql;
+            this.tableName = tableName;
+            this.columnNames = columnNames;
+            this.affectsRows = affectsRows;
+        }
+
+        private Statement toDelete(final List<String> primaryKey, final List<List<Object>> removedRows) {
+            final List<String> columns = COLUMN_SPLITTER.splitToList(columnNames);
+            Validate.isTrue(!primaryKey.isEmpty() && columns.containsAll(primaryKey), "Primary key of " + tableName + " not in " + columnNames);
+
+            final List<String> conditions = Lists.newArrayList();
+            for (final String columnName : primaryKey) {
+                conditions.add(columnName + " = ?");
+            }
+
+            final Statement delete = new Statement(String.format("DELETE FROM %s WHERE %s", tableName, Joiner.on(" AND ").join(conditions)), null, null, true);
+            for (final List<Object> row : removedRows) {
+                final List<Object> keyValues = Lists.newArrayListWithExpectedSize(primaryKey.size());
+                for (final String columnName : primaryKey) {
+                    keyValues.add(row.get(columns.indexOf(columnName)));
+                }
+                delete.rows.add(keyValues);
+            }
+
+            return delete;
+        }
+
+        private List<List<Object>> selectRows(final JdbcTemplate jdbcTemplate, final int objectId) {
+            return jdbcTemplate.query(String.format("SELECT %s FROM %s WHERE object_id = ?", columnNames, tableName), new RowMapper<List<Object>>() {
+                @Override
+                public List<Object> mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                    final int columnCount = rs.getMetaData().getColumnCount();
+                    final List<Object> row = Lists.newArrayListWithExpectedSize(columnCount);
+                    for (int column = 1; column <= columnCount; column++) {
+                        row.add(rs.getObject(column));
+                    }
+                    return row;
+                }
+            }, objectId);
+        }
+
+        private void execute(final JdbcTemplate jdbcTemplate) {
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            final int[] rowsAffected;
+            if (rows.size() == 1) {
+                rowsAffected = new int[]{jdbcTemplate.update(sql, rows.get(0).toArray())};
+            } else {
+                final List<Object[]> batchArgs = Lists.newArrayListWithExpectedSize(rows.size());
+                for (final List<Object> row : rows) {
+                    batchArgs.add(row.toArray());
+                }
+
+                rowsAffected = jdbcTemplate.batchUpdate(sql, batchArgs);
+            }
+
+            if (affectsRows) {
+                for (final int affected : rowsAffected) {
+                    // drivers may report success without a count for batched statements
+                    if (affected == 0) {
+                        throw new DataIntegrityViolationException("Rows affected by " + sql + ": " + affected);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ public interface IndexStrategy {
 
     int addToIndex(JdbcTemplate jdbcTemplate, RpslObjectInfo objectInfo, RpslObject object, CIString value);
     int addToIndex(JdbcTemplate jdbcTemplate, RpslObjectInfo objectInfo, RpslObject object, String value);
+    int addToIndex(IndexRows indexRows, RpslObjectInfo objectInfo, RpslObject object, String value);
 
     List<RpslObjectInfo> findInIndex(JdbcTemplate jdbcTemplate, String value);
     List<RpslObjectInfo> findInIndex(JdbcTemplate jdbcTemplate, String value, final ObjectType type);
@@ -24,6 +25,7 @@ public interface IndexStrategy {
     List<RpslObjectInfo> findInIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo value, final ObjectType type);
 
     void removeFromIndex(JdbcTemplate jdbcTemplate, RpslObjectInfo objectInfo);
+    void removeFromIndex(IndexRows indexRows, RpslObjectInfo objectInfo);
 
     String getLookupTableName();
 
@@ -31,6 +31,14 @@ abstract class IndexStrategyAdapter implements IndexStrategy {
 
     @Override
     public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+        final IndexRows indexRows = new IndexRows(jdbcTemplate);
+        final int rows = addToIndex(indexRows, objectInfo, object, value);
+        indexRows.flush();
+        return rows;
+    }
+
+    @Override
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         return 1;
     }
 
@@ -65,7 +73,14 @@ abstract class IndexStrategyAdapter implements IndexStrategy {
     }
 
     @Override
-    public void removeFromIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo) {
+    public final void removeFromIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo) {
+        final IndexRows indexRows = new IndexRows(jdbcTemplate);
+        removeFromIndex(indexRows, objectInfo);
+        indexRows.flush();
+    }
+
+    @Override
+    public void removeFromIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo) {
     }
 
     @Override
@@ -3,7 +3,6 @@ package net.ripe.db.whois.common.dao.jdbc.index;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
-import org.springframework.jdbc.core.JdbcTemplate;
 
 class IndexWithAuth extends IndexWithValueAndType {
 
@@ -12,12 +11,12 @@ class IndexWithAuth extends IndexWithValueAndType {
     }
 
     @Override
-    public int addToIndex(JdbcTemplate jdbcTemplate, RpslObjectInfo objectInfo, RpslObject object, String value) {
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         final String auth = value.toUpperCase();
         if (auth.startsWith("MD5-PW ")) {
             return 1;
         } else {
-            return super.addToIndex(jdbcTemplate, objectInfo, object, value);
+            return super.addToIndex(indexRows, objectInfo, object, value);
         }
     }
 }
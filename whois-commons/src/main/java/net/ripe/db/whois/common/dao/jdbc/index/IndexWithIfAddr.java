@@ -21,14 +21,13 @@ class IndexWithIfAddr extends IndexStrategyWithSingleLookupTable {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         final Ipv4Resource ifaddr = parseIfAddr(value);
         if (ifaddr == null) {
             throw new IllegalArgumentException("invalid ifaddr");
         }
 
-        return jdbcTemplate.update(
-                "INSERT INTO ifaddr (object_id, ifaddr) VALUES (?, ?)",
+        return indexRows.insert("ifaddr", "object_id, ifaddr",
                 objectInfo.getObjectId(),
                 ifaddr.begin());
     }
@@ -19,15 +19,14 @@ class IndexWithInet6num extends IndexStrategyWithSingleLookupTable {
     // MySQL 5.1 bug workaround: if 64-bit integer has its msb bit set, the comparison fails
     // (proved to be working in mysql 5.5; we can drop the Long.toString() then
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         final Ipv6Resource resource = Ipv6Resource.parse(objectInfo.getKey());
 
         // GRS sources might not have netname
         final CIString netnameAttribute = object.getValueOrNullForAttribute(AttributeType.NETNAME);
         final String netname = netnameAttribute == null ? "" : netnameAttribute.toString();
 
-        return jdbcTemplate.update(
-                "INSERT INTO inet6num (object_id, i6_msb, i6_lsb, prefix_length, netname) VALUES (?, ?, ?, ?, ?)",
+        return indexRows.insert("inet6num", "object_id, i6_msb, i6_lsb, prefix_length, netname",
                 objectInfo.getObjectId(),
                 Long.toString(Ipv6Resource.msb(resource.begin())),
                 Long.toString(Ipv6Resource.lsb(resource.begin())),
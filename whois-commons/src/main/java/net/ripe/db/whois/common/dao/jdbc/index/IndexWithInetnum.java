@@ -18,15 +18,14 @@ class IndexWithInetnum extends IndexStrategyWithSingleLookupTable {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         final Ipv4Resource resource = Ipv4Resource.parse(objectInfo.getKey());
 
         // GRS sources might not have netname
         final CIString netnameAttribute = object.getValueOrNullForAttribute(AttributeType.NETNAME);
         final String netname = netnameAttribute == null ? "" : netnameAttribute.toString();
 
-        return jdbcTemplate.update(
-                "INSERT INTO inetnum (object_id, begin_in, end_in, netname) VALUES (?, ?, ?, ?)",
+        return indexRows.insert("inetnum", "object_id, begin_in, end_in, netname",
                 objectInfo.getObjectId(),
                 resource.begin(),
                 resource.end(),
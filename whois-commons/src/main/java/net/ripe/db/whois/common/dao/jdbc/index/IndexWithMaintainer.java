@@ -1,13 +1,17 @@
 package net.ripe.db.whois.common.dao.jdbc.index;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static net.ripe.db.whois.common.domain.CIString.ciString;
 
@@ -26,4 +30,18 @@ class IndexWithMaintainer extends IndexWithValue {
 
         return super.findInIndex(jdbcTemplate, value);
     }
+
+    @Override
+    Map<CIString, RpslObjectInfo> findUniqueInIndex(final JdbcTemplate jdbcTemplate, final Collection<CIString> values) {
+        if (!values.contains(ANY)) {
+            return super.findUniqueInIndex(jdbcTemplate, values);
+        }
+
+        final Set<CIString> maintainers = Sets.newHashSet(values);
+        maintainers.remove(ANY);
+
+        final Map<CIString, RpslObjectInfo> result = super.findUniqueInIndex(jdbcTemplate, maintainers);
+        result.put(ANY, new RpslObjectInfo(0, ObjectType.MNTNER, ANY));
+        return result;
+    }
 }
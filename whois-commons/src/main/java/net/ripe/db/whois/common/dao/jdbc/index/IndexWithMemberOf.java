@@ -22,14 +22,20 @@ class IndexWithMemberOf extends IndexWithReference {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+    String getReferenceKey(final String value) {
+        // referenced set depends on the type of the referencing object
+        return null;
+    }
+
+    @Override
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         final IndexStrategy referenceStrategy = IndexStrategies.get(getReferenceAttribute(object.getType()));
-        final RpslObjectInfo reference = uniqueResult(referenceStrategy.findInIndex(jdbcTemplate, value));
+        final RpslObjectInfo reference = uniqueResult(referenceStrategy.findInIndex(indexRows.getJdbcTemplate(), value));
         if (reference == null) {
             throw new IllegalArgumentException("Referenced object does not exist: " + value);
         }
 
-        return addToIndex(jdbcTemplate, objectInfo, reference);
+        return addToIndex(indexRows, objectInfo, reference);
     }
 
     @Override
@@ -45,15 +51,13 @@ class IndexWithMemberOf extends IndexWithReference {
 
     private List<RpslObjectInfo> findInIndex(final JdbcTemplate jdbcTemplate, final String value, final IndexStrategy referenceStrategy) {
         final String query = MessageFormat.format("" +
-                "SELECT l.object_id, l.object_type, l.pkey\n" +
+                "SELECT {2}.object_id, {2}.object_type, {2}.pkey\n" +
                 "        FROM mbrs_by_ref, {0}, {2}\n" +
-                "        LEFT JOIN last l ON l.object_id = {2}.object_id " +
                 "        LEFT OUTER JOIN mnt_by ON {2}.object_id = mnt_by.object_id\n" +
                 "        WHERE (mbrs_by_ref.mnt_id = 0 OR mbrs_by_ref.mnt_id = mnt_by.mnt_id)\n" +
                 "        AND {2}.{3} = mbrs_by_ref.object_id\n" +
                 "        AND {0}.object_id = {2}.{3}\n" +
-                "        AND {0}.{1} = ?\n" +
-                "        AND l.sequence_id != 0 ",
+                "        AND {0}.{1} = ? ",
                 referenceStrategy.getLookupTableName(),
                 referenceStrategy.getLookupColumnName(),
                 lookupTableName,
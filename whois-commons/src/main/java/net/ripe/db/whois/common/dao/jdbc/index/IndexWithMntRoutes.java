@@ -38,13 +38,29 @@ class IndexWithMntRoutes extends IndexWithReference {
             return existing;
         }
 
-        return jdbcTemplate.update("" +
-                "INSERT INTO mnt_routes " +
-                "(object_id, " + lookupColumnName + ", object_type) " +
-                "VALUES (?, ?, ?)",
-                objectInfo.getObjectId(),
-                reference.getObjectId(),
-                ObjectTypeIds.getId(objectInfo.getObjectType()));
+        return super.addToIndex(jdbcTemplate, objectInfo, object, value);
+    }
+
+    @Override
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+        final RpslObjectInfo reference = getReference(indexRows, getReferenceKey(value));
+        if (reference == null) {
+            throw new IllegalArgumentException("Referenced object does not exist: " + value);
+        }
+
+        // several mnt-routes can refer to the same maintainer (for different routes)
+        final String columnNames = "object_id, " + lookupColumnName + ", object_type, pkey";
+        final Object[] values = {objectInfo.getObjectId(), reference.getObjectId(), ObjectTypeIds.getId(objectInfo.getObjectType()), objectInfo.getKey()};
+        if (indexRows.contains(lookupTableName, columnNames, values)) {
+            return 1;
+        }
+
+        return indexRows.insert(lookupTableName, columnNames, values);
+    }
+
+    @Override
+    String getReferenceKey(final String value) {
+        return MntRoutes.parse(value).getMaintainer().toString();
     }
 
     @Override
@@ -55,12 +71,10 @@ class IndexWithMntRoutes extends IndexWithReference {
     private List<RpslObjectInfo> findInIndex(final JdbcTemplate jdbcTemplate, final String value, final String lookupTableName) {
 
         final String query = MessageFormat.format(
-                "SELECT l.object_id, l.object_type, l.pkey " +
+                "SELECT {2}.object_id, {2}.object_type, {2}.pkey " +
                         "  FROM {0} " +
-                        "  LEFT JOIN {2} ON {2}.{3} = {0}.object_id " +
-                        "  LEFT JOIN last l ON l.object_id = {2}.object_id " +
-                        "  WHERE {0}.{1} = ? " +
-                        "  AND l.sequence_id != 0 ",
+                        "  JOIN {2} ON {2}.{3} = {0}.object_id " +
+                        "  WHERE {0}.{1} = ? ",
                 IndexStrategies.get(AttributeType.MNTNER).getLookupTableName(),
                 IndexStrategies.get(AttributeType.MNTNER).getLookupColumnName(),
                 lookupTableName,
@@ -70,7 +84,7 @@ class IndexWithMntRoutes extends IndexWithReference {
     }
 
     @Override
-    public void removeFromIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo) {
-        jdbcTemplate.update("DELETE FROM mnt_routes WHERE object_id = ?", objectInfo.getObjectId());
+    public void removeFromIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo) {
+        indexRows.deleteAll("mnt_routes", objectInfo.getObjectId());
     }
 }
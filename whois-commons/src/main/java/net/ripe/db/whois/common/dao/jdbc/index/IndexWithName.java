@@ -68,21 +68,20 @@ class IndexWithName extends IndexStrategyWithSingleLookupTable {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         int ret = 0;
 
         final Set<CIString> names = Sets.newHashSet();
         for (String name : SPACE_SPLITTER.split(value)) {
             if (names.add(ciString(name))) {
-                ret += addToIndex(jdbcTemplate, objectInfo.getObjectId(), name);
+                ret += addToIndex(indexRows, objectInfo.getObjectId(), name);
             }
         }
 
         return ret;
     }
 
-    int addToIndex(final JdbcTemplate jdbcTemplate, final int objectId, final String name) {
-        final String query = String.format("INSERT INTO %s (object_id, name) VALUES (?, ?)", lookupTableName);
-        return jdbcTemplate.update(query, objectId, name);
+    int addToIndex(final IndexRows indexRows, final int objectId, final String name) {
+        return indexRows.insert(lookupTableName, "object_id, name", objectId, name);
     }
 }
@@ -22,9 +22,8 @@ class IndexWithNameAndType extends IndexWithName {
     }
 
     @Override
-    int addToIndex(final JdbcTemplate jdbcTemplate, final int objectId, final String name) {
-        final String query = String.format("INSERT INTO %s (object_id, name, object_type) VALUES (?, ?, ?)", lookupTableName);
-        return jdbcTemplate.update(query, objectId, name, objectTypeId);
+    int addToIndex(final IndexRows indexRows, final int objectId, final String name) {
+        return indexRows.insert(lookupTableName, "object_id, name, object_type", objectId, name, objectTypeId);
     }
 
     @Override
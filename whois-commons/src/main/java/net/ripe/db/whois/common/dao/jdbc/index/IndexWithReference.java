@@ -28,7 +28,7 @@ class IndexWithReference extends IndexStrategySimpleLookup {
 
     private Set<IndexStrategy> referenceStrategies = null;
 
-    private Set<IndexStrategy> getReferenceStrategies() {
+    Set<IndexStrategy> getReferenceStrategies() {
         if (referenceStrategies == null) {
             final Set<ObjectType> references = attributeType.getReferences();
             Validate.notEmpty(references, "No references for: " + attributeType);
@@ -47,6 +47,30 @@ class IndexWithReference extends IndexStrategySimpleLookup {
         return referenceStrategies;
     }
 
+    /**
+     * @return the key of the referenced object, or null if the reference is not resolved by the key of the referenced object.
+     */
+    @CheckForNull
+    String getReferenceKey(final String value) {
+        return value;
+    }
+
+    @CheckForNull
+    RpslObjectInfo getReference(final IndexRows indexRows, final String pkey) {
+        for (final IndexStrategy referenceStrategy : getReferenceStrategies()) {
+            RpslObjectInfo result = indexRows.getReferences().get(referenceStrategy, pkey);
+            if (result == null) {
+                result = CollectionHelper.uniqueResult(referenceStrategy.findInIndex(indexRows.getJdbcTemplate(), pkey));
+            }
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
     @CheckForNull
     RpslObjectInfo getReference(final JdbcTemplate jdbcTemplate, final String pkey) {
         for (final IndexStrategy referenceStrategy : getReferenceStrategies()) {
@@ -60,22 +84,21 @@ class IndexWithReference extends IndexStrategySimpleLookup {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
-        final RpslObjectInfo reference = getReference(jdbcTemplate, value);
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+        final RpslObjectInfo reference = getReference(indexRows, value);
         if (reference == null) {
             throw new IllegalArgumentException("Referenced object does not exist: " + value);
         }
 
-        return addToIndex(jdbcTemplate, objectInfo, reference);
+        return addToIndex(indexRows, objectInfo, reference);
     }
 
-    int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObjectInfo reference) {
-        return addToIndex(jdbcTemplate, objectInfo, reference.getObjectId());
+    int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObjectInfo reference) {
+        return addToIndex(indexRows, objectInfo, reference.getObjectId());
     }
 
-    int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final int referenceObjectId) {
-        final String query = String.format("INSERT INTO %s (object_id, %s, object_type) VALUES (?, ?, ?)", lookupTableName, lookupColumnName);
-        return jdbcTemplate.update(query, objectInfo.getObjectId(), referenceObjectId, ObjectTypeIds.getId(objectInfo.getObjectType()));
+    int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final int referenceObjectId) {
+        return indexRows.insert(lookupTableName, "object_id, " + lookupColumnName + ", object_type, pkey", objectInfo.getObjectId(), referenceObjectId, ObjectTypeIds.getId(objectInfo.getObjectType()), objectInfo.getKey());
     }
 
     @Override
@@ -93,11 +116,9 @@ class IndexWithReference extends IndexStrategySimpleLookup {
         }
 
         final String query = MessageFormat.format(
-                "SELECT l.object_id, l.object_type, l.pkey " +
+                "SELECT object_id, object_type, pkey " +
                         "  FROM {0} " +
-                        "  LEFT JOIN last l ON l.object_id = {0}.object_id " +
-                        "  WHERE {0}.{1} in (:ids) " +
-                        "  AND l.sequence_id != 0 ",
+                        "  WHERE {1} in (:ids) ",
                 lookupTableName,
                 lookupColumnName
         );
@@ -108,15 +129,12 @@ class IndexWithReference extends IndexStrategySimpleLookup {
                 new RpslObjectInfoResultSetExtractor());
     }
 
-    //
+    // the referencing object is stored with the reference, rows of deleted objects are removed from the index
     public List<RpslObjectInfo> findInIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo value) {
-        // FIXME: [AH] joining to last is very costly and unnecessary here; look for ways to drop this join
         final String query = MessageFormat.format(
-                "SELECT l.object_id, l.object_type, l.pkey " +
+                "SELECT object_id, object_type, pkey " +
                         "  FROM {0} " +
-                        "  LEFT JOIN last l ON l.object_id = {0}.object_id " +
-                        "  WHERE {0}.{1} = ? " +
-                        "  AND l.sequence_id != 0 ",
+                        "  WHERE {1} = ? ",
                 lookupTableName,
                 lookupColumnName
         );
@@ -125,13 +143,10 @@ class IndexWithReference extends IndexStrategySimpleLookup {
     }
 
     public List<RpslObjectInfo> findInIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo value, final ObjectType type) {
-        // FIXME: [AH] joining to last is very costly and unnecessary here; look for ways to drop this join
         final String query = MessageFormat.format(
-                "SELECT l.object_id, l.object_type, l.pkey " +
+                "SELECT object_id, object_type, pkey " +
                         "  FROM {0} " +
-                        "  LEFT JOIN last l ON l.object_id = {0}.object_id " +
-                        "  WHERE {0}.{1} = ? AND {0}.object_type = ? " +
-                        "  AND l.sequence_id != 0 ",
+                        "  WHERE {1} = ? AND object_type = ? ",
                 lookupTableName,
                 lookupColumnName
         );
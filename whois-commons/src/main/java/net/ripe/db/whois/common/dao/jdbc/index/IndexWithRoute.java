@@ -20,12 +20,11 @@ class IndexWithRoute extends IndexStrategyWithSingleLookupTable {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
         final Ipv4Resource ipRange = Ipv4Resource.parse(value);
         final String origin = object.getValueForAttribute(AttributeType.ORIGIN).toString();
 
-        return jdbcTemplate.update(
-                "INSERT INTO route (object_id, prefix, prefix_length, origin) VALUES (?, ?, ?, ?)",
+        return indexRows.insert("route", "object_id, prefix, prefix_length, origin",
                 objectInfo.getObjectId(),
                 ipRange.begin(),
                 ipRange.getPrefixLength(),
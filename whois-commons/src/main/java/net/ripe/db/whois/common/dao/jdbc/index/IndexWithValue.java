@@ -1,24 +1,40 @@
 package net.ripe.db.whois.common.dao.jdbc.index;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
+import net.ripe.db.whois.common.dao.jdbc.domain.RpslObjectInfoMapper;
 import net.ripe.db.whois.common.dao.jdbc.domain.RpslObjectInfoResultSetExtractor;
+import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static net.ripe.db.whois.common.domain.CIString.ciString;
 
 class IndexWithValue extends IndexStrategySimpleLookup {
+    private static final int MAX_VALUES_PER_QUERY = 1000;
 
     protected IndexWithValue(final AttributeType attributeType, final String lookupTableName, final String lookupColumnName) {
         super(attributeType, lookupTableName, lookupColumnName);
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
-        final String query = String.format("INSERT INTO %s (object_id, %s) VALUES (?, ?)", lookupTableName, lookupColumnName);
-        return jdbcTemplate.update(query, objectInfo.getObjectId(), value);
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+        return indexRows.insert(lookupTableName, "object_id, " + lookupColumnName, objectInfo.getObjectId(), value);
     }
 
     @Override
@@ -36,4 +52,46 @@ class IndexWithValue extends IndexStrategySimpleLookup {
 
         return jdbcTemplate.query(query, new RpslObjectInfoResultSetExtractor(), value);
     }
+
+    /**
+     * Find many values at once, with a query per batch of values.
+     *
+     * @return the object for every value that was found exactly once.
+     */
+    Map<CIString, RpslObjectInfo> findUniqueInIndex(final JdbcTemplate jdbcTemplate, final Collection<CIString> values) {
+        final String query = MessageFormat.format("" +
+                "SELECT l.object_id, l.object_type, l.pkey, {0}.{1} " +
+                "  FROM {0} " +
+                "  LEFT JOIN last l ON l.object_id = {0}.object_id " +
+                "  WHERE {0}.{1} IN (:values) " +
+                "  AND l.sequence_id != 0 ",
+                lookupTableName,
+                lookupColumnName
+            );
+
+        final Map<CIString, RpslObjectInfo> result = Maps.newHashMap();
+        final Set<CIString> duplicates = Sets.newHashSet();
+        final RpslObjectInfoMapper rpslObjectInfoMapper = new RpslObjectInfoMapper();
+
+        for (final List<CIString> batch : Iterables.partition(values, MAX_VALUES_PER_QUERY)) {
+            final List<String> batchValues = Lists.newArrayListWithExpectedSize(batch.size());
+            for (final CIString value : batch) {
+                batchValues.add(value.toString());
+            }
+
+            new NamedParameterJdbcTemplate(jdbcTemplate).query(query, new MapSqlParameterSource("values", batchValues), new RowCallbackHandler() {
+                @Override
+                public void processRow(final ResultSet rs) throws SQLException {
+                    final RpslObjectInfo rpslObjectInfo = rpslObjectInfoMapper.mapRow(rs, 0);
+                    final CIString value = ciString(rs.getString(4));
+                    if (rpslObjectInfo != null && !duplicates.contains(value) && result.put(value, rpslObjectInfo) != null) {
+                        result.remove(value);
+                        duplicates.add(value);
+                    }
+                }
+            });
+        }
+
+        return result;
+    }
 }
@@ -33,8 +33,7 @@ class IndexWithValueAndType extends IndexWithValue {
     }
 
     @Override
-    public int addToIndex(final JdbcTemplate jdbcTemplate, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
-        final String query = String.format("INSERT INTO %s (object_id, %s, object_type) VALUES (?, ?, ?)", lookupTableName, lookupColumnName);
-        return jdbcTemplate.update(query, objectInfo.getObjectId(), value, ObjectTypeIds.getId(objectInfo.getObjectType()));
+    public int addToIndex(final IndexRows indexRows, final RpslObjectInfo objectInfo, final RpslObject object, final String value) {
+        return indexRows.insert(lookupTableName, "object_id, " + lookupColumnName + ", object_type", objectInfo.getObjectId(), value, ObjectTypeIds.getId(objectInfo.getObjectType()));
     }
 }
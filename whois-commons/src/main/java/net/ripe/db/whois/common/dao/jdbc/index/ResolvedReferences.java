@@ -0,0 +1,94 @@
+package net.ripe.db.whois.common.dao.jdbc.index;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.ripe.db.whois.common.dao.RpslObjectInfo;
+import net.ripe.db.whois.common.domain.CIString;
+import net.ripe.db.whois.common.rpsl.AttributeTemplate;
+import net.ripe.db.whois.common.rpsl.ObjectTemplate;
+import net.ripe.db.whois.common.rpsl.RpslAttribute;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.CheckForNull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static net.ripe.db.whois.common.domain.CIString.ciString;
+
+/**
+ * References of objects to be indexed, resolved in bulk with one query per lookup table of the referenced keys.
+ * <p/>
+ * Only references that were found are kept. References that are not found are looked up one by one while indexing,
+ * so missing references are reported as before, and references to objects that are created later (like an object
+ * referring to itself) are still found.
+ */
+public final class ResolvedReferences {
+    public static final ResolvedReferences NONE = new ResolvedReferences(Collections.<IndexStrategy, Map<CIString, RpslObjectInfo>>emptyMap());
+
+    private final Map<IndexStrategy, Map<CIString, RpslObjectInfo>> references;
+
+    private ResolvedReferences(final Map<IndexStrategy, Map<CIString, RpslObjectInfo>> references) {
+        this.references = references;
+    }
+
+    public static ResolvedReferences resolve(final JdbcTemplate jdbcTemplate, final Iterable<RpslObject> objects) {
+        final Map<IndexWithValue, Set<CIString>> valuesByStrategy = Maps.newHashMap();
+
+        for (final RpslObject object : objects) {
+            for (final AttributeTemplate attributeTemplate : ObjectTemplate.getTemplate(object.getType()).getAttributeTemplates()) {
+                final IndexStrategy indexStrategy = IndexStrategies.get(attributeTemplate.getAttributeType());
+                if (indexStrategy instanceof IndexWithReference) {
+                    addValues(valuesByStrategy, (IndexWithReference) indexStrategy, object);
+                }
+            }
+        }
+
+        final Map<IndexStrategy, Map<CIString, RpslObjectInfo>> references = Maps.newHashMap();
+        for (final Map.Entry<IndexWithValue, Set<CIString>> entry : valuesByStrategy.entrySet()) {
+            references.put(entry.getKey(), entry.getKey().findUniqueInIndex(jdbcTemplate, entry.getValue()));
+        }
+
+        return new ResolvedReferences(references);
+    }
+
+    private static void addValues(final Map<IndexWithValue, Set<CIString>> valuesByStrategy, final IndexWithReference indexStrategy, final RpslObject object) {
+        for (final RpslAttribute attribute : object.findAttributes(indexStrategy.getAttributeType())) {
+            for (final CIString value : attribute.getCleanValues()) {
+                final String referenceKey;
+                try {
+                    referenceKey = indexStrategy.getReferenceKey(value.toString());
+                } catch (IllegalArgumentException ignored) {
+                    // reported as missing reference when indexed
+                    continue;
+                }
+
+                if (referenceKey == null) {
+                    continue;
+                }
+
+                for (final IndexStrategy referenceStrategy : indexStrategy.getReferenceStrategies()) {
+                    if (referenceStrategy instanceof IndexWithValue) {
+                        Set<CIString> values = valuesByStrategy.get(referenceStrategy);
+                        if (values == null) {
+                            values = Sets.newHashSet();
+                            valuesByStrategy.put((IndexWithValue) referenceStrategy, values);
+                        }
+
+                        values.add(ciString(referenceKey));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the referenced object with the key in the index of the referenced key attribute, or null if it was not resolved.
+     */
+    @CheckForNull
+    public RpslObjectInfo get(final IndexStrategy referenceStrategy, final String pkey) {
+        final Map<CIString, RpslObjectInfo> objects = references.get(referenceStrategy);
+        return objects == null ? null : objects.get(ciString(pkey));
+    }
+}
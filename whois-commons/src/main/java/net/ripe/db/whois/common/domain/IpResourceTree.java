@@ -1,11 +1,17 @@
 package net.ripe.db.whois.common.domain;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import net.ripe.db.whois.common.collect.CollectionHelper;
+import net.ripe.db.whois.common.etree.IntersectingIntervalException;
 import net.ripe.db.whois.common.ip.IpInterval;
 import net.ripe.db.whois.common.etree.IntervalMap;
 import net.ripe.db.whois.common.etree.NestedIntervalMap;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 public class IpResourceTree<V> {
     private final IntervalMap<IpInterval<?>, V> ipv4Tree;
@@ -17,6 +23,53 @@ public class IpResourceTree<V> {
         this.ipv6Tree = new NestedIntervalMap();
     }
 
+    /**
+     * Builds the trees from all entries at once, which is considerably faster than adding entries one by one.
+     *
+     * @throws IntersectingIntervalException if an entry intersects another entry
+     */
+    public IpResourceTree(final Iterable<IpResourceEntry<V>> entries) {
+        final List<Map.Entry<IpInterval<?>, V>> ipv4Entries = Lists.newArrayList();
+        final List<Map.Entry<IpInterval<?>, V>> ipv6Entries = Lists.newArrayList();
+
+        for (final IpResourceEntry<V> entry : entries) {
+            final IpInterval<?> ipInterval = entry.getIpInterval();
+            final Map.Entry<IpInterval<?>, V> treeEntry = Maps.<IpInterval<?>, V>immutableEntry(ipInterval, entry.getValue());
+
+            switch (ipInterval.getAttributeType()) {
+                case INETNUM:
+                    ipv4Entries.add(treeEntry);
+                    break;
+                case INET6NUM:
+                    ipv6Entries.add(treeEntry);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported IP interval object type: " + ipInterval.getAttributeType());
+            }
+        }
+
+        this.ipv4Tree = bulkLoad(ipv4Entries);
+        this.ipv6Tree = bulkLoad(ipv6Entries);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> IntervalMap<IpInterval<?>, V> bulkLoad(final List<Map.Entry<IpInterval<?>, V>> entries) {
+        final Comparator nestingOrder = NestedIntervalMap.nestingOrder();
+        Collections.sort(entries, new Comparator<Map.Entry<IpInterval<?>, V>>() {
+            @Override
+            public int compare(final Map.Entry<IpInterval<?>, V> o1, final Map.Entry<IpInterval<?>, V> o2) {
+                return nestingOrder.compare(o1.getKey(), o2.getKey());
+            }
+        });
+
+        return new NestedIntervalMap(entries, new NestedIntervalMap.IntersectionHandler() {
+            @Override
+            public void handle(final IntersectingIntervalException e) {
+                throw e;
+            }
+        });
+    }
+
     public void add(IpInterval<?> ipInterval, V value) {
         getTree(ipInterval).put(ipInterval, value);
     }
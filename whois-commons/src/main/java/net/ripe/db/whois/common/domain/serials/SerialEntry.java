@@ -10,6 +10,7 @@ public class SerialEntry {
     final private int historyTimestamp;
 
     private RpslObject rpslObject;
+    private int sequenceId;
 
     public SerialEntry(final Operation operation, final boolean atLast, final int lastTimestamp, final int historyTimestamp) {
         this.operation = operation;
@@ -24,14 +25,23 @@ public class SerialEntry {
         rpslObject = RpslObject.parse(objectId, blob);
     }
 
-    public static SerialEntry createSerialEntryWithoutTimestamps(final Operation operation, final boolean atLast, final int objectId, final byte[] blob){
-        return new SerialEntry(operation, atLast, objectId, 0, 0, blob);
+    public static SerialEntry createSerialEntryWithoutTimestamps(final Operation operation, final boolean atLast, final int objectId, final int sequenceId, final byte[] blob){
+        final SerialEntry serialEntry = new SerialEntry(operation, atLast, objectId, 0, 0, blob);
+        serialEntry.sequenceId = sequenceId;
+        return serialEntry;
     }
 
     public RpslObject getRpslObject() {
         return rpslObject;
     }
 
+    /**
+     * @return the sequence id of the object version in this entry, or 0 if unknown.
+     */
+    public int getSequenceId() {
+        return sequenceId;
+    }
+
     public Operation getOperation() {
         return operation;
     }
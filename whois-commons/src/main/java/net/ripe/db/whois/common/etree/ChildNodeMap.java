@@ -16,8 +16,20 @@ interface ChildNodeMap<K extends Interval<K>, V> {
 
     void addChild(InternalNode<K, V> nodeToAdd);
 
+    /**
+     * Adds a node without checking for containing or intersecting siblings. The caller must make sure
+     * the node does not intersect any existing sibling.
+     */
+    void appendChild(InternalNode<K, V> nodeToAppend);
+
     void removeChild(K interval);
 
+    /**
+     * @return this map if it is owned by <code>owner</code>, otherwise a new map owned by <code>owner</code>
+     * containing the same child nodes.
+     */
+    ChildNodeMap<K, V> writable(Object owner);
+
     void findExactAndAllLessSpecific(List<InternalNode<K, V>> list, K interval);
 
     void findExactAndAllMoreSpecific(List<InternalNode<K, V>> list, K interval);
@@ -12,6 +12,9 @@ import java.util.Map.Entry;
  * insert siblings with intersecting intervals). This allows quick lookup of
  * matching intervals by comparing an interval's <em>lower-bound</em> with the
  * existing interval's <em>upper-bounds</em>.
+ * <p/>
+ * Maps and nodes belong to an owner, and are only modified by that owner. Child nodes with a different owner
+ * are shared with another map, and are replaced by a copy (path copying) before they are modified.
  */
 class ChildNodeTreeMap<K extends Interval<K>, V> extends TreeMap<K, InternalNode<K, V>> implements ChildNodeMap<K, V> {
 
@@ -45,15 +48,37 @@ class ChildNodeTreeMap<K extends Interval<K>, V> extends TreeMap<K, InternalNode
         }
     };
 
-    ChildNodeTreeMap() {
+    private final Object owner;
+
+    ChildNodeTreeMap(Object owner) {
         super(UPPER_BOUND_COMPARATOR);
+        this.owner = owner;
+    }
+
+    /**
+     * Construct a map owned by <code>owner</code>, sharing the child nodes of <code>source</code>.
+     */
+    ChildNodeTreeMap(ChildNodeTreeMap<K, V> source, Object owner) {
+        super(source);
+        this.owner = owner;
     }
 
-    public ChildNodeTreeMap(ChildNodeMap<K, V> source) {
-        this();
-        for (InternalNode<K, V> node : source.values()) {
-            this.put(node.getInterval(), new InternalNode<>(node));
+    @Override
+    public ChildNodeMap<K, V> writable(Object owner) {
+        return this.owner == owner ? this : new ChildNodeTreeMap<>(this, owner);
+    }
+
+    /**
+     * @return <code>node</code> if it is owned by the owner of this map, otherwise a copy that replaces it in this map.
+     */
+    private InternalNode<K, V> writable(InternalNode<K, V> node) {
+        if (node.getOwner() == owner) {
+            return node;
         }
+
+        final InternalNode<K, V> copy = new InternalNode<>(node, owner);
+        this.put(copy.getInterval(), copy);
+        return copy;
     }
 
     @Override
@@ -61,7 +86,7 @@ class ChildNodeTreeMap<K extends Interval<K>, V> extends TreeMap<K, InternalNode
         K range = nodeToAdd.getInterval();
         InternalNode<K, V> containingChild = getChildContaining(range);
         if (containingChild != null) {
-            containingChild.addChild(nodeToAdd);
+            writable(containingChild).addChild(nodeToAdd);
             return;
         }
 
@@ -75,12 +100,17 @@ class ChildNodeTreeMap<K extends Interval<K>, V> extends TreeMap<K, InternalNode
         this.put(range, nodeToAdd);
     }
 
+    @Override
+    public void appendChild(InternalNode<K, V> nodeToAppend) {
+        this.put(nodeToAppend.getInterval(), nodeToAppend);
+    }
+
     private void transferChildNodes(InternalNode<K, V> nodeToAdd) {
         K range = nodeToAdd.getInterval();
         for (Iterator<InternalNode<K, V>> it = this.tailMap(range.singletonIntervalAtLowerBound()).values().iterator(); it.hasNext(); ) {
             InternalNode<K, V> child = it.next();
             if (range.contains(child.getInterval())) {
-                nodeToAdd.addChild(child);
+                nodeToAdd.appendChild(child);
                 it.remove();
             } else {
                 break;
@@ -101,7 +131,7 @@ class ChildNodeTreeMap<K extends Interval<K>, V> extends TreeMap<K, InternalNode
                 put(node.getInterval(), node);
             }
         } else {
-            containing.removeChild(interval);
+            writable(containing).removeChild(interval);
         }
     }
 
@@ -186,11 +216,21 @@ class ChildNodeTreeMap<K extends Interval<K>, V> extends TreeMap<K, InternalNode
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public void appendChild(InternalNode nodeToAppend) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void removeChild(Interval interval) {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public ChildNodeMap writable(Object owner) {
+            return new ChildNodeTreeMap(owner);
+        }
+
         @Override
         public void findExactAndAllLessSpecific(List list, Interval range) {
         }
@@ -3,23 +3,38 @@ package net.ripe.db.whois.common.etree;
 import net.ripe.db.whois.common.ip.Interval;
 import org.apache.commons.lang.Validate;
 
+/**
+ * A node of a {@link NestedIntervalMap}. A node is only modified by the map that owns it, other maps sharing
+ * the node replace it by a copy first (see {@link ChildNodeTreeMap#writable(Object)}).
+ */
 final class InternalNode<K extends Interval<K>, V> {
 
     private final K interval;
+    private final Object owner;
     private V value;
     private ChildNodeMap<K, V> children = ChildNodeTreeMap.empty();
 
     public InternalNode(K interval, V value) {
+        this(interval, value, null);
+    }
+
+    public InternalNode(K interval, V value, Object owner) {
         Validate.notNull(interval, "interval");
         Validate.notNull(value, "value");
         this.interval = interval;
         this.value = value;
+        this.owner = owner;
     }
 
-    public InternalNode(InternalNode<K, V> source) {
+    /**
+     * Copy of <code>source</code> owned by <code>owner</code>. The children are shared with <code>source</code>
+     * until the copy modifies them.
+     */
+    public InternalNode(InternalNode<K, V> source, Object owner) {
         this.interval = source.interval;
         this.value = source.value;
-        this.children = source.children == ChildNodeTreeMap.EMPTY ? ChildNodeTreeMap.<K, V>empty() : new ChildNodeTreeMap<>(source.children);
+        this.children = source.children;
+        this.owner = owner;
     }
 
     public K getInterval() {
@@ -63,6 +78,10 @@ final class InternalNode<K extends Interval<K>, V> {
         return "Node(" + interval + ", " + value + ", " + children + ")";
     }
 
+    Object getOwner() {
+        return owner;
+    }
+
     ChildNodeMap<K, V> getChildren() {
         return children;
     }
@@ -73,18 +92,22 @@ final class InternalNode<K extends Interval<K>, V> {
         } else if (!interval.contains(nodeToAdd.getInterval())) {
             throw new IllegalArgumentException(nodeToAdd.getInterval() + " not properly contained in " + interval);
         } else {
-            if (children == ChildNodeTreeMap.EMPTY) {
-                children = new ChildNodeTreeMap<>();
-            }
+            children = children.writable(owner);
             children.addChild(nodeToAdd);
         }
     }
 
+    void appendChild(InternalNode<K, V> nodeToAppend) {
+        children = children.writable(owner);
+        children.appendChild(nodeToAppend);
+    }
+
     public void removeChild(K range) {
         if (!interval.contains(range) || interval.equals(range)) {
             throw new IllegalArgumentException(range + " not properly contained in " + interval);
         }
         if (children != ChildNodeTreeMap.EMPTY) {
+            children = children.writable(owner);
             children.removeChild(range);
             if (children.isEmpty()) {
                 children = ChildNodeTreeMap.empty();
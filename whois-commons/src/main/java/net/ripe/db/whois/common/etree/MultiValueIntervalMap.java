@@ -1,29 +1,83 @@
 package net.ripe.db.whois.common.etree;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
 import net.ripe.db.whois.common.collect.CollectionHelper;
 import net.ripe.db.whois.common.ip.Interval;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 public final class MultiValueIntervalMap<K extends Interval<K>, V> implements IntervalMap<K, V> {
-    private final IntervalMap<K, SortedSet<V>> wrapped;
+    private final NestedIntervalMap<K, SortedSet<V>> wrapped;
 
     public MultiValueIntervalMap() {
         this.wrapped = new NestedIntervalMap<>();
     }
 
+    /**
+     * Construct a new {@link MultiValueIntervalMap} with (key, values) of
+     * <code>source</code> copied.
+     * <p/>
+     * Value sets are shared with <code>source</code>, which is safe since sets are
+     * never modified in place once they are stored in the map.
+     *
+     * @param source the source to copy.
+     */
+    public MultiValueIntervalMap(final MultiValueIntervalMap<K, V> source) {
+        this.wrapped = new NestedIntervalMap<>(source.wrapped);
+    }
+
+    /**
+     * Construct a new {@link MultiValueIntervalMap} from (key, value) entries sorted in
+     * {@link NestedIntervalMap#nestingOrder()}. Entries with the same key are combined into a single
+     * value set.
+     *
+     * @see NestedIntervalMap#NestedIntervalMap(Iterable, NestedIntervalMap.IntersectionHandler)
+     */
+    public MultiValueIntervalMap(final Iterable<? extends Map.Entry<K, V>> sortedEntries, final NestedIntervalMap.IntersectionHandler intersectionHandler) {
+        this.wrapped = new NestedIntervalMap<>(groupByKey(sortedEntries), intersectionHandler);
+    }
+
+    private static <K extends Interval<K>, V> Iterable<Map.Entry<K, SortedSet<V>>> groupByKey(final Iterable<? extends Map.Entry<K, V>> sortedEntries) {
+        return new Iterable<Map.Entry<K, SortedSet<V>>>() {
+            @Override
+            public Iterator<Map.Entry<K, SortedSet<V>>> iterator() {
+                final PeekingIterator<Map.Entry<K, V>> entries = Iterators.<Map.Entry<K, V>>peekingIterator(sortedEntries.iterator());
+
+                return new AbstractIterator<Map.Entry<K, SortedSet<V>>>() {
+                    @Override
+                    protected Map.Entry<K, SortedSet<V>> computeNext() {
+                        if (!entries.hasNext()) {
+                            return endOfData();
+                        }
+
+                        final Map.Entry<K, V> first = entries.next();
+                        final SortedSet<V> values = new TreeSet<>();
+                        values.add(first.getValue());
+                        while (entries.hasNext() && entries.peek().getKey().equals(first.getKey())) {
+                            values.add(entries.next().getValue());
+                        }
+
+                        return Maps.immutableEntry(first.getKey(), values);
+                    }
+                };
+            }
+        };
+    }
+
     @Override
     public void put(K key, V value) {
-        SortedSet<V> set = CollectionHelper.uniqueResult(wrapped.findExact(key));
-        if (set == null) {
-            set = new TreeSet<>();
-            wrapped.put(key, set);
-        }
-
+        final SortedSet<V> existing = CollectionHelper.uniqueResult(wrapped.findExact(key));
+        final SortedSet<V> set = existing == null ? new TreeSet<V>() : new TreeSet<>(existing);
         set.add(value);
+        wrapped.put(key, set);
     }
 
     @Override
@@ -33,15 +87,17 @@ public final class MultiValueIntervalMap<K extends Interval<K>, V> implements In
 
     @Override
     public void remove(K key, V value) {
-        SortedSet<V> set = CollectionHelper.uniqueResult(wrapped.findExact(key));
-        if (set == null) {
+        final SortedSet<V> existing = CollectionHelper.uniqueResult(wrapped.findExact(key));
+        if (existing == null || !existing.contains(value)) {
             return;
         }
 
-        set.remove(value);
-
-        if (set.isEmpty()) {
+        if (existing.size() == 1) {
             wrapped.remove(key);
+        } else {
+            final SortedSet<V> set = new TreeSet<>(existing);
+            set.remove(value);
+            wrapped.put(key, set);
         }
     }
 
@@ -19,41 +19,124 @@ import java.util.*;
  * mappings; merely changing the value associated with an existing key is not a
  * structural modification.) This is typically accomplished by synchronizing on
  * some object that naturally encapsulates the map.
+ * <p/>
+ * Copying a map is cheap: the copy shares all nodes with its source, and either map only copies the nodes on the
+ * path to an interval it modifies (together with the child maps of the copied nodes), so a modification costs
+ * time and memory proportional to the depth of the interval and the number of siblings along its path, not to
+ * the size of the map. Nodes that are shared are never modified, so a map can be read while a copy of it is
+ * being modified.
  *
  * @param <K> the type of the interval (must implement {@link Interval}).
  * @param <V> the type of the values to store.
  */
 public final class NestedIntervalMap<K extends Interval<K>, V> implements IntervalMap<K, V> {
-    private final ChildNodeMap<K, V> children;
+    // nodes and child maps with a different owner are shared with another map
+    private Object owner = new Object();
+    private ChildNodeMap<K, V> children;
 
     /**
      * Construct an empty {@link NestedIntervalMap}.
      */
     public NestedIntervalMap() {
-        this.children = new ChildNodeTreeMap<>();
+        this.children = new ChildNodeTreeMap<>(owner);
     }
 
     /**
      * Construct a new {@link NestedIntervalMap} with (key, values) of
      * <code>source</code> copied.
+     * <p/>
+     * The nodes are shared: from now on both <code>source</code> and the copy copy a node before they modify it.
      *
      * @param source the source to copy.
      */
     public NestedIntervalMap(NestedIntervalMap<K, V> source) {
-        this.children = new ChildNodeTreeMap<>(source.children);
+        source.owner = new Object();
+        this.children = source.children;
+    }
+
+    /**
+     * Construct a new {@link NestedIntervalMap} from (key, value) entries sorted in {@link #nestingOrder()}.
+     * <p/>
+     * The nesting is built in a single pass, keeping a stack of the intervals enclosing the current
+     * entry, instead of looking up the position of every entry from the root as {@link #put} does.
+     * An entry with the same key as an earlier entry replaces its value. An entry that intersects (but
+     * is not contained in) an earlier entry is not added but passed to <code>intersectionHandler</code>.
+     *
+     * @param sortedEntries       the entries, ordered by lower-bound ascending and upper-bound descending.
+     * @param intersectionHandler the handler for intersecting entries.
+     * @throws IllegalArgumentException if a key or value is <code>null</code>, or if the entries are not sorted.
+     */
+    public NestedIntervalMap(Iterable<? extends Map.Entry<K, V>> sortedEntries, IntersectionHandler intersectionHandler) {
+        this();
+
+        final Comparator<K> nestingOrder = nestingOrder();
+        final Deque<InternalNode<K, V>> enclosing = new ArrayDeque<>();
+        K previous = null;
+
+        for (Map.Entry<K, V> entry : sortedEntries) {
+            final K key = entry.getKey();
+            Validate.notNull(key);
+            Validate.notNull(entry.getValue());
+
+            if (previous != null && nestingOrder.compare(previous, key) > 0) {
+                throw new IllegalArgumentException(String.format("%s is not sorted after %s", key, previous));
+            }
+            previous = key;
+
+            while (!enclosing.isEmpty() && !enclosing.peek().getInterval().intersects(key)) {
+                enclosing.pop();
+            }
+
+            final InternalNode<K, V> parent = enclosing.peek();
+            final InternalNode<K, V> node = new InternalNode<>(key, entry.getValue(), owner);
+            if (parent == null) {
+                children.appendChild(node);
+            } else if (parent.getInterval().equals(key)) {
+                parent.addChild(node);
+                continue;
+            } else if (parent.getInterval().contains(key)) {
+                parent.appendChild(node);
+            } else {
+                intersectionHandler.handle(new IntersectingIntervalException(key, Collections.singletonList(parent.getInterval())));
+                continue;
+            }
+
+            enclosing.push(node);
+        }
+    }
+
+    /**
+     * @return a comparator ordering intervals by lower-bound ascending and upper-bound descending, so every
+     * interval is ordered after all intervals that contain it.
+     */
+    public static <K extends Interval<K>> Comparator<K> nestingOrder() {
+        return new Comparator<K>() {
+            @Override
+            public int compare(K o1, K o2) {
+                final int result = o1.singletonIntervalAtLowerBound().compareUpperBound(o2.singletonIntervalAtLowerBound());
+                return result != 0 ? result : o2.compareUpperBound(o1);
+            }
+        };
     }
 
     @Override
     public void put(K key, V value) {
         Validate.notNull(key);
         Validate.notNull(value);
-        children.addChild(new InternalNode<>(key, value));
+        writableChildren().addChild(new InternalNode<>(key, value, owner));
     }
 
     @Override
     public void remove(K key) {
         Validate.notNull(key);
-        children.removeChild(key);
+        if (internalFindExact(key) != null) {
+            writableChildren().removeChild(key);
+        }
+    }
+
+    private ChildNodeMap<K, V> writableChildren() {
+        children = children.writable(owner);
+        return children;
     }
 
     @Override
@@ -121,7 +204,7 @@ public final class NestedIntervalMap<K extends Interval<K>, V> implements Interv
      */
     @Override
     public void clear() {
-        children.clear();
+        children = new ChildNodeTreeMap<>(owner);
     }
 
     @Override
@@ -235,6 +318,13 @@ public final class NestedIntervalMap<K extends Interval<K>, V> implements Interv
         return result;
     }
 
+    /**
+     * Receives the entries that could not be added when bulk loading a map, because they intersect an existing key.
+     */
+    public interface IntersectionHandler {
+        void handle(IntersectingIntervalException e);
+    }
+
     public abstract static class Key<K extends Interval<K>> {
         private final K key;
 
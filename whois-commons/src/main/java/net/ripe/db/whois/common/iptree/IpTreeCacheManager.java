@@ -1,7 +1,11 @@
 package net.ripe.db.whois.common.iptree;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.ripe.db.whois.common.dao.jdbc.JdbcStreamingHelper;
 import net.ripe.db.whois.common.dao.jdbc.domain.ObjectTypeIds;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.domain.serials.Operation;
@@ -20,15 +24,28 @@ import net.ripe.db.whois.common.source.SourceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static net.ripe.db.whois.common.domain.serials.Operation.UPDATE;
 import static net.ripe.db.whois.common.domain.serials.Operation.getByCode;
@@ -43,10 +60,42 @@ public class IpTreeCacheManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(IpTreeCacheManager.class);
 
     private final SourceContext sourceContext;
-
+    private final boolean snapshots;
+    private final boolean packed;
+
+    /**
+     * @param snapshots if true, trees are never modified once visible to readers: updates are applied to a copy of
+     *                  the affected trees, which is published together with its serial. Readers do not need to
+     *                  synchronize. A copy shares its nodes with the previous version, and only the nodes on the
+     *                  path to a changed interval are copied, so the cost of an update batch depends on the number
+     *                  of changes, not on the size of the trees.
+     * @param packed    if true, the IPv4 inetnum and domain trees are stored in a {@link PackedIpv4IntervalMap},
+     *                  which uses far less memory. A packed tree is never modified: the changes of an update batch
+     *                  are merged into a new tree in a single pass, which replaces the tree, so every update batch
+     *                  that changes a packed tree costs time linear in the size of the tree.
+     */
     @Autowired
-    public IpTreeCacheManager(final SourceContext sourceContext) {
+    public IpTreeCacheManager(
+            final SourceContext sourceContext,
+            @Value("${whois.iptree.snapshots:false}") final boolean snapshots,
+            @Value("${whois.iptree.packed:false}") final boolean packed) {
         this.sourceContext = sourceContext;
+        this.snapshots = snapshots;
+        this.packed = packed;
+    }
+
+    private final ExecutorService rebuildExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        final AtomicInteger threadNum = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            return new Thread(r, String.format("IpTreeRebuild-%s", threadNum.incrementAndGet()));
+        }
+    });
+
+    @PreDestroy
+    public void stop() {
+        rebuildExecutor.shutdownNow();
     }
 
     private static final class IpTreeUpdate {
@@ -71,71 +120,197 @@ public class IpTreeCacheManager {
     private static final class CacheEntry {
         final SourceConfiguration sourceConfiguration;
         final Semaphore updateLock = new Semaphore(1);
-        NestedIntervalMaps nestedIntervalMaps = new NestedIntervalMaps();
+        volatile NestedIntervalMaps nestedIntervalMaps;
 
-        private CacheEntry(final SourceConfiguration sourceConfiguration) {
+        private CacheEntry(final SourceConfiguration sourceConfiguration, final boolean snapshots) {
             this.sourceConfiguration = sourceConfiguration;
+            this.nestedIntervalMaps = new NestedIntervalMaps(snapshots);
         }
     }
 
     static class NestedIntervalMaps {
-        final IntervalMap<Ipv4Resource, Ipv4Entry> ipv4TreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv4Resource, Ipv4Entry>());
-        final IntervalMap<Ipv6Resource, Ipv6Entry> ipv6TreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv6Resource, Ipv6Entry>());
-        final IntervalMap<Ipv4Resource, Ipv4RouteEntry> ipv4RouteTreeCache = SynchronizedIntervalMap.synchronizedMap(new MultiValueIntervalMap<Ipv4Resource, Ipv4RouteEntry>());
-        final IntervalMap<Ipv6Resource, Ipv6RouteEntry> ipv6RouteTreeCache = SynchronizedIntervalMap.synchronizedMap(new MultiValueIntervalMap<Ipv6Resource, Ipv6RouteEntry>());
-        final IntervalMap<Ipv4Resource, Ipv4Entry> ipv4DomainTreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv4Resource, Ipv4Entry>());
-        final IntervalMap<Ipv6Resource, Ipv6Entry> ipv6DomainTreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv6Resource, Ipv6Entry>());
+        // packed trees are replaced by a merged tree on update, also when not using snapshots
+        volatile IntervalMap<Ipv4Resource, Ipv4Entry> ipv4TreeCache;
+        volatile IntervalMap<Ipv6Resource, Ipv6Entry> ipv6TreeCache;
+        volatile IntervalMap<Ipv4Resource, Ipv4RouteEntry> ipv4RouteTreeCache;
+        volatile IntervalMap<Ipv6Resource, Ipv6RouteEntry> ipv6RouteTreeCache;
+        volatile IntervalMap<Ipv4Resource, Ipv4Entry> ipv4DomainTreeCache;
+        volatile IntervalMap<Ipv6Resource, Ipv6Entry> ipv6DomainTreeCache;
+
+        // changes to packed trees, merged at the end of an update batch
+        private PackedIpv4IntervalMap.Changes ipv4TreeChanges = new PackedIpv4IntervalMap.Changes();
+        private PackedIpv4IntervalMap.Changes ipv4DomainTreeChanges = new PackedIpv4IntervalMap.Changes();
+
+        // trees that may be modified by this instance, all other trees are shared with a previous snapshot
+        private final Set<IntervalMap<?, ?>> writableTrees = Collections.synchronizedSet(Sets.<IntervalMap<?, ?>>newIdentityHashSet());
+        private final boolean snapshots;
 
         volatile long lastSerial = Long.MIN_VALUE;
 
+        NestedIntervalMaps(final boolean snapshots) {
+            this.snapshots = snapshots;
+            if (snapshots) {
+                ipv4TreeCache = new NestedIntervalMap<>();
+                ipv6TreeCache = new NestedIntervalMap<>();
+                ipv4RouteTreeCache = new MultiValueIntervalMap<>();
+                ipv6RouteTreeCache = new MultiValueIntervalMap<>();
+                ipv4DomainTreeCache = new NestedIntervalMap<>();
+                ipv6DomainTreeCache = new NestedIntervalMap<>();
+            } else {
+                ipv4TreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv4Resource, Ipv4Entry>());
+                ipv6TreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv6Resource, Ipv6Entry>());
+                ipv4RouteTreeCache = SynchronizedIntervalMap.synchronizedMap(new MultiValueIntervalMap<Ipv4Resource, Ipv4RouteEntry>());
+                ipv6RouteTreeCache = SynchronizedIntervalMap.synchronizedMap(new MultiValueIntervalMap<Ipv6Resource, Ipv6RouteEntry>());
+                ipv4DomainTreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv4Resource, Ipv4Entry>());
+                ipv6DomainTreeCache = SynchronizedIntervalMap.synchronizedMap(new NestedIntervalMap<Ipv6Resource, Ipv6Entry>());
+            }
+
+            writableTrees.add(ipv4TreeCache);
+            writableTrees.add(ipv6TreeCache);
+            writableTrees.add(ipv4RouteTreeCache);
+            writableTrees.add(ipv6RouteTreeCache);
+            writableTrees.add(ipv4DomainTreeCache);
+            writableTrees.add(ipv6DomainTreeCache);
+        }
+
+        /**
+         * Next version of a snapshot: all trees are shared with <code>previous</code> until they are first updated.
+         */
+        NestedIntervalMaps(final NestedIntervalMaps previous) {
+            snapshots = true;
+            ipv4TreeCache = previous.ipv4TreeCache;
+            ipv6TreeCache = previous.ipv6TreeCache;
+            ipv4RouteTreeCache = previous.ipv4RouteTreeCache;
+            ipv6RouteTreeCache = previous.ipv6RouteTreeCache;
+            ipv4DomainTreeCache = previous.ipv4DomainTreeCache;
+            ipv6DomainTreeCache = previous.ipv6DomainTreeCache;
+            lastSerial = previous.lastSerial;
+        }
+
+        /**
+         * Replaces the IPv4 inetnum and domain trees by packed copies. Only to be used before the trees are visible to readers.
+         * Packed trees are never modified, so they are not synchronized.
+         */
+        void packIpv4Trees() {
+            ipv4TreeCache = PackedIpv4IntervalMap.copyOf(ipv4TreeCache);
+            ipv4DomainTreeCache = PackedIpv4IntervalMap.copyOf(ipv4DomainTreeCache);
+        }
+
+        /**
+         * Takes ownership of a tree that is built outside this instance. Only to be used before the trees are visible to readers.
+         */
+        <K extends Interval<K>, V> IntervalMap<K, V> owned(final IntervalMap<K, V> intervalMap) {
+            final IntervalMap<K, V> result = snapshots ? intervalMap : SynchronizedIntervalMap.synchronizedMap(intervalMap);
+            writableTrees.add(result);
+            return result;
+        }
+
         void update(final Iterable<IpTreeUpdate> updates, final long lastSerial, final CacheEntry cacheEntry) {
             for (final IpTreeUpdate ipTreeUpdate : updates) {
                 try {
                     update(ipTreeUpdate);
                 } catch (IntersectingIntervalException e) {
-                    LOGGER.warn("Skipping intersecting entry in " + cacheEntry.sourceConfiguration.getSource() + ": " + e.getMessage());
+                    logIntersectingEntry(cacheEntry, e);
                 } catch (RuntimeException e) {
                     LOGGER.warn("Unable to update object {}: {}", ipTreeUpdate, e.getMessage());
                 }
             }
 
+            mergePackedTrees(cacheEntry);
             this.lastSerial = lastSerial;
         }
 
+        private void mergePackedTrees(final CacheEntry cacheEntry) {
+            final IntersectionLogger intersectionLogger = new IntersectionLogger(cacheEntry);
+
+            if (ipv4TreeCache instanceof PackedIpv4IntervalMap) {
+                ipv4TreeCache = ((PackedIpv4IntervalMap) ipv4TreeCache).merge(ipv4TreeChanges, intersectionLogger);
+                ipv4TreeChanges = new PackedIpv4IntervalMap.Changes();
+            }
+
+            if (ipv4DomainTreeCache instanceof PackedIpv4IntervalMap) {
+                ipv4DomainTreeCache = ((PackedIpv4IntervalMap) ipv4DomainTreeCache).merge(ipv4DomainTreeChanges, intersectionLogger);
+                ipv4DomainTreeChanges = new PackedIpv4IntervalMap.Changes();
+            }
+        }
+
         private void update(final IpTreeUpdate ipTreeUpdate) {
             switch (ipTreeUpdate.objectType) {
                 case INETNUM:
-                    update(ipv4TreeCache, new Ipv4Entry(Ipv4Resource.parse(ipTreeUpdate.pkey), ipTreeUpdate.objectId), ipTreeUpdate.operation);
+                    ipv4TreeCache = updateIpv4(ipv4TreeCache, ipv4TreeChanges, new Ipv4Entry(Ipv4Resource.parse(ipTreeUpdate.pkey), ipTreeUpdate.objectId), ipTreeUpdate.operation);
                     break;
                 case INET6NUM:
+                    ipv6TreeCache = writable(ipv6TreeCache);
                     update(ipv6TreeCache, new Ipv6Entry(Ipv6Resource.parse(ipTreeUpdate.pkey), ipTreeUpdate.objectId), ipTreeUpdate.operation);
                     break;
                 case ROUTE:
+                    ipv4RouteTreeCache = writable(ipv4RouteTreeCache);
                     update(ipv4RouteTreeCache, Ipv4RouteEntry.parse(ipTreeUpdate.pkey, ipTreeUpdate.objectId), ipTreeUpdate.operation);
                     break;
                 case ROUTE6:
+                    ipv6RouteTreeCache = writable(ipv6RouteTreeCache);
                     update(ipv6RouteTreeCache, Ipv6RouteEntry.parse(ipTreeUpdate.pkey, ipTreeUpdate.objectId), ipTreeUpdate.operation);
                     break;
                 case DOMAIN:
-                    final Domain domain = Domain.parse(ipTreeUpdate.pkey);
-                    switch (domain.getType()) {
-                        case INADDR:
-                            update(ipv4DomainTreeCache, new Ipv4Entry((Ipv4Resource) domain.getReverseIp(), ipTreeUpdate.objectId), ipTreeUpdate.operation);
-                            break;
-                        case IP6:
-                            update(ipv6DomainTreeCache, new Ipv6Entry((Ipv6Resource) domain.getReverseIp(), ipTreeUpdate.objectId), ipTreeUpdate.operation);
-                            break;
-                        default:
-                            LOGGER.debug("Ignoring domain: {}", domain.getValue());
-                            break;
-                    }
-
+                    updateDomain(Domain.parse(ipTreeUpdate.pkey), ipTreeUpdate.objectId, ipTreeUpdate.operation);
                     break;
                 default:
                     throw new IllegalArgumentException(String.format("Unexpected object type: %s", ipTreeUpdate.objectType));
             }
         }
 
+        private void updateDomain(final Domain domain, final int objectId, final Operation operation) {
+            switch (domain.getType()) {
+                case INADDR:
+                    ipv4DomainTreeCache = updateIpv4(ipv4DomainTreeCache, ipv4DomainTreeChanges, new Ipv4Entry((Ipv4Resource) domain.getReverseIp(), objectId), operation);
+                    break;
+                case IP6:
+                    ipv6DomainTreeCache = writable(ipv6DomainTreeCache);
+                    update(ipv6DomainTreeCache, new Ipv6Entry((Ipv6Resource) domain.getReverseIp(), objectId), operation);
+                    break;
+                default:
+                    LOGGER.debug("Ignoring domain: {}", domain.getValue());
+                    break;
+            }
+        }
+
+        private IntervalMap<Ipv4Resource, Ipv4Entry> updateIpv4(final IntervalMap<Ipv4Resource, Ipv4Entry> intervalMap, final PackedIpv4IntervalMap.Changes changes, final Ipv4Entry ipEntry, final Operation operation) {
+            if (intervalMap instanceof PackedIpv4IntervalMap) {
+                switch (operation) {
+                    case UPDATE:
+                        changes.put(ipEntry.getKey(), ipEntry);
+                        break;
+
+                    case DELETE:
+                        changes.remove(ipEntry.getKey());
+                }
+
+                return intervalMap;
+            }
+
+            final IntervalMap<Ipv4Resource, Ipv4Entry> result = writable(intervalMap);
+            update(result, ipEntry, operation);
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <K extends Interval<K>, V> IntervalMap<K, V> writable(final IntervalMap<K, V> intervalMap) {
+            if (writableTrees.contains(intervalMap)) {
+                return intervalMap;
+            }
+
+            // nested trees are copied in constant time, nodes are only copied when they are changed
+            final IntervalMap<K, V> copy;
+            if (intervalMap instanceof MultiValueIntervalMap) {
+                copy = new MultiValueIntervalMap<>((MultiValueIntervalMap<K, V>) intervalMap);
+            } else {
+                copy = new NestedIntervalMap<>((NestedIntervalMap<K, V>) intervalMap);
+            }
+
+            writableTrees.add(copy);
+            return copy;
+        }
+
         <K extends Interval<K>, V extends IpEntry<K>> void update(final IntervalMap<K, V> intervalMap, final V ipEntry, final Operation operation) {
             switch (operation) {
                 case UPDATE:
@@ -181,7 +356,7 @@ public class IpTreeCacheManager {
             throw new IllegalArgumentException(String.format("Cannot rebuild %s using different source configuration: %s", existingEntry.sourceConfiguration, sourceConfiguration));
         }
 
-        final CacheEntry cacheEntry = new CacheEntry(sourceConfiguration);
+        final CacheEntry cacheEntry = new CacheEntry(sourceConfiguration, snapshots);
         rebuild(sourceConfiguration.getJdbcTemplate(), cacheEntry);
         cache.put(source, cacheEntry);
     }
@@ -241,7 +416,13 @@ public class IpTreeCacheManager {
                     ObjectTypeIds.getId(DOMAIN)
             );
 
-            cacheEntry.nestedIntervalMaps.update(ipTreeUpdates, toInclusive, cacheEntry);
+            if (snapshots) {
+                final NestedIntervalMaps nextVersion = new NestedIntervalMaps(cacheEntry.nestedIntervalMaps);
+                nextVersion.update(ipTreeUpdates, toInclusive, cacheEntry);
+                cacheEntry.nestedIntervalMaps = nextVersion;
+            } else {
+                cacheEntry.nestedIntervalMaps.update(ipTreeUpdates, toInclusive, cacheEntry);
+            }
         }
     }
 
@@ -273,85 +454,193 @@ public class IpTreeCacheManager {
     }
 
     private void rebuild(final JdbcTemplate jdbcTemplate, final CacheEntry cacheEntry) {
-        final NestedIntervalMaps nestedIntervalMaps = new NestedIntervalMaps();
+        final NestedIntervalMaps nestedIntervalMaps = new NestedIntervalMaps(snapshots);
 
         final long toInclusive = getLastSerial(jdbcTemplate);
 
-        final List<IpTreeUpdate> ipTreeUpdates = Lists.newArrayList();
-        ipTreeUpdates.addAll(jdbcTemplate.query("" +
-                        "SELECT begin_in, end_in, object_id " +
-                        "FROM inetnum ",
-                new RowMapper<IpTreeUpdate>() {
-                    @Override
-                    public IpTreeUpdate mapRow(ResultSet rs, int rowNum) throws SQLException {
-                        return new IpTreeUpdate(INETNUM,
-                                new Ipv4Entry(new Ipv4Resource(rs.getLong(1), rs.getLong(2)), rs.getInt(3)).getKey().toRangeString(),
-                                rs.getInt(3),
-                                UPDATE);
-                    }
-                }
-        ));
-
-        ipTreeUpdates.addAll(jdbcTemplate.query("" +
-                        "SELECT i6_msb, i6_lsb, prefix_length, object_id " +
-                        "FROM inet6num ",
-                new RowMapper<IpTreeUpdate>() {
-                    @Override
-                    public IpTreeUpdate mapRow(ResultSet rs, int rowNum) throws SQLException {
-                        return new IpTreeUpdate(INET6NUM,
-                                new Ipv6Entry(Ipv6Resource.parseFromStrings(rs.getString(1), rs.getString(2), rs.getInt(3)), rs.getInt(4)).getKey().toString(),
-                                rs.getInt(4),
-                                UPDATE);
-                    }
-                }
-        ));
-
-        ipTreeUpdates.addAll(jdbcTemplate.query("" +
-                        "SELECT prefix, prefix_length, origin, object_id " +
-                        "FROM route ",
-                new RowMapper<IpTreeUpdate>() {
-                    @Override
-                    public IpTreeUpdate mapRow(ResultSet rs, int rowNum) throws SQLException {
-                        return new IpTreeUpdate(ROUTE,
-                                Ipv4Resource.parsePrefixWithLength(rs.getLong(1), rs.getInt(2)).toString() + rs.getString(3),
-                                rs.getInt(4),
-                                UPDATE);
-                    }
-                }
-        ));
-
-        ipTreeUpdates.addAll(jdbcTemplate.query("" +
-                        "SELECT r6_msb, r6_lsb, prefix_length, object_id, origin " +
-                        "FROM route6 ",
-                new RowMapper<IpTreeUpdate>() {
-                    @Override
-                    public IpTreeUpdate mapRow(final ResultSet rs, final int rowNum) throws SQLException {
-
-                        return new IpTreeUpdate(ROUTE6,
-                                new Ipv6Entry(Ipv6Resource.parseFromStrings(rs.getString(1), rs.getString(2), rs.getInt(3)), rs.getInt(4)).getKey() + rs.getString(5),
-                                rs.getInt(4),
-                                UPDATE);
+        // every table fills its own tree(s), so they can be loaded in parallel
+        final List<Future<?>> futures = Lists.newArrayList();
+
+        futures.add(rebuildExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final NestedIntervalMap<Ipv4Resource, Ipv4Entry> ipv4Tree = JdbcStreamingHelper.executeStreaming(jdbcTemplate, "" +
+                                "SELECT begin_in, end_in, object_id " +
+                                "FROM inetnum " +
+                                "ORDER BY begin_in ASC, end_in DESC",
+                        new ResultSetExtractor<NestedIntervalMap<Ipv4Resource, Ipv4Entry>>() {
+                            @Override
+                            public NestedIntervalMap<Ipv4Resource, Ipv4Entry> extractData(final ResultSet rs) throws SQLException {
+                                return new NestedIntervalMap<>(new SortedEntries<Ipv4Resource, Ipv4Entry>(rs) {
+                                    @Override
+                                    Ipv4Entry mapRow(final ResultSet rs) throws SQLException {
+                                        return new Ipv4Entry(new Ipv4Resource(rs.getLong(1), rs.getLong(2)), rs.getInt(3));
+                                    }
+                                }, new IntersectionLogger(cacheEntry));
+                            }
+                        });
+
+                nestedIntervalMaps.ipv4TreeCache = nestedIntervalMaps.owned(ipv4Tree);
+            }
+        }));
+
+        futures.add(rebuildExecutor.submit(new TreeLoader(jdbcTemplate, cacheEntry, "" +
+                "SELECT i6_msb, i6_lsb, prefix_length, object_id " +
+                "FROM inet6num") {
+            @Override
+            void processRow(final ResultSet rs) throws SQLException {
+                final Ipv6Entry entry = new Ipv6Entry(Ipv6Resource.parseFromStrings(rs.getString(1), rs.getString(2), rs.getInt(3)), rs.getInt(4));
+                nestedIntervalMaps.ipv6TreeCache.put(entry.getKey(), entry);
+            }
+        }));
+
+        futures.add(rebuildExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final MultiValueIntervalMap<Ipv4Resource, Ipv4RouteEntry> ipv4RouteTree = JdbcStreamingHelper.executeStreaming(jdbcTemplate, "" +
+                                "SELECT prefix, prefix_length, origin, object_id " +
+                                "FROM route " +
+                                "ORDER BY prefix ASC, prefix_length ASC",
+                        new ResultSetExtractor<MultiValueIntervalMap<Ipv4Resource, Ipv4RouteEntry>>() {
+                            @Override
+                            public MultiValueIntervalMap<Ipv4Resource, Ipv4RouteEntry> extractData(final ResultSet rs) throws SQLException {
+                                return new MultiValueIntervalMap<>(new SortedEntries<Ipv4Resource, Ipv4RouteEntry>(rs) {
+                                    @Override
+                                    Ipv4RouteEntry mapRow(final ResultSet rs) throws SQLException {
+                                        return new Ipv4RouteEntry(Ipv4Resource.parsePrefixWithLength(rs.getLong(1), rs.getInt(2)), rs.getInt(4), rs.getString(3).toUpperCase());
+                                    }
+                                }, new IntersectionLogger(cacheEntry));
+                            }
+                        });
+
+                nestedIntervalMaps.ipv4RouteTreeCache = nestedIntervalMaps.owned(ipv4RouteTree);
+            }
+        }));
+
+        futures.add(rebuildExecutor.submit(new TreeLoader(jdbcTemplate, cacheEntry, "" +
+                "SELECT r6_msb, r6_lsb, prefix_length, object_id, origin " +
+                "FROM route6") {
+            @Override
+            void processRow(final ResultSet rs) throws SQLException {
+                final Ipv6RouteEntry entry = new Ipv6RouteEntry(Ipv6Resource.parseFromStrings(rs.getString(1), rs.getString(2), rs.getInt(3)), rs.getInt(4), rs.getString(5).toUpperCase());
+                nestedIntervalMaps.ipv6RouteTreeCache.put(entry.getKey(), entry);
+            }
+        }));
+
+        futures.add(rebuildExecutor.submit(new TreeLoader(jdbcTemplate, cacheEntry, "" +
+                "SELECT domain, object_id " +
+                "FROM domain") {
+            @Override
+            void processRow(final ResultSet rs) throws SQLException {
+                nestedIntervalMaps.updateDomain(Domain.parse(rs.getString(1)), rs.getInt(2), UPDATE);
+            }
+        }));
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while rebuilding IP trees", e);
+            } catch (ExecutionException e) {
+                Throwables.propagateIfPossible(e.getCause());
+                throw new IllegalStateException("Unable to rebuild IP trees", e.getCause());
+            }
+        }
+
+        nestedIntervalMaps.lastSerial = toInclusive;
+        if (packed) {
+            nestedIntervalMaps.packIpv4Trees();
+        }
+
+        cacheEntry.nestedIntervalMaps = nestedIntervalMaps;
+    }
+
+    /**
+     * Streams the rows of a single table into the tree(s) being rebuilt.
+     */
+    private abstract static class TreeLoader implements Runnable {
+        private final JdbcTemplate jdbcTemplate;
+        private final CacheEntry cacheEntry;
+        private final String sql;
+
+        private TreeLoader(final JdbcTemplate jdbcTemplate, final CacheEntry cacheEntry, final String sql) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.cacheEntry = cacheEntry;
+            this.sql = sql;
+        }
+
+        @Override
+        public void run() {
+            JdbcStreamingHelper.executeStreaming(jdbcTemplate, sql, new RowCallbackHandler() {
+                @Override
+                public void processRow(final ResultSet rs) throws SQLException {
+                    try {
+                        TreeLoader.this.processRow(rs);
+                    } catch (IntersectingIntervalException e) {
+                        logIntersectingEntry(cacheEntry, e);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to add row {} of '{}': {}", rs.getRow(), sql, e.getMessage());
                     }
                 }
-        ));
-
-        ipTreeUpdates.addAll(jdbcTemplate.query("" +
-                        "SELECT domain, object_id " +
-                        "FROM domain ",
-                new RowMapper<IpTreeUpdate>() {
-                    @Override
-                    public IpTreeUpdate mapRow(final ResultSet rs, final int rowNum) throws SQLException {
-                        return new IpTreeUpdate(DOMAIN,
-                                rs.getString(1),
-                                rs.getInt(2),
-                                UPDATE);
+            });
+        }
+
+        abstract void processRow(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * The rows of a result set that is sorted on begin ascending and end descending, as tree entries.
+     * Can only be iterated once.
+     */
+    private abstract static class SortedEntries<K extends Interval<K>, V extends IpEntry<K>> implements Iterable<Map.Entry<K, V>> {
+        private final ResultSet rs;
+
+        private SortedEntries(final ResultSet rs) {
+            this.rs = rs;
+        }
+
+        abstract V mapRow(ResultSet rs) throws SQLException;
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new AbstractIterator<Map.Entry<K, V>>() {
+                @Override
+                protected Map.Entry<K, V> computeNext() {
+                    try {
+                        while (rs.next()) {
+                            try {
+                                final V entry = mapRow(rs);
+                                return Maps.immutableEntry(entry.getKey(), entry);
+                            } catch (RuntimeException e) {
+                                LOGGER.warn("Unable to add row {}: {}", rs.getRow(), e.getMessage());
+                            }
+                        }
+
+                        return endOfData();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Unable to read next row", e);
                     }
                 }
-        ));
+            };
+        }
+    }
 
-        nestedIntervalMaps.update(ipTreeUpdates, toInclusive, cacheEntry);
+    private static final class IntersectionLogger implements NestedIntervalMap.IntersectionHandler {
+        private final CacheEntry cacheEntry;
 
-        cacheEntry.nestedIntervalMaps = nestedIntervalMaps;
+        private IntersectionLogger(final CacheEntry cacheEntry) {
+            this.cacheEntry = cacheEntry;
+        }
+
+        @Override
+        public void handle(final IntersectingIntervalException e) {
+            logIntersectingEntry(cacheEntry, e);
+        }
+    }
+
+    private static void logIntersectingEntry(final CacheEntry cacheEntry, final IntersectingIntervalException e) {
+        LOGGER.warn("Skipping intersecting entry in " + cacheEntry.sourceConfiguration.getSource() + ": " + e.getMessage());
     }
 
     private int getLastSerial(final JdbcTemplate jdbcTemplate) {
@@ -0,0 +1,526 @@
+package net.ripe.db.whois.common.iptree;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.ripe.db.whois.common.collect.CollectionHelper;
+import net.ripe.db.whois.common.etree.IntersectingIntervalException;
+import net.ripe.db.whois.common.etree.IntervalMap;
+import net.ripe.db.whois.common.etree.NestedIntervalMap;
+import net.ripe.db.whois.common.ip.Ipv4Resource;
+import org.apache.commons.lang.Validate;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link IntervalMap} of IPv4 ranges to object ids, with the same nesting rules and lookup results
+ * as a {@link net.ripe.db.whois.common.etree.NestedIntervalMap}.
+ * <p/>
+ * Instead of a node object per interval, intervals are stored in parallel arrays, sorted by
+ * begin ascending and end descending (which is the pre-order of the nesting tree). Each interval
+ * keeps the index of its closest enclosing interval, so less specific lookups are a binary search
+ * followed by a walk up the parent indexes, and more specific lookups are a scan over a contiguous
+ * range of the arrays. {@link Ipv4Entry} values are only created for the results of a lookup.
+ * <p/>
+ * Lookups are cheap, but {@link #put} and {@link #remove} move array elements and are linear in the
+ * size of the map. Use {@link #copyOf(IntervalMap)} to build a large map, and collect incremental updates in
+ * {@link Changes} that are applied by {@link #merge} in a single pass over the map.
+ * <p/>
+ * <strong>Note that this implementation is not synchronized.</strong>
+ */
+public final class PackedIpv4IntervalMap implements IntervalMap<Ipv4Resource, Ipv4Entry> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_PARENT = -1;
+
+    private long[] begins;
+    private long[] ends;
+    private int[] parents;
+    private int[] objectIds;
+    private int size;
+
+    public PackedIpv4IntervalMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private PackedIpv4IntervalMap(final int capacity) {
+        begins = new long[capacity];
+        ends = new long[capacity];
+        parents = new int[capacity];
+        objectIds = new int[capacity];
+    }
+
+    /**
+     * Builds a {@link PackedIpv4IntervalMap} containing all (key, values) of <code>source</code> in a single pass.
+     *
+     * @param source the map to copy.
+     * @return a packed copy of <code>source</code>.
+     */
+    public static PackedIpv4IntervalMap copyOf(final IntervalMap<Ipv4Resource, Ipv4Entry> source) {
+        final List<Ipv4Entry> entries = source.findExactAndAllMoreSpecific(Ipv4Resource.MAX_RANGE);
+        final PackedIpv4IntervalMap result = new PackedIpv4IntervalMap(Math.max(entries.size(), INITIAL_CAPACITY));
+
+        for (final Ipv4Entry entry : entries) {
+            result.append(entry.getKey().begin(), entry.getKey().end(), entry.getObjectId());
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds a {@link PackedIpv4IntervalMap} with <code>changes</code> applied, in a single pass over this map, which is not
+     * modified. The size of the map adds to the cost once per merge, instead of once per {@link #put} or {@link #remove}.
+     * <p/>
+     * Removals are applied before additions, so an added interval may intersect an interval removed by the same changes.
+     * Added intervals that intersect with another interval are passed to <code>intersectionHandler</code> and skipped.
+     *
+     * @param changes             the changes to apply.
+     * @param intersectionHandler handler of added intervals that intersect.
+     * @return a map with the changes applied, or this map if there are no changes.
+     */
+    public PackedIpv4IntervalMap merge(final Changes changes, final NestedIntervalMap.IntersectionHandler intersectionHandler) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+
+        final BitSet removed = new BitSet(size);
+        final Map<Integer, Integer> replaced = Maps.newHashMap();
+        final List<Ipv4Entry> candidates = Lists.newArrayList();
+
+        for (final Map.Entry<Ipv4Resource, Ipv4Entry> change : changes.entries.entrySet()) {
+            final Ipv4Resource key = change.getKey();
+            final Ipv4Entry value = change.getValue();
+
+            final int index = indexOf(key.begin(), key.end());
+            if (index == NO_PARENT) {
+                if (value != null) {
+                    candidates.add(value);
+                }
+            } else if (value == null) {
+                removed.set(index);
+            } else {
+                replaced.put(index, value.getObjectId());
+            }
+        }
+
+        final NestedIntervalMap<Ipv4Resource, Ipv4Entry> added = new NestedIntervalMap<>();
+        for (final Ipv4Entry candidate : candidates) {
+            final Ipv4Resource key = candidate.getKey();
+            try {
+                final List<Ipv4Resource> intersections = findIntersections(key.begin(), key.end(), removed);
+                if (!intersections.isEmpty()) {
+                    throw new IntersectingIntervalException(key, intersections);
+                }
+
+                added.put(key, candidate);
+            } catch (IntersectingIntervalException e) {
+                intersectionHandler.handle(e);
+            }
+        }
+
+        final List<Ipv4Entry> additions = added.findExactAndAllMoreSpecific(Ipv4Resource.MAX_RANGE);
+        final PackedIpv4IntervalMap result = new PackedIpv4IntervalMap(Math.max(size - removed.cardinality() + additions.size(), INITIAL_CAPACITY));
+
+        int index = 0;
+        for (final Ipv4Entry addition : additions) {
+            final long begin = addition.getKey().begin();
+            final long end = addition.getKey().end();
+
+            for (; index < size && (begins[index] < begin || (begins[index] == begin && ends[index] > end)); index++) {
+                result.appendUnlessRemoved(this, index, removed, replaced);
+            }
+
+            result.append(begin, end, addition.getObjectId());
+        }
+
+        for (; index < size; index++) {
+            result.appendUnlessRemoved(this, index, removed, replaced);
+        }
+
+        return result;
+    }
+
+    private void appendUnlessRemoved(final PackedIpv4IntervalMap source, final int index, final BitSet removed, final Map<Integer, Integer> replaced) {
+        if (!removed.get(index)) {
+            final Integer objectId = replaced.get(index);
+            append(source.begins[index], source.ends[index], objectId == null ? source.objectIds[index] : objectId);
+        }
+    }
+
+    /**
+     * Appends an interval that sorts after all intervals in this map. Capacity must be sufficient.
+     */
+    private void append(final long begin, final long end, final int objectId) {
+        final int index = size++;
+
+        begins[index] = begin;
+        ends[index] = end;
+        objectIds[index] = objectId;
+
+        int parent = index - 1;
+        while (parent != NO_PARENT && !contains(parent, begin, end)) {
+            parent = parents[parent];
+        }
+        parents[index] = parent;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(final Ipv4Resource key, final Ipv4Entry value) {
+        Validate.notNull(key);
+        Validate.notNull(value);
+
+        final long begin = key.begin();
+        final long end = key.end();
+
+        final int last = lastIndexAtOrBefore(begin, end);
+        if (last != NO_PARENT && begins[last] == begin && ends[last] == end) {
+            objectIds[last] = value.getObjectId();
+            return;
+        }
+
+        final List<Ipv4Resource> intersections = Lists.newArrayList();
+        int parent = last;
+        while (parent != NO_PARENT && !contains(parent, begin, end)) {
+            if (ends[parent] >= begin) {
+                intersections.add(getKey(parent));
+            }
+            parent = parents[parent];
+        }
+
+        final int index = last + 1;
+        for (int i = index; i < size && begins[i] <= end; i++) {
+            if (ends[i] > end) {
+                intersections.add(getKey(i));
+            }
+        }
+
+        if (!intersections.isEmpty()) {
+            throw new IntersectingIntervalException(key, intersections);
+        }
+
+        insertAt(index, begin, end, parent, value.getObjectId());
+    }
+
+    private void insertAt(final int index, final long begin, final long end, final int parent, final int objectId) {
+        if (size == begins.length) {
+            final int capacity = size + (size >> 1) + 1;
+            begins = Arrays.copyOf(begins, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            objectIds = Arrays.copyOf(objectIds, capacity);
+        }
+
+        final int moved = size - index;
+        System.arraycopy(begins, index, begins, index + 1, moved);
+        System.arraycopy(ends, index, ends, index + 1, moved);
+        System.arraycopy(parents, index, parents, index + 1, moved);
+        System.arraycopy(objectIds, index, objectIds, index + 1, moved);
+        size++;
+
+        begins[index] = begin;
+        ends[index] = end;
+        parents[index] = parent;
+        objectIds[index] = objectId;
+
+        for (int i = index + 1; i < size; i++) {
+            if (parents[i] >= index) {
+                parents[i]++;
+            }
+
+            if (parents[i] == parent && begins[i] <= end) {
+                parents[i] = index;
+            }
+        }
+    }
+
+    @Override
+    public void remove(final Ipv4Resource key) {
+        Validate.notNull(key);
+
+        final int index = indexOf(key.begin(), key.end());
+        if (index != NO_PARENT) {
+            removeAt(index);
+        }
+    }
+
+    private void removeAt(final int index) {
+        final int parent = parents[index];
+
+        final int moved = size - index - 1;
+        System.arraycopy(begins, index + 1, begins, index, moved);
+        System.arraycopy(ends, index + 1, ends, index, moved);
+        System.arraycopy(parents, index + 1, parents, index, moved);
+        System.arraycopy(objectIds, index + 1, objectIds, index, moved);
+        size--;
+
+        for (int i = index; i < size; i++) {
+            if (parents[i] == index) {
+                parents[i] = parent;
+            } else if (parents[i] > index) {
+                parents[i]--;
+            }
+        }
+    }
+
+    /**
+     * @return the intervals that intersect (begin, end), except for the intervals at the <code>ignored</code> indexes.
+     */
+    private List<Ipv4Resource> findIntersections(final long begin, final long end, final BitSet ignored) {
+        final List<Ipv4Resource> intersections = Lists.newArrayList();
+
+        final int last = lastIndexAtOrBefore(begin, end);
+        for (int parent = last; parent != NO_PARENT && !contains(parent, begin, end); parent = parents[parent]) {
+            if (ends[parent] >= begin && !ignored.get(parent)) {
+                intersections.add(getKey(parent));
+            }
+        }
+
+        for (int i = last + 1; i < size && begins[i] <= end; i++) {
+            if (ends[i] > end && !ignored.get(i)) {
+                intersections.add(getKey(i));
+            }
+        }
+
+        return intersections;
+    }
+
+    @Override
+    public void remove(final Ipv4Resource key, final Ipv4Entry value) {
+        Validate.notNull(key);
+        Validate.notNull(value);
+
+        if (value.equals(CollectionHelper.uniqueResult(findExact(key)))) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public List<Ipv4Entry> findFirstLessSpecific(final Ipv4Resource key) {
+        final List<Ipv4Entry> result = findAllLessSpecific(key);
+        return result.isEmpty() ? result : result.subList(result.size() - 1, result.size());
+    }
+
+    @Override
+    public List<Ipv4Entry> findExact(final Ipv4Resource key) {
+        Validate.notNull(key);
+
+        final int index = indexOf(key.begin(), key.end());
+        if (index == NO_PARENT) {
+            return Collections.emptyList();
+        }
+
+        return Collections.singletonList(getValue(index));
+    }
+
+    @Override
+    public List<Ipv4Entry> findExactOrFirstLessSpecific(final Ipv4Resource key) {
+        final List<Ipv4Entry> result = findExactAndAllLessSpecific(key);
+        return result.isEmpty() ? result : result.subList(result.size() - 1, result.size());
+    }
+
+    @Override
+    public List<Ipv4Entry> findAllLessSpecific(final Ipv4Resource key) {
+        final List<Ipv4Entry> result = findExactAndAllLessSpecific(key);
+        if (!result.isEmpty() && result.get(result.size() - 1).getKey().equals(key)) {
+            return result.subList(0, result.size() - 1);
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<Ipv4Entry> findExactAndAllLessSpecific(final Ipv4Resource key) {
+        Validate.notNull(key);
+
+        final long begin = key.begin();
+        final long end = key.end();
+
+        int index = lastIndexAtOrBefore(begin, end);
+        while (index != NO_PARENT && !contains(index, begin, end)) {
+            index = parents[index];
+        }
+
+        final List<Ipv4Entry> result = Lists.newArrayList();
+        for (; index != NO_PARENT; index = parents[index]) {
+            result.add(getValue(index));
+        }
+
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public List<Ipv4Entry> findFirstMoreSpecific(final Ipv4Resource key) {
+        Validate.notNull(key);
+
+        final long begin = key.begin();
+        final long end = key.end();
+
+        final List<Ipv4Entry> result = Lists.newArrayList();
+        for (int i = lastIndexAtOrBefore(begin, end) + 1; i < size && begins[i] <= end; i++) {
+            if (ends[i] > end || (begins[i] == begin && ends[i] == end)) {
+                continue;
+            }
+
+            final int parent = parents[i];
+            if (parent == NO_PARENT || !isContainedIn(parent, begin, end) || (begins[parent] == begin && ends[parent] == end)) {
+                result.add(getValue(i));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<Ipv4Entry> findAllMoreSpecific(final Ipv4Resource key) {
+        final List<Ipv4Entry> result = findExactAndAllMoreSpecific(key);
+        if (!result.isEmpty() && result.get(0).getKey().equals(key)) {
+            return result.subList(1, result.size());
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<Ipv4Entry> findExactAndAllMoreSpecific(final Ipv4Resource key) {
+        Validate.notNull(key);
+
+        final long begin = key.begin();
+        final long end = key.end();
+
+        final List<Ipv4Entry> result = Lists.newArrayList();
+        final int last = lastIndexAtOrBefore(begin, end);
+        final int first = last != NO_PARENT && begins[last] == begin && ends[last] == end ? last : last + 1;
+        for (int i = first; i < size && begins[i] <= end; i++) {
+            if (ends[i] <= end) {
+                result.add(getValue(i));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        final PackedIpv4IntervalMap that = (PackedIpv4IntervalMap) obj;
+        if (size != that.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (begins[i] != that.begins[i] || ends[i] != that.ends[i] || objectIds[i] != that.objectIds[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = size;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + (int) (begins[i] ^ ends[i]);
+            result = 31 * result + objectIds[i];
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedIpv4IntervalMap(" + size + ")";
+    }
+
+    private Ipv4Resource getKey(final int index) {
+        return new Ipv4Resource(begins[index], ends[index]);
+    }
+
+    private Ipv4Entry getValue(final int index) {
+        return new Ipv4Entry(getKey(index), objectIds[index]);
+    }
+
+    private boolean contains(final int index, final long begin, final long end) {
+        return begins[index] <= begin && ends[index] >= end;
+    }
+
+    private boolean isContainedIn(final int index, final long begin, final long end) {
+        return begins[index] >= begin && ends[index] <= end;
+    }
+
+    private int indexOf(final long begin, final long end) {
+        final int index = lastIndexAtOrBefore(begin, end);
+        if (index != NO_PARENT && begins[index] == begin && ends[index] == end) {
+            return index;
+        }
+
+        return NO_PARENT;
+    }
+
+    /**
+     * @return the index of the last interval that sorts before or equal to (begin, end), or -1 if there is none.
+     */
+    private int lastIndexAtOrBefore(final long begin, final long end) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (begins[mid] < begin || (begins[mid] == begin && ends[mid] >= end)) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low - 1;
+    }
+
+    /**
+     * Puts and removals to apply to a {@link PackedIpv4IntervalMap} with {@link #merge}. Only the last change of a key is kept.
+     * <p/>
+     * <strong>Note that this implementation is not synchronized.</strong>
+     */
+    public static final class Changes {
+        // in order of the last change, removals have a null value
+        private final Map<Ipv4Resource, Ipv4Entry> entries = Maps.newLinkedHashMap();
+
+        public void put(final Ipv4Resource key, final Ipv4Entry value) {
+            Validate.notNull(key);
+            Validate.notNull(value);
+
+            entries.remove(key);
+            entries.put(key, value);
+        }
+
+        public void remove(final Ipv4Resource key) {
+            Validate.notNull(key);
+
+            entries.remove(key);
+            entries.put(key, null);
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package net.ripe.db.whois.common.rpsl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Cache of dummified objects, encoded as they are written to NRTM clients and export files.
+ * <p/>
+ * A version of an object never changes, so objects are cached by object id and sequence id, and never have to be invalidated.
+ * Objects that are not allowed by the dummifier are cached as well, so the dummifier is not asked again.
+ * <p/>
+ * The cache is disabled unless <code>whois.dummified.cache.size</code> is set, which is the approximate
+ * number of bytes of dummified objects to keep.
+ */
+@Component
+public class DummifiedObjectCache {
+    private static final byte[] NOT_ALLOWED = new byte[0];
+
+    private final Cache<Key, byte[]> cache;
+
+    @Autowired
+    public DummifiedObjectCache(@Value("${whois.dummified.cache.size:0}") final long maximumSize) {
+        if (maximumSize <= 0) {
+            this.cache = null;
+        } else {
+            this.cache = CacheBuilder.newBuilder()
+                    .maximumWeight(maximumSize)
+                    .weigher(new Weigher<Key, byte[]>() {
+                        @Override
+                        public int weigh(final Key key, final byte[] value) {
+                            return value.length;
+                        }
+                    })
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    /**
+     * @param sequenceId the sequence id of the object version; versions with sequence id 0 (unknown) are not cached.
+     * @return the dummified object as returned by {@link RpslObject#toByteArray()}, or null if the object is not allowed by the dummifier.
+     */
+    @CheckForNull
+    public byte[] get(final Dummifier dummifier, final int version, final RpslObject object, final int sequenceId) {
+        if (cache == null || sequenceId == 0) {
+            return dummify(dummifier, version, object);
+        }
+
+        final Key key = new Key(dummifier.getClass(), version, object.getObjectId(), sequenceId);
+        byte[] result = cache.getIfPresent(key);
+        if (result == null) {
+            result = dummify(dummifier, version, object);
+            cache.put(key, result == null ? NOT_ALLOWED : result);
+        }
+
+        return result == NOT_ALLOWED ? null : result;
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    public long getSize() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    @CheckForNull
+    private static byte[] dummify(final Dummifier dummifier, final int version, final RpslObject object) {
+        if (!dummifier.isAllowed(version, object)) {
+            return null;
+        }
+
+        return dummifier.dummify(version, object).toByteArray();
+    }
+
+    private static final class Key {
+        private final Class<?> dummifier;
+        private final int version;
+        private final int objectId;
+        private final int sequenceId;
+
+        private Key(final Class<?> dummifier, final int version, final int objectId, final int sequenceId) {
+            this.dummifier = dummifier;
+            this.version = version;
+            this.objectId = objectId;
+            this.sequenceId = sequenceId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Key key = (Key) o;
+            return dummifier == key.dummifier && version == key.version && objectId == key.objectId && sequenceId == key.sequenceId;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = dummifier.hashCode();
+            result = 31 * result + version;
+            result = 31 * result + objectId;
+            result = 31 * result + sequenceId;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package net.ripe.db.whois.common.source;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks in the background with the source that was current in the submitting thread,
+ * so that tasks using the sourceAwareDataSource query the same database as their caller.
+ */
+@Component
+public class SourceAwareExecutor implements Executor {
+    private final SourceContext sourceContext;
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+        final AtomicInteger threadNum = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, String.format("SourceAwareExecutor-%s", threadNum.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    @Autowired
+    public SourceAwareExecutor(final SourceContext sourceContext) {
+        this.sourceContext = sourceContext;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executorService.shutdownNow();
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final Source source = sourceContext.getCurrentSource();
+
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sourceContext.setCurrent(source);
+                    command.run();
+                } finally {
+                    sourceContext.removeCurrentSource();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+--
+-- Stores the primary key of the referencing object in the reference index tables,
+-- so reverse lookups (inverse queries, referential integrity) do not have to join to last.
+--
+
+ALTER TABLE `abuse_c` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `abuse_c` FROM `abuse_c` LEFT JOIN `last` ON `last`.`object_id` = `abuse_c`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `abuse_c` JOIN `last` ON `last`.`object_id` = `abuse_c`.`object_id` SET `abuse_c`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `admin_c` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `admin_c` FROM `admin_c` LEFT JOIN `last` ON `last`.`object_id` = `admin_c`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `admin_c` JOIN `last` ON `last`.`object_id` = `admin_c`.`object_id` SET `admin_c`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `author` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `author` FROM `author` LEFT JOIN `last` ON `last`.`object_id` = `author`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `author` JOIN `last` ON `last`.`object_id` = `author`.`object_id` SET `author`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `form` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `form` FROM `form` LEFT JOIN `last` ON `last`.`object_id` = `form`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `form` JOIN `last` ON `last`.`object_id` = `form`.`object_id` SET `form`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mbrs_by_ref` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mbrs_by_ref` FROM `mbrs_by_ref` LEFT JOIN `last` ON `last`.`object_id` = `mbrs_by_ref`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mbrs_by_ref` JOIN `last` ON `last`.`object_id` = `mbrs_by_ref`.`object_id` SET `mbrs_by_ref`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `member_of` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `member_of` FROM `member_of` LEFT JOIN `last` ON `last`.`object_id` = `member_of`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `member_of` JOIN `last` ON `last`.`object_id` = `member_of`.`object_id` SET `member_of`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mnt_by` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mnt_by` FROM `mnt_by` LEFT JOIN `last` ON `last`.`object_id` = `mnt_by`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mnt_by` JOIN `last` ON `last`.`object_id` = `mnt_by`.`object_id` SET `mnt_by`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mnt_domains` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mnt_domains` FROM `mnt_domains` LEFT JOIN `last` ON `last`.`object_id` = `mnt_domains`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mnt_domains` JOIN `last` ON `last`.`object_id` = `mnt_domains`.`object_id` SET `mnt_domains`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mnt_irt` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mnt_irt` FROM `mnt_irt` LEFT JOIN `last` ON `last`.`object_id` = `mnt_irt`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mnt_irt` JOIN `last` ON `last`.`object_id` = `mnt_irt`.`object_id` SET `mnt_irt`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mnt_lower` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mnt_lower` FROM `mnt_lower` LEFT JOIN `last` ON `last`.`object_id` = `mnt_lower`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mnt_lower` JOIN `last` ON `last`.`object_id` = `mnt_lower`.`object_id` SET `mnt_lower`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mnt_ref` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mnt_ref` FROM `mnt_ref` LEFT JOIN `last` ON `last`.`object_id` = `mnt_ref`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mnt_ref` JOIN `last` ON `last`.`object_id` = `mnt_ref`.`object_id` SET `mnt_ref`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `mnt_routes` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `mnt_routes` FROM `mnt_routes` LEFT JOIN `last` ON `last`.`object_id` = `mnt_routes`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `mnt_routes` JOIN `last` ON `last`.`object_id` = `mnt_routes`.`object_id` SET `mnt_routes`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `org` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `org` FROM `org` LEFT JOIN `last` ON `last`.`object_id` = `org`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `org` JOIN `last` ON `last`.`object_id` = `org`.`object_id` SET `org`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `ping_hdl` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `ping_hdl` FROM `ping_hdl` LEFT JOIN `last` ON `last`.`object_id` = `ping_hdl`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `ping_hdl` JOIN `last` ON `last`.`object_id` = `ping_hdl`.`object_id` SET `ping_hdl`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `referral_by` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `referral_by` FROM `referral_by` LEFT JOIN `last` ON `last`.`object_id` = `referral_by`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `referral_by` JOIN `last` ON `last`.`object_id` = `referral_by`.`object_id` SET `referral_by`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `sponsoring_org` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `sponsoring_org` FROM `sponsoring_org` LEFT JOIN `last` ON `last`.`object_id` = `sponsoring_org`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `sponsoring_org` JOIN `last` ON `last`.`object_id` = `sponsoring_org`.`object_id` SET `sponsoring_org`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `tech_c` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `tech_c` FROM `tech_c` LEFT JOIN `last` ON `last`.`object_id` = `tech_c`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `tech_c` JOIN `last` ON `last`.`object_id` = `tech_c`.`object_id` SET `tech_c`.`pkey` = `last`.`pkey`;
+
+ALTER TABLE `zone_c` ADD COLUMN `pkey` varchar(254) NOT NULL DEFAULT '' AFTER `object_type`;
+DELETE `zone_c` FROM `zone_c` LEFT JOIN `last` ON `last`.`object_id` = `zone_c`.`object_id` WHERE `last`.`object_id` IS NULL OR `last`.`sequence_id` = 0;
+UPDATE `zone_c` JOIN `last` ON `last`.`object_id` = `zone_c`.`object_id` SET `zone_c`.`pkey` = `last`.`pkey`;
+
+TRUNCATE version;
+INSERT INTO version VALUES ('whois-1.78-1');
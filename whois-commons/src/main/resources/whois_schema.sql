@@ -26,6 +26,7 @@ CREATE TABLE `abuse_c` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `pe_ro_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`pe_ro_id`,`object_id`),
   KEY `object_type` (`object_type`),
   KEY `object_id` (`object_id`)
@@ -59,6 +60,7 @@ CREATE TABLE `admin_c` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `pe_ro_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`pe_ro_id`,`object_id`),
   KEY `object_type` (`object_type`),
   KEY `object_id` (`object_id`)
@@ -139,6 +141,7 @@ CREATE TABLE `author` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `pe_ro_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`pe_ro_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -231,6 +234,7 @@ CREATE TABLE `form` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `form_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`form_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -436,6 +440,7 @@ CREATE TABLE `mbrs_by_ref` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -453,6 +458,7 @@ CREATE TABLE `member_of` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `set_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`set_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -470,6 +476,7 @@ CREATE TABLE `mnt_by` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -487,6 +494,7 @@ CREATE TABLE `mnt_domains` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -503,6 +511,7 @@ CREATE TABLE `mnt_irt` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `irt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`irt_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -520,6 +529,7 @@ CREATE TABLE `mnt_lower` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -552,6 +562,7 @@ CREATE TABLE `mnt_ref` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -568,6 +579,7 @@ CREATE TABLE `mnt_routes` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -667,6 +679,7 @@ CREATE TABLE `org` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `org_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`org_id`,`object_id`),
   KEY `object_id` (`object_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -762,6 +775,7 @@ CREATE TABLE `ping_hdl` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `pe_ro_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`pe_ro_id`,`object_id`),
   KEY `object_type` (`object_type`),
   KEY `object_id` (`object_id`)
@@ -825,6 +839,7 @@ CREATE TABLE `referral_by` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `mnt_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`mnt_id`,`object_id`),
   KEY `object_id` (`object_id`),
   KEY `object_type` (`object_type`)
@@ -927,6 +942,7 @@ CREATE TABLE `sponsoring_org` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `org_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`org_id`,`object_id`),
   KEY `object_id` (`object_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -958,6 +974,7 @@ CREATE TABLE `tech_c` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `pe_ro_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`pe_ro_id`,`object_id`),
   KEY `object_type` (`object_type`),
   KEY `object_id` (`object_id`)
@@ -1028,6 +1045,7 @@ CREATE TABLE `zone_c` (
   `object_id` int(10) unsigned NOT NULL DEFAULT '0',
   `pe_ro_id` int(10) unsigned NOT NULL DEFAULT '0',
   `object_type` tinyint(3) unsigned NOT NULL DEFAULT '0',
+  `pkey` varchar(254) NOT NULL DEFAULT '',
   PRIMARY KEY (`pe_ro_id`,`object_id`),
   KEY `object_type` (`object_type`),
   KEY `object_id` (`object_id`)
@@ -1,12 +1,17 @@
 package net.ripe.db.whois.common.collect;
 
+import com.google.common.collect.Lists;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.*;
 
 public class ProxyIterableTest {
@@ -57,6 +62,55 @@ public class ProxyIterableTest {
         assertNull(iterator.next());
     }
 
+    @Test
+    public void test_load_in_background() {
+        final List<Thread> loadingThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            subject = new ProxyIterable<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7), new ProxyLoader<Integer, String>() {
+                @Override
+                public void load(final List<Integer> proxy, final List<String> result) {
+                    loadingThreads.add(Thread.currentThread());
+                    for (final Integer integer : proxy) {
+                        result.add(String.valueOf(integer));
+                    }
+                }
+            }, 2, executor);
+
+            final List<String> result = Lists.newArrayList(subject);
+
+            assertThat(result, contains("1", "2", "3", "4", "5", "6", "7"));
+            assertThat(loadingThreads, hasSize(4));
+            assertThat(loadingThreads.get(0), is(Thread.currentThread()));
+            assertThat(loadingThreads.get(3), not(Thread.currentThread()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_load_in_background_fails() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            subject = new ProxyIterable<>(Arrays.asList(1, 2, 3), new ProxyLoader<Integer, String>() {
+                @Override
+                public void load(final List<Integer> proxy, final List<String> result) {
+                    if (proxy.contains(3)) {
+                        throw new IllegalStateException();
+                    }
+
+                    result.add(String.valueOf(proxy.get(0)));
+                }
+            }, 2, executor);
+
+            Lists.newArrayList(subject);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void testWithPrefetch(final int prefetch) {
         final int total = 6;
 
@@ -325,6 +325,52 @@ public class JdbcRpslObjectUpdateDaoTest extends AbstractDaoTest {
         assertThat(deleted.getTable("names"), hasSize(0));
     }
 
+    @Test
+    public void update_person_name_only_changes_index_rows() {
+        final RpslObjectUpdateInfo created = subject.createObject(new RpslObject(1, ImmutableList.of(new RpslAttribute("person", "first person name"), new RpslAttribute("nic-hdl", "P1"))));
+        final Database before = new Database(whoisTemplate);
+
+        subject.updateObject(created.getObjectId(), new RpslObject(1, ImmutableList.of(new RpslAttribute("person", "second person name"), new RpslAttribute("nic-hdl", "P1"))));
+        final DatabaseDiff diff = Database.diff(before, new Database(whoisTemplate));
+
+        assertThat(diff.getIdentical().getTable("person_role"), hasSize(1));
+        assertThat(diff.getIdentical().getTable("names"), hasSize(2));
+        diff.getRemoved().get("names", with("object_id", created.getObjectId()), with("name", "first"));
+        diff.getAdded().get("names", with("object_id", created.getObjectId()), with("name", "second"));
+
+        assertThat(IndexStrategies.get(AttributeType.PERSON).findInIndex(whoisTemplate, "second person"), hasSize(1));
+        assertThat(IndexStrategies.get(AttributeType.PERSON).findInIndex(whoisTemplate, "first person"), hasSize(0));
+    }
+
+    @Test
+    public void update_self_referencing_maintainer() {
+        final RpslObjectUpdateInfo created = subject.createObject(makeObject(ObjectType.MNTNER, "TEST", new RpslAttribute(AttributeType.MNT_BY, "TEST")));
+
+        subject.updateObject(created.getObjectId(), makeObject(ObjectType.MNTNER, "TEST", new RpslAttribute(AttributeType.MNT_BY, "TEST"), new RpslAttribute(AttributeType.UPD_TO, "UPD-TO")));
+
+        final Database after = new Database(whoisTemplate);
+        after.get("mnt_by", with("object_id", created.getObjectId()), with("mnt_id", created.getObjectId()));
+        after.get("upd_to", with("object_id", created.getObjectId()));
+    }
+
+    @Test
+    public void update_undeleted_object_with_missing_reference() {
+        final RpslObjectUpdateInfo maintainer = subject.createObject(makeObject(ObjectType.MNTNER, "MNT-BY"));
+        final RpslObjectUpdateInfo created = subject.createObject(makeObject(ObjectType.MNTNER, "TEST", new RpslAttribute(AttributeType.MNT_BY, "MNT-BY")));
+        final RpslObjectUpdateInfo deleted = subject.deleteObject(created.getObjectId(), created.getKey());
+        subject.deleteObject(maintainer.getObjectId(), maintainer.getKey());
+
+        subject.undeleteObject(deleted.getObjectId());
+        assertThat(new Database(whoisTemplate).getTable("mnt_by"), hasSize(0));
+
+        final RpslObjectUpdateInfo referenced = subject.createObject(makeObject(ObjectType.MNTNER, "MNT-BY"));
+        subject.updateObject(created.getObjectId(), makeObject(ObjectType.MNTNER, "TEST", new RpslAttribute(AttributeType.MNT_BY, "MNT-BY"), new RpslAttribute(AttributeType.REMARKS, "updated")));
+
+        final Database after = new Database(whoisTemplate);
+        assertThat(after.getTable("mnt_by"), hasSize(1));
+        after.get("mnt_by", with("object_id", created.getObjectId()), with("mnt_id", referenced.getObjectId()));
+    }
+
     private void assertConsistsOfObjectIds(List<RpslObjectInfo> foundRpslObjects, int[] expectedObjectIds) {
         for (RpslObjectInfo rpslObjectInfo : foundRpslObjects) {
             if (Arrays.binarySearch(expectedObjectIds, rpslObjectInfo.getObjectId()) < 0) {
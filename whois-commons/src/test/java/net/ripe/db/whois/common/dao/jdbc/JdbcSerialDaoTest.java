@@ -1,5 +1,7 @@
 package net.ripe.db.whois.common.dao.jdbc;
 
+import com.google.common.collect.Maps;
+import net.ripe.db.whois.common.dao.SerialDao;
 import net.ripe.db.whois.common.domain.serials.Operation;
 import net.ripe.db.whois.common.domain.serials.SerialEntry;
 import net.ripe.db.whois.common.domain.serials.SerialRange;
@@ -15,6 +17,9 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -139,6 +144,29 @@ public class JdbcSerialDaoTest extends AbstractDaoTest {
         assertThat(subject.getByIdForNrtm(3).getRpslObject(), is(object3));
     }
 
+    @Test
+    public void getSerialEntriesForNrtm_range() {
+        final RpslObject object1 = databaseHelper.addObject("aut-num: AS1\ndescr: first");
+        final RpslObject object2 = databaseHelper.updateObject("aut-num: AS1\ndescr: second");
+        databaseHelper.deleteObject(object2);
+        final RpslObject object4 = databaseHelper.addObject("mntner: DEV-MNT");
+
+        final Map<Integer, SerialEntry> serialEntries = Maps.newLinkedHashMap();
+        subject.getByIdRangeForNrtm(2, 5, new SerialDao.SerialEntryHandler() {
+            @Override
+            public void handle(final int serialId, final SerialEntry serialEntry) {
+                serialEntries.put(serialId, serialEntry);
+            }
+        });
+
+        assertThat(serialEntries.keySet(), contains(2, 3, 4));
+        assertThat(serialEntries.get(2).getRpslObject(), is(object2));
+        assertThat(serialEntries.get(3).getOperation(), is(Operation.DELETE));
+        assertThat(serialEntries.get(3).getRpslObject(), is(object2));
+        assertThat(serialEntries.get(4).getRpslObject(), is(object4));
+        assertThat(subject.getByIdForNrtm(1).getRpslObject(), is(object1));
+    }
+
     @Test
     public void getAgeOfExactOrNextExistingSerial_normal_scenario() {
         //10 mins error range to give build machine enough time to run
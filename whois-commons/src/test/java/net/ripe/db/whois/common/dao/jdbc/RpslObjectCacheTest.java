@@ -0,0 +1,136 @@
+package net.ripe.db.whois.common.dao.jdbc;
+
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.common.source.Source;
+import net.ripe.db.whois.common.source.SourceConfiguration;
+import net.ripe.db.whois.common.source.SourceContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RpslObjectCacheTest {
+    private static final RpslObject MNTNER = RpslObject.parse(1, "mntner: TEST-MNT\nsource: TEST");
+    private static final RpslObject PERSON = RpslObject.parse(2, "person: Test Person\nnic-hdl: TP1-TEST\nsource: TEST");
+
+    @Mock SourceContext sourceContext;
+    @Mock SourceConfiguration sourceConfiguration;
+    @Mock JdbcTemplate jdbcTemplate;
+
+    private RpslObjectCache subject;
+
+    @Before
+    public void setUp() {
+        when(sourceContext.getCurrentSourceConfiguration()).thenReturn(sourceConfiguration);
+        when(sourceConfiguration.getSource()).thenReturn(Source.slave("TEST"));
+        when(sourceConfiguration.getJdbcTemplate()).thenReturn(jdbcTemplate);
+        when(jdbcTemplate.queryForInt(anyString())).thenReturn(10);
+
+        subject = new RpslObjectCache(sourceContext, 1000);
+    }
+
+    @Test
+    public void disabled() {
+        subject = new RpslObjectCache(sourceContext, 0);
+
+        assertThat(subject.getView(), is(nullValue()));
+    }
+
+    @Test
+    public void master_not_cached() {
+        when(sourceConfiguration.getSource()).thenReturn(Source.master("TEST"));
+
+        assertThat(subject.getView(), is(nullValue()));
+    }
+
+    @Test
+    public void put_and_get() {
+        subject.getView().put(MNTNER);
+
+        assertThat(subject.getView().get(1), is(MNTNER));
+        assertThat(subject.getView().get(2), is(nullValue()));
+        assertThat(subject.getStats().hitCount(), is(1L));
+        assertThat(subject.getStats().missCount(), is(1L));
+        assertThat(subject.getSize(), is(1L));
+    }
+
+    @Test
+    public void update_invalidates_changed_objects() {
+        subject.getView().put(MNTNER);
+        subject.getView().put(PERSON);
+
+        changedObjects(11, 2);
+        subject.update();
+
+        assertThat(subject.getView().get(1), is(MNTNER));
+        assertThat(subject.getView().get(2), is(nullValue()));
+    }
+
+    @Test
+    public void object_loaded_before_update_is_not_cached() {
+        final RpslObjectCache.View view = subject.getView();
+
+        changedObjects(11, 2);
+        subject.update();
+        view.put(PERSON);
+
+        assertThat(subject.getView().get(2), is(nullValue()));
+    }
+
+    @Test
+    public void database_went_away() {
+        subject.getView().put(MNTNER);
+
+        when(jdbcTemplate.queryForInt(anyString())).thenReturn(1);
+        subject.update();
+
+        assertThat(subject.getView().get(1), is(nullValue()));
+    }
+
+    @Test
+    public void too_large_objects_are_evicted() {
+        subject = new RpslObjectCache(sourceContext, 10);
+        subject.getView().put(PERSON);
+
+        assertThat(subject.getView().get(2), is(nullValue()));
+        assertThat(subject.getStats().evictionCount(), is(1L));
+    }
+
+    private void changedObjects(final int lastSerial, final Integer... objectIds) {
+        when(jdbcTemplate.queryForInt(anyString())).thenReturn(lastSerial);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final RowCallbackHandler rowCallbackHandler = (RowCallbackHandler) invocation.getArguments()[1];
+                final List<Integer> changed = Arrays.asList(objectIds);
+                for (final Integer objectId : changed) {
+                    final ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getInt(1)).thenReturn(objectId);
+                    rowCallbackHandler.processRow(resultSet);
+                }
+                return null;
+            }
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(10L), eq((long) lastSerial));
+    }
+}
@@ -0,0 +1,244 @@
+package net.ripe.db.whois.common.dao.jdbc.index;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IndexRowsTest {
+    @Mock JdbcTemplate jdbcTemplate;
+    @Mock Connection connection;
+    @Mock DatabaseMetaData databaseMetaData;
+
+    private IndexRows subject;
+
+    @Before
+    public void setUp() throws SQLException {
+        when(jdbcTemplate.update(anyString(), (Object[]) anyVararg())).thenReturn(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyListOf(Object[].class))).thenReturn(new int[]{1, 1});
+
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                return ((ConnectionCallback<?>) invocation.getArguments()[0]).doInConnection(connection);
+            }
+        });
+        when(connection.getMetaData()).thenReturn(databaseMetaData);
+        primaryKey("names", "name", "object_id");
+        primaryKey("mnt_by", "mnt_id", "object_id");
+
+        subject = new IndexRows(jdbcTemplate);
+    }
+
+    private void primaryKey(final String tableName, final String... columnNames) throws SQLException {
+        final ResultSet resultSet = mock(ResultSet.class);
+        final Boolean[] next = new Boolean[columnNames.length];
+        final Short[] keySeq = new Short[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            next[i] = i < columnNames.length - 1;
+            keySeq[i] = (short) (columnNames.length - i);
+        }
+
+        // columns in reverse order, to check they are sorted by key sequence
+        final String[] reversed = columnNames.clone();
+        Collections.reverse(Arrays.asList(reversed));
+
+        when(resultSet.next()).thenReturn(true, next);
+        when(resultSet.getShort("KEY_SEQ")).thenReturn(keySeq[0], Arrays.copyOfRange(keySeq, 1, keySeq.length));
+        when(resultSet.getString("COLUMN_NAME")).thenReturn(reversed[0], Arrays.copyOfRange(reversed, 1, reversed.length));
+        when(databaseMetaData.getPrimaryKeys(anyString(), anyString(), eq(tableName))).thenReturn(resultSet);
+    }
+
+    @Test
+    public void nothing_written_before_flush() {
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 2, 9);
+
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void single_row() {
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 2, 9);
+        subject.flush();
+
+        verify(jdbcTemplate).update("INSERT INTO mnt_by (object_id, mnt_id, object_type) VALUES (?, ?, ?)", 1, 2, 9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rows_batched_per_table() {
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 2, 9);
+        subject.insert("upd_to", "object_id, upd_to", 1, "dbtest@ripe.net");
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 3, 9);
+        subject.flush();
+
+        final ArgumentCaptor<List> batchArgs = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("INSERT INTO mnt_by (object_id, mnt_id, object_type) VALUES (?, ?, ?)"), batchArgs.capture());
+        assertThat(batchArgs.getValue(), hasSize(2));
+        verify(jdbcTemplate).update("INSERT INTO upd_to (object_id, upd_to) VALUES (?, ?)", 1, "dbtest@ripe.net");
+    }
+
+    @Test
+    public void statements_in_order() {
+        subject.insert("inet_rtr", "object_id, inet_rtr", 1, "rtr.ripe.net");
+        subject.update("UPDATE inet_rtr SET local_as = ? WHERE object_id = ?", "AS123", 1);
+        subject.flush();
+
+        final InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update("INSERT INTO inet_rtr (object_id, inet_rtr) VALUES (?, ?)", 1, "rtr.ripe.net");
+        inOrder.verify(jdbcTemplate).update("UPDATE inet_rtr SET local_as = ? WHERE object_id = ?", "AS123", 1);
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void no_rows_affected() {
+        when(jdbcTemplate.update(anyString(), (Object[]) anyVararg())).thenReturn(0);
+
+        subject.update("UPDATE inet_rtr SET local_as = ? WHERE object_id = ?", "AS123", 1);
+        subject.flush();
+    }
+
+    @Test
+    public void delete_all_once() {
+        when(jdbcTemplate.update(anyString(), (Object[]) anyVararg())).thenReturn(0);
+
+        subject.deleteAll("mnt_by", 1);
+        subject.deleteAll("mnt_by", 1);
+        subject.flush();
+
+        verify(jdbcTemplate).update("DELETE FROM mnt_by WHERE object_id = ?", 1);
+    }
+
+    @Test
+    public void contains() {
+        subject.insert("mnt_routes", "object_id, mnt_id, object_type", 1, 2, 5);
+
+        assertThat(subject.contains("mnt_routes", "object_id, mnt_id, object_type", 1, 2, 5), is(true));
+        assertThat(subject.contains("mnt_routes", "object_id, mnt_id, object_type", 1, 3, 5), is(false));
+        assertThat(subject.isInsertOnly(), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flush_changes() {
+        when(jdbcTemplate.query(eq("SELECT object_id, name, object_type FROM names WHERE object_id = ?"), any(RowMapper.class), (Object[]) anyVararg()))
+                .thenReturn(Lists.newArrayList(Arrays.<Object>asList(1L, "first", 10), Arrays.<Object>asList(1L, "person", 10)));
+        when(jdbcTemplate.query(eq("SELECT object_id, nic_hdl, object_type FROM person_role WHERE object_id = ?"), any(RowMapper.class), (Object[]) anyVararg()))
+                .thenReturn(Lists.newArrayList(Arrays.<Object>asList(1L, "P1", 10)));
+
+        final IndexRows removeAll = new IndexRows(jdbcTemplate);
+        removeAll.deleteAll("person_role", 1);
+        removeAll.deleteAll("names", 1);
+        removeAll.deleteAll("notify", 1);
+
+        subject.insert("person_role", "object_id, nic_hdl, object_type", 1, "P1", 10);
+        subject.insert("names", "object_id, name, object_type", 1, "second", 10);
+        subject.insert("names", "object_id, name, object_type", 1, "person", 10);
+        subject.flushChanges(1, removeAll);
+
+        verify(jdbcTemplate).query(eq("SELECT object_id, nic_hdl, object_type FROM person_role WHERE object_id = ?"), any(RowMapper.class), eq(1));
+        verify(jdbcTemplate).query(eq("SELECT object_id, name, object_type FROM names WHERE object_id = ?"), any(RowMapper.class), eq(1));
+        verify(jdbcTemplate).update("DELETE FROM names WHERE name = ? AND object_id = ?", "first", 1L);
+        verify(jdbcTemplate).update("DELETE FROM notify WHERE object_id = ?", 1);
+        verify(jdbcTemplate).update("INSERT INTO names (object_id, name, object_type) VALUES (?, ?, ?)", 1, "second", 10);
+        verify(jdbcTemplate, atLeast(0)).execute(any(ConnectionCallback.class));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flush_changes_deletes_rows_by_primary_key_in_batch() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), (Object[]) anyVararg()))
+                .thenReturn(Lists.newArrayList(Arrays.<Object>asList(1L, 3L, 9), Arrays.<Object>asList(1L, 4L, 9)));
+
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 2, 9);
+        subject.flushChanges(1, new IndexRows(jdbcTemplate));
+
+        final ArgumentCaptor<List> batchArgs = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM mnt_by WHERE mnt_id = ? AND object_id = ?"), batchArgs.capture());
+        assertThat((List<Object[]>) batchArgs.getValue(), contains(new Object[]{3L, 1L}, new Object[]{4L, 1L}));
+        verify(jdbcTemplate).update("INSERT INTO mnt_by (object_id, mnt_id, object_type) VALUES (?, ?, ?)", 1, 2, 9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("unchecked")
+    public void flush_changes_primary_key_not_indexed() throws SQLException {
+        primaryKey("interface", "interface_v6_msp", "interface_v6_lsp", "interface_v4", "object_id");
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), (Object[]) anyVararg()))
+                .thenReturn(Lists.newArrayList(Arrays.<Object>asList(1L, 3L)));
+
+        subject.insert("interface", "object_id, interface_v4", 1, 2);
+        subject.flushChanges(1, new IndexRows(jdbcTemplate));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flush_changes_inserts_rows_missing_from_lookup_table() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), (Object[]) anyVararg())).thenReturn(Lists.newArrayList());
+
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 2, 9);
+        subject.flushChanges(1, new IndexRows(jdbcTemplate));
+
+        verify(jdbcTemplate).update("INSERT INTO mnt_by (object_id, mnt_id, object_type) VALUES (?, ?, ?)", 1, 2, 9);
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    @SuppressWarnings("unchecked")
+    public void flush_changes_row_already_deleted() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), (Object[]) anyVararg()))
+                .thenReturn(Lists.newArrayList(Arrays.<Object>asList(1L, 3L, 9)));
+        when(jdbcTemplate.update(anyString(), (Object[]) anyVararg())).thenReturn(0);
+
+        subject.insert("mnt_by", "object_id, mnt_id, object_type", 1, 2, 9);
+        subject.flushChanges(1, new IndexRows(jdbcTemplate));
+    }
+
+    @Test
+    public void not_insert_only_with_different_columns_for_table() {
+        subject.insert("names", "object_id, name, object_type", 1, "first", 10);
+        subject.insert("names", "object_id, name", 1, "first");
+
+        assertThat(subject.isInsertOnly(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void flush_changes_with_update() {
+        subject.update("UPDATE inet_rtr SET local_as = ? WHERE object_id = ?", "AS123", 1);
+
+        subject.flushChanges(1, new IndexRows(jdbcTemplate));
+    }
+}
@@ -5,6 +5,7 @@ import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -28,7 +29,7 @@ public class IndexStrategyAdapterTest {
 
     @Test
     public void addToIndex() {
-        assertThat(subject.addToIndex(null, null, null, (String) null), is(1));
+        assertThat(subject.addToIndex((JdbcTemplate) null, null, null, (String) null), is(1));
     }
 
     @Test
@@ -40,7 +41,7 @@ public class IndexStrategyAdapterTest {
 
     @Test
     public void removeFromIndex() {
-        subject.removeFromIndex(null, null);
+        subject.removeFromIndex((JdbcTemplate) null, null);
     }
 
     @Test
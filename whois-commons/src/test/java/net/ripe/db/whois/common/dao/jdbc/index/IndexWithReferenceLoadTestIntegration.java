@@ -0,0 +1,137 @@
+package net.ripe.db.whois.common.dao.jdbc.index;
+
+import com.google.common.collect.Sets;
+import net.ripe.db.whois.common.IntegrationTest;
+import net.ripe.db.whois.common.dao.RpslObjectInfo;
+import net.ripe.db.whois.common.dao.jdbc.domain.RpslObjectInfoResultSetExtractor;
+import net.ripe.db.whois.common.rpsl.AttributeType;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Latency of inverse queries (-i mnt-by, -i admin-c) on a populated database, reading the referencing objects from the
+ * lookup table compared to joining every lookup table row to last, as before patch/whois-1.78-1.sql.
+ */
+@Category(IntegrationTest.class)
+public class IndexWithReferenceLoadTestIntegration extends IndexTestBase {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexWithReferenceLoadTestIntegration.class);
+
+    private static final int NR_PERSONS = 100;
+    private static final int NR_OBJECTS = 10000;
+    private static final int NR_UPDATED_OBJECTS = 2000;
+    private static final int NR_QUERIES = 100;
+
+    private static final String JOIN_TO_LAST = "" +
+            "SELECT l.object_id, l.object_type, l.pkey " +
+            "  FROM {0} " +
+            "  LEFT JOIN last l ON l.object_id = {0}.object_id " +
+            "  WHERE {0}.{1} in (:ids) " +
+            "  AND l.sequence_id != 0 ";
+
+    @Before
+    public void setUp() {
+        databaseHelper.addObject("" +
+                "mntner:  RIPE-MNT\n" +
+                "mnt-by:  RIPE-MNT\n" +
+                "source:  TEST");
+
+        for (int i = 0; i < NR_PERSONS; i++) {
+            databaseHelper.addObject("" +
+                    "person:  Test Person\n" +
+                    "nic-hdl: TP" + i + "-TEST\n" +
+                    "mnt-by:  RIPE-MNT\n" +
+                    "source:  TEST");
+        }
+
+        for (int i = 0; i < NR_OBJECTS; i++) {
+            databaseHelper.addObject(inetnum(i, "NETWORK"));
+        }
+
+        // history in last and serials, like a database that has been updated for years
+        for (int i = 0; i < NR_UPDATED_OBJECTS; i++) {
+            databaseHelper.updateObject(inetnum(i, "UPDATED"));
+        }
+    }
+
+    @Test
+    public void inverse_query_mnt_by() {
+        benchmark(AttributeType.MNT_BY, "RIPE-MNT", NR_PERSONS + NR_OBJECTS + 1);
+    }
+
+    @Test
+    public void inverse_query_admin_c() {
+        benchmark(AttributeType.ADMIN_C, "TP1-TEST", NR_OBJECTS / NR_PERSONS);
+    }
+
+    private void benchmark(final AttributeType attributeType, final String value, final int expectedResults) {
+        final IndexWithReference index = (IndexWithReference) IndexStrategies.get(attributeType);
+
+        final List<RpslObjectInfo> lookupTable = index.findInIndex(whoisTemplate, value);
+        final List<RpslObjectInfo> joinToLast = findInIndexJoinToLast(index, value);
+        assertThat(lookupTable, hasSize(expectedResults));
+        assertEquals(Sets.newHashSet(joinToLast), Sets.newHashSet(lookupTable));
+        assertEquals(pkeys(joinToLast), pkeys(lookupTable));
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < NR_QUERIES; i++) {
+                findInIndexJoinToLast(index, value);
+            }
+            final long joinToLastMicros = (System.nanoTime() - start) / 1000 / NR_QUERIES;
+
+            start = System.nanoTime();
+            for (int i = 0; i < NR_QUERIES; i++) {
+                index.findInIndex(whoisTemplate, value);
+            }
+            final long lookupTableMicros = (System.nanoTime() - start) / 1000 / NR_QUERIES;
+
+            LOGGER.info("-i {} {} ({} objects): join to last {} us, lookup table {} us",
+                    attributeType.getName(), value, expectedResults, joinToLastMicros, lookupTableMicros);
+        }
+    }
+
+    private List<RpslObjectInfo> findInIndexJoinToLast(final IndexWithReference index, final String value) {
+        final Set<Integer> ids = Sets.newHashSet();
+        for (final IndexStrategy referenceStrategy : index.getReferenceStrategies()) {
+            for (final RpslObjectInfo rpslObjectInfo : referenceStrategy.findInIndex(whoisTemplate, value)) {
+                ids.add(rpslObjectInfo.getObjectId());
+            }
+        }
+
+        return new NamedParameterJdbcTemplate(whoisTemplate).query(
+                MessageFormat.format(JOIN_TO_LAST, index.getLookupTableName(), index.getLookupColumnName()),
+                new MapSqlParameterSource("ids", ids),
+                new RpslObjectInfoResultSetExtractor());
+    }
+
+    private static Set<String> pkeys(final List<RpslObjectInfo> rpslObjectInfos) {
+        final Set<String> result = Sets.newHashSet();
+        for (final RpslObjectInfo rpslObjectInfo : rpslObjectInfos) {
+            result.add(rpslObjectInfo.getKey());
+        }
+        return result;
+    }
+
+    private static RpslObject inetnum(final int i, final String netname) {
+        return RpslObject.parse("" +
+                "inetnum: 10." + (i / 256) + "." + (i % 256) + ".0 - 10." + (i / 256) + "." + (i % 256) + ".255\n" +
+                "netname: " + netname + "-" + i + "\n" +
+                "admin-c: TP" + (i % NR_PERSONS) + "-TEST\n" +
+                "mnt-by:  RIPE-MNT\n" +
+                "source:  TEST");
+    }
+}
@@ -7,6 +7,8 @@ import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
@@ -18,13 +20,25 @@ public class IndexWithReferenceTest extends IndexTestBase {
         IndexWithReference subject = new IndexWithReference(AttributeType.MNT_REF, "mnt_ref", "mnt_id");
         final RpslObject maintainer = RpslObject.parse("mntner:MNT-TEST\nmnt-by:MNT-TEST");
         final RpslObjectUpdateInfo objectInfo = rpslObjectUpdateDao.createObject(maintainer);
-        whoisTemplate.update(String.format("INSERT INTO mnt_ref(object_id, mnt_id, object_type) VALUES(%s, %s, %s)", 1, objectInfo.getObjectId(), 18));
+        whoisTemplate.update("INSERT INTO mnt_ref(object_id, mnt_id, object_type, pkey) VALUES(?, ?, ?, ?)", 1, objectInfo.getObjectId(), 18, "ORG-TEST");
 
         assertThat(subject.findInIndex(whoisTemplate, objectInfo.getKey()).size(), is(1));
         assertThat(subject.findInIndex(whoisTemplate, objectInfo).size(), is(1));
         assertThat(subject.findInIndex(whoisTemplate, objectInfo, ObjectType.ORGANISATION).size(), is(1));
     }
 
+    @Test
+    public void findInIndex_returns_referencing_object() throws Exception {
+        IndexWithReference subject = new IndexWithReference(AttributeType.MNT_BY, "mnt_by", "mnt_id");
+        final RpslObjectUpdateInfo maintainer = rpslObjectUpdateDao.createObject(RpslObject.parse("mntner:MNT-TEST\nmnt-by:MNT-TEST"));
+        final RpslObjectUpdateInfo person = rpslObjectUpdateDao.createObject(RpslObject.parse("person:Test Person\nnic-hdl:TP1-TEST\nmnt-by:MNT-TEST"));
+
+        final List<RpslObjectInfo> result = subject.findInIndex(whoisTemplate, maintainer, ObjectType.PERSON);
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getObjectId(), is(person.getObjectId()));
+        assertThat(result.get(0).getKey(), is("TP1-TEST"));
+    }
+
     @Test
     public void findInIndex_not_found() throws Exception {
         IndexWithReference subject = new IndexWithReference(AttributeType.MNT_REF, "mnt_ref", "mnt_id");
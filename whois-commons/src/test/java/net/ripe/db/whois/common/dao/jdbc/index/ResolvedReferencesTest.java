@@ -0,0 +1,65 @@
+package net.ripe.db.whois.common.dao.jdbc.index;
+
+import net.ripe.db.whois.common.dao.RpslObjectInfo;
+import net.ripe.db.whois.common.dao.RpslObjectUpdateInfo;
+import net.ripe.db.whois.common.rpsl.AttributeType;
+import net.ripe.db.whois.common.rpsl.ObjectType;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ResolvedReferencesTest extends IndexTestBase {
+
+    @Test
+    public void resolve_references_of_objects() {
+        final RpslObjectUpdateInfo maintainer = rpslObjectUpdateDao.createObject(RpslObject.parse("mntner: TEST-MNT\nmnt-by: TEST-MNT"));
+        final RpslObjectUpdateInfo person = rpslObjectUpdateDao.createObject(RpslObject.parse("person: Test Person\nnic-hdl: TP1-TEST"));
+
+        final ResolvedReferences subject = ResolvedReferences.resolve(whoisTemplate, Arrays.asList(
+                RpslObject.parse("mntner: OTHER-MNT\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT"),
+                RpslObject.parse("inetnum: 10.0.0.0 - 10.0.0.255\nnetname: NETNAME\ntech-c: tp1-test\nmnt-routes: TEST-MNT {10.0.0.0/24}")));
+
+        assertThat(subject.get(IndexStrategies.get(AttributeType.MNTNER), "TEST-MNT").getObjectId(), is(maintainer.getObjectId()));
+        assertThat(subject.get(IndexStrategies.get(AttributeType.MNTNER), "test-mnt").getObjectId(), is(maintainer.getObjectId()));
+        assertThat(subject.get(IndexStrategies.get(AttributeType.NIC_HDL), "TP1-TEST").getObjectId(), is(person.getObjectId()));
+        assertThat(subject.get(IndexStrategies.get(AttributeType.MNTNER), "OTHER-MNT"), is(nullValue()));
+    }
+
+    @Test
+    public void missing_reference_not_resolved() {
+        final ResolvedReferences subject = ResolvedReferences.resolve(whoisTemplate, Collections.singletonList(
+                RpslObject.parse("mntner: TEST-MNT\nmnt-by: UNKNOWN-MNT")));
+
+        assertThat(subject.get(IndexStrategies.get(AttributeType.MNTNER), "UNKNOWN-MNT"), is(nullValue()));
+    }
+
+    @Test
+    public void any_maintainer() {
+        final ResolvedReferences subject = ResolvedReferences.resolve(whoisTemplate, Collections.singletonList(
+                RpslObject.parse("as-set: AS-TEST\nmbrs-by-ref: ANY")));
+
+        assertThat(subject.get(IndexStrategies.get(AttributeType.MNTNER), "ANY").getObjectId(), is(0));
+    }
+
+    @Test
+    public void add_to_index_with_resolved_reference() {
+        final RpslObjectUpdateInfo maintainer = rpslObjectUpdateDao.createObject(RpslObject.parse("mntner: TEST-MNT\nmnt-by: TEST-MNT"));
+        final RpslObject object = RpslObject.parse("mntner: OTHER-MNT\nmnt-by: TEST-MNT");
+        final ResolvedReferences references = ResolvedReferences.resolve(whoisTemplate, Collections.singletonList(object));
+
+        // the resolved reference is used even after the referenced maintainer is gone from the index
+        whoisTemplate.update("DELETE FROM mntner WHERE object_id = ?", maintainer.getObjectId());
+
+        final IndexRows indexRows = new IndexRows(whoisTemplate, references);
+        IndexStrategies.get(AttributeType.MNT_BY).addToIndex(indexRows, new RpslObjectInfo(100, ObjectType.MNTNER, "OTHER-MNT"), object, "TEST-MNT");
+        indexRows.flush();
+
+        assertThat(whoisTemplate.queryForInt("SELECT mnt_id FROM mnt_by WHERE object_id = 100"), is(maintainer.getObjectId()));
+    }
+}
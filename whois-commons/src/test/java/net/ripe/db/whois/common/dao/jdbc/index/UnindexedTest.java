@@ -4,6 +4,7 @@ import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.List;
 
@@ -26,7 +27,7 @@ public class UnindexedTest {
 
     @Test
     public void addToIndex() {
-        final int rows = subject.addToIndex(null, null, null, (String) null);
+        final int rows = subject.addToIndex((JdbcTemplate) null, null, null, (String) null);
         assertThat(rows, is(1));
     }
 
@@ -38,6 +39,6 @@ public class UnindexedTest {
 
     @Test
     public void removeFromIndex() {
-        subject.removeFromIndex(null, null);
+        subject.removeFromIndex((JdbcTemplate) null, null);
     }
 }
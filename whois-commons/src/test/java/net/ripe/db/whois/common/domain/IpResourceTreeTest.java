@@ -1,5 +1,7 @@
 package net.ripe.db.whois.common.domain;
 
+import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.etree.IntersectingIntervalException;
 import net.ripe.db.whois.common.ip.IpInterval;
 import org.junit.Before;
 import org.junit.Test;
@@ -59,4 +61,24 @@ public class IpResourceTreeTest {
     public void test_getValue_ipv6_unknown() {
         assertThat(subject.getValue(ipv6ResourceUnknown), is(nullValue()));
     }
+
+    @Test
+    public void test_bulk_load() {
+        subject = new IpResourceTree<>(Lists.newArrayList(
+                new IpResourceEntry<>(ipv4ResourceMoreSpecific, 42),
+                new IpResourceEntry<>(ipv6Resource, 61),
+                new IpResourceEntry<>(ipv4Resource, 41)));
+
+        assertThat(subject.getValue(ipv4Resource), is(41));
+        assertThat(subject.getValue(ipv4ResourceMoreSpecific), is(42));
+        assertThat(subject.getValue(ipv4ResourceUnknown), is(nullValue()));
+        assertThat(subject.getValue(ipv6ResourceMoreSpecific), is(61));
+    }
+
+    @Test(expected = IntersectingIntervalException.class)
+    public void test_bulk_load_intersecting() {
+        new IpResourceTree<>(Lists.newArrayList(
+                new IpResourceEntry<>(IpInterval.parse("10.0.0.0 - 10.0.0.10"), 1),
+                new IpResourceEntry<>(IpInterval.parse("10.0.0.5 - 10.0.0.20"), 2)));
+    }
 }
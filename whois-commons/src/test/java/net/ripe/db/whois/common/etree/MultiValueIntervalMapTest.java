@@ -135,4 +135,38 @@ public class MultiValueIntervalMapTest {
         final List<String> result = subject.findExactAndAllMoreSpecific(k_12);
         assertThat(result, contains(v_121, v_122, v_11));
     }
+
+    @Test
+    public void copy_is_not_affected_by_put_on_source() {
+        final MultiValueIntervalMap<Ipv4Resource, String> copy = new MultiValueIntervalMap<>(subject);
+
+        subject.put(k_13, "1-3 4");
+        subject.put(k_14, "1-4");
+
+        assertThat(copy.findExact(k_13), contains(v_131, v_132, v_133));
+        assertThat(copy.findExact(k_14), hasSize(0));
+        assertThat(subject.findExact(k_13), contains(v_131, v_132, v_133, "1-3 4"));
+    }
+
+    @Test
+    public void copy_is_not_affected_by_remove_on_source() {
+        final MultiValueIntervalMap<Ipv4Resource, String> copy = new MultiValueIntervalMap<>(subject);
+
+        subject.remove(k_12, v_122);
+        subject.remove(k_11);
+
+        assertThat(copy.findExact(k_12), contains(v_121, v_122));
+        assertThat(copy.findExact(k_11), contains(v_11));
+        assertThat(subject.findExact(k_12), contains(v_121));
+    }
+
+    @Test
+    public void source_is_not_affected_by_put_on_copy() {
+        final MultiValueIntervalMap<Ipv4Resource, String> copy = new MultiValueIntervalMap<>(subject);
+
+        copy.put(k_12, "1-2 3");
+
+        assertThat(subject.findExact(k_12), contains(v_121, v_122));
+        assertThat(copy.findExact(k_12), contains(v_121, v_122, "1-2 3"));
+    }
 }
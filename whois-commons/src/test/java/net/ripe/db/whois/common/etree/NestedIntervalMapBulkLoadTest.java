@@ -0,0 +1,135 @@
+package net.ripe.db.whois.common.etree;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.ripe.db.whois.common.ip.Ipv4Resource;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class NestedIntervalMapBulkLoadTest {
+    private final long seed = System.currentTimeMillis();
+    private final Random random = new Random(seed);
+
+    private final List<IntersectingIntervalException> intersections = Lists.newArrayList();
+    private final NestedIntervalMap.IntersectionHandler intersectionHandler = new NestedIntervalMap.IntersectionHandler() {
+        @Override
+        public void handle(final IntersectingIntervalException e) {
+            intersections.add(e);
+        }
+    };
+
+    @Test
+    public void empty() {
+        final NestedIntervalMap<Ipv4Resource, String> subject = new NestedIntervalMap<>(Collections.<Map.Entry<Ipv4Resource, String>>emptyList(), intersectionHandler);
+
+        assertThat(subject.findAllMoreSpecific(Ipv4Resource.MAX_RANGE), hasSize(0));
+    }
+
+    @Test
+    public void nested_and_siblings() {
+        final NestedIntervalMap<Ipv4Resource, String> subject = new NestedIntervalMap<>(Lists.newArrayList(
+                entry("1-10"),
+                entry("1-5"),
+                entry("2-2"),
+                entry("6-10"),
+                entry("20-30")), intersectionHandler);
+
+        assertThat(subject.findFirstMoreSpecific(Ipv4Resource.MAX_RANGE), contains("1-10", "20-30"));
+        assertThat(subject.findFirstMoreSpecific(range("1-10")), contains("1-5", "6-10"));
+        assertThat(subject.findExactAndAllLessSpecific(range("2-2")), contains("1-10", "1-5", "2-2"));
+        assertThat(intersections, hasSize(0));
+    }
+
+    @Test
+    public void duplicate_key_replaces_value() {
+        final Map.Entry<Ipv4Resource, String> first = entry("1-10");
+        final NestedIntervalMap<Ipv4Resource, String> subject = new NestedIntervalMap<>(Lists.newArrayList(
+                first,
+                Maps.immutableEntry(first.getKey(), "other")), intersectionHandler);
+
+        assertThat(subject.findExact(first.getKey()), contains("other"));
+    }
+
+    @Test
+    public void intersecting_entry_is_reported() {
+        final NestedIntervalMap<Ipv4Resource, String> subject = new NestedIntervalMap<>(Lists.newArrayList(
+                entry("1-10"),
+                entry("5-15"),
+                entry("11-20")), intersectionHandler);
+
+        assertThat(subject.findFirstMoreSpecific(Ipv4Resource.MAX_RANGE), contains("1-10", "11-20"));
+        assertThat(intersections, hasSize(1));
+        assertEquals(range("5-15"), intersections.get(0).getInterval());
+        assertEquals(Lists.newArrayList(range("1-10")), intersections.get(0).getIntersections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsorted() {
+        new NestedIntervalMap<>(Lists.newArrayList(entry("1-5"), entry("1-10")), intersectionHandler);
+    }
+
+    @Test
+    public void multi_value() {
+        final Map.Entry<Ipv4Resource, String> parent = entry("1-10");
+        final MultiValueIntervalMap<Ipv4Resource, String> subject = new MultiValueIntervalMap<>(Lists.newArrayList(
+                parent,
+                Maps.immutableEntry(parent.getKey(), "b"),
+                Maps.immutableEntry(parent.getKey(), "a"),
+                entry("2-2")), intersectionHandler);
+
+        assertThat(subject.findExact(parent.getKey()), contains("1-10", "a", "b"));
+        assertThat(subject.findExactAndAllMoreSpecific(parent.getKey()), contains("1-10", "a", "b", "2-2"));
+    }
+
+    @Test
+    public void same_result_as_put() {
+        final NestedIntervalMap<Ipv4Resource, String> expected = new NestedIntervalMap<>();
+        final List<Map.Entry<Ipv4Resource, String>> entries = Lists.newArrayList();
+
+        for (int i = 0; i < 5000; i++) {
+            final long begin = random.nextInt(10000);
+            final Ipv4Resource key = new Ipv4Resource(begin, begin + random.nextInt(random.nextBoolean() ? 10 : 1000));
+            entries.add(Maps.immutableEntry(key, key.toRangeString()));
+        }
+
+        Collections.sort(entries, new Comparator<Map.Entry<Ipv4Resource, String>>() {
+            @Override
+            public int compare(final Map.Entry<Ipv4Resource, String> o1, final Map.Entry<Ipv4Resource, String> o2) {
+                return NestedIntervalMap.<Ipv4Resource>nestingOrder().compare(o1.getKey(), o2.getKey());
+            }
+        });
+
+        int expectedIntersections = 0;
+        for (final Map.Entry<Ipv4Resource, String> entry : entries) {
+            try {
+                expected.put(entry.getKey(), entry.getValue());
+            } catch (IntersectingIntervalException e) {
+                expectedIntersections++;
+            }
+        }
+
+        final NestedIntervalMap<Ipv4Resource, String> subject = new NestedIntervalMap<>(entries, intersectionHandler);
+
+        assertEquals("seed = " + seed, expected, subject);
+        assertEquals("seed = " + seed, expectedIntersections, intersections.size());
+    }
+
+    private static Ipv4Resource range(final String range) {
+        final String[] bounds = range.split("-");
+        return new Ipv4Resource(Long.parseLong(bounds[0]), Long.parseLong(bounds[1]));
+    }
+
+    private static Map.Entry<Ipv4Resource, String> entry(final String range) {
+        return Maps.immutableEntry(range(range), range);
+    }
+}
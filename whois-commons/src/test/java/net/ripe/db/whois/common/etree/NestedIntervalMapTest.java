@@ -131,6 +131,60 @@ public class NestedIntervalMapTest {
         assertEquals(copy, subject);
     }
 
+    @Test
+    public void copy_not_affected_by_changes_to_source() {
+        NestedIntervalMap<Ipv4Resource, Ipv4Resource> copy = new NestedIntervalMap<>(subject);
+
+        subject.put(N8_8, N8_8);
+        subject.put(N3_3, N1_1);
+        subject.remove(N5_8);
+        subject.remove(N11_12);
+
+        assertEquals(createMap(all), copy);
+        assertThat(subject.findExact(N8_8), contains(N8_8));
+        assertThat(subject.findExact(N3_3), contains(N1_1));
+        assertThat(subject.findFirstMoreSpecific(N5_10), contains(N5_5, N6_6, N7_7, N8_8, N9_10));
+        assertThat(subject.findExact(N11_12), hasSize(0));
+    }
+
+    @Test
+    public void source_not_affected_by_changes_to_copy() {
+        NestedIntervalMap<Ipv4Resource, Ipv4Resource> copy = new NestedIntervalMap<>(subject);
+
+        copy.put(N8_8, N8_8);
+        copy.put(N3_3, N1_1);
+        copy.remove(N5_8);
+        copy.clear();
+        copy.put(N1_12, N1_1);
+
+        assertEquals(createMap(all), subject);
+        assertThat(copy.findExact(N1_12), contains(N1_1));
+        assertThat(copy.findFirstMoreSpecific(N1_12), hasSize(0));
+    }
+
+    @Test
+    public void copies_of_copies() {
+        NestedIntervalMap<Ipv4Resource, Ipv4Resource> first = new NestedIntervalMap<>(subject);
+        first.put(N8_8, N8_8);
+
+        NestedIntervalMap<Ipv4Resource, Ipv4Resource> second = new NestedIntervalMap<>(first);
+        second.remove(N5_8);
+        first.remove(N9_10);
+
+        assertEquals(createMap(all), subject);
+        assertThat(first.findFirstMoreSpecific(N5_10), contains(N5_8, N9_9, N10_10));
+        assertThat(first.findFirstMoreSpecific(N5_8), contains(N5_5, N6_6, N7_7, N8_8));
+        assertThat(second.findFirstMoreSpecific(N5_10), contains(N5_5, N6_6, N7_7, N8_8, N9_10));
+    }
+
+    private static NestedIntervalMap<Ipv4Resource, Ipv4Resource> createMap(List<Ipv4Resource> intervals) {
+        NestedIntervalMap<Ipv4Resource, Ipv4Resource> result = new NestedIntervalMap<>();
+        for (Ipv4Resource n : intervals) {
+            result.put(n, n);
+        }
+        return result;
+    }
+
     @Test
     public void test_equals_hashcode() {
         assertFalse(subject.equals(null));
@@ -0,0 +1,163 @@
+package net.ripe.db.whois.common.iptree;
+
+import net.ripe.db.whois.common.IntegrationTest;
+import net.ripe.db.whois.common.domain.CIString;
+import net.ripe.db.whois.common.ip.Ipv4Resource;
+import net.ripe.db.whois.common.ip.Ipv6Resource;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.common.source.SourceConfiguration;
+import net.ripe.db.whois.common.support.AbstractDaoTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Reader throughput of the ipv4, ipv6 and route trees while updates are applied, with synchronized trees and with snapshots.
+ */
+@Category(IntegrationTest.class)
+public class IpTreeCacheManagerLoadTestIntegration extends AbstractDaoTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IpTreeCacheManagerLoadTestIntegration.class);
+
+    private static final int NR_OBJECTS = 1000;
+    private static final int NR_OBJECTS_PER_UPDATE = 10;
+    private static final int NR_THREADS = 8;
+    private static final int NR_SECONDS = 10;
+
+    private final AtomicInteger nrObjects = new AtomicInteger();
+
+    private SourceConfiguration sourceConfiguration;
+
+    @Before
+    public void setUp() {
+        sourceConfiguration = sourceContext.getCurrentSourceConfiguration();
+
+        for (int i = 0; i < NR_OBJECTS; i++) {
+            addObjects();
+        }
+    }
+
+    @Test
+    public void lookup_concurrently_while_updating() throws Exception {
+        final long synchronizedLookups = lookupWhileUpdating(false);
+        final long snapshotLookups = lookupWhileUpdating(true);
+
+        LOGGER.info("Lookups/s on {} threads while updating: synchronized {}, snapshots {}", NR_THREADS, synchronizedLookups, snapshotLookups);
+    }
+
+    private long lookupWhileUpdating(final boolean snapshots) throws Exception {
+        final IpTreeCacheManager ipTreeCacheManager = new IpTreeCacheManager(sourceContext, snapshots, false);
+        final ExecutorService executorService = Executors.newFixedThreadPool(NR_THREADS + 1);
+
+        try {
+            ipTreeCacheManager.rebuild(sourceConfiguration);
+            final CIString source = sourceConfiguration.getSource().getName();
+
+            final AtomicBoolean stop = new AtomicBoolean();
+            final List<Future<Long>> readers = newArrayList();
+            for (int thread = 0; thread < NR_THREADS; thread++) {
+                final Random random = new Random(thread);
+                readers.add(executorService.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        long lookups = 0;
+                        while (!stop.get()) {
+                            final int i = random.nextInt(nrObjects.get());
+                            final IpTreeCacheManager.NestedIntervalMaps nestedIntervalMaps = ipTreeCacheManager.get(source);
+                            nestedIntervalMaps.getIpv4TreeCache().findExactOrFirstLessSpecific(Ipv4Resource.parse(inetnum(i)));
+                            nestedIntervalMaps.getIpv6TreeCache().findExactOrFirstLessSpecific(Ipv6Resource.parse(inet6num(i)));
+                            nestedIntervalMaps.getIpv4RouteTreeCache().findExactOrFirstLessSpecific(Ipv4Resource.parse(route(i)));
+                            lookups += 3;
+                        }
+                        return lookups;
+                    }
+                }));
+            }
+
+            final Future<Integer> updater = executorService.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    int updates = 0;
+                    while (!stop.get()) {
+                        for (int i = 0; i < NR_OBJECTS_PER_UPDATE; i++) {
+                            addObjects();
+                        }
+                        ipTreeCacheManager.update(sourceConfiguration);
+                        updates++;
+                    }
+                    return updates;
+                }
+            });
+
+            final long start = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(NR_SECONDS));
+            stop.set(true);
+
+            long lookups = 0;
+            for (final Future<Long> reader : readers) {
+                lookups += reader.get();
+            }
+            final long nanos = System.nanoTime() - start;
+            final int updates = updater.get();
+
+            ipTreeCacheManager.update(sourceConfiguration);
+            final int last = nrObjects.get() - 1;
+            assertThat(ipTreeCacheManager.get(source).getIpv4TreeCache().findExact(Ipv4Resource.parse(inetnum(last))), hasSize(1));
+            assertThat(ipTreeCacheManager.get(source).getIpv6TreeCache().findExact(Ipv6Resource.parse(inet6num(last))), hasSize(1));
+            assertThat(ipTreeCacheManager.get(source).getIpv4RouteTreeCache().findExact(Ipv4Resource.parse(route(last))), hasSize(1));
+
+            final long lookupsPerSecond = lookups * TimeUnit.SECONDS.toNanos(1) / nanos;
+            LOGGER.info("{}: {} lookups/s on {} threads, {} updates of {} objects",
+                    snapshots ? "snapshots" : "synchronized", lookupsPerSecond, NR_THREADS, updates, NR_OBJECTS_PER_UPDATE * 3);
+            return lookupsPerSecond;
+        } finally {
+            executorService.shutdownNow();
+            ipTreeCacheManager.stop();
+        }
+    }
+
+    private void addObjects() {
+        final int i = nrObjects.get();
+        databaseHelper.addObject(RpslObject.parse("" +
+                "inetnum: " + inetnum(i) + "\n" +
+                "netname: NETWORK-" + i + "\n" +
+                "source:  TEST"));
+        databaseHelper.addObject(RpslObject.parse("" +
+                "inet6num: " + inet6num(i) + "\n" +
+                "netname:  NETWORK-" + i + "\n" +
+                "source:   TEST"));
+        databaseHelper.addObject(RpslObject.parse("" +
+                "route:   " + route(i) + "\n" +
+                "origin:  AS" + i + "\n" +
+                "source:  TEST"));
+
+        nrObjects.incrementAndGet();
+    }
+
+    private static String inetnum(final int i) {
+        return "10." + (i / 256) + "." + (i % 256) + ".0 - 10." + (i / 256) + "." + (i % 256) + ".255";
+    }
+
+    private static String inet6num(final int i) {
+        return "2001:db8:" + Integer.toHexString(i) + "::/48";
+    }
+
+    private static String route(final int i) {
+        return "10." + (i / 256) + "." + (i % 256) + ".0/24";
+    }
+}
@@ -0,0 +1,215 @@
+package net.ripe.db.whois.common.iptree;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.IntegrationTest;
+import net.ripe.db.whois.common.etree.IntersectingIntervalException;
+import net.ripe.db.whois.common.etree.IntervalMap;
+import net.ripe.db.whois.common.etree.NestedIntervalMap;
+import net.ripe.db.whois.common.ip.Ipv4Resource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares {@link PackedIpv4IntervalMap} to {@link NestedIntervalMap} on heap size, lookup latency and the cost of
+ * incremental updates, for a tree shaped like an inetnum hierarchy of /16 allocations with /20 and /24 assignments.
+ */
+@Category(IntegrationTest.class)
+public class PackedIpv4IntervalMapBenchmarkTestIntegration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedIpv4IntervalMapBenchmarkTestIntegration.class);
+
+    private static final int NR_ALLOCATIONS = 3000;
+    private static final int NR_LOOKUPS = 200000;
+    private static final int NR_BATCHES = 20;
+    private static final int NR_CHANGES_PER_BATCH = 100;
+
+    private static NestedIntervalMap<Ipv4Resource, Ipv4Entry> nestedIntervalMap;
+    private static PackedIpv4IntervalMap packedIntervalMap;
+    private static long nestedBytes;
+    private static long packedBytes;
+
+    private final Random random = new Random(1);
+
+    @BeforeClass
+    public static void buildTrees() {
+        final long before = usedMemory();
+        nestedIntervalMap = new NestedIntervalMap<>();
+        int objectId = 0;
+        for (int allocation = 0; allocation < NR_ALLOCATIONS; allocation++) {
+            final long allocationBegin = (long) allocation << 16;
+            put(nestedIntervalMap, allocationBegin, 16, objectId++);
+
+            for (int assignment = 0; assignment < 16; assignment++) {
+                final long assignmentBegin = allocationBegin + ((long) assignment << 12);
+                put(nestedIntervalMap, assignmentBegin, 20, objectId++);
+
+                // only even /24s, the odd ones are added by the update benchmark
+                for (int subnet = 0; subnet < 16; subnet += 2) {
+                    put(nestedIntervalMap, assignmentBegin + ((long) subnet << 8), 24, objectId++);
+                }
+            }
+        }
+        nestedBytes = usedMemory() - before;
+
+        final long beforePacked = usedMemory();
+        packedIntervalMap = PackedIpv4IntervalMap.copyOf(nestedIntervalMap);
+        packedBytes = usedMemory() - beforePacked;
+    }
+
+    @Test
+    public void heap_size() {
+        final int size = packedIntervalMap.size();
+        LOGGER.info("{} intervals: NestedIntervalMap {} bytes ({} per interval), PackedIpv4IntervalMap {} bytes ({} per interval)",
+                size, nestedBytes, nestedBytes / size, packedBytes, packedBytes / size);
+
+        assertThat(packedBytes, lessThan(nestedBytes));
+    }
+
+    @Test
+    public void lookup_latency() {
+        final List<Ipv4Resource> keys = Lists.newArrayListWithExpectedSize(NR_LOOKUPS);
+        for (int i = 0; i < NR_LOOKUPS; i++) {
+            final long address = (long) random.nextInt(NR_ALLOCATIONS << 16);
+            keys.add(i % 2 == 0 ? new Ipv4Resource(address, address) : new Ipv4Resource(address & ~0xffL, address | 0xffL));
+        }
+
+        for (int run = 0; run < 3; run++) {
+            LOGGER.info("findExactOrFirstLessSpecific: NestedIntervalMap {} ns, PackedIpv4IntervalMap {} ns",
+                    lessSpecificLookupNanos(nestedIntervalMap, keys), lessSpecificLookupNanos(packedIntervalMap, keys));
+            LOGGER.info("findFirstMoreSpecific: NestedIntervalMap {} ns, PackedIpv4IntervalMap {} ns",
+                    moreSpecificLookupNanos(nestedIntervalMap, keys), moreSpecificLookupNanos(packedIntervalMap, keys));
+        }
+
+        for (final Ipv4Resource key : keys.subList(0, 1000)) {
+            assertEquals(nestedIntervalMap.findExactOrFirstLessSpecific(key), packedIntervalMap.findExactOrFirstLessSpecific(key));
+            assertEquals(nestedIntervalMap.findFirstMoreSpecific(key), packedIntervalMap.findFirstMoreSpecific(key));
+        }
+    }
+
+    @Test
+    public void incremental_update_cost() {
+        final List<List<Ipv4Entry>> batches = Lists.newArrayList();
+        for (int batch = 0; batch < NR_BATCHES; batch++) {
+            final List<Ipv4Entry> entries = Lists.newArrayList();
+            for (int i = 0; i < NR_CHANGES_PER_BATCH; i++) {
+                // an odd /24, which is not in the trees yet
+                final long begin = ((long) random.nextInt(NR_ALLOCATIONS << 8) << 8) | 0x100L;
+                entries.add(new Ipv4Entry(new Ipv4Resource(begin, begin + 0xff), batch * NR_CHANGES_PER_BATCH + i));
+            }
+            batches.add(entries);
+        }
+
+        final NestedIntervalMap<Ipv4Resource, Ipv4Entry> nested = new NestedIntervalMap<>(nestedIntervalMap);
+        final Stopwatch nestedInPlace = Stopwatch.createStarted();
+        for (final List<Ipv4Entry> batch : batches) {
+            putAndRemove(nested, batch);
+        }
+        nestedInPlace.stop();
+
+        NestedIntervalMap<Ipv4Resource, Ipv4Entry> nestedSnapshot = nestedIntervalMap;
+        final Stopwatch nestedSnapshots = Stopwatch.createStarted();
+        for (final List<Ipv4Entry> batch : batches) {
+            nestedSnapshot = new NestedIntervalMap<>(nestedSnapshot);
+            putAndRemove(nestedSnapshot, batch);
+        }
+        nestedSnapshots.stop();
+
+        final PackedIpv4IntervalMap packed = PackedIpv4IntervalMap.copyOf(packedIntervalMap);
+        final Stopwatch packedInPlace = Stopwatch.createStarted();
+        for (final List<Ipv4Entry> batch : batches) {
+            putAndRemove(packed, batch);
+        }
+        packedInPlace.stop();
+
+        PackedIpv4IntervalMap merged = packedIntervalMap;
+        final Stopwatch packedMerge = Stopwatch.createStarted();
+        for (final List<Ipv4Entry> batch : batches) {
+            final PackedIpv4IntervalMap.Changes changes = new PackedIpv4IntervalMap.Changes();
+            for (final Ipv4Entry entry : batch) {
+                changes.put(entry.getKey(), entry);
+            }
+            merged = merged.merge(changes, failOnIntersection());
+
+            final PackedIpv4IntervalMap.Changes removals = new PackedIpv4IntervalMap.Changes();
+            for (final Ipv4Entry entry : batch) {
+                removals.remove(entry.getKey());
+            }
+            merged = merged.merge(removals, failOnIntersection());
+        }
+        packedMerge.stop();
+
+        LOGGER.info("{} batches of {} puts and removes on {} intervals: NestedIntervalMap {} ms per batch, with snapshots {} ms per batch",
+                NR_BATCHES, NR_CHANGES_PER_BATCH, packedIntervalMap.size(), millisPerBatch(nestedInPlace), millisPerBatch(nestedSnapshots));
+        LOGGER.info("PackedIpv4IntervalMap put/remove {} ms per batch, merge of the puts and of the removes {} ms per batch",
+                millisPerBatch(packedInPlace), millisPerBatch(packedMerge));
+
+        assertEquals(nestedIntervalMap.findAllMoreSpecific(Ipv4Resource.MAX_RANGE), nested.findAllMoreSpecific(Ipv4Resource.MAX_RANGE));
+        assertEquals(packedIntervalMap, packed);
+        assertEquals(packedIntervalMap, merged);
+    }
+
+    private static void put(final IntervalMap<Ipv4Resource, Ipv4Entry> intervalMap, final long begin, final int prefixLength, final int objectId) {
+        final Ipv4Entry entry = new Ipv4Entry(new Ipv4Resource(begin, begin + (1L << (32 - prefixLength)) - 1), objectId);
+        intervalMap.put(entry.getKey(), entry);
+    }
+
+    private static void putAndRemove(final IntervalMap<Ipv4Resource, Ipv4Entry> intervalMap, final List<Ipv4Entry> batch) {
+        for (final Ipv4Entry entry : batch) {
+            intervalMap.put(entry.getKey(), entry);
+        }
+
+        for (final Ipv4Entry entry : batch) {
+            intervalMap.remove(entry.getKey());
+        }
+    }
+
+    private static long lessSpecificLookupNanos(final IntervalMap<Ipv4Resource, Ipv4Entry> intervalMap, final List<Ipv4Resource> keys) {
+        final long start = System.nanoTime();
+        int found = 0;
+        for (final Ipv4Resource key : keys) {
+            found += intervalMap.findExactOrFirstLessSpecific(key).size();
+        }
+        assertEquals(keys.size(), found);
+        return (System.nanoTime() - start) / keys.size();
+    }
+
+    private static long moreSpecificLookupNanos(final IntervalMap<Ipv4Resource, Ipv4Entry> intervalMap, final List<Ipv4Resource> keys) {
+        final long start = System.nanoTime();
+        for (final Ipv4Resource key : keys) {
+            intervalMap.findFirstMoreSpecific(key);
+        }
+        return (System.nanoTime() - start) / keys.size();
+    }
+
+    private static long millisPerBatch(final Stopwatch stopwatch) {
+        return stopwatch.elapsed(TimeUnit.MILLISECONDS) / NR_BATCHES;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static NestedIntervalMap.IntersectionHandler failOnIntersection() {
+        return new NestedIntervalMap.IntersectionHandler() {
+            @Override
+            public void handle(final IntersectingIntervalException e) {
+                throw e;
+            }
+        };
+    }
+}
@@ -0,0 +1,290 @@
+package net.ripe.db.whois.common.iptree;
+
+import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.etree.IntersectingIntervalException;
+import net.ripe.db.whois.common.etree.NestedIntervalMap;
+import net.ripe.db.whois.common.ip.Ipv4Resource;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PackedIpv4IntervalMapTest {
+    private final long seed = System.currentTimeMillis();
+    private final Random random = new Random(seed);
+
+    private final PackedIpv4IntervalMap subject = new PackedIpv4IntervalMap();
+
+    @Test
+    public void put_and_find() {
+        final Ipv4Entry parent = put(1, 10, 1);
+        final Ipv4Entry child1 = put(2, 3, 2);
+        final Ipv4Entry child2 = put(5, 8, 3);
+        final Ipv4Entry grandchild = put(6, 6, 4);
+
+        assertThat(subject.findExactAndAllLessSpecific(new Ipv4Resource(6, 6)), contains(parent, child2, grandchild));
+        assertThat(subject.findFirstLessSpecific(new Ipv4Resource(6, 6)), contains(child2));
+        assertThat(subject.findFirstMoreSpecific(new Ipv4Resource(1, 10)), contains(child1, child2));
+        assertThat(subject.findAllMoreSpecific(new Ipv4Resource(1, 10)), contains(child1, child2, grandchild));
+        assertEquals(3, subject.findExact(new Ipv4Resource(5, 8)).get(0).getObjectId());
+    }
+
+    @Test
+    public void put_parent_after_children() {
+        final Ipv4Entry child1 = put(2, 3, 2);
+        final Ipv4Entry child2 = put(5, 8, 3);
+        final Ipv4Entry parent = put(1, 10, 1);
+
+        assertThat(subject.findFirstLessSpecific(new Ipv4Resource(2, 3)), contains(parent));
+        assertThat(subject.findFirstMoreSpecific(Ipv4Resource.MAX_RANGE), contains(parent));
+        assertThat(subject.findFirstMoreSpecific(new Ipv4Resource(1, 10)), contains(child1, child2));
+    }
+
+    @Test
+    public void put_replaces_value() {
+        put(1, 10, 1);
+        put(1, 10, 2);
+
+        assertThat(subject.findExact(new Ipv4Resource(1, 10)), hasSize(1));
+        assertEquals(2, subject.findExact(new Ipv4Resource(1, 10)).get(0).getObjectId());
+    }
+
+    @Test(expected = IntersectingIntervalException.class)
+    public void put_intersecting() {
+        put(1, 10, 1);
+        put(5, 15, 2);
+    }
+
+    @Test
+    public void remove_moves_children_to_parent() {
+        final Ipv4Entry parent = put(1, 10, 1);
+        put(2, 8, 2);
+        final Ipv4Entry grandchild = put(3, 3, 3);
+
+        subject.remove(new Ipv4Resource(2, 8));
+
+        assertThat(subject.findFirstLessSpecific(new Ipv4Resource(3, 3)), contains(parent));
+        assertThat(subject.findFirstMoreSpecific(new Ipv4Resource(1, 10)), contains(grandchild));
+    }
+
+    @Test
+    public void merge_changes() {
+        final Ipv4Entry parent = put(1, 10, 1);
+        put(2, 3, 2);
+        put(5, 8, 3);
+
+        final PackedIpv4IntervalMap.Changes changes = new PackedIpv4IntervalMap.Changes();
+        changes.remove(new Ipv4Resource(2, 3));
+        changes.put(new Ipv4Resource(5, 8), new Ipv4Entry(new Ipv4Resource(5, 8), 4));
+        changes.put(new Ipv4Resource(6, 6), new Ipv4Entry(new Ipv4Resource(6, 6), 5));
+        changes.put(new Ipv4Resource(20, 30), new Ipv4Entry(new Ipv4Resource(20, 30), 6));
+
+        final PackedIpv4IntervalMap merged = subject.merge(changes, failOnIntersection());
+
+        assertThat(merged.findFirstMoreSpecific(Ipv4Resource.MAX_RANGE), contains(parent, new Ipv4Entry(new Ipv4Resource(20, 30), 6)));
+        assertThat(merged.findFirstMoreSpecific(new Ipv4Resource(1, 10)), contains(new Ipv4Entry(new Ipv4Resource(5, 8), 4)));
+        assertThat(merged.findExactAndAllLessSpecific(new Ipv4Resource(6, 6)), hasSize(3));
+        assertEquals(4, merged.findExact(new Ipv4Resource(5, 8)).get(0).getObjectId());
+        assertEquals(4, merged.size());
+
+        assertEquals(3, subject.size());
+        assertEquals(3, subject.findExact(new Ipv4Resource(5, 8)).get(0).getObjectId());
+    }
+
+    @Test
+    public void merge_keeps_last_change_of_key() {
+        put(1, 10, 1);
+
+        final PackedIpv4IntervalMap.Changes changes = new PackedIpv4IntervalMap.Changes();
+        changes.put(new Ipv4Resource(2, 3), new Ipv4Entry(new Ipv4Resource(2, 3), 2));
+        changes.remove(new Ipv4Resource(2, 3));
+        changes.remove(new Ipv4Resource(1, 10));
+        changes.put(new Ipv4Resource(1, 10), new Ipv4Entry(new Ipv4Resource(1, 10), 3));
+
+        final PackedIpv4IntervalMap merged = subject.merge(changes, failOnIntersection());
+
+        assertThat(merged.findAllMoreSpecific(Ipv4Resource.MAX_RANGE), contains(new Ipv4Entry(new Ipv4Resource(1, 10), 3)));
+        assertEquals(3, merged.findExact(new Ipv4Resource(1, 10)).get(0).getObjectId());
+    }
+
+    @Test
+    public void merge_removes_before_adding() {
+        put(1, 10, 1);
+
+        final PackedIpv4IntervalMap.Changes changes = new PackedIpv4IntervalMap.Changes();
+        changes.put(new Ipv4Resource(5, 15), new Ipv4Entry(new Ipv4Resource(5, 15), 2));
+        changes.remove(new Ipv4Resource(1, 10));
+
+        final PackedIpv4IntervalMap merged = subject.merge(changes, failOnIntersection());
+
+        assertThat(merged.findAllMoreSpecific(Ipv4Resource.MAX_RANGE), contains(new Ipv4Entry(new Ipv4Resource(5, 15), 2)));
+    }
+
+    @Test
+    public void merge_skips_intersecting() {
+        final Ipv4Entry parent = put(1, 10, 1);
+
+        final PackedIpv4IntervalMap.Changes changes = new PackedIpv4IntervalMap.Changes();
+        changes.put(new Ipv4Resource(5, 15), new Ipv4Entry(new Ipv4Resource(5, 15), 2));
+        changes.put(new Ipv4Resource(20, 30), new Ipv4Entry(new Ipv4Resource(20, 30), 3));
+        changes.put(new Ipv4Resource(25, 35), new Ipv4Entry(new Ipv4Resource(25, 35), 4));
+
+        final List<IntersectingIntervalException> intersections = Lists.newArrayList();
+        final PackedIpv4IntervalMap merged = subject.merge(changes, new NestedIntervalMap.IntersectionHandler() {
+            @Override
+            public void handle(final IntersectingIntervalException e) {
+                intersections.add(e);
+            }
+        });
+
+        assertThat(merged.findAllMoreSpecific(Ipv4Resource.MAX_RANGE), contains(parent, new Ipv4Entry(new Ipv4Resource(20, 30), 3)));
+        assertThat(intersections, hasSize(2));
+    }
+
+    @Test
+    public void merge_without_changes() {
+        put(1, 10, 1);
+
+        assertSame(subject, subject.merge(new PackedIpv4IntervalMap.Changes(), failOnIntersection()));
+    }
+
+    @Test
+    public void merge_same_results_as_put_and_remove() {
+        final NestedIntervalMap<Ipv4Resource, Ipv4Entry> expected = new NestedIntervalMap<>();
+        PackedIpv4IntervalMap merged = subject;
+
+        for (int batch = 0; batch < 50; batch++) {
+            final PackedIpv4IntervalMap.Changes changes = new PackedIpv4IntervalMap.Changes();
+            final List<Ipv4Resource> removed = Lists.newArrayList();
+            final List<Ipv4Entry> added = Lists.newArrayList();
+
+            for (int i = 0; i < 100; i++) {
+                final long begin = random.nextInt(1000);
+                final Ipv4Resource key = new Ipv4Resource(begin, begin + random.nextInt(random.nextBoolean() ? 10 : 200));
+
+                if (random.nextInt(10) < 3) {
+                    final List<Ipv4Entry> entries = expected.findAllMoreSpecific(Ipv4Resource.MAX_RANGE);
+                    final Ipv4Resource removedKey = entries.isEmpty() ? key : entries.get(random.nextInt(entries.size())).getKey();
+                    if (!removed.contains(removedKey) && !containsKey(added, removedKey)) {
+                        changes.remove(removedKey);
+                        removed.add(removedKey);
+                    }
+                } else if (!removed.contains(key) && !containsKey(added, key)) {
+                    final Ipv4Entry entry = new Ipv4Entry(key, batch * 100 + i);
+                    changes.put(key, entry);
+                    added.add(entry);
+                }
+            }
+
+            for (final Ipv4Resource key : removed) {
+                expected.remove(key);
+            }
+
+            for (final Ipv4Entry entry : added) {
+                try {
+                    expected.put(entry.getKey(), entry);
+                } catch (IntersectingIntervalException ignored) {
+                    // skipped by merge as well
+                }
+            }
+
+            merged = merged.merge(changes, new NestedIntervalMap.IntersectionHandler() {
+                @Override
+                public void handle(final IntersectingIntervalException e) {
+                }
+            });
+
+            assertEquals("seed = " + seed, PackedIpv4IntervalMap.copyOf(expected), merged);
+            for (final Ipv4Entry entry : expected.findAllMoreSpecific(Ipv4Resource.MAX_RANGE)) {
+                assertEquals("seed = " + seed, expected.findExactAndAllLessSpecific(entry.getKey()), merged.findExactAndAllLessSpecific(entry.getKey()));
+                assertEquals("seed = " + seed, expected.findFirstMoreSpecific(entry.getKey()), merged.findFirstMoreSpecific(entry.getKey()));
+            }
+        }
+    }
+
+    private static boolean containsKey(final List<Ipv4Entry> entries, final Ipv4Resource key) {
+        for (final Ipv4Entry entry : entries) {
+            if (entry.getKey().equals(key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static NestedIntervalMap.IntersectionHandler failOnIntersection() {
+        return new NestedIntervalMap.IntersectionHandler() {
+            @Override
+            public void handle(final IntersectingIntervalException e) {
+                fail(e.getMessage());
+            }
+        };
+    }
+
+    @Test
+    public void same_results_as_nested_interval_map() {
+        final NestedIntervalMap<Ipv4Resource, Ipv4Entry> expected = new NestedIntervalMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            final long begin = random.nextInt(1000);
+            final Ipv4Resource key = new Ipv4Resource(begin, begin + random.nextInt(random.nextBoolean() ? 10 : 200));
+            final Ipv4Entry entry = new Ipv4Entry(key, i);
+
+            if (random.nextInt(10) < 7) {
+                boolean intersecting = false;
+                try {
+                    expected.put(key, entry);
+                } catch (IntersectingIntervalException e) {
+                    intersecting = true;
+                }
+
+                try {
+                    subject.put(key, entry);
+                    if (intersecting) {
+                        fail("expected intersection for " + key + " (seed = " + seed + ")");
+                    }
+                } catch (IntersectingIntervalException e) {
+                    if (!intersecting) {
+                        fail("unexpected intersection for " + key + " (seed = " + seed + ")");
+                    }
+                }
+            } else {
+                expected.remove(key);
+                subject.remove(key);
+            }
+
+            assertSameResults(expected, key);
+        }
+
+        final PackedIpv4IntervalMap copy = PackedIpv4IntervalMap.copyOf(expected);
+        assertEquals(subject, copy);
+        for (final Ipv4Entry entry : expected.findAllMoreSpecific(Ipv4Resource.MAX_RANGE)) {
+            assertEquals(expected.findExactAndAllLessSpecific(entry.getKey()), copy.findExactAndAllLessSpecific(entry.getKey()));
+        }
+    }
+
+    private void assertSameResults(final NestedIntervalMap<Ipv4Resource, Ipv4Entry> expected, final Ipv4Resource key) {
+        final String message = key + " (seed = " + seed + ")";
+        assertEquals(message, expected.findExact(key), subject.findExact(key));
+        assertEquals(message, expected.findFirstLessSpecific(key), subject.findFirstLessSpecific(key));
+        assertEquals(message, expected.findExactOrFirstLessSpecific(key), subject.findExactOrFirstLessSpecific(key));
+        assertEquals(message, expected.findAllLessSpecific(key), subject.findAllLessSpecific(key));
+        assertEquals(message, expected.findExactAndAllLessSpecific(key), subject.findExactAndAllLessSpecific(key));
+        assertEquals(message, expected.findFirstMoreSpecific(key), subject.findFirstMoreSpecific(key));
+        assertEquals(message, expected.findAllMoreSpecific(key), subject.findAllMoreSpecific(key));
+        assertEquals(message, expected.findExactAndAllMoreSpecific(key), subject.findExactAndAllMoreSpecific(key));
+    }
+
+    private Ipv4Entry put(final long begin, final long end, final int objectId) {
+        final Ipv4Entry entry = new Ipv4Entry(new Ipv4Resource(begin, end), objectId);
+        subject.put(entry.getKey(), entry);
+        return entry;
+    }
+}
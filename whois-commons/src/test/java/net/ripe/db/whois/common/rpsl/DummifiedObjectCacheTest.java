@@ -0,0 +1,77 @@
+package net.ripe.db.whois.common.rpsl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DummifiedObjectCacheTest {
+    private static final RpslObject MNTNER = RpslObject.parse(1, "mntner: TEST-MNT\nsource: TEST");
+    private static final RpslObject DUMMIFIED_MNTNER = RpslObject.parse(1, "mntner: TEST-MNT\nauth: MD5-PW # Filtered\nsource: TEST");
+    private static final RpslObject PERSON = RpslObject.parse(2, "person: Test Person\nnic-hdl: TP1-TEST\nsource: TEST");
+
+    @Mock Dummifier dummifier;
+
+    private DummifiedObjectCache subject;
+
+    @Before
+    public void setUp() {
+        when(dummifier.isAllowed(3, MNTNER)).thenReturn(true);
+        when(dummifier.dummify(3, MNTNER)).thenReturn(DUMMIFIED_MNTNER);
+        when(dummifier.isAllowed(3, PERSON)).thenReturn(false);
+
+        subject = new DummifiedObjectCache(1000);
+    }
+
+    @Test
+    public void dummified_once() {
+        assertThat(subject.get(dummifier, 3, MNTNER, 1), is(DUMMIFIED_MNTNER.toByteArray()));
+        assertThat(subject.get(dummifier, 3, MNTNER, 1), is(DUMMIFIED_MNTNER.toByteArray()));
+
+        verify(dummifier, times(1)).dummify(3, MNTNER);
+        assertThat(subject.getSize(), is(1L));
+    }
+
+    @Test
+    public void not_allowed() {
+        assertThat(subject.get(dummifier, 3, PERSON, 1), is(nullValue()));
+        assertThat(subject.get(dummifier, 3, PERSON, 1), is(nullValue()));
+
+        verify(dummifier, times(1)).isAllowed(3, PERSON);
+    }
+
+    @Test
+    public void other_sequence_is_dummified_again() {
+        subject.get(dummifier, 3, MNTNER, 1);
+        subject.get(dummifier, 3, MNTNER, 2);
+
+        verify(dummifier, times(2)).dummify(3, MNTNER);
+    }
+
+    @Test
+    public void unknown_sequence_not_cached() {
+        subject.get(dummifier, 3, MNTNER, 0);
+        subject.get(dummifier, 3, MNTNER, 0);
+
+        verify(dummifier, times(2)).dummify(3, MNTNER);
+        assertThat(subject.getSize(), is(0L));
+    }
+
+    @Test
+    public void disabled() {
+        subject = new DummifiedObjectCache(0);
+
+        assertThat(subject.get(dummifier, 3, MNTNER, 1), is(DUMMIFIED_MNTNER.toByteArray()));
+        assertThat(subject.get(dummifier, 3, PERSON, 1), is(nullValue()));
+        assertThat(subject.getSize(), is(0L));
+    }
+}
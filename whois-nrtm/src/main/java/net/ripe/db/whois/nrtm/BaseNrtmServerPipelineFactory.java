@@ -3,6 +3,7 @@ package net.ripe.db.whois.nrtm;
 import com.google.common.base.Charsets;
 import net.ripe.db.whois.common.dao.SerialDao;
 import net.ripe.db.whois.common.pipeline.MaintenanceHandler;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.Dummifier;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -16,6 +17,8 @@ import org.jboss.netty.handler.execution.ExecutionHandler;
 import org.jboss.netty.handler.execution.OrderedMemoryAwareThreadPoolExecutor;
 import org.springframework.scheduling.TaskScheduler;
 
+import javax.annotation.PreDestroy;
+
 
 abstract class BaseNrtmServerPipelineFactory implements ChannelPipelineFactory {
 
@@ -33,17 +36,17 @@ abstract class BaseNrtmServerPipelineFactory implements ChannelPipelineFactory {
     private final AccessControlHandler aclHandler;
     private final SerialDao serialDao;
     private final Dummifier dummifier;
-    private final TaskScheduler clientSynchronisationScheduler;
+    private final DummifiedObjectCache dummifiedObjectCache;
+    private final NrtmKeepalivePublisher keepalivePublisher;
     private final NrtmLog nrtmLog;
     private final MaintenanceHandler maintenanceHandler;
 
     private final String version;
     private final String source;
-    private final long updateInterval;
 
     protected BaseNrtmServerPipelineFactory(final NrtmChannelsRegistry nrtmChannelsRegistry,
                                             final NrtmExceptionHandler exceptionHandler, final AccessControlHandler aclHandler,
-                                            final SerialDao serialDao, final NrtmLog nrtmLog, final Dummifier dummifier,
+                                            final SerialDao serialDao, final NrtmLog nrtmLog, final Dummifier dummifier, final DummifiedObjectCache dummifiedObjectCache,
                                             final TaskScheduler clientSynchronisationScheduler, final MaintenanceHandler maintenanceHandler, final String version,
                                             final String source, final long updateInterval) {
         this.nrtmChannelsRegistry = nrtmChannelsRegistry;
@@ -52,12 +55,17 @@ abstract class BaseNrtmServerPipelineFactory implements ChannelPipelineFactory {
         this.serialDao = serialDao;
         this.nrtmLog = nrtmLog;
         this.dummifier = dummifier;
-        this.clientSynchronisationScheduler = clientSynchronisationScheduler;
+        this.dummifiedObjectCache = dummifiedObjectCache;
+        this.keepalivePublisher = new NrtmKeepalivePublisher(serialDao, dummifier, dummifiedObjectCache, clientSynchronisationScheduler, updateInterval);
         this.maintenanceHandler = maintenanceHandler;
 
         this.version = version;
         this.source = source;
-        this.updateInterval = updateInterval;
+    }
+
+    @PreDestroy
+    public void stop() {
+        keepalivePublisher.stop();
     }
 
     @Override
@@ -74,7 +82,7 @@ abstract class BaseNrtmServerPipelineFactory implements ChannelPipelineFactory {
 
         pipeline.addLast("UD-execution", executionHandler);
 
-        pipeline.addLast("U-query-handler", new NrtmQueryHandler(serialDao, dummifier, clientSynchronisationScheduler, nrtmLog, version, source, updateInterval));
+        pipeline.addLast("U-query-handler", new NrtmQueryHandler(serialDao, dummifier, dummifiedObjectCache, keepalivePublisher, nrtmLog, version, source));
 
         pipeline.addLast("U-exception-handler", exceptionHandler);
 
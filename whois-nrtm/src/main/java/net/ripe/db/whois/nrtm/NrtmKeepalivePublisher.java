@@ -0,0 +1,192 @@
+package net.ripe.db.whois.nrtm;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.ripe.db.whois.common.dao.SerialDao;
+import net.ripe.db.whois.common.domain.serials.SerialEntry;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
+import net.ripe.db.whois.common.rpsl.Dummifier;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Sends new serials to all keepalive mirror clients of a pipeline.
+ * <p/>
+ * Clients are subscribed once they have caught up with the serials that existed when they connected.
+ * <p/>
+ * Every update interval the serials are read from the database once, and every serial is dummified and
+ * encoded once per NRTM version. The encoded serials are written to every subscribed channel that can accept
+ * more data. A channel that cannot keep up is skipped, and continues from its own serial once it is writable again.
+ */
+class NrtmKeepalivePublisher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NrtmKeepalivePublisher.class);
+
+    private final SerialDao serialDao;
+    private final Dummifier dummifier;
+    private final DummifiedObjectCache dummifiedObjectCache;
+    private final TaskScheduler clientSynchronisationScheduler;
+    private final long updateInterval;
+
+    private final ConcurrentMap<Channel, Subscription> subscriptions = Maps.newConcurrentMap();
+
+    private ScheduledFuture<?> scheduledFuture;
+    private boolean scheduled;
+
+    NrtmKeepalivePublisher(final SerialDao serialDao, final Dummifier dummifier, final DummifiedObjectCache dummifiedObjectCache, final TaskScheduler clientSynchronisationScheduler, final long updateInterval) {
+        this.serialDao = serialDao;
+        this.dummifier = dummifier;
+        this.dummifiedObjectCache = dummifiedObjectCache;
+        this.clientSynchronisationScheduler = clientSynchronisationScheduler;
+        this.updateInterval = updateInterval;
+    }
+
+    /**
+     * Send serials from serialBegin to the channel every update interval until the channel is unsubscribed.
+     */
+    void subscribe(final Channel channel, final int version, final int serialBegin) {
+        subscriptions.put(channel, new Subscription(channel, version, serialBegin));
+
+        synchronized (this) {
+            if (!scheduled) {
+                scheduledFuture = clientSynchronisationScheduler.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            publish();
+                        } catch (Exception e) {
+                            // no rethrowing else the repeating scheduler unschedules us
+                            LOGGER.info("Exception in scheduled task:", e);
+                        }
+                    }
+                }, updateInterval * 1000);
+                scheduled = true;
+            }
+        }
+    }
+
+    void unsubscribe(final Channel channel) {
+        subscriptions.remove(channel);
+    }
+
+    synchronized void stop() {
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+            scheduledFuture = null;
+        }
+
+        scheduled = false;
+        subscriptions.clear();
+    }
+
+    synchronized void publish() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        final int end = serialDao.getSerials().getEnd();
+
+        for (int serial = getNextSerial(Integer.MIN_VALUE); serial <= end; ) {
+            final int batchEnd = end - serial < NrtmQueryHandler.SERIALS_PER_QUERY ? end : serial + NrtmQueryHandler.SERIALS_PER_QUERY - 1;
+
+            final List<Subscription> receivers = Lists.newArrayList();
+            for (final Subscription subscription : subscriptions.values()) {
+                if (subscription.nextSerial >= serial && subscription.nextSerial <= batchEnd && isWritable(subscription.channel)) {
+                    receivers.add(subscription);
+                }
+            }
+
+            if (!receivers.isEmpty()) {
+                publish(serial, batchEnd, receivers);
+            }
+
+            serial = getNextSerial(batchEnd);
+        }
+    }
+
+    private void publish(final int serialBegin, final int serialEnd, final List<Subscription> receivers) {
+        final List<Integer> serialIds = Lists.newArrayList();
+        final List<SerialEntry> serialEntries = Lists.newArrayList();
+        serialDao.getByIdRangeForNrtm(serialBegin, serialEnd, new SerialDao.SerialEntryHandler() {
+            @Override
+            public void handle(final int serialId, final SerialEntry serialEntry) {
+                serialIds.add(serialId);
+                serialEntries.add(serialEntry);
+            }
+        });
+
+        final Map<Integer, ChannelBuffer[]> encodedByVersion = Maps.newHashMap();
+        for (final Subscription subscription : receivers) {
+            ChannelBuffer[] encoded = encodedByVersion.get(subscription.version);
+            if (encoded == null) {
+                encoded = encode(serialIds, serialEntries, subscription.version);
+                encodedByVersion.put(subscription.version, encoded);
+            }
+
+            for (int i = 0; i < encoded.length; i++) {
+                if (encoded[i] != null && serialIds.get(i) >= subscription.nextSerial) {
+                    subscription.channel.write(encoded[i].duplicate());
+                }
+            }
+
+            subscription.nextSerial = serialEnd + 1;
+        }
+    }
+
+    private ChannelBuffer[] encode(final List<Integer> serialIds, final List<SerialEntry> serialEntries, final int version) {
+        final ChannelBuffer[] result = new ChannelBuffer[serialEntries.size()];
+        for (int i = 0; i < result.length; i++) {
+            final SerialEntry serialEntry = serialEntries.get(i);
+            final byte[] dummified = dummifiedObjectCache.get(dummifier, version, serialEntry.getRpslObject(), serialEntry.getSequenceId());
+            if (dummified != null) {
+                result[i] = ChannelBuffers.copiedBuffer(
+                        NrtmQueryHandler.getOperationMessage(serialIds.get(i), serialEntry, version) + "\n\n" +
+                        NrtmQueryHandler.getObjectMessage(dummified) + "\n\n",
+                        Charsets.UTF_8);
+            }
+        }
+
+        return result;
+    }
+
+    private int getNextSerial(final int afterSerial) {
+        int result = Integer.MAX_VALUE;
+        for (final Subscription subscription : subscriptions.values()) {
+            if (subscription.nextSerial > afterSerial && subscription.nextSerial < result && isWritable(subscription.channel)) {
+                result = subscription.nextSerial;
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isWritable(final Channel channel) {
+        if (!channel.isOpen()) {
+            unsubscribe(channel);
+            return false;
+        }
+
+        return channel.isWritable();
+    }
+
+    private static final class Subscription {
+        private final Channel channel;
+        private final int version;
+        private volatile int nextSerial;
+
+        private Subscription(final Channel channel, final int version, final int nextSerial) {
+            this.channel = channel;
+            this.version = version;
+            this.nextSerial = nextSerial;
+        }
+    }
+}
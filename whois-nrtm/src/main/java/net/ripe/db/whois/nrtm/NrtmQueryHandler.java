@@ -1,29 +1,26 @@
 package net.ripe.db.whois.nrtm;
 
+import com.google.common.base.Charsets;
 import com.google.common.util.concurrent.Uninterruptibles;
 import joptsimple.OptionException;
 import net.ripe.db.whois.common.dao.SerialDao;
 import net.ripe.db.whois.common.domain.serials.SerialEntry;
 import net.ripe.db.whois.common.domain.serials.SerialRange;
 import net.ripe.db.whois.common.pipeline.ChannelUtil;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.Dummifier;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelException;
-import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.channel.ChannelHandlerContext;
-import org.jboss.netty.channel.ChannelLocal;
 import org.jboss.netty.channel.ChannelStateEvent;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.TaskScheduler;
 
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
 
@@ -31,38 +28,36 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
 
     static final int SECONDS_PER_DAY = 60 * 60 * 24;
     static final int HISTORY_AGE_LIMIT = 14 * SECONDS_PER_DAY;
-    static final int MAX_PENDING_WRITES = 16;
+    static final int SERIALS_PER_QUERY = 100;
 
     private final SerialDao serialDao;
     private final Dummifier dummifier;
-    private final TaskScheduler clientSynchronisationScheduler;
+    private final DummifiedObjectCache dummifiedObjectCache;
+    private final NrtmKeepalivePublisher keepalivePublisher;
 
     private final NrtmLog nrtmLog;
     private final String applicationVersion;
     private final String source;
-    private final long updateInterval;
 
-    static final ChannelLocal<AtomicInteger> PENDING_WRITES = new ChannelLocal<>();
-
-    private volatile ScheduledFuture<?> scheduledFuture;
+    private volatile boolean keepalive;
 
     static final String TERMS_AND_CONDITIONS = "" +
             "% The RIPE Database is subject to Terms and Conditions.\n" +
             "% See http://www.ripe.net/db/support/db-terms-conditions.pdf";
 
-    public NrtmQueryHandler(final SerialDao serialDao, final Dummifier dummifier, final TaskScheduler clientSynchronisationScheduler, final NrtmLog nrtmLog, final String applicationVersion, final String source, final long updateInterval) {
+    public NrtmQueryHandler(final SerialDao serialDao, final Dummifier dummifier, final DummifiedObjectCache dummifiedObjectCache, final NrtmKeepalivePublisher keepalivePublisher, final NrtmLog nrtmLog, final String applicationVersion, final String source) {
         this.serialDao = serialDao;
         this.dummifier = dummifier;
-        this.clientSynchronisationScheduler = clientSynchronisationScheduler;
+        this.dummifiedObjectCache = dummifiedObjectCache;
+        this.keepalivePublisher = keepalivePublisher;
         this.nrtmLog = nrtmLog;
         this.applicationVersion = applicationVersion;
         this.source = source;
-        this.updateInterval = updateInterval;
     }
 
     @Override
     public void messageReceived(final ChannelHandlerContext ctx, final MessageEvent e) {
-        if (isKeepAlive()) {
+        if (keepalive) {
             return;
         }
 
@@ -123,10 +118,6 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
         channel.write(ChannelBuffers.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
     }
 
-    private boolean isKeepAlive() {
-        return scheduledFuture != null;
-    }
-
     private Query parseQueryString(final String queryString) {
         try {
             return new Query(source, queryString);
@@ -136,37 +127,25 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
     }
 
     void handleMirrorQueryWithKeepalive(final Query query, final Channel channel) {
-        final int version = query.getVersion();
-
-        final Runnable instance = new Runnable() {
-            private int serial = query.getSerialBegin();
-
-            @Override
-            public void run() {
-                try {
-                    final SerialRange range = serialDao.getSerials();
-                    serial = writeSerials(serial, range.getEnd(), version, channel);
-                } catch (ChannelException e) {
-                    LOGGER.debug("writeSerials: closed channel");
-                } catch (Exception e) {
-                    // [EB]: no rethrowing else the repeating scheduler unschedules us
-                    LOGGER.info("Exception in scheduled task:", e);
-                }
-            }
-        };
+        keepalive = true;
 
-        scheduledFuture = clientSynchronisationScheduler.scheduleAtFixedRate(instance, updateInterval * 1000);
+        // catch up on this channel's own thread, so clients that are up to date are not held up by the publisher
+        writeAllSerials(query.getSerialBegin(), query.getSerialEnd(), query.getVersion(), channel);
+        keepalivePublisher.subscribe(channel, query.getVersion(), query.getSerialEnd() + 1);
     }
 
     private void handleMirrorQuery(final Query query, final Channel channel) {
-        for (int serial = query.getSerialBegin(); serial <= query.getSerialEnd(); ) {
-            serial = writeSerials(serial, query.getSerialEnd(), query.getVersion(), channel);
-            if (serial <= query.getSerialEnd()) {
+        writeAllSerials(query.getSerialBegin(), query.getSerialEnd(), query.getVersion(), channel);
+        writeMessage(channel, "%END " + source);
+    }
+
+    private void writeAllSerials(final int begin, final int end, final int version, final Channel channel) {
+        for (int serial = begin; serial <= end; ) {
+            serial = writeSerials(serial, end, version, channel);
+            if (serial <= end) {
                 Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
             }
         }
-
-        writeMessage(channel, "%END " + source);
     }
 
     private int writeSerials(final int begin, final int end, final int version, final Channel channel) {
@@ -174,32 +153,50 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
 
         while (serial <= end) {
 
-            if (PENDING_WRITES.get(channel).get() > MAX_PENDING_WRITES) {
+            // a closed channel is never writable again
+            if (!channel.isOpen()) {
+                throw new ChannelException();
+            }
+
+            if (!channel.isWritable()) {
                 break;
             }
 
-            final SerialEntry serialEntry = serialDao.getByIdForNrtm(serial);
-            if (serialEntry != null) {
-                if (dummifier.isAllowed(version, serialEntry.getRpslObject())) {
-                    final String operation = serialEntry.getOperation().toString();
-                    final String message;
-                    if (version == NrtmServer.NRTM_VERSION) {
-                        message = operation + " " + serial;
-                    } else {
-                        message = operation;
-                    }
-
-                    writeMessage(channel, message);
-                    writeMessage(channel, dummifier.dummify(version, serialEntry.getRpslObject()).toString().trim());
+            final int batchEnd = end - serial < SERIALS_PER_QUERY ? end : serial + SERIALS_PER_QUERY - 1;
+            serialDao.getByIdRangeForNrtm(serial, batchEnd, new SerialDao.SerialEntryHandler() {
+                @Override
+                public void handle(final int serialId, final SerialEntry serialEntry) {
+                    writeSerialEntry(serialId, serialEntry, version, channel);
                 }
-            }
+            });
 
-            serial++;
+            serial = batchEnd + 1;
         }
 
         return serial;
     }
 
+    private void writeSerialEntry(final int serial, final SerialEntry serialEntry, final int version, final Channel channel) {
+        final byte[] dummified = dummifiedObjectCache.get(dummifier, version, serialEntry.getRpslObject(), serialEntry.getSequenceId());
+        if (dummified != null) {
+            writeMessage(channel, getOperationMessage(serial, serialEntry, version));
+            writeMessage(channel, getObjectMessage(dummified));
+        }
+    }
+
+    static String getOperationMessage(final int serial, final SerialEntry serialEntry, final int version) {
+        final String operation = serialEntry.getOperation().toString();
+        if (version == NrtmServer.NRTM_VERSION) {
+            return operation + " " + serial;
+        }
+
+        return operation;
+    }
+
+    static String getObjectMessage(final byte[] dummified) {
+        return new String(dummified, Charsets.ISO_8859_1).trim();
+    }
+
     private boolean isRequestedSerialInRange(final Query query, final SerialRange range) {
         return query.getSerialBegin() >= range.getBegin() && query.getSerialBegin() <= range.getEnd() &&
                 query.getSerialEnd() >= range.getBegin() && query.getSerialEnd() <= range.getEnd();
@@ -215,8 +212,6 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
 
     @Override
     public void channelConnected(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception {
-        PENDING_WRITES.set(ctx.getChannel(), new AtomicInteger());
-
         writeMessage(ctx.getChannel(), TERMS_AND_CONDITIONS);
 
         super.channelConnected(ctx, e);
@@ -224,12 +219,10 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
 
     @Override
     public void channelDisconnected(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception {
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(true);
+        if (keepalive) {
+            keepalivePublisher.unsubscribe(ctx.getChannel());
         }
 
-        PENDING_WRITES.remove(ctx.getChannel());
-
         super.channelDisconnected(ctx, e);
     }
 
@@ -238,21 +231,6 @@ public class NrtmQueryHandler extends SimpleChannelUpstreamHandler {
             throw new ChannelException();
         }
 
-        final AtomicInteger pending = PENDING_WRITES.get(channel);
-        if (pending != null) {
-            pending.incrementAndGet();
-        }
-
-        channel.write(message + "\n\n").addListener(LISTENER);
+        channel.write(message + "\n\n");
     }
-
-    private static final ChannelFutureListener LISTENER = new ChannelFutureListener() {
-        @Override
-        public void operationComplete(ChannelFuture future) throws Exception {
-            final AtomicInteger pending = PENDING_WRITES.get(future.getChannel());
-            if (pending != null) {
-                pending.decrementAndGet();
-            }
-        }
-    };
 }
@@ -2,6 +2,7 @@ package net.ripe.db.whois.nrtm;
 
 import net.ripe.db.whois.common.dao.SerialDao;
 import net.ripe.db.whois.common.pipeline.MaintenanceHandler;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.Dummifier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -20,11 +21,12 @@ public class NrtmServerPipelineFactory extends BaseNrtmServerPipelineFactory {
                                      final MaintenanceHandler maintenanceHandler,
                                      final NrtmLog nrtmLog,
                                      final @Qualifier("dummifierCurrent") Dummifier dummifier,
+                                     final DummifiedObjectCache dummifiedObjectCache,
                                      @Qualifier("clientSynchronisationScheduler") final TaskScheduler clientSynchronisationScheduler,
                                      @Value("${application.version}") final String version,
                                      @Value("${whois.source}") final String source,
                                      @Value("${nrtm.update.interval:60}") final long updateInterval) {
 
-        super(nrtmChannelsRegistry, exceptionHandler, aclHandler, serialDao, nrtmLog, dummifier, clientSynchronisationScheduler, maintenanceHandler, version, source, updateInterval);
+        super(nrtmChannelsRegistry, exceptionHandler, aclHandler, serialDao, nrtmLog, dummifier, dummifiedObjectCache, clientSynchronisationScheduler, maintenanceHandler, version, source, updateInterval);
     }
 }
@@ -1,15 +1,20 @@
 package net.ripe.db.whois.nrtm;
 
+import com.google.common.base.Charsets;
 import net.ripe.db.whois.common.dao.SerialDao;
 import net.ripe.db.whois.common.domain.serials.Operation;
 import net.ripe.db.whois.common.domain.serials.SerialEntry;
 import net.ripe.db.whois.common.domain.serials.SerialRange;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.DummifierLegacy;
 import net.ripe.db.whois.common.rpsl.RpslObject;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.*;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
@@ -18,13 +23,16 @@ import org.mockito.stubbing.Answer;
 import org.springframework.scheduling.TaskScheduler;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -49,6 +57,9 @@ public class NrtmQueryHandlerTest {
     private static final RpslObject inetnum = RpslObject.parse("inetnum:10.0.0.1");
     private static final RpslObject person = RpslObject.parse("person:one\nnic-hdl:ONE");
 
+    private final NavigableMap<Integer, SerialEntry> serialEntries = new TreeMap<>();
+    private final DummifiedObjectCache dummifiedObjectCache = new DummifiedObjectCache(0);
+
     private NrtmQueryHandler subject;
 
     @Before
@@ -56,14 +67,27 @@ public class NrtmQueryHandlerTest {
         when(contextMock.getChannel()).thenReturn(channelMock);
         when(channelMock.getRemoteAddress()).thenReturn(new InetSocketAddress(0));
         when(channelMock.isOpen()).thenReturn(true);
+        when(channelMock.isWritable()).thenReturn(true);
         when(channelMock.write(any())).thenReturn(channelFutureMock);
         when(serialDaoMock.getSerials()).thenReturn(new SerialRange(1, 2));
-        when(serialDaoMock.getByIdForNrtm(1)).thenReturn(new SerialEntry(Operation.UPDATE, true, 1, 1000, 1000, inetnum.toByteArray()));
+        serialEntries.put(1, new SerialEntry(Operation.UPDATE, true, 1, 1000, 1000, inetnum.toByteArray()));
         when(dummifierMock.isAllowed(NrtmServer.NRTM_VERSION, inetnum)).thenReturn(true);
         when(dummifierMock.dummify(NrtmServer.NRTM_VERSION, inetnum)).thenReturn(inetnum);
-        when(serialDaoMock.getByIdForNrtm(2)).thenReturn(new SerialEntry(Operation.UPDATE, true, 2, 1000, 1000, person.toByteArray()));
+        serialEntries.put(2, new SerialEntry(Operation.UPDATE, true, 2, 1000, 1000, person.toByteArray()));
         when(dummifierMock.isAllowed(NrtmServer.NRTM_VERSION, person)).thenReturn(false);
 
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final Object[] args = invocation.getArguments();
+                final SerialDao.SerialEntryHandler handler = (SerialDao.SerialEntryHandler) args[2];
+                for (final Map.Entry<Integer, SerialEntry> entry : serialEntries.subMap((Integer) args[0], true, (Integer) args[1], true).entrySet()) {
+                    handler.handle(entry.getKey(), entry.getValue());
+                }
+                return null;
+            }
+        }).when(serialDaoMock).getByIdRangeForNrtm(anyInt(), anyInt(), any(SerialDao.SerialEntryHandler.class));
+
         when(mySchedulerMock.scheduleAtFixedRate(any(Runnable.class), anyLong())).thenAnswer(new Answer<ScheduledFuture<?>>() {
             @Override
             public ScheduledFuture<?> answer(InvocationOnMock invocation) throws Throwable {
@@ -73,8 +97,7 @@ public class NrtmQueryHandlerTest {
             }
         });
 
-        subject = new NrtmQueryHandler(serialDaoMock, dummifierMock, mySchedulerMock, nrtmLogMock, VERSION, SOURCE, UPDATE_INTERVAL);
-        NrtmQueryHandler.PENDING_WRITES.set(channelMock, new AtomicInteger());
+        subject = new NrtmQueryHandler(serialDaoMock, dummifierMock, dummifiedObjectCache, new NrtmKeepalivePublisher(serialDaoMock, dummifierMock, dummifiedObjectCache, mySchedulerMock, UPDATE_INTERVAL), nrtmLogMock, VERSION, SOURCE);
     }
 
     @Test
@@ -137,9 +160,74 @@ public class NrtmQueryHandlerTest {
         subject.messageReceived(contextMock, messageEventMock);
 
         verify(channelMock, times(1)).write("%START Version: 3 RIPE 1-2\n\n");
-        verify(mySchedulerMock, times(1)).scheduleAtFixedRate(any(Runnable.class), anyLong());
         verify(channelMock, times(1)).write("ADD 1\n\n");
         verify(channelMock, times(1)).write(inetnum.toString() + "\n");
+        verify(channelMock, never()).write("%END RIPE\n\n");
+        verify(mySchedulerMock, times(1)).scheduleAtFixedRate(any(Runnable.class), anyLong());
+    }
+
+    @Test
+    public void keepalive_publishes_serials_after_catch_up() throws Exception {
+        when(messageEventMock.getMessage()).thenReturn("-g RIPE:3:1-LAST -k");
+        subject.messageReceived(contextMock, messageEventMock);
+
+        serialEntries.put(3, new SerialEntry(Operation.DELETE, false, 3, 1000, 1000, inetnum.toByteArray()));
+        when(serialDaoMock.getSerials()).thenReturn(new SerialRange(1, 3));
+        final ArgumentCaptor<Runnable> publishTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(mySchedulerMock).scheduleAtFixedRate(publishTask.capture(), anyLong());
+        publishTask.getValue().run();
+
+        verify(channelMock, times(1)).write("ADD 1\n\n");
+        verify(channelMock, times(1)).write(ChannelBuffers.copiedBuffer("DEL 3\n\n" + inetnum.toString() + "\n", Charsets.UTF_8));
+        verify(serialDaoMock, never()).getByIdRangeForNrtm(eq(1), eq(3), any(SerialDao.SerialEntryHandler.class));
+    }
+
+    @Test
+    public void keepalive_publisher_stop_cancels_scheduled_task() throws Exception {
+        final ScheduledFuture<?> scheduledFutureMock = mock(ScheduledFuture.class);
+        doReturn(scheduledFutureMock).when(mySchedulerMock).scheduleAtFixedRate(any(Runnable.class), anyLong());
+
+        final NrtmKeepalivePublisher publisher = new NrtmKeepalivePublisher(serialDaoMock, dummifierMock, dummifiedObjectCache, mySchedulerMock, UPDATE_INTERVAL);
+        publisher.subscribe(channelMock, NrtmServer.NRTM_VERSION, 3);
+        publisher.stop();
+
+        verify(scheduledFutureMock).cancel(false);
+    }
+
+    @Test
+    public void keepalive_serials_are_encoded_once() throws Exception {
+        final Channel otherChannelMock = mock(Channel.class);
+        when(otherChannelMock.isOpen()).thenReturn(true);
+        when(otherChannelMock.isWritable()).thenReturn(true);
+
+        final NrtmKeepalivePublisher publisher = new NrtmKeepalivePublisher(serialDaoMock, dummifierMock, dummifiedObjectCache, mySchedulerMock, UPDATE_INTERVAL);
+        publisher.subscribe(channelMock, NrtmServer.NRTM_VERSION, 3);
+        publisher.subscribe(otherChannelMock, NrtmServer.NRTM_VERSION, 3);
+
+        serialEntries.put(3, new SerialEntry(Operation.DELETE, false, 3, 1000, 1000, inetnum.toByteArray()));
+        when(serialDaoMock.getSerials()).thenReturn(new SerialRange(1, 3));
+        publisher.publish();
+
+        final ChannelBuffer expected = ChannelBuffers.copiedBuffer("DEL 3\n\n" + inetnum.toString() + "\n", Charsets.UTF_8);
+        verify(channelMock).write(expected);
+        verify(otherChannelMock).write(expected);
+        verify(serialDaoMock, times(1)).getByIdRangeForNrtm(eq(3), eq(3), any(SerialDao.SerialEntryHandler.class));
+        verify(dummifierMock, times(1)).dummify(NrtmServer.NRTM_VERSION, inetnum);
+    }
+
+    @Test
+    public void keepalive_skips_channel_that_is_not_writable() throws Exception {
+        final NrtmKeepalivePublisher publisher = new NrtmKeepalivePublisher(serialDaoMock, dummifierMock, dummifiedObjectCache, mySchedulerMock, UPDATE_INTERVAL);
+        when(channelMock.isWritable()).thenReturn(false);
+        publisher.subscribe(channelMock, NrtmServer.NRTM_VERSION, 1);
+        publisher.publish();
+
+        verify(channelMock, never()).write(any());
+
+        when(channelMock.isWritable()).thenReturn(true);
+        publisher.publish();
+
+        verify(channelMock).write(ChannelBuffers.copiedBuffer("ADD 1\n\n" + inetnum.toString() + "\n", Charsets.UTF_8));
     }
 
     @Test
@@ -177,6 +265,21 @@ public class NrtmQueryHandlerTest {
         }
     }
 
+    @Test
+    public void gFlag_stops_when_channel_closed() {
+        when(channelMock.isOpen()).thenReturn(true, false);
+        when(channelMock.isWritable()).thenReturn(false);
+        when(messageEventMock.getMessage()).thenReturn("-g RIPE:3:1-2");
+
+        try {
+            subject.messageReceived(contextMock, messageEventMock);
+            fail("expected ChannelException");
+        } catch (ChannelException expected) {
+            verify(channelMock).write("%START Version: 3 RIPE 1-2\n\n");
+            verify(serialDaoMock, never()).getByIdRangeForNrtm(anyInt(), anyInt(), any(SerialDao.SerialEntryHandler.class));
+        }
+    }
+
     @Test
     public void gFlagRequestOutOfDateSerial() {
         when(serialDaoMock.getAgeOfExactOrNextExistingSerial(1)).thenReturn(Integer.valueOf(NrtmQueryHandler.HISTORY_AGE_LIMIT + 1));
@@ -208,16 +311,36 @@ public class NrtmQueryHandlerTest {
         verify(channelMock, times(1)).write(NrtmQueryHandler.TERMS_AND_CONDITIONS + "\n\n");
     }
 
+    @Test
+    public void gFlagRangeLargerThanQuery() {
+        final int lastSerial = NrtmQueryHandler.SERIALS_PER_QUERY * 2 + 1;
+        for (int serial = 3; serial <= lastSerial; serial++) {
+            serialEntries.put(serial, new SerialEntry(Operation.DELETE, false, serial, 1000, 1000, inetnum.toByteArray()));
+        }
+        when(serialDaoMock.getSerials()).thenReturn(new SerialRange(1, lastSerial));
+        when(messageEventMock.getMessage()).thenReturn("-g RIPE:3:1-LAST");
+
+        subject.messageReceived(contextMock, messageEventMock);
+
+        verify(serialDaoMock, times(3)).getByIdRangeForNrtm(anyInt(), anyInt(), any(SerialDao.SerialEntryHandler.class));
+        verify(serialDaoMock).getByIdRangeForNrtm(eq(NrtmQueryHandler.SERIALS_PER_QUERY * 2 + 1), eq(lastSerial), any(SerialDao.SerialEntryHandler.class));
+        verify(channelMock).write("ADD 1\n\n");
+        verify(channelMock).write("DEL " + lastSerial + "\n\n");
+        verify(channelMock, times(lastSerial - 2)).write(startsWith("DEL "));
+        verify(channelMock, times(1)).write("%END RIPE\n\n");
+    }
+
     @Test
     public void throttleChannelKeepaliveQuery() {
-        NrtmQueryHandler.PENDING_WRITES.set(channelMock, new AtomicInteger(NrtmQueryHandler.MAX_PENDING_WRITES + 1));
+        when(channelMock.isWritable()).thenReturn(false, true);
 
         when(messageEventMock.getMessage()).thenReturn("-g RIPE:3:1-LAST -k");
 
         subject.messageReceived(contextMock, messageEventMock);
 
-        verify(channelMock, times(1)).write("%START Version: 3 RIPE 1-2\n\n");
-        verify(channelMock, atMost(1)).write(any(String.class));
-        verify(mySchedulerMock, times(1)).scheduleAtFixedRate(any(Runnable.class), anyLong());
+        final InOrder orderedMocks = inOrder(channelMock, mySchedulerMock);
+        orderedMocks.verify(channelMock).write("%START Version: 3 RIPE 1-2\n\n");
+        orderedMocks.verify(channelMock).write("ADD 1\n\n");
+        orderedMocks.verify(mySchedulerMock).scheduleAtFixedRate(any(Runnable.class), anyLong());
     }
 }
@@ -23,6 +23,7 @@ import net.ripe.db.whois.common.rpsl.ObjectTemplate;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.common.rpsl.attrs.AsBlockRange;
+import net.ripe.db.whois.common.source.SourceAwareExecutor;
 import net.ripe.db.whois.query.QueryMessages;
 import net.ripe.db.whois.query.dao.Inet6numDao;
 import net.ripe.db.whois.query.dao.InetnumDao;
@@ -60,6 +61,7 @@ class RpslObjectSearcher {
     private final Ipv6RouteTree route6Tree;
     private final Ipv4DomainTree ipv4DomainTree;
     private final Ipv6DomainTree ipv6DomainTree;
+    private final SourceAwareExecutor prefetchExecutor;
 
     @Autowired
     public RpslObjectSearcher(
@@ -71,7 +73,8 @@ class RpslObjectSearcher {
             final Ipv4RouteTree route4Tree,
             final Ipv6RouteTree route6Tree,
             final Ipv4DomainTree ipv4DomainTree,
-            final Ipv6DomainTree ipv6DomainTree) {
+            final Ipv6DomainTree ipv6DomainTree,
+            final SourceAwareExecutor prefetchExecutor) {
         this.rpslObjectDao = rpslObjectDao;
         this.inetnumDao = inetnumDao;
         this.inet6numDao = inet6numDao;
@@ -81,6 +84,7 @@ class RpslObjectSearcher {
         this.route6Tree = route6Tree;
         this.ipv4DomainTree = ipv4DomainTree;
         this.ipv6DomainTree = ipv6DomainTree;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     public Iterable<? extends ResponseObject> search(final Query query) {
@@ -287,6 +291,6 @@ class RpslObjectSearcher {
     }
 
     private Iterable<ResponseObject> proxy(final Iterable<? extends Identifiable> identifiables) {
-        return CollectionHelper.iterateProxy(rpslObjectDao, identifiables);
+        return CollectionHelper.iterateProxy(rpslObjectDao, identifiables, prefetchExecutor);
     }
 }
@@ -0,0 +1,59 @@
+package net.ripe.db.whois.query.pipeline;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.Writer;
+
+/**
+ * Writes characters as ISO-8859-1 bytes straight into a channel buffer, without an intermediate byte array.
+ * <p/>
+ * Characters that cannot be encoded are written as '?', like an OutputStreamWriter does.
+ */
+final class ChannelBufferWriter extends Writer {
+    private static final byte UNMAPPABLE = '?';
+
+    private final ChannelBuffer buffer;
+    private boolean highSurrogate;
+
+    ChannelBufferWriter(final ChannelBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(final int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+        for (int i = off; i < off + len; i++) {
+            writeChar(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) {
+        for (int i = off; i < off + len; i++) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    private void writeChar(final char c) {
+        // a surrogate pair is a single unmappable character
+        if (highSurrogate && Character.isLowSurrogate(c)) {
+            highSurrogate = false;
+            return;
+        }
+
+        highSurrogate = Character.isHighSurrogate(c);
+        buffer.writeByte(c <= 0xff ? c : UNMAPPABLE);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
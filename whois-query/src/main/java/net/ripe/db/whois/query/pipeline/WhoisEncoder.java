@@ -3,6 +3,7 @@ package net.ripe.db.whois.query.pipeline;
 import com.google.common.base.Charsets;
 import net.ripe.db.whois.common.Message;
 import net.ripe.db.whois.common.domain.ResponseObject;
+import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -13,7 +14,14 @@ import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Encodes response objects and messages into a single buffer. A list of response objects, as written by the
+ * WhoisServerHandler, is encoded into one buffer for the whole batch.
+ * <p/>
+ * RPSL objects are written as ISO-8859-1 bytes straight into the buffer, without serializing them to a byte array first.
+ */
 @ChannelHandler.Sharable
 @Component
 public class WhoisEncoder extends OneToOneEncoder {
@@ -22,18 +30,34 @@ public class WhoisEncoder extends OneToOneEncoder {
 
     @Override
     protected Object encode(final ChannelHandlerContext ctx, final Channel channel, final Object msg) throws IOException {
-        if (msg instanceof ResponseObject) {
+        if (msg instanceof ResponseObject || msg instanceof Message) {
             final ChannelBuffer result = ChannelBuffers.dynamicBuffer(DEFAULT_BUFFER_SIZE);
-            final ChannelBufferOutputStream out = new ChannelBufferOutputStream(result);
-
-            ((ResponseObject) msg).writeTo(out);
-            out.write(OBJECT_TERMINATOR);
+            encode(result, msg);
+            return result;
+        } else if (msg instanceof List) {
+            final List<?> messages = (List<?>) msg;
+            final ChannelBuffer result = ChannelBuffers.dynamicBuffer(messages.size() * DEFAULT_BUFFER_SIZE);
+            for (final Object message : messages) {
+                encode(result, message);
+            }
 
             return result;
-        } else if (msg instanceof Message) {
-            return ChannelBuffers.wrappedBuffer(msg.toString().getBytes(Charsets.UTF_8), OBJECT_TERMINATOR);
         }
 
         return msg;
     }
+
+    private static void encode(final ChannelBuffer buffer, final Object msg) throws IOException {
+        if (msg instanceof RpslObject) {
+            ((RpslObject) msg).writeTo(new ChannelBufferWriter(buffer));
+        } else if (msg instanceof ResponseObject) {
+            ((ResponseObject) msg).writeTo(new ChannelBufferOutputStream(buffer));
+        } else if (msg instanceof Message) {
+            buffer.writeBytes(msg.toString().getBytes(Charsets.UTF_8));
+        } else {
+            throw new IllegalArgumentException("Unexpected message: " + msg);
+        }
+
+        buffer.writeBytes(OBJECT_TERMINATOR);
+    }
 }
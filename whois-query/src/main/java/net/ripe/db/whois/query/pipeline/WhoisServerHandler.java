@@ -1,5 +1,6 @@
 package net.ripe.db.whois.query.pipeline;
 
+import com.google.common.collect.Lists;
 import net.ripe.db.whois.common.domain.ResponseObject;
 import net.ripe.db.whois.common.pipeline.ChannelUtil;
 import net.ripe.db.whois.query.domain.QueryCompletionInfo;
@@ -9,11 +10,23 @@ import net.ripe.db.whois.query.handler.QueryHandler;
 import net.ripe.db.whois.query.query.Query;
 import org.jboss.netty.channel.*;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The worker threads are asynchronously pushing data down the Netty pipeline.
  * Make sure IO threads can handle the flow.
+ * <p/>
+ * Response objects are written in batches, which the WhoisEncoder encodes into a single buffer. When the channel is
+ * not writable after a batch, the worker thread waits until the batch is written instead of queueing more writes.
+ * <p/>
+ * The first response object is written right away, and a batch is written before it is full when its first object
+ * was handled more than MAX_BATCH_DELAY_MILLIS ago, so slow queries do not hold back output that is ready.
  */
 public class WhoisServerHandler extends SimpleChannelUpstreamHandler {
+    static final int MAX_BATCH_SIZE = 100;
+    static final long MAX_BATCH_DELAY_MILLIS = 10;
+
     private final QueryHandler queryHandler;
     private boolean closed;
 
@@ -25,21 +38,13 @@ public class WhoisServerHandler extends SimpleChannelUpstreamHandler {
     public void messageReceived(final ChannelHandlerContext ctx, final MessageEvent event) {
         final Query query = (Query) event.getMessage();
         final Channel channel = event.getChannel();
-        queryHandler.streamResults(query, ChannelUtil.getRemoteAddress(channel), channel.getId(), new ResponseHandler() {
-            @Override
-            public String getApi() {
-                return "QRY";
-            }
+        final BatchingResponseHandler responseHandler = new BatchingResponseHandler(channel);
 
-            @Override
-            public void handle(final ResponseObject responseObject) {
-                if (closed) { // Prevent hammering a closed channel
-                    throw new QueryException(QueryCompletionInfo.DISCONNECTED);
-                }
-
-                channel.write(responseObject);
-            }
-        });
+        try {
+            queryHandler.streamResults(query, ChannelUtil.getRemoteAddress(channel), channel.getId(), responseHandler);
+        } finally {
+            responseHandler.flush();
+        }
 
         channel.getPipeline().sendDownstream(new QueryCompletedEvent(channel));
     }
@@ -49,4 +54,50 @@ public class WhoisServerHandler extends SimpleChannelUpstreamHandler {
         closed = true;
         super.channelClosed(ctx, e);
     }
+
+    private final class BatchingResponseHandler implements ResponseHandler {
+        private final Channel channel;
+        private List<ResponseObject> batch = Lists.newArrayListWithExpectedSize(MAX_BATCH_SIZE);
+        private long batchStarted;
+        private boolean written;
+
+        private BatchingResponseHandler(final Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public String getApi() {
+            return "QRY";
+        }
+
+        @Override
+        public void handle(final ResponseObject responseObject) {
+            if (closed) { // Prevent hammering a closed channel
+                throw new QueryException(QueryCompletionInfo.DISCONNECTED);
+            }
+
+            if (batch.isEmpty()) {
+                batchStarted = System.nanoTime();
+            }
+
+            batch.add(responseObject);
+            if (!written || batch.size() >= MAX_BATCH_SIZE || System.nanoTime() - batchStarted >= TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_DELAY_MILLIS)) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty() || closed) {
+                return;
+            }
+
+            final ChannelFuture future = channel.write(batch);
+            batch = Lists.newArrayListWithExpectedSize(MAX_BATCH_SIZE);
+            written = true;
+
+            if (!channel.isWritable()) {
+                future.awaitUninterruptibly();
+            }
+        }
+    }
 }
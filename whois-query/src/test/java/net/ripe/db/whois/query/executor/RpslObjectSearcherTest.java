@@ -12,6 +12,7 @@ import net.ripe.db.whois.common.iptree.*;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.common.source.SourceAwareExecutor;
 import net.ripe.db.whois.query.dao.Inet6numDao;
 import net.ripe.db.whois.query.dao.InetnumDao;
 import net.ripe.db.whois.query.QueryMessages;
@@ -22,7 +23,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.springframework.dao.EmptyResultDataAccessException;
 
 import java.util.Iterator;
@@ -34,6 +37,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -50,6 +55,7 @@ public class RpslObjectSearcherTest {
     @Mock Ipv6RouteTree route6Tree;
     @Mock Ipv4DomainTree ipv4DomainTree;
     @Mock Ipv6DomainTree ipv6DomainTree;
+    @Mock SourceAwareExecutor prefetchExecutor;
     @InjectMocks RpslObjectSearcher subject;
 
     @Before
@@ -58,6 +64,14 @@ public class RpslObjectSearcherTest {
         map = Maps.newHashMap();
 
         Fixture.mockRpslObjectDaoLoadingBehavior(rpslObjectDao);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).when(prefetchExecutor).execute(any(Runnable.class));
     }
 
     @Test
@@ -1,8 +1,10 @@
 package net.ripe.db.whois.query.pipeline;
 
 import com.google.common.base.Charsets;
+import com.google.common.primitives.Bytes;
 import net.ripe.db.whois.common.Message;
 import net.ripe.db.whois.common.domain.ResponseObject;
+import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.query.QueryMessages;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
@@ -11,15 +13,21 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -62,10 +70,56 @@ public class WhoisEncoderTest {
 
     @Test
     public void encode_ResponseObject() throws IOException {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                ((OutputStream) invocation.getArguments()[0]).write("inetnum: 10.0.0.0\n".getBytes(Charsets.ISO_8859_1));
+                return null;
+            }
+        }).when(objectMock).writeTo(any(OutputStream.class));
+
         ChannelBuffer result = encode(objectMock);
 
         verify(objectMock, times(1)).writeTo(any(OutputStream.class));
+        verify(objectMock, never()).toByteArray();
+
+        assertThat(toString(result), is("inetnum: 10.0.0.0\n\n"));
+    }
+
+    @Test
+    public void encode_RpslObject_as_latin1() throws IOException {
+        final RpslObject rpslObject = RpslObject.parse("" +
+                "mntner:  TEST-MNT\n" +
+                "remarks: M\u00fcller \u20ac \ud83d\ude00\n" +
+                "remarks: continued\n" +
+                "+\n" +
+                "         value");
+
+        ChannelBuffer result = encode(rpslObject);
+
+        final byte[] bytes = new byte[result.readableBytes()];
+        result.readBytes(bytes);
+        assertThat(bytes, is(Bytes.concat(rpslObject.toByteArray(), new byte[]{'\n'})));
+    }
+
+    @Test
+    public void encode_ResponseObjects() throws IOException {
+        final Message message = QueryMessages.inputTooLong();
+        ChannelBuffer result = encode(Arrays.asList(
+                RpslObject.parse("mntner: FIRST-MNT"),
+                message,
+                RpslObject.parse("mntner: SECOND-MNT")));
+
+        assertThat(toString(result), is("" +
+                "mntner:         FIRST-MNT\n\n" +
+                message.toString() + "\n" +
+                "mntner:         SECOND-MNT\n\n"));
+    }
+
+    @Test
+    public void encode_empty_list() throws IOException {
+        ChannelBuffer result = encode(Collections.emptyList());
 
-        assertThat(toString(result), is("\n"));
+        assertThat(result.readableBytes(), is(0));
     }
 }
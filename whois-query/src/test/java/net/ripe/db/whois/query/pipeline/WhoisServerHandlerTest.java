@@ -16,12 +16,17 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -37,6 +42,7 @@ public class WhoisServerHandlerTest {
     @Mock ChannelPipeline pipeline;
     @Mock ChannelStateEvent channelStateEvent;
     @Mock MessageEvent messageEvent;
+    @Mock ChannelFuture channelFuture;
 
     @Mock QueryHandler queryHandler;
     @InjectMocks WhoisServerHandler subject;
@@ -52,6 +58,8 @@ public class WhoisServerHandlerTest {
         when(messageEvent.getChannel()).thenReturn(channel);
         when(channel.getRemoteAddress()).thenReturn(new InetSocketAddress(inetAddress, 80));
         when(channel.getPipeline()).thenReturn(pipeline);
+        when(channel.write(any())).thenReturn(channelFuture);
+        when(channel.isWritable()).thenReturn(true);
 
         doNothing().when(queryHandler).streamResults(any(Query.class), eq(inetAddress), eq(0), argThat(new BaseMatcher<ResponseHandler>() {
             @Override
@@ -73,13 +81,76 @@ public class WhoisServerHandlerTest {
 
         subject.messageReceived(ctx, messageEvent);
 
-        verify(channel).write(responseObject);
+        verify(channel).write(Collections.singletonList(responseObject));
+        verify(channelFuture, never()).awaitUninterruptibly();
 
         final ArgumentCaptor<QueryCompletedEvent> channelEventCapture = ArgumentCaptor.forClass(QueryCompletedEvent.class);
         verify(pipeline).sendDownstream(channelEventCapture.capture());
         assertNull(channelEventCapture.getValue().getCompletionInfo());
     }
 
+    @Test
+    public void messageReceived_write_in_batches() throws Exception {
+        final int nrObjects = WhoisServerHandler.MAX_BATCH_SIZE + 1;
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final ResponseHandler responseHandler = (ResponseHandler) invocation.getArguments()[3];
+                for (int i = 0; i < nrObjects; i++) {
+                    responseHandler.handle(responseObject);
+                }
+                return null;
+            }
+        }).when(queryHandler).streamResults(any(Query.class), eq(inetAddress), eq(0), any(ResponseHandler.class));
+        when(messageEvent.getMessage()).thenReturn(Query.parse("10.0.0.0"));
+
+        subject.messageReceived(ctx, messageEvent);
+
+        final ArgumentCaptor<Object> writeCapture = ArgumentCaptor.forClass(Object.class);
+        verify(channel, times(2)).write(writeCapture.capture());
+        assertThat((List<?>) writeCapture.getAllValues().get(0), hasSize(1));
+        assertThat((List<?>) writeCapture.getAllValues().get(1), hasSize(WhoisServerHandler.MAX_BATCH_SIZE));
+        verify(pipeline).sendDownstream(any(QueryCompletedEvent.class));
+    }
+
+    @Test
+    public void messageReceived_write_partial_batch_after_delay() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final ResponseHandler responseHandler = (ResponseHandler) invocation.getArguments()[3];
+                responseHandler.handle(responseObject);
+                responseHandler.handle(responseObject);
+                Thread.sleep(WhoisServerHandler.MAX_BATCH_DELAY_MILLIS * 2);
+                responseHandler.handle(responseObject);
+                responseHandler.handle(responseObject);
+                return null;
+            }
+        }).when(queryHandler).streamResults(any(Query.class), eq(inetAddress), eq(0), any(ResponseHandler.class));
+        when(messageEvent.getMessage()).thenReturn(Query.parse("10.0.0.0"));
+
+        subject.messageReceived(ctx, messageEvent);
+
+        final ArgumentCaptor<Object> writeCapture = ArgumentCaptor.forClass(Object.class);
+        verify(channel, times(3)).write(writeCapture.capture());
+        assertThat((List<?>) writeCapture.getAllValues().get(0), hasSize(1));
+        assertThat((List<?>) writeCapture.getAllValues().get(1), hasSize(2));
+        assertThat((List<?>) writeCapture.getAllValues().get(2), hasSize(1));
+    }
+
+    @Test
+    public void messageReceived_wait_until_written_when_not_writable() throws Exception {
+        when(channel.isWritable()).thenReturn(false);
+        when(messageEvent.getMessage()).thenReturn(Query.parse("10.0.0.0"));
+
+        subject.messageReceived(ctx, messageEvent);
+
+        final InOrder inOrder = inOrder(channel, channelFuture, pipeline);
+        inOrder.verify(channel).write(Collections.singletonList(responseObject));
+        inOrder.verify(channelFuture).awaitUninterruptibly();
+        inOrder.verify(pipeline).sendDownstream(any(QueryCompletedEvent.class));
+    }
+
     @Test
     public void messageReceived_closed() throws Exception {
         final Query query = Query.parse("-V test,10.0.0.0 10.0.0.0");
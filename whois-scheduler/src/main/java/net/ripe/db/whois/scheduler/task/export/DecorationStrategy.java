@@ -1,29 +1,42 @@
 package net.ripe.db.whois.scheduler.task.export;
 
-import com.google.common.collect.Sets;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.DummifierLegacy;
 import net.ripe.db.whois.common.rpsl.DummifierCurrent;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 
 import javax.annotation.CheckForNull;
-import java.util.Set;
 
+/**
+ * Decoration strategies are stateless, so objects can be decorated by multiple threads at the same time.
+ */
 interface DecorationStrategy {
     class None implements DecorationStrategy {
         @Override
         public RpslObject decorate(final RpslObject object) {
             return object;
         }
+
+        @Override
+        public byte[] decorate(final RpslObject object, final int sequenceId) {
+            return object.toByteArray();
+        }
+
+        @Override
+        public RpslObject getPlaceHolder(final ObjectType objectType) {
+            return null;
+        }
     }
 
     class DummifyLegacy implements DecorationStrategy {
         private static final int VERSION = 3;
         private final DummifierLegacy dummifier;
-        private final Set<ObjectType> writtenPlaceHolders = Sets.newHashSet();
+        private final DummifiedObjectCache dummifiedObjectCache;
 
-        public DummifyLegacy(final DummifierLegacy dummifier) {
+        public DummifyLegacy(final DummifierLegacy dummifier, final DummifiedObjectCache dummifiedObjectCache) {
             this.dummifier = dummifier;
+            this.dummifiedObjectCache = dummifiedObjectCache;
         }
 
         @Override
@@ -31,26 +44,32 @@ interface DecorationStrategy {
             if (dummifier.isAllowed(VERSION, object)) {
                 return dummifier.dummify(VERSION, object);
             }
+            return null;
+        }
 
-            final ObjectType objectType = object.getType();
-            if (writtenPlaceHolders.add(objectType)) {
-                if (objectType.equals(ObjectType.ROLE)) {
-                    return DummifierLegacy.PLACEHOLDER_ROLE_OBJECT;
-                } else {
-                    return DummifierLegacy.PLACEHOLDER_PERSON_OBJECT;
-                }
-            }
+        @Override
+        public byte[] decorate(final RpslObject object, final int sequenceId) {
+            return dummifiedObjectCache.get(dummifier, VERSION, object, sequenceId);
+        }
 
-            return null;
+        @Override
+        public RpslObject getPlaceHolder(final ObjectType objectType) {
+            if (objectType.equals(ObjectType.ROLE)) {
+                return DummifierLegacy.PLACEHOLDER_ROLE_OBJECT;
+            } else {
+                return DummifierLegacy.PLACEHOLDER_PERSON_OBJECT;
+            }
         }
     }
 
     class DummifyCurrent implements DecorationStrategy {
         private static final int VERSION = 3;
         private final DummifierCurrent dummifier;
+        private final DummifiedObjectCache dummifiedObjectCache;
 
-        public DummifyCurrent(final DummifierCurrent dummifier) {
+        public DummifyCurrent(final DummifierCurrent dummifier, final DummifiedObjectCache dummifiedObjectCache) {
             this.dummifier = dummifier;
+            this.dummifiedObjectCache = dummifiedObjectCache;
         }
 
         @Override
@@ -60,8 +79,30 @@ interface DecorationStrategy {
             }
             return null;
         }
+
+        @Override
+        public byte[] decorate(final RpslObject object, final int sequenceId) {
+            return dummifiedObjectCache.get(dummifier, VERSION, object, sequenceId);
+        }
+
+        @Override
+        public RpslObject getPlaceHolder(final ObjectType objectType) {
+            return null;
+        }
     }
 
     @CheckForNull
     RpslObject decorate(RpslObject object);
+
+    /**
+     * Same as {@link #decorate(RpslObject)}, encoded as written to the export files.
+     */
+    @CheckForNull
+    byte[] decorate(RpslObject object, int sequenceId);
+
+    /**
+     * @return the object to write once per object type instead of the first object of that type that is not exported, or null.
+     */
+    @CheckForNull
+    RpslObject getPlaceHolder(ObjectType objectType);
 }
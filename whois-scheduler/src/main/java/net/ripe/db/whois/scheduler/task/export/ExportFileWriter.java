@@ -1,7 +1,9 @@
 package net.ripe.db.whois.scheduler.task.export;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.domain.Tag;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
@@ -10,23 +12,31 @@ import net.ripe.db.whois.query.domain.TagResponseObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.zip.GZIPOutputStream;
 
+/**
+ * Writes export files as a sequence of gzip members, which decompress as a single stream.
+ * <p/>
+ * Objects are written to a {@link Chunk}, which compresses its own members and can be filled by any thread.
+ * Chunks are appended to the files in export order by a single thread.
+ */
 class ExportFileWriter {
     private static final Logger LOGGER = LoggerFactory.getLogger(ExportFileWriter.class);
 
     private final File baseDir;
     private final FilenameStrategy filenameStrategy;
     private final DecorationStrategy decorationStrategy;
-    private final Map<String, Writer> writerMap = Maps.newHashMap();
+    private final Map<String, OutputStream> writerMap = Maps.newHashMap();
+    private final Set<ObjectType> writtenPlaceHolders = Sets.newHashSet();
 
     protected ExportFileWriter(final File baseDir, final FilenameStrategy filenameStrategy, final DecorationStrategy decorationStrategy) {
         this.baseDir = baseDir;
@@ -43,25 +53,30 @@ class ExportFileWriter {
         }
     }
 
-    void write(final RpslObject object, final List<Tag> tags) throws IOException {
-        final String filename = filenameStrategy.getFilename(object.getType());
-        final Writer writer = getWriter(filename);
+    Chunk newChunk() {
+        return new Chunk(filenameStrategy, decorationStrategy);
+    }
 
-        final RpslObject decoratedObject = decorationStrategy.decorate(object);
-        if (decoratedObject != null) {
-            writer.write('\n');
-            decoratedObject.writeTo(writer);
+    void append(final Chunk chunk) throws IOException {
+        for (final Map.Entry<String, List<Object>> entry : chunk.members.entrySet()) {
+            final OutputStream writer = getWriter(entry.getKey());
 
-            if (!tags.isEmpty()) {
-                writer.write('\n');
-                writer.write(new TagResponseObject(decoratedObject.getKey(), tags).toString());
+            for (final Object member : entry.getValue()) {
+                if (member instanceof PlaceHolder) {
+                    final PlaceHolder placeHolder = (PlaceHolder) member;
+                    if (writtenPlaceHolders.add(placeHolder.objectType)) {
+                        writer.write(compress(placeHolder.object, placeHolder.tags));
+                    }
+                } else {
+                    writer.write((byte[]) member);
+                }
             }
         }
     }
 
     void close() {
-        for (final Map.Entry<String, Writer> entry : writerMap.entrySet()) {
-            final Writer writer = entry.getValue();
+        for (final Map.Entry<String, OutputStream> entry : writerMap.entrySet()) {
+            final OutputStream writer = entry.getValue();
             try {
                 writer.flush();
                 writer.close();
@@ -71,14 +86,14 @@ class ExportFileWriter {
         }
     }
 
-    private Writer getWriter(final String filename) throws IOException {
-        Writer writer = writerMap.get(filename);
+    private OutputStream getWriter(final String filename) throws IOException {
+        OutputStream writer = writerMap.get(filename);
         if (writer == null) {
             final File file = new File(baseDir, filename + ".gz");
             final FileOutputStream fileOutputStream = new FileOutputStream(file);
             try {
-                writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(fileOutputStream), Charsets.ISO_8859_1));
-                writer.write(QueryMessages.termsAndConditionsDump().toString());
+                writer = new BufferedOutputStream(fileOutputStream);
+                writer.write(compress(QueryMessages.termsAndConditionsDump().toString().getBytes(Charsets.ISO_8859_1)));
                 writerMap.put(filename, writer);
             } catch (IOException e) {
                 fileOutputStream.close();
@@ -87,4 +102,139 @@ class ExportFileWriter {
 
         return writer;
     }
+
+    private static byte[] compress(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final GZIPOutputStream out = new GZIPOutputStream(result);
+        out.write(bytes);
+        out.close();
+        return result.toByteArray();
+    }
+
+    private static byte[] compress(final RpslObject object, final List<Tag> tags) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        writeObject(result, object, tags);
+        return compress(result.toByteArray());
+    }
+
+    private static void writeObject(final OutputStream out, final RpslObject object, final List<Tag> tags) throws IOException {
+        out.write('\n');
+        out.write(object.toByteArray());
+
+        if (!tags.isEmpty()) {
+            out.write('\n');
+            out.write(new TagResponseObject(object.getKey(), tags).toString().getBytes(Charsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * Compressed contents of a range of objects, per file.
+     * <p/>
+     * Place holders can only be written once per object type for the whole export, so the first place holder
+     * per object type in a chunk is kept apart, and is written when the chunk is appended if it is still needed.
+     */
+    static class Chunk {
+        private final FilenameStrategy filenameStrategy;
+        private final DecorationStrategy decorationStrategy;
+
+        private final Map<String, List<Object>> members = Maps.newHashMap();
+        private final Map<String, Member> openMembers = Maps.newHashMap();
+        private final Set<ObjectType> placeHolders = Sets.newHashSet();
+        private int nrObjects;
+
+        private Chunk(final FilenameStrategy filenameStrategy, final DecorationStrategy decorationStrategy) {
+            this.filenameStrategy = filenameStrategy;
+            this.decorationStrategy = decorationStrategy;
+        }
+
+        void write(final RpslObject object, final int sequenceId, final List<Tag> tags) throws IOException {
+            nrObjects++;
+
+            final ObjectType objectType = object.getType();
+            final String filename = filenameStrategy.getFilename(objectType);
+
+            if (tags.isEmpty()) {
+                final byte[] decoratedObject = decorationStrategy.decorate(object, sequenceId);
+                if (decoratedObject != null) {
+                    final OutputStream out = getOutputStream(filename);
+                    out.write('\n');
+                    out.write(decoratedObject);
+                    return;
+                }
+            } else {
+                final RpslObject decoratedObject = decorationStrategy.decorate(object);
+                if (decoratedObject != null) {
+                    writeObject(getOutputStream(filename), decoratedObject, tags);
+                    return;
+                }
+            }
+
+            if (placeHolders.add(objectType)) {
+                final RpslObject placeHolder = decorationStrategy.getPlaceHolder(objectType);
+                if (placeHolder != null) {
+                    finishMember(filename);
+                    getMembers(filename).add(new PlaceHolder(objectType, placeHolder, tags));
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            for (final String filename : Lists.newArrayList(openMembers.keySet())) {
+                finishMember(filename);
+            }
+        }
+
+        int getNrObjects() {
+            return nrObjects;
+        }
+
+        private OutputStream getOutputStream(final String filename) throws IOException {
+            Member member = openMembers.get(filename);
+            if (member == null) {
+                member = new Member();
+                openMembers.put(filename, member);
+            }
+
+            return member.out;
+        }
+
+        private void finishMember(final String filename) throws IOException {
+            final Member member = openMembers.remove(filename);
+            if (member != null) {
+                member.out.close();
+                getMembers(filename).add(member.buffer.toByteArray());
+            }
+        }
+
+        private List<Object> getMembers(final String filename) {
+            List<Object> result = members.get(filename);
+            if (result == null) {
+                result = Lists.newArrayList();
+                members.put(filename, result);
+            }
+
+            return result;
+        }
+    }
+
+    private static final class Member {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final GZIPOutputStream out;
+
+        private Member() throws IOException {
+            this.out = new GZIPOutputStream(buffer);
+        }
+    }
+
+    private static final class PlaceHolder {
+        private final ObjectType objectType;
+        private final RpslObject object;
+        private final List<Tag> tags;
+
+        private PlaceHolder(final ObjectType objectType, final RpslObject object, final List<Tag> tags) {
+            this.objectType = objectType;
+            this.object = object;
+            this.tags = tags;
+        }
+    }
 }
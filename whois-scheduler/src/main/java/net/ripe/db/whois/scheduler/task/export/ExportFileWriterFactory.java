@@ -2,6 +2,7 @@ package net.ripe.db.whois.scheduler.task.export;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.DummifierCurrent;
 import net.ripe.db.whois.common.rpsl.DummifierLegacy;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,18 +21,20 @@ class ExportFileWriterFactory {
 
     private final DummifierLegacy dummifierLegacy;
     private final DummifierCurrent dummifierCurrent;
+    private final DummifiedObjectCache dummifiedObjectCache;
 
     private final String legacyExternalExportDir;
     private final String externalExportDir;
     private final String internalExportDir;
 
     @Autowired
-    ExportFileWriterFactory(final DummifierLegacy dummifierLegacy, final DummifierCurrent dummifierCurrent,
+    ExportFileWriterFactory(final DummifierLegacy dummifierLegacy, final DummifierCurrent dummifierCurrent, final DummifiedObjectCache dummifiedObjectCache,
                             @Value("${dir.rpsl.export.internal}") String internalExportDir,
                             @Value("${dir.rpsl.export.external}") String externalExportDir,
                             @Value("${dir.rpsl.export.external.legacy}") String legacyExternalExportDir) {
         this.dummifierLegacy = dummifierLegacy;
         this.dummifierCurrent = dummifierCurrent;
+        this.dummifiedObjectCache = dummifiedObjectCache;
         this.internalExportDir = internalExportDir;
         this.externalExportDir = externalExportDir;
         this.legacyExternalExportDir = legacyExternalExportDir;
@@ -54,10 +57,10 @@ class ExportFileWriterFactory {
         }
 
         return Lists.newArrayList(
-                new ExportFileWriter(fullDir, new FilenameStrategy.SingleFile(), new DecorationStrategy.DummifyLegacy(dummifierLegacy)),
-                new ExportFileWriter(splitDir, new FilenameStrategy.SplitFile(), new DecorationStrategy.DummifyLegacy(dummifierLegacy)),
-                new ExportFileWriter(fullDirNew, new FilenameStrategy.SingleFile(), new DecorationStrategy.DummifyCurrent(dummifierCurrent)),
-                new ExportFileWriter(splitDirNew, new FilenameStrategy.SplitFile(), new DecorationStrategy.DummifyCurrent(dummifierCurrent)),
+                new ExportFileWriter(fullDir, new FilenameStrategy.SingleFile(), new DecorationStrategy.DummifyLegacy(dummifierLegacy, dummifiedObjectCache)),
+                new ExportFileWriter(splitDir, new FilenameStrategy.SplitFile(), new DecorationStrategy.DummifyLegacy(dummifierLegacy, dummifiedObjectCache)),
+                new ExportFileWriter(fullDirNew, new FilenameStrategy.SingleFile(), new DecorationStrategy.DummifyCurrent(dummifierCurrent, dummifiedObjectCache)),
+                new ExportFileWriter(splitDirNew, new FilenameStrategy.SplitFile(), new DecorationStrategy.DummifyCurrent(dummifierCurrent, dummifiedObjectCache)),
                 new ExportFileWriter(internalDir, new FilenameStrategy.SplitFile(), new DecorationStrategy.None())
         );
     }
@@ -1,7 +1,10 @@
 package net.ripe.db.whois.scheduler.task.export;
 
 import com.google.common.base.Stopwatch;
-import net.ripe.db.whois.common.dao.TagsDao;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
 import net.ripe.db.whois.common.domain.Tag;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.scheduler.task.export.dao.ExportCallbackHandler;
@@ -12,39 +15,44 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.FileSystemUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 class RpslObjectsExporter {
     private static final Logger LOGGER = LoggerFactory.getLogger(RpslObjectsExporter.class);
 
+    static final int SHARD_SIZE = 10000;
+
     private final ExportFileWriterFactory exportFileWriterFactory;
     private final ExportDao exportDao;
-    private final TagsDao tagsDao;
     private final File exportDir;
     private final File tmpDir;
 
     private final AtomicBoolean exporting = new AtomicBoolean();
     private final boolean enabled;
+    private final int nrThreads = Runtime.getRuntime().availableProcessors();
 
     @Autowired
     public RpslObjectsExporter(final ExportFileWriterFactory exportFileWriterFactory,
                                final ExportDao exportDao,
-                               final TagsDao tagsDao,
                                @Value("${dir.rpsl.export}") final String exportDirName,
                                @Value("${dir.rpsl.export.tmp}") final String tmpDirName,
                                @Value("${rpsl.export.enabled:true}") final boolean enabled) {
         this.exportFileWriterFactory = exportFileWriterFactory;
         this.exportDao = exportDao;
-        this.tagsDao = tagsDao;
         this.enabled = enabled;
 
         exportDir = new File(exportDirName);
@@ -97,49 +105,140 @@ class RpslObjectsExporter {
         LOGGER.info("Created: {}", tmpDir);
     }
 
-    @Transactional(isolation = Isolation.REPEATABLE_READ, propagation = Propagation.REQUIRES_NEW)
     private void exportToFiles() {
+        exportDao.executeInSnapshot(new Runnable() {
+            @Override
+            public void run() {
+                exportSnapshot();
+            }
+        });
+    }
+
+    private void exportSnapshot() {
         final int maxSerial = exportDao.getMaxSerial();
+        final int maxObjectId = exportDao.getMaxObjectId();
         LOGGER.info("Max serial: {}", maxSerial);
 
         final List<ExportFileWriter> exportFileWriters = exportFileWriterFactory.createExportFileWriters(tmpDir, maxSerial);
+        final ExecutorService executorService = Executors.newFixedThreadPool(nrThreads, new ThreadFactory() {
+            final AtomicInteger threadNum = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, String.format("RpslObjectsExporter-%s", threadNum.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
         try {
             final TextFileExporter textFileExporter = new TextFileExporter(exportFileWriters);
+            final Deque<Future<List<ExportFileWriter.Chunk>>> pendingShards = Lists.newLinkedList();
             try {
-                exportDao.exportObjects(textFileExporter);
+                for (int fromObjectId = 0; fromObjectId <= maxObjectId; fromObjectId += SHARD_SIZE) {
+                    pendingShards.add(executorService.submit(readShard(fromObjectId, fromObjectId + SHARD_SIZE, exportFileWriters)));
+
+                    // limit the number of compressed shards in memory
+                    while (pendingShards.size() > 2 * nrThreads) {
+                        textFileExporter.append(pendingShards.removeFirst());
+                    }
+                }
+
+                while (!pendingShards.isEmpty()) {
+                    textFileExporter.append(pendingShards.removeFirst());
+                }
             } finally {
                 textFileExporter.logNrExported();
             }
         } finally {
+            executorService.shutdownNow();
+
             for (final ExportFileWriter exportFileWriter : exportFileWriters) {
                 exportFileWriter.close();
             }
         }
     }
 
-    private final class TextFileExporter implements ExportCallbackHandler {
+    private Shard readShard(final int fromObjectId, final int toObjectId, final List<ExportFileWriter> exportFileWriters) {
+        final Shard shard = new Shard(exportFileWriters);
+
+        for (final Tag tag : exportDao.getTags(fromObjectId, toObjectId)) {
+            shard.tags.put(tag.getObjectId(), tag);
+        }
+
+        exportDao.exportObjects(fromObjectId, toObjectId, new ExportCallbackHandler() {
+            @Override
+            public void exportObject(final RpslObject object, final int sequenceId) {
+                shard.objects.add(object);
+                shard.sequenceIds.add(sequenceId);
+            }
+        });
+
+        return shard;
+    }
+
+    /**
+     * Objects of a range of object ids, which are decorated and compressed into a chunk per export file writer on a worker thread.
+     */
+    private static final class Shard implements Callable<List<ExportFileWriter.Chunk>> {
+        private final List<ExportFileWriter> exportFileWriters;
+        private final List<RpslObject> objects = Lists.newArrayList();
+        private final List<Integer> sequenceIds = Lists.newArrayList();
+        private final ListMultimap<Integer, Tag> tags = ArrayListMultimap.create();
+
+        private Shard(final List<ExportFileWriter> exportFileWriters) {
+            this.exportFileWriters = exportFileWriters;
+        }
+
+        @Override
+        public List<ExportFileWriter.Chunk> call() throws IOException {
+            final List<ExportFileWriter.Chunk> chunks = Lists.newArrayListWithExpectedSize(exportFileWriters.size());
+            for (final ExportFileWriter exportFileWriter : exportFileWriters) {
+                final ExportFileWriter.Chunk chunk = exportFileWriter.newChunk();
+                for (int i = 0; i < objects.size(); i++) {
+                    final RpslObject object = objects.get(i);
+                    chunk.write(object, sequenceIds.get(i), tags.get(object.getObjectId()));
+                }
+
+                chunk.finish();
+                chunks.add(chunk);
+            }
+
+            return chunks;
+        }
+    }
+
+    private final class TextFileExporter {
         private static final int LOG_EVERY = 500000;
-        private final Iterable<ExportFileWriter> exportFileWriters;
+        private final List<ExportFileWriter> exportFileWriters;
 
         private int lastLogged = -1;
         private int nrExported = 0;
 
-        private TextFileExporter(final Iterable<ExportFileWriter> exportFileWriters) {
+        private TextFileExporter(final List<ExportFileWriter> exportFileWriters) {
             this.exportFileWriters = exportFileWriters;
         }
 
-        @Override
-        public void exportObject(final RpslObject object) {
-            final List<Tag> tags = tagsDao.getTags(object.getObjectId());
-            for (final ExportFileWriter exportFileWriter : exportFileWriters) {
+        public void append(final Future<List<ExportFileWriter.Chunk>> pendingShard) {
+            final List<ExportFileWriter.Chunk> chunks;
+            try {
+                chunks = Uninterruptibles.getUninterruptibly(pendingShard);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Exporting", e.getCause());
+            }
+
+            for (int i = 0; i < exportFileWriters.size(); i++) {
+                final ExportFileWriter exportFileWriter = exportFileWriters.get(i);
                 try {
-                    exportFileWriter.write(object, tags);
+                    exportFileWriter.append(chunks.get(i));
                 } catch (IOException e) {
                     throw new RuntimeException("Exporting to " + exportFileWriter, e);
                 }
             }
 
-            if (++nrExported % LOG_EVERY == 0) {
+            final int nrExportedBefore = nrExported;
+            nrExported += chunks.isEmpty() ? 0 : chunks.get(0).getNrObjects();
+            if (nrExported / LOG_EVERY != nrExportedBefore / LOG_EVERY) {
                 logNrExported();
             }
         }
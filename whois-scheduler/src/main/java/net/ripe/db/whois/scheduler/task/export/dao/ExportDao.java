@@ -1,7 +1,26 @@
 package net.ripe.db.whois.scheduler.task.export.dao;
 
+import net.ripe.db.whois.common.domain.Tag;
+
+import java.util.List;
+
 public interface ExportDao {
     int getMaxSerial();
 
-    void exportObjects(ExportCallbackHandler exportCallbackHandler);
+    int getMaxObjectId();
+
+    /**
+     * Export all objects with an object id in [fromObjectId, toObjectId), in object id order.
+     */
+    void exportObjects(int fromObjectId, int toObjectId, ExportCallbackHandler exportCallbackHandler);
+
+    /**
+     * @return the tags of all objects with an object id in [fromObjectId, toObjectId).
+     */
+    List<Tag> getTags(int fromObjectId, int toObjectId);
+
+    /**
+     * Run the export in a single read-only transaction, so all reads in the export see the database at the same serial.
+     */
+    void executeInSnapshot(Runnable export);
 }
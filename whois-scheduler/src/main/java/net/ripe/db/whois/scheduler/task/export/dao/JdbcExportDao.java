@@ -1,6 +1,7 @@
 package net.ripe.db.whois.scheduler.task.export.dao;
 
-import net.ripe.db.whois.common.dao.jdbc.JdbcStreamingHelper;
+import net.ripe.db.whois.common.domain.CIString;
+import net.ripe.db.whois.common.domain.Tag;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,21 +9,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 @Repository
 class JdbcExportDao implements ExportDao {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcExportDao.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     JdbcExportDao(@Qualifier("whoisSlaveDataSource") final DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
     }
 
     @Override
@@ -31,12 +43,47 @@ class JdbcExportDao implements ExportDao {
     }
 
     @Override
-    public void exportObjects(final ExportCallbackHandler exportCallbackHandler) {
-        JdbcStreamingHelper.executeStreaming(jdbcTemplate,
-                "SELECT object_id, object " +
+    public int getMaxObjectId() {
+        return jdbcTemplate.queryForInt("SELECT max(object_id) FROM last");
+    }
+
+    @Override
+    public void exportObjects(final int fromObjectId, final int toObjectId, final ExportCallbackHandler exportCallbackHandler) {
+        jdbcTemplate.query("" +
+                        "SELECT object_id, sequence_id, object " +
                         "FROM last " +
-                        "WHERE sequence_id != 0 ",
-                new ExportRowCallbackHandler(exportCallbackHandler));
+                        "WHERE sequence_id != 0 " +
+                        "AND object_id >= ? " +
+                        "AND object_id < ? " +
+                        "ORDER BY object_id",
+                new ExportRowCallbackHandler(exportCallbackHandler),
+                fromObjectId, toObjectId);
+    }
+
+    @Override
+    public List<Tag> getTags(final int fromObjectId, final int toObjectId) {
+        return jdbcTemplate.query("" +
+                        "SELECT object_id, tag_id, data " +
+                        "FROM tags " +
+                        "WHERE object_id >= ? " +
+                        "AND object_id < ?",
+                new RowMapper<Tag>() {
+                    @Override
+                    public Tag mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                        return new Tag(CIString.ciString(rs.getString(2)), rs.getInt(1), rs.getString(3));
+                    }
+                },
+                fromObjectId, toObjectId);
+    }
+
+    @Override
+    public void executeInSnapshot(final Runnable export) {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                export.run();
+            }
+        });
     }
 
     private static final class ExportRowCallbackHandler implements RowCallbackHandler {
@@ -51,13 +98,13 @@ class JdbcExportDao implements ExportDao {
             final int objectId = rs.getInt(1);
             RpslObject object = null;
             try {
-                object = RpslObject.parse(objectId, rs.getBytes(2));
+                object = RpslObject.parse(objectId, rs.getBytes(3));
             } catch (RuntimeException e) {
                 LOGGER.warn("Unable to parse RPSL object with object_id: {}, {}", objectId, e.toString());
             }
 
             if (object != null) {
-                exportCallbackHandler.exportObject(object);
+                exportCallbackHandler.exportObject(object, rs.getInt(2));
             }
         }
     }
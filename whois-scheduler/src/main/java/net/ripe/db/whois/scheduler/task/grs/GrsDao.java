@@ -1,11 +1,13 @@
 package net.ripe.db.whois.scheduler.task.grs;
 
+import com.google.common.collect.Lists;
 import net.ripe.db.whois.common.DateTimeProvider;
 import net.ripe.db.whois.common.collect.CollectionHelper;
 import net.ripe.db.whois.common.dao.RpslObjectInfo;
 import net.ripe.db.whois.common.dao.RpslObjectUpdateInfo;
 import net.ripe.db.whois.common.dao.jdbc.JdbcRpslObjectOperations;
 import net.ripe.db.whois.common.dao.jdbc.domain.ObjectTypeIds;
+import net.ripe.db.whois.common.dao.jdbc.index.ResolvedReferences;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
@@ -19,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.CheckForNull;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -145,13 +148,46 @@ class GrsDao {
             return Collections.emptySet();
         }
 
+        final List<RpslObject> rpslObjects = Collections.singletonList(grsObjectInfo.getRpslObject());
+        return updateIndexes(grsObjectInfo, ResolvedReferences.resolve(masterJdbcTemplate, rpslObjects));
+    }
+
+    /**
+     * Update the indexes of several objects, resolving the references of all objects at once.
+     */
+    @Transactional
+    void updateIndexes(final Collection<Integer> objectIds) {
+        ensureInitialized();
+        final List<GrsObjectInfo> grsObjectInfos = Lists.newArrayListWithExpectedSize(objectIds.size());
+        final List<RpslObject> rpslObjects = Lists.newArrayListWithExpectedSize(objectIds.size());
+        for (final Integer objectId : objectIds) {
+            final GrsObjectInfo grsObjectInfo = get(objectId);
+            if (grsObjectInfo == null) {
+                logger.warn("Unable to update index for unexisting object with id: {}", objectId);
+            } else {
+                grsObjectInfos.add(grsObjectInfo);
+                rpslObjects.add(grsObjectInfo.getRpslObject());
+            }
+        }
+
+        final ResolvedReferences references = ResolvedReferences.resolve(masterJdbcTemplate, rpslObjects);
+        for (final GrsObjectInfo grsObjectInfo : grsObjectInfos) {
+            try {
+                updateIndexes(grsObjectInfo, references);
+            } catch (RuntimeException e) {
+                logger.error("Updating index for object with id: {}", grsObjectInfo.getObjectId(), e);
+            }
+        }
+    }
+
+    private Set<CIString> updateIndexes(final GrsObjectInfo grsObjectInfo, final ResolvedReferences references) {
         final RpslObjectInfo rpslObjectInfo = grsObjectInfo.createUpdateInfo();
         final RpslObject rpslObject = grsObjectInfo.getRpslObject();
 
         deleteFromTables(masterJdbcTemplate, rpslObjectInfo);
-        final Set<CIString> missingReferences = insertIntoTablesIgnoreMissing(masterJdbcTemplate, rpslObjectInfo, rpslObject);
+        final Set<CIString> missingReferences = insertIntoTablesIgnoreMissing(masterJdbcTemplate, rpslObjectInfo, rpslObject, references);
         if (!missingReferences.isEmpty()) {
-            logger.debug("Ignore missing references for object with id {}: {}", objectId, missingReferences);
+            logger.debug("Ignore missing references for object with id {}: {}", grsObjectInfo.getObjectId(), missingReferences);
         }
 
         return missingReferences;
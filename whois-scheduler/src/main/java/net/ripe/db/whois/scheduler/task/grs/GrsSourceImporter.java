@@ -2,6 +2,7 @@ package net.ripe.db.whois.scheduler.task.grs;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.grs.AuthoritativeResource;
 import net.ripe.db.whois.common.rpsl.AttributeSanitizer;
@@ -35,6 +36,7 @@ class GrsSourceImporter {
 
     private static final Joiner LINE_JOINER = Joiner.on("");
     private static final int LOG_EVERY_NR_HANDLED = 100000;
+    private static final int UPDATE_INDEXES_BATCH_SIZE = 100;
 
     private final AttributeSanitizer sanitizer;
     private final ResourceTagger resourceTagger;
@@ -250,14 +252,14 @@ class GrsSourceImporter {
 
                 int nrUpdated = 0;
 
-                for (final Integer objectId : incompletelyIndexedObjectIds) {
+                for (final List<Integer> objectIds : Iterables.partition(incompletelyIndexedObjectIds, UPDATE_INDEXES_BATCH_SIZE)) {
                     try {
-                        grsSource.getDao().updateIndexes(objectId);
+                        grsSource.getDao().updateIndexes(objectIds);
                     } catch (RuntimeException e) {
-                        logger.error("Updating index for object with id: {}", objectId, e);
+                        logger.error("Updating indexes for objects with ids: {}", objectIds, e);
                     }
 
-                    nrUpdated++;
+                    nrUpdated += objectIds.size();
                     if (nrUpdated % LOG_EVERY_NR_HANDLED == 0) {
                         logger.info("Updated {} indexes", nrUpdated);
                     }
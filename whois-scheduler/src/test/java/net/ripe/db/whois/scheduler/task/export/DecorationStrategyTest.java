@@ -1,7 +1,9 @@
 package net.ripe.db.whois.scheduler.task.export;
 
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.DummifierLegacy;
 import net.ripe.db.whois.common.rpsl.DummifierCurrent;
+import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -21,6 +23,7 @@ public class DecorationStrategyTest {
     RpslObject object;
     @Mock DummifierLegacy dummifier;
     @Mock DummifierCurrent dummifierCurrent;
+    DummifiedObjectCache dummifiedObjectCache = new DummifiedObjectCache(1000);
 
     @Before
     public void setUp() throws Exception {
@@ -37,7 +40,7 @@ public class DecorationStrategyTest {
 
     @Test
     public void decorate_dummify_allowed() {
-        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier);
+        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier, dummifiedObjectCache);
         Mockito.when(dummifier.isAllowed(3, object)).thenReturn(true);
 
         final RpslObject dummified = RpslObject.parse("mntner: DEV-MNT");
@@ -52,22 +55,60 @@ public class DecorationStrategyTest {
 
     @Test
     public void decorate_dummify_not_allowed() {
-        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier);
+        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier, dummifiedObjectCache);
         Mockito.when(dummifier.isAllowed(3, object)).thenReturn(false);
 
         final RpslObject decorated = subject.decorate(object);
-        Assert.assertThat(decorated, Matchers.is(DummifierLegacy.PLACEHOLDER_PERSON_OBJECT));
+        Assert.assertNull(decorated);
 
-        final RpslObject decoratedSecond = subject.decorate(object);
-        Assert.assertNull(decoratedSecond);
+        verify(dummifier).isAllowed(3, object);
+        verify(dummifier, never()).dummify(3, object);
+    }
+
+    @Test
+    public void placeholder_legacy() {
+        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier, dummifiedObjectCache);
+
+        Assert.assertThat(subject.getPlaceHolder(ObjectType.PERSON), Matchers.is(DummifierLegacy.PLACEHOLDER_PERSON_OBJECT));
+        Assert.assertThat(subject.getPlaceHolder(ObjectType.ROLE), Matchers.is(DummifierLegacy.PLACEHOLDER_ROLE_OBJECT));
+    }
+
+    @Test
+    public void placeholder_current() {
+        DecorationStrategy subject = new DecorationStrategy.DummifyCurrent(dummifierCurrent, dummifiedObjectCache);
+
+        Assert.assertNull(subject.getPlaceHolder(ObjectType.PERSON));
+    }
+
+    @Test
+    public void decorate_dummify_to_bytes() {
+        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier, dummifiedObjectCache);
+        final RpslObject object = RpslObject.parse(1, "mntner: DEV-MNT");
+        Mockito.when(dummifier.isAllowed(3, object)).thenReturn(true);
+
+        final RpslObject dummified = RpslObject.parse("mntner: DEV-MNT\nauth: MD5-PW # Filtered");
+        Mockito.when(dummifier.dummify(3, object)).thenReturn(dummified);
+
+        Assert.assertThat(subject.decorate(object, 1), Matchers.is(dummified.toByteArray()));
+        Assert.assertThat(subject.decorate(object, 1), Matchers.is(dummified.toByteArray()));
+
+        verify(dummifier).dummify(3, object);
+    }
+
+    @Test
+    public void decorate_dummify_to_bytes_not_allowed() {
+        DecorationStrategy subject = new DecorationStrategy.DummifyLegacy(dummifier, dummifiedObjectCache);
+        final RpslObject object = RpslObject.parse(1, "person: Test Person\nnic-hdl: TP1-TEST");
+        Mockito.when(dummifier.isAllowed(3, object)).thenReturn(false);
+
+        Assert.assertNull(subject.decorate(object, 1));
 
-        verify(dummifier, Mockito.times(2)).isAllowed(3, object);
         verify(dummifier, never()).dummify(3, object);
     }
 
     @Test
     public void decorate_dummify_proposed_allowed() {
-        DecorationStrategy subject = new DecorationStrategy.DummifyCurrent(dummifierCurrent);
+        DecorationStrategy subject = new DecorationStrategy.DummifyCurrent(dummifierCurrent, dummifiedObjectCache);
         final RpslObject object = RpslObject.parse("role: Test Role\nnic-hdl: TR1-TEST");
 
         when(dummifierCurrent.isAllowed(3, object)).thenReturn(true);
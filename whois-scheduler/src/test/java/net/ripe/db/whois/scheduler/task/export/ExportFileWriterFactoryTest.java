@@ -1,6 +1,7 @@
 package net.ripe.db.whois.scheduler.task.export;
 
 import com.google.common.base.Charsets;
+import net.ripe.db.whois.common.rpsl.DummifiedObjectCache;
 import net.ripe.db.whois.common.rpsl.DummifierCurrent;
 import net.ripe.db.whois.common.rpsl.DummifierLegacy;
 import org.hamcrest.Matchers;
@@ -33,7 +34,7 @@ public class ExportFileWriterFactoryTest {
 
     @Before
     public void setup() {
-        subject = new ExportFileWriterFactory(dummifierLegacy, dummifierCurrent, "internal", "dbase_new", "dbase");
+        subject = new ExportFileWriterFactory(dummifierLegacy, dummifierCurrent, new DummifiedObjectCache(0), "internal", "dbase_new", "dbase");
     }
 
     @Test(expected = IllegalStateException.class)
@@ -4,6 +4,7 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.domain.Tag;
+import net.ripe.db.whois.common.rpsl.DummifierLegacy;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.query.QueryMessages;
@@ -28,6 +29,7 @@ import java.util.Collections;
 import java.util.zip.GZIPInputStream;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -55,18 +57,33 @@ public class ExportFileWriterTest {
             }
         });
 
+        when(decorationStrategy.decorate(any(RpslObject.class), anyInt())).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return ((RpslObject) invocation.getArguments()[0]).toByteArray();
+            }
+        });
+
         subject = new ExportFileWriter(folder.getRoot(), filenameStrategy, decorationStrategy);
     }
 
     @SuppressWarnings("unchecked")
     @Test
     public void write() throws IOException {
-        subject.write(RpslObject.parse("mntner: DEV-MNT1"), Collections.EMPTY_LIST);
-        subject.write(RpslObject.parse("mntner: DEV-MNT2"), Collections.EMPTY_LIST);
-        subject.write(RpslObject.parse("mntner: DEV-MNT3"), Collections.EMPTY_LIST);
-        subject.write(RpslObject.parse("mntner: DEV-MNT4"), Collections.EMPTY_LIST);
-        subject.write(RpslObject.parse("inetnum: 193.0.0.0 - 193.0.0.10"), Collections.EMPTY_LIST);
-        subject.write(RpslObject.parse("route: 193.0.0.0 - 193.0.0.10\norigin: AS12"), Lists.newArrayList(new Tag(CIString.ciString("foo"), 3, "bar")));
+        final ExportFileWriter.Chunk chunk1 = subject.newChunk();
+        chunk1.write(RpslObject.parse("mntner: DEV-MNT1"), 1, Collections.EMPTY_LIST);
+        chunk1.write(RpslObject.parse("mntner: DEV-MNT2"), 1, Collections.EMPTY_LIST);
+        chunk1.finish();
+
+        final ExportFileWriter.Chunk chunk2 = subject.newChunk();
+        chunk2.write(RpslObject.parse("mntner: DEV-MNT3"), 1, Collections.EMPTY_LIST);
+        chunk2.write(RpslObject.parse("mntner: DEV-MNT4"), 1, Collections.EMPTY_LIST);
+        chunk2.write(RpslObject.parse("inetnum: 193.0.0.0 - 193.0.0.10"), 1, Collections.EMPTY_LIST);
+        chunk2.write(RpslObject.parse("route: 193.0.0.0 - 193.0.0.10\norigin: AS12"), 1, Lists.newArrayList(new Tag(CIString.ciString("foo"), 3, "bar")));
+        chunk2.finish();
+
+        subject.append(chunk1);
+        subject.append(chunk2);
         subject.close();
 
         final File[] files = folder.getRoot().listFiles();
@@ -97,6 +114,31 @@ public class ExportFileWriterTest {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void write_placeholder_once() throws IOException {
+        final RpslObject person1 = RpslObject.parse("person: Test Person\nnic-hdl: TP1-TEST");
+        final RpslObject person2 = RpslObject.parse("person: Test Person\nnic-hdl: TP2-TEST");
+        when(decorationStrategy.decorate(person1, 1)).thenReturn(null);
+        when(decorationStrategy.decorate(person2, 1)).thenReturn(null);
+        when(decorationStrategy.getPlaceHolder(ObjectType.PERSON)).thenReturn(DummifierLegacy.PLACEHOLDER_PERSON_OBJECT);
+
+        final ExportFileWriter.Chunk chunk1 = subject.newChunk();
+        chunk1.write(person1, 1, Collections.EMPTY_LIST);
+        chunk1.write(person2, 1, Collections.EMPTY_LIST);
+        chunk1.finish();
+
+        final ExportFileWriter.Chunk chunk2 = subject.newChunk();
+        chunk2.write(person2, 1, Collections.EMPTY_LIST);
+        chunk2.finish();
+
+        subject.append(chunk1);
+        subject.append(chunk2);
+        subject.close();
+
+        checkFile(new File(folder.getRoot(), "person.gz"), DummifierLegacy.PLACEHOLDER_PERSON_OBJECT.toString());
+    }
+
     private void checkFile(final File file, final String expectedContents) throws IOException {
         final String content = FileCopyUtils.copyToString(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), Charsets.ISO_8859_1));
         Assert.assertThat(content, Matchers.is(QueryMessages.termsAndConditionsDump() + "\n" + expectedContents));
@@ -1,7 +1,7 @@
 package net.ripe.db.whois.scheduler.task.export;
 
 import com.google.common.collect.Lists;
-import net.ripe.db.whois.common.dao.TagsDao;
+import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.domain.Tag;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.scheduler.task.export.dao.ExportCallbackHandler;
@@ -13,6 +13,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -27,7 +28,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -36,7 +37,6 @@ public class RpslObjectsToTextExporterTest {
 
     @Mock ExportFileWriterFactory exportFileWriterFactory;
     @Mock ExportDao exportDao;
-    @Mock TagsDao tagsDao;
 
     RpslObjectsExporter subject;
     File exportDir;
@@ -51,8 +51,15 @@ public class RpslObjectsToTextExporterTest {
         final String tmpDirName = tmpDir.getAbsolutePath();
 
         when(exportFileWriterFactory.isExportDir(any(File.class))).thenReturn(true);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).when(exportDao).executeInSnapshot(any(Runnable.class));
 
-        subject = new RpslObjectsExporter(exportFileWriterFactory, exportDao, tagsDao, exportdirName, tmpDirName, true);
+        subject = new RpslObjectsExporter(exportFileWriterFactory, exportDao, exportdirName, tmpDirName, true);
     }
 
     @Test(expected = RuntimeException.class)
@@ -81,7 +88,11 @@ public class RpslObjectsToTextExporterTest {
     @Test
     public void export_objects() throws IOException {
         final ExportFileWriter exportFileWriter1 = Mockito.mock(ExportFileWriter.class);
+        final ExportFileWriter.Chunk chunk1 = Mockito.mock(ExportFileWriter.Chunk.class);
+        when(exportFileWriter1.newChunk()).thenReturn(chunk1);
         final ExportFileWriter exportFileWriter2 = Mockito.mock(ExportFileWriter.class);
+        final ExportFileWriter.Chunk chunk2 = Mockito.mock(ExportFileWriter.Chunk.class);
+        when(exportFileWriter2.newChunk()).thenReturn(chunk2);
         @SuppressWarnings("unchecked")
         final List<Tag> emptyList = Collections.EMPTY_LIST;
 
@@ -89,36 +100,50 @@ public class RpslObjectsToTextExporterTest {
 
         final RpslObject rpslObject1 = RpslObject.parse(2, "mntner: DEV-MNT1");
         final RpslObject rpslObject2 = RpslObject.parse(3, "mntner: DEV-MNT2");
+        final Tag tag = new Tag(CIString.ciString("foo"), 3, "bar");
+        exportObjects(rpslObject1, rpslObject2);
+        when(exportDao.getTags(0, RpslObjectsExporter.SHARD_SIZE)).thenReturn(Lists.newArrayList(tag));
 
-        Mockito.doAnswer(new Answer<Void>() {
-            @Override
-            public Void answer(InvocationOnMock invocation) throws Throwable {
-                ExportCallbackHandler exportCallbackHandler = (ExportCallbackHandler) invocation.getArguments()[0];
+        subject.export();
 
-                for (final RpslObject rpslObject : Lists.newArrayList(rpslObject1, rpslObject2)) {
-                    exportCallbackHandler.exportObject(rpslObject);
-                }
+        Mockito.verify(chunk1).write(rpslObject1, 1, emptyList);
+        Mockito.verify(chunk1).write(rpslObject2, 1, Lists.newArrayList(tag));
+        Mockito.verify(chunk1).finish();
+        Mockito.verify(exportFileWriter1).append(chunk1);
+        Mockito.verify(exportFileWriter1).close();
 
-                return null;
-            }
-        }).when(exportDao).exportObjects(any(ExportCallbackHandler.class));
+        Mockito.verify(chunk2).write(rpslObject1, 1, emptyList);
+        Mockito.verify(chunk2).write(rpslObject2, 1, Lists.newArrayList(tag));
+        Mockito.verify(chunk2).finish();
+        Mockito.verify(exportFileWriter2).append(chunk2);
+        Mockito.verify(exportFileWriter2).close();
+    }
 
-        when(tagsDao.getTags(anyInt())).thenReturn(emptyList);
+    @Test
+    public void export_objects_in_shards() throws IOException {
+        final ExportFileWriter exportFileWriter = Mockito.mock(ExportFileWriter.class);
+        final ExportFileWriter.Chunk chunk1 = Mockito.mock(ExportFileWriter.Chunk.class);
+        final ExportFileWriter.Chunk chunk2 = Mockito.mock(ExportFileWriter.Chunk.class);
+        when(exportFileWriter.newChunk()).thenReturn(chunk1, chunk2);
 
-        subject.export();
+        when(exportFileWriterFactory.createExportFileWriters(tmpDir, 0)).thenReturn(Lists.newArrayList(exportFileWriter));
+        when(exportDao.getMaxObjectId()).thenReturn(RpslObjectsExporter.SHARD_SIZE);
 
-        Mockito.verify(exportFileWriter1).write(rpslObject1, emptyList);
-        Mockito.verify(exportFileWriter1).write(rpslObject2, emptyList);
-        Mockito.verify(exportFileWriter1).close();
+        subject.export();
 
-        Mockito.verify(exportFileWriter2).write(rpslObject1, emptyList);
-        Mockito.verify(exportFileWriter2).write(rpslObject2, emptyList);
-        Mockito.verify(exportFileWriter2).close();
+        final InOrder inOrder = Mockito.inOrder(exportDao, exportFileWriter);
+        inOrder.verify(exportDao).exportObjects(eq(0), eq(RpslObjectsExporter.SHARD_SIZE), any(ExportCallbackHandler.class));
+        inOrder.verify(exportDao).exportObjects(eq(RpslObjectsExporter.SHARD_SIZE), eq(2 * RpslObjectsExporter.SHARD_SIZE), any(ExportCallbackHandler.class));
+        inOrder.verify(exportFileWriter).append(chunk1);
+        inOrder.verify(exportFileWriter).append(chunk2);
+        inOrder.verify(exportFileWriter).close();
     }
 
     @Test
     public void export_objects_exception() throws IOException {
         final ExportFileWriter exportFileWriter = Mockito.mock(ExportFileWriter.class);
+        final ExportFileWriter.Chunk chunk = Mockito.mock(ExportFileWriter.Chunk.class);
+        when(exportFileWriter.newChunk()).thenReturn(chunk);
         @SuppressWarnings("unchecked")
         final List<Tag> emptyList = Collections.EMPTY_LIST;
 
@@ -126,22 +151,9 @@ public class RpslObjectsToTextExporterTest {
 
         final RpslObject rpslObject1 = RpslObject.parse(2, "mntner: DEV-MNT1");
         final RpslObject rpslObject2 = RpslObject.parse(3, "mntner: DEV-MNT2");
+        exportObjects(rpslObject1, rpslObject2);
 
-        Mockito.doAnswer(new Answer<Void>() {
-            @Override
-            public Void answer(InvocationOnMock invocation) throws Throwable {
-                ExportCallbackHandler exportCallbackHandler = (ExportCallbackHandler) invocation.getArguments()[0];
-                for (final RpslObject rpslObject : Lists.newArrayList(rpslObject1, rpslObject2)) {
-                    exportCallbackHandler.exportObject(rpslObject);
-                }
-
-                return null;
-            }
-        }).when(exportDao).exportObjects(any(ExportCallbackHandler.class));
-
-        Mockito.doThrow(IOException.class).when(exportFileWriter).write(rpslObject1, emptyList);
-
-        when(tagsDao.getTags(2)).thenReturn(emptyList);
+        Mockito.doThrow(IOException.class).when(chunk).write(rpslObject1, 1, emptyList);
 
         try {
             subject.export();
@@ -149,11 +161,26 @@ public class RpslObjectsToTextExporterTest {
         } catch (RuntimeException ignored) {
         }
 
-        Mockito.verify(exportFileWriter).write(rpslObject1, emptyList);
-        Mockito.verify(exportFileWriter, Mockito.never()).write(rpslObject2, emptyList);
+        Mockito.verify(chunk).write(rpslObject1, 1, emptyList);
+        Mockito.verify(chunk, Mockito.never()).write(rpslObject2, 1, emptyList);
+        Mockito.verify(exportFileWriter, Mockito.never()).append(chunk);
         Mockito.verify(exportFileWriter).close();
     }
 
+    private void exportObjects(final RpslObject... rpslObjects) {
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ExportCallbackHandler exportCallbackHandler = (ExportCallbackHandler) invocation.getArguments()[2];
+                for (final RpslObject rpslObject : rpslObjects) {
+                    exportCallbackHandler.exportObject(rpslObject, 1);
+                }
+
+                return null;
+            }
+        }).when(exportDao).exportObjects(eq(0), eq(RpslObjectsExporter.SHARD_SIZE), any(ExportCallbackHandler.class));
+    }
+
     @Test
     public void export_check_files() {
         subject.export();
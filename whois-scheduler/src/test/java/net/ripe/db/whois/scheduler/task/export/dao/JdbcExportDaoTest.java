@@ -18,11 +18,16 @@ public class JdbcExportDaoTest extends AbstractSchedulerIntegrationTest {
         subject.getMaxSerial();
     }
 
+    @Test
+    public void getMaxObjectId_in_context() {
+        subject.getMaxObjectId();
+    }
+
     @Test
     public void exportObjects_in_context() {
-        subject.exportObjects(new ExportCallbackHandler() {
+        subject.exportObjects(0, Integer.MAX_VALUE, new ExportCallbackHandler() {
             @Override
-            public void exportObject(final RpslObject object) {
+            public void exportObject(final RpslObject object, final int sequenceId) {
             }
         });
     }
@@ -32,9 +37,9 @@ public class JdbcExportDaoTest extends AbstractSchedulerIntegrationTest {
         databaseHelper.addObject(RpslObject.parse("mntner: DEV-MNT"));
 
         try {
-            subject.exportObjects(new ExportCallbackHandler() {
+            subject.exportObjects(0, Integer.MAX_VALUE, new ExportCallbackHandler() {
                 @Override
-                public void exportObject(final RpslObject object) {
+                public void exportObject(final RpslObject object, final int sequenceId) {
                     throw new RuntimeException("Oops");
                 }
             });
@@ -55,15 +60,32 @@ public class JdbcExportDaoTest extends AbstractSchedulerIntegrationTest {
             databaseHelper.addObject(object);
         }
 
-        subject.exportObjects(new ExportCallbackHandler() {
-            @Override
-            public void exportObject(final RpslObject object) {
-                if (!objects.remove(object)) {
-                    Assert.fail("Object not in set: " + object);
+        final int maxObjectId = subject.getMaxObjectId();
+        for (int fromObjectId = 0; fromObjectId <= maxObjectId; fromObjectId += 10) {
+            subject.exportObjects(fromObjectId, fromObjectId + 10, new ExportCallbackHandler() {
+                @Override
+                public void exportObject(final RpslObject object, final int sequenceId) {
+                    if (!objects.remove(object)) {
+                        Assert.fail("Object not in set: " + object);
+                    }
                 }
-            }
-        });
+            });
+        }
 
         Assert.assertThat(objects, Matchers.hasSize(0));
     }
+
+    @Test
+    public void executeInSnapshot() {
+        databaseHelper.addObject(RpslObject.parse("mntner: DEV-MNT"));
+
+        subject.executeInSnapshot(new Runnable() {
+            @Override
+            public void run() {
+                final int maxSerial = subject.getMaxSerial();
+                databaseHelper.addObject(RpslObject.parse("mntner: OTHER-MNT"));
+                Assert.assertThat(subject.getMaxSerial(), Matchers.is(maxSerial));
+            }
+        });
+    }
 }
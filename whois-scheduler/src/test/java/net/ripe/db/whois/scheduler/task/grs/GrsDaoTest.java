@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.util.Arrays;
 import java.util.Set;
 
 import static net.ripe.db.whois.common.domain.CIString.ciString;
@@ -118,6 +119,22 @@ public class GrsDaoTest extends AbstractSchedulerIntegrationTest {
         assertThat(missingAfterUpdate, hasSize(0));
     }
 
+    @Test
+    public void update_indexes_of_several_objects() {
+        final GrsDao.UpdateResult updateResult1 = subject.createObject(RpslObject.parse("" +
+                "mntner: DEV1-MNT\n" +
+                "mnt-by: DEV2-MNT"));
+        final GrsDao.UpdateResult updateResult2 = subject.createObject(RpslObject.parse("" +
+                "mntner: DEV3-MNT\n" +
+                "mnt-by: DEV2-MNT"));
+        subject.createObject(RpslObject.parse("mntner: DEV2-MNT"));
+
+        subject.updateIndexes(Arrays.asList(updateResult1.getObjectId(), updateResult2.getObjectId(), 999));
+
+        assertThat(subject.updateIndexes(updateResult1.getObjectId()), hasSize(0));
+        assertThat(subject.updateIndexes(updateResult2.getObjectId()), hasSize(0));
+    }
+
     @Test
     public void updateIndexes_unknown_object_does_not_throw_exception() {
         final Set<CIString> missingReferences = subject.updateIndexes(1);
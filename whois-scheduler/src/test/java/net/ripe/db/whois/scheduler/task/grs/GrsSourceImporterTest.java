@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 
 import static net.ripe.db.whois.common.domain.CIString.ciString;
 import static org.junit.Assert.fail;
@@ -360,7 +361,7 @@ public class GrsSourceImporterTest {
                 "mnt-by:         CREATE-MNT\n" +
                 "source:         APNIC-GRS"));
 
-        verify(grsDao).updateIndexes(0);
+        verify(grsDao).updateIndexes(Collections.singletonList(0));
         verify(grsDao, times(1)).updateObject(any(GrsObjectInfo.class), any(RpslObject.class));
 
         verify(grsDao).deleteObject(3);
@@ -3,6 +3,7 @@ package net.ripe.db.whois.update.autokey;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import net.ripe.db.whois.common.collect.CollectionHelper;
+import net.ripe.db.whois.common.dao.UpdateLockDao;
 import net.ripe.db.whois.common.domain.CIString;
 import net.ripe.db.whois.common.rpsl.*;
 import net.ripe.db.whois.update.domain.*;
@@ -15,10 +16,12 @@ import java.util.Set;
 
 @Component
 public class AutoKeyResolver {
+    private final UpdateLockDao updateLockDao;
     private final Map<AttributeType, AutoKeyFactory> factoryByKeyMap;
 
     @Autowired
-    public AutoKeyResolver(final AutoKeyFactory... autoKeyFactories) {
+    public AutoKeyResolver(final UpdateLockDao updateLockDao, final AutoKeyFactory... autoKeyFactories) {
+        this.updateLockDao = updateLockDao;
         factoryByKeyMap = Maps.newEnumMap(AttributeType.class);
 
         for (final AutoKeyFactory autoKeyFactory : autoKeyFactories) {
@@ -60,6 +63,9 @@ public class AutoKeyResolver {
         final CIString value = object.getValueForAttribute(keyAttributeType);
 
         if (autoKeyFactory.isApplicableFor(object)) {
+            // keys are claimed in ranges shared by all objects with the key attribute
+            updateLockDao.setAutoKeyLock(keyAttributeType);
+
             if (autoKeyFactory.isKeyPlaceHolder(value)) {
                 final CIString keyPlaceHolder = autoKeyFactory.getKeyPlaceholder(value);
 
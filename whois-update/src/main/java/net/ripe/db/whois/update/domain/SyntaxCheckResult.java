@@ -0,0 +1,27 @@
+package net.ripe.db.whois.update.domain;
+
+import net.ripe.db.whois.common.rpsl.ObjectMessages;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+
+/**
+ * Sanitized submitted object, with the messages of sanitizing and validating its structure and syntax.
+ * <p/>
+ * The messages are not changed after checking, add them to the messages of the update to report them.
+ */
+public class SyntaxCheckResult {
+    private final RpslObject updatedObject;
+    private final ObjectMessages messages;
+
+    public SyntaxCheckResult(final RpslObject updatedObject, final ObjectMessages messages) {
+        this.updatedObject = updatedObject;
+        this.messages = messages;
+    }
+
+    public RpslObject getUpdatedObject() {
+        return updatedObject;
+    }
+
+    public ObjectMessages getMessages() {
+        return messages;
+    }
+}
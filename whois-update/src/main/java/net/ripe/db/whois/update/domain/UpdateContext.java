@@ -33,6 +33,7 @@ public class UpdateContext {
     private final Map<CIString, GeneratedKey> generatedKeys = Maps.newHashMap();
     private final Map<Update, Context> contexts = Maps.newLinkedHashMap();
     private final Map<DnsCheckRequest, DnsCheckResponse> dnsCheckResponses = Maps.newHashMap();
+    private final Map<Update, SyntaxCheckResult> syntaxCheckResults = Maps.newHashMap();
     private final Map<String, String> ssoTranslation = Maps.newHashMap();
     private final LoggerContext loggerContext;
 
@@ -99,6 +100,15 @@ public class UpdateContext {
         return dnsCheckResponses.get(dnsCheckRequest);
     }
 
+    public void addSyntaxCheckResult(final Update update, final SyntaxCheckResult syntaxCheckResult) {
+        syntaxCheckResults.put(update, syntaxCheckResult);
+    }
+
+    @CheckForNull
+    public SyntaxCheckResult getCachedSyntaxCheckResult(final Update update) {
+        return syntaxCheckResults.get(update);
+    }
+
     public void addMessages(final UpdateContainer updateContainer, final ObjectMessages objectMessages) {
         getOrCreateContext(updateContainer).objectMessages.addAll(objectMessages);
         loggerContext.logMessages(updateContainer, objectMessages);
@@ -286,9 +296,21 @@ public class UpdateContext {
         return new UpdateResult(originalObject, updatedObject, context.action, context.status, context.objectMessages, context.retryCount, dryRun);
     }
 
+    /**
+     * Register the updates of a request, so they are reported in submitted order whatever order they are handled in.
+     */
+    public void addUpdates(final List<Update> updates) {
+        for (final Update update : updates) {
+            getOrCreateContext(update);
+        }
+    }
+
     public void prepareForReattempt(final UpdateContainer update) {
-        final Context context = contexts.remove(update.getUpdate());
-        getOrCreateContext(update).retryCount = context.retryCount + 1;
+        final Context context = new Context();
+        context.retryCount = getOrCreateContext(update).retryCount + 1;
+
+        // replacing the context of an existing key keeps the update in its position
+        contexts.put(update.getUpdate(), context);
     }
 
     private Context getOrCreateContext(final UpdateContainer updateContainer) {
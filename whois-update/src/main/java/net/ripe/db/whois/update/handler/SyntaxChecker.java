@@ -0,0 +1,110 @@
+package net.ripe.db.whois.update.handler;
+
+import com.google.common.collect.Maps;
+import net.ripe.db.whois.common.rpsl.AttributeSanitizer;
+import net.ripe.db.whois.common.rpsl.ObjectMessages;
+import net.ripe.db.whois.common.rpsl.ObjectTemplate;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.update.domain.Operation;
+import net.ripe.db.whois.update.domain.SyntaxCheckResult;
+import net.ripe.db.whois.update.domain.Update;
+import net.ripe.db.whois.update.domain.UpdateContext;
+import net.ripe.db.whois.update.domain.UpdateRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sanitizes and checks the structure and syntax of submitted objects.
+ * <p/>
+ * These checks do not depend on the database or on other updates, so the checks of all updates in a request
+ * are done up front on a worker pool, and the results are cached in the update context.
+ */
+@Component
+public class SyntaxChecker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntaxChecker.class);
+
+    private final AttributeSanitizer attributeSanitizer;
+
+    private ExecutorService executorService;
+
+    @Autowired
+    public SyntaxChecker(final AttributeSanitizer attributeSanitizer) {
+        this.attributeSanitizer = attributeSanitizer;
+    }
+
+    @PostConstruct
+    public void init() {
+        final int nrThreads = Runtime.getRuntime().availableProcessors();
+        LOGGER.info("Initializing thread pool with {} threads", nrThreads);
+        executorService = Executors.newFixedThreadPool(nrThreads, new ThreadFactory() {
+            final ThreadGroup threadGroup = new ThreadGroup(Thread.currentThread().getThreadGroup(), "SyntaxChecker");
+            final AtomicInteger threadNum = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(threadGroup, r, String.format("SyntaxChecker-%s", threadNum.incrementAndGet()));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executorService.shutdownNow();
+    }
+
+    public void checkAll(final UpdateRequest updateRequest, final UpdateContext updateContext) {
+        if (updateRequest.getUpdates().size() < 2) {
+            return;
+        }
+
+        final Map<Update, Future<SyntaxCheckResult>> futures = Maps.newLinkedHashMap();
+        for (final Update update : updateRequest.getUpdates()) {
+            if (Operation.DELETE.equals(update.getOperation())) {
+                continue;
+            }
+
+            futures.put(update, executorService.submit(new Callable<SyntaxCheckResult>() {
+                @Override
+                public SyntaxCheckResult call() {
+                    return check(update);
+                }
+            }));
+        }
+
+        for (final Map.Entry<Update, Future<SyntaxCheckResult>> entry : futures.entrySet()) {
+            try {
+                updateContext.addSyntaxCheckResult(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // not cached, the update is checked again when handled and fails there
+                LOGGER.debug("Checking {}", entry.getKey().getSubmittedObject().getFormattedKey(), e.getCause());
+            }
+        }
+    }
+
+    public SyntaxCheckResult check(final Update update) {
+        final ObjectMessages messages = new ObjectMessages();
+        final RpslObject updatedObject = attributeSanitizer.sanitize(update.getSubmittedObject(), messages);
+
+        final ObjectTemplate objectTemplate = ObjectTemplate.getTemplate(updatedObject.getType());
+        objectTemplate.validateStructure(updatedObject, messages);
+        objectTemplate.validateSyntax(updatedObject, messages, true);
+
+        return new SyntaxCheckResult(updatedObject, messages);
+    }
+}
@@ -0,0 +1,95 @@
+package net.ripe.db.whois.update.handler;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.ripe.db.whois.common.domain.CIString;
+import net.ripe.db.whois.common.rpsl.AttributeType;
+import net.ripe.db.whois.common.rpsl.RpslAttribute;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.update.domain.Operation;
+import net.ripe.db.whois.update.domain.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders the updates of a request so objects are created before the updates that refer to them.
+ * <p/>
+ * An update is moved after a later update when it refers to the key of that update, no earlier update has that key,
+ * and that update creates the object. Updates referring to existing objects keep their submitted order, as moving them
+ * can change the outcome of authorisation (e.g. a maintainer modified later in the request). Deletes are never moved
+ * ahead, so an object is not deleted before the references to it are removed. Of updates referring to each other,
+ * the first one is moved.
+ */
+final class UpdateDependencies {
+    private UpdateDependencies() {
+    }
+
+    /**
+     * @param isCreate whether an update creates its object, only evaluated for updates referred to by an earlier update.
+     */
+    static List<Update> order(final List<Update> updates, final Predicate<Update> isCreate) {
+        if (updates.size() < 2) {
+            return updates;
+        }
+
+        final Map<CIString, Integer> firstIndexForKey = Maps.newHashMap();
+        for (int i = 0; i < updates.size(); i++) {
+            final CIString key = updates.get(i).getSubmittedObject().getKey();
+            if (!firstIndexForKey.containsKey(key)) {
+                firstIndexForKey.put(key, i);
+            }
+        }
+
+        final List<Update> result = Lists.newArrayListWithExpectedSize(updates.size());
+        final Set<Integer> visited = Sets.newHashSet();
+        for (int i = 0; i < updates.size(); i++) {
+            visit(i, updates, firstIndexForKey, isCreate, visited, result);
+        }
+
+        return result;
+    }
+
+    private static void visit(final int index, final List<Update> updates, final Map<CIString, Integer> firstIndexForKey, final Predicate<Update> isCreate, final Set<Integer> visited, final List<Update> result) {
+        if (!visited.add(index)) {
+            return;
+        }
+
+        final Update update = updates.get(index);
+        if (!Operation.DELETE.equals(update.getOperation())) {
+            for (final CIString reference : getReferences(update.getSubmittedObject())) {
+                final Integer referencedIndex = firstIndexForKey.get(reference);
+                if (referencedIndex != null && referencedIndex > index && !visited.contains(referencedIndex) && isCreated(updates.get(referencedIndex), isCreate)) {
+                    visit(referencedIndex, updates, firstIndexForKey, isCreate, visited, result);
+                }
+            }
+        }
+
+        result.add(update);
+    }
+
+    private static boolean isCreated(final Update update, final Predicate<Update> isCreate) {
+        return !Operation.DELETE.equals(update.getOperation()) && isCreate.apply(update);
+    }
+
+    private static Set<CIString> getReferences(final RpslObject object) {
+        final Set<CIString> references = Sets.newLinkedHashSet();
+        for (final RpslAttribute attribute : object.getAttributes()) {
+            final AttributeType attributeType = attribute.getType();
+            if (attributeType == null || attributeType.getReferences().isEmpty()) {
+                continue;
+            }
+
+            try {
+                references.addAll(attribute.getReferenceValues());
+            } catch (IllegalArgumentException ignored) {
+                // invalid syntax, reported when the update is handled
+            }
+        }
+
+        return references;
+    }
+}
@@ -0,0 +1,86 @@
+package net.ripe.db.whois.update.handler;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.ripe.db.whois.common.domain.CIString;
+import net.ripe.db.whois.common.rpsl.AttributeType;
+import net.ripe.db.whois.common.rpsl.ObjectType;
+import net.ripe.db.whois.common.rpsl.RpslAttribute;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resources locked by an update, so updates that do not share a resource can be handled concurrently.
+ * <p/>
+ * An update locks the key of the object and the keys of the objects it refers to, so referenced objects
+ * cannot change or disappear while the update is validated. Hierarchical resources also lock their whole
+ * hierarchy, as parent and child resources are only known after the IP tree is brought up to date,
+ * which happens after locking.
+ */
+final class UpdateLockResources {
+    static final String IPV4_HIERARCHY = "IPv4 hierarchy";
+    static final String IPV6_HIERARCHY = "IPv6 hierarchy";
+    static final String ASN_HIERARCHY = "ASN hierarchy";
+
+    private static final Map<ObjectType, Set<String>> HIERARCHIES = Maps.newEnumMap(ObjectType.class);
+
+    static {
+        HIERARCHIES.put(ObjectType.INETNUM, Collections.singleton(IPV4_HIERARCHY));
+        HIERARCHIES.put(ObjectType.ROUTE, Collections.singleton(IPV4_HIERARCHY));
+        HIERARCHIES.put(ObjectType.INET6NUM, Collections.singleton(IPV6_HIERARCHY));
+        HIERARCHIES.put(ObjectType.ROUTE6, Collections.singleton(IPV6_HIERARCHY));
+        HIERARCHIES.put(ObjectType.DOMAIN, Sets.newHashSet(IPV4_HIERARCHY, IPV6_HIERARCHY));
+        HIERARCHIES.put(ObjectType.AUT_NUM, Collections.singleton(ASN_HIERARCHY));
+        HIERARCHIES.put(ObjectType.AS_BLOCK, Collections.singleton(ASN_HIERARCHY));
+    }
+
+    private UpdateLockResources() {
+    }
+
+    static Set<String> getResources(final RpslObject object, final CIString key) {
+        final Set<String> resources = Sets.newHashSet();
+
+        final Set<String> hierarchy = HIERARCHIES.get(object.getType());
+        if (hierarchy != null) {
+            // keys of hierarchical resources are not set names, e.g. an IPv6 prefix
+            resources.addAll(hierarchy);
+            resources.add(key.toString());
+        } else {
+            addKey(resources, key);
+        }
+
+        for (final RpslAttribute attribute : object.getAttributes()) {
+            final AttributeType attributeType = attribute.getType();
+            if (attributeType == null || attributeType.getReferences().isEmpty()) {
+                continue;
+            }
+
+            try {
+                for (final CIString value : attribute.getReferenceValues()) {
+                    if (!attributeType.getReferences(value).isEmpty()) {
+                        addKey(resources, value);
+                    }
+                }
+            } catch (IllegalArgumentException ignored) {
+                // invalid syntax, the update fails before references are checked
+            }
+        }
+
+        return resources;
+    }
+
+    // hierarchical set names (e.g. AS1:AS-FOO) also depend on their parent objects
+    private static void addKey(final Set<String> resources, final CIString key) {
+        final String value = key.toString();
+        resources.add(value);
+
+        int separator = value.indexOf(':');
+        while (separator > 0) {
+            resources.add(value.substring(0, separator));
+            separator = value.indexOf(':', separator + 1);
+        }
+    }
+}
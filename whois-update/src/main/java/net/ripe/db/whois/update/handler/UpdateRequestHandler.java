@@ -1,7 +1,11 @@
 package net.ripe.db.whois.update.handler;
 
+import com.google.common.base.Predicate;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.dao.RpslObjectDao;
+import net.ripe.db.whois.common.rpsl.AttributeSanitizer;
+import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.common.source.SourceContext;
 import net.ripe.db.whois.update.dns.DnsChecker;
 import net.ripe.db.whois.update.domain.Ack;
@@ -38,6 +42,9 @@ public class UpdateRequestHandler {
     private final SsoTranslator ssoTranslator;
     private final UpdateNotifier updateNotifier;
     private final UpdateLog updateLog;
+    private final SyntaxChecker syntaxChecker;
+    private final RpslObjectDao rpslObjectDao;
+    private final AttributeSanitizer attributeSanitizer;
 
     @Autowired
     public UpdateRequestHandler(final SourceContext sourceContext,
@@ -47,7 +54,10 @@ public class UpdateRequestHandler {
                                 final DnsChecker dnsChecker,
                                 final SsoTranslator ssoTranslator,
                                 final UpdateNotifier updateNotifier,
-                                final UpdateLog updateLog) {
+                                final UpdateLog updateLog,
+                                final SyntaxChecker syntaxChecker,
+                                final RpslObjectDao rpslObjectDao,
+                                final AttributeSanitizer attributeSanitizer) {
         this.sourceContext = sourceContext;
         this.responseFactory = responseFactory;
         this.singleUpdateHandler = singleUpdateHandler;
@@ -56,6 +66,9 @@ public class UpdateRequestHandler {
         this.ssoTranslator = ssoTranslator;
         this.updateNotifier = updateNotifier;
         this.updateLog = updateLog;
+        this.syntaxChecker = syntaxChecker;
+        this.rpslObjectDao = rpslObjectDao;
+        this.attributeSanitizer = attributeSanitizer;
     }
 
     public UpdateResponse handle(final UpdateRequest updateRequest, final UpdateContext updateContext) {
@@ -94,7 +107,9 @@ public class UpdateRequestHandler {
     }
 
     private UpdateResponse handleUpdates(final UpdateRequest updateRequest, final UpdateContext updateContext) {
+        updateContext.addUpdates(updateRequest.getUpdates());
         dnsChecker.checkAll(updateRequest, updateContext);
+        syntaxChecker.checkAll(updateRequest, updateContext);
 
         for (final Update update : updateRequest.getUpdates()) {
             ssoTranslator.populateCacheAuthToUuid(updateContext, update);
@@ -127,7 +142,13 @@ public class UpdateRequestHandler {
     }
 
     private void processUpdateQueue(final UpdateRequest updateRequest, final UpdateContext updateContext) {
-        List<Update> updates = updateRequest.getUpdates();
+        List<Update> updates = UpdateDependencies.order(updateRequest.getUpdates(), new Predicate<Update>() {
+            @Override
+            public boolean apply(final Update update) {
+                final RpslObject object = update.getSubmittedObject();
+                return rpslObjectDao.findByKeyOrNull(object.getType(), attributeSanitizer.sanitizeKey(object)) == null;
+            }
+        });
 
         if (updates.size() == 1) {
             attemptUpdates(updateRequest, updateContext, updates);
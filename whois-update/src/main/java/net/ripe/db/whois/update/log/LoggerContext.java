@@ -1,6 +1,7 @@
 package net.ripe.db.whois.update.log;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 import net.ripe.db.whois.common.DateTimeProvider;
 import net.ripe.db.whois.common.Message;
 import net.ripe.db.whois.common.Messages;
@@ -25,16 +26,34 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 
+/**
+ * Audit log of a request, written as a gzipped file per logged item in a directory per request.
+ * <p/>
+ * Logged items are buffered, and compressed and written to disk by a background writer. The pending files of a
+ * request are flushed when the request is done. When the queue of the writer is full, or the writer is stopped,
+ * files are written by the logging thread instead.
+ */
 @Component
 public class LoggerContext {
     private static final Logger LOGGER = LoggerFactory.getLogger(LoggerContext.class);
@@ -43,11 +62,28 @@ public class LoggerContext {
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormat.forPattern("HHmmss");
     private static final String FILE_SEPARATOR = System.getProperty("file.separator");
     private static final int MAXIMUM_FILENAME_LENGTH = 255;
+    private static final int MAXIMUM_PENDING_WRITES = 1000;
 
     // static, to avoid overlapping applicationContexts masking Contexts
     private static final ThreadLocal<Context> context = new ThreadLocal<>();
 
     private final DateTimeProvider dateTimeProvider;
+    private final ExecutorService writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(MAXIMUM_PENDING_WRITES),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, "LoggerContext");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            },
+            new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                    r.run();
+                }
+            });
 
     @Value("${dir.update.audit.log}") private String baseDir;
 
@@ -65,6 +101,14 @@ public class LoggerContext {
         checkDirs();
     }
 
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+            LOGGER.warn("Timeout writing pending audit log files");
+        }
+    }
+
     public void checkDirs() {
         getCreatedDir(baseDir);
     }
@@ -90,19 +134,40 @@ public class LoggerContext {
         }
 
         final AtomicInteger fileNumber = new AtomicInteger();
-        final AuditLogger auditLogger = new AuditLogger(dateTimeProvider, getOutputstream(getFile(dir, fileNumber.getAndIncrement(), "audit.xml")));
+        final File auditFile = getFile(dir, fileNumber.getAndIncrement(), "audit.xml");
+        final ByteArrayOutputStream auditBuffer = new ByteArrayOutputStream();
+        final AuditLogger auditLogger = new AuditLogger(dateTimeProvider, auditBuffer);
 
-        context.set(new Context(dir, fileNumber, auditLogger));
+        context.set(new Context(dir, fileNumber, auditLogger, auditFile, auditBuffer));
     }
 
     public void remove() {
+        final Context ctx = getContext();
         try {
-            getContext().auditLogger.close();
+            ctx.auditLogger.close();
+            ctx.pendingWrites.add(write(ctx.auditFile, ctx.auditBuffer.toByteArray()));
+            flush(ctx);
         } finally {
             context.remove();
         }
     }
 
+    private void flush(final Context ctx) {
+        for (final Future<?> pendingWrite : ctx.pendingWrites) {
+            try {
+                pendingWrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted flushing audit log {}", ctx.baseDir.getAbsolutePath());
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error("Writing audit log {}", ctx.baseDir.getAbsolutePath(), e.getCause());
+            }
+        }
+
+        ctx.pendingWrites.clear();
+    }
+
     public File getFile(final String filename) {
         final Context tempContext = getContext();
         return getFile(tempContext.baseDir, tempContext.nextFileNumber(), filename);
@@ -116,19 +181,33 @@ public class LoggerContext {
     public File log(final String name, final LogCallback callback) {
         final File file = getFile(name);
 
-        OutputStream os = null;
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         try {
-            os = getOutputstream(file);
-            callback.log(os);
+            callback.log(buffer);
         } catch (IOException e) {
             throw new IllegalStateException("Unable to write to " + file.getAbsolutePath(), e);
-        } finally {
-            closeOutputStream(os);
         }
 
+        getContext().pendingWrites.add(write(file, buffer.toByteArray()));
         return file;
     }
 
+    private Future<?> write(final File file, final byte[] contents) {
+        return writer.submit(new Runnable() {
+            @Override
+            public void run() {
+                final OutputStream os = getOutputstream(file);
+                try {
+                    os.write(contents);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to write to " + file.getAbsolutePath(), e);
+                } finally {
+                    closeOutputStream(os);
+                }
+            }
+        });
+    }
+
     private OutputStream getOutputstream(final File file) {
         FileOutputStream os = null;
         try {
@@ -277,13 +356,18 @@ public class LoggerContext {
         private final File baseDir;
         private final AtomicInteger fileNumber;
         private final AuditLogger auditLogger;
+        private final File auditFile;
+        private final ByteArrayOutputStream auditBuffer;
+        private final List<Future<?>> pendingWrites = Lists.newArrayList();
         private Stopwatch stopwatch;
         private Update currentUpdate;
 
-        private Context(final File baseDir, final AtomicInteger fileNumber, final AuditLogger auditLogger) {
+        private Context(final File baseDir, final AtomicInteger fileNumber, final AuditLogger auditLogger, final File auditFile, final ByteArrayOutputStream auditBuffer) {
             this.baseDir = baseDir;
             this.fileNumber = fileNumber;
             this.auditLogger = auditLogger;
+            this.auditFile = auditFile;
+            this.auditBuffer = auditBuffer;
         }
 
         public int nextFileNumber() {
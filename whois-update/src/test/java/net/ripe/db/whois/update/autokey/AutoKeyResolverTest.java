@@ -1,5 +1,6 @@
 package net.ripe.db.whois.update.autokey;
 
+import net.ripe.db.whois.common.dao.UpdateLockDao;
 import net.ripe.db.whois.common.rpsl.AttributeType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.common.rpsl.ValidationMessages;
@@ -26,6 +27,7 @@ import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AutoKeyResolverTest {
+    @Mock UpdateLockDao updateLockDao;
     @Mock AutoKeyFactory autoKeyFactory;
     @Mock CountryCodeRepository countryCodeRepository;
     @Mock LoggerContext loggerContext;
@@ -47,7 +49,7 @@ public class AutoKeyResolverTest {
         when(autoKeyFactory.getAttributeType()).thenReturn(AttributeType.NIC_HDL);
         when(autoKeyFactory.isApplicableFor(any(RpslObject.class))).thenReturn(true);
 
-        subject = new AutoKeyResolver(autoKeyFactory);
+        subject = new AutoKeyResolver(updateLockDao, autoKeyFactory);
 
         primaryKeyGeneratorSuccessBehavior();
     }
@@ -82,6 +84,7 @@ public class AutoKeyResolverTest {
                 "nic-hdl:        J1-RIPE\n"));
 
         verify(autoKeyFactory, times(1)).generate(anyString(), any(RpslObject.class));
+        verify(updateLockDao).setAutoKeyLock(AttributeType.NIC_HDL);
     }
 
     @Test
@@ -131,6 +134,7 @@ public class AutoKeyResolverTest {
                 "nic-hdl: JD1-RIPE\n");
 
         subject.resolveAutoKeys(person, update, updateContext, Action.MODIFY);
+        verify(updateLockDao, never()).setAutoKeyLock(any(AttributeType.class));
         verify(autoKeyFactory, never()).claim(anyString());
         verify(autoKeyFactory, never()).generate(anyString(), any(RpslObject.class));
     }
@@ -1,6 +1,8 @@
 package net.ripe.db.whois.update.database;
 
+import net.ripe.db.whois.common.dao.RpslObjectUpdateDao;
 import net.ripe.db.whois.common.dao.UpdateLockDao;
+import net.ripe.db.whois.common.rpsl.RpslObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -10,18 +12,24 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class UpdateLockHelper {
 
     private UpdateLockDao updateLockDao;
 
+    private RpslObjectUpdateDao rpslObjectUpdateDao;
+
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    public UpdateLockHelper(@Qualifier("sourceAwareDataSource") final DataSource dataSource, final UpdateLockDao updateLockDao) {
+    public UpdateLockHelper(@Qualifier("sourceAwareDataSource") final DataSource dataSource, final UpdateLockDao updateLockDao, final RpslObjectUpdateDao rpslObjectUpdateDao) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.updateLockDao = updateLockDao;
+        this.rpslObjectUpdateDao = rpslObjectUpdateDao;
     }
 
     private void setMntnerValue(final String value) {
@@ -42,4 +50,30 @@ public class UpdateLockHelper {
 
         setMntnerValue(getMntnerValue() + ".");
     }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED, propagation = Propagation.REQUIRES_NEW)
+    public void testResourceLock(final String resource) {
+        jdbcTemplate.queryForInt("SELECT count(*) FROM mntner");
+
+        updateLockDao.setUpdateLock(Collections.singleton(resource));
+
+        setMntnerValue(getMntnerValue() + ".");
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED, propagation = Propagation.REQUIRES_NEW)
+    public void holdResourceLock(final String resource, final CountDownLatch locked, final CountDownLatch release) throws InterruptedException {
+        updateLockDao.setUpdateLock(Collections.singleton(resource));
+        locked.countDown();
+
+        release.await(10, TimeUnit.SECONDS);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED, propagation = Propagation.REQUIRES_NEW)
+    public void createObject(final RpslObject object, final CountDownLatch created, final CountDownLatch release) throws InterruptedException {
+        updateLockDao.setUpdateLock(Collections.singleton(object.getKey().toString()));
+        rpslObjectUpdateDao.createObject(object);
+        created.countDown();
+
+        release.await(10, TimeUnit.SECONDS);
+    }
 }
@@ -1,6 +1,7 @@
 package net.ripe.db.whois.update.database;
 
 import net.ripe.db.whois.common.IntegrationTest;
+import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.update.dao.AbstractUpdateDaoTest;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Before;
@@ -8,10 +9,14 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -54,6 +59,93 @@ public class UpdateLockTestIntegration extends AbstractUpdateDaoTest {
         assertThat(getMntnerValue(), is("Dot: " + StringUtils.repeat(".", threads)));
     }
 
+    @Test
+    public void test_resource_update_lock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int cnt = 0; cnt < threads; ++cnt) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    updateLockHelper.testResourceLock("TEST-MNT");
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(getMntnerValue(), is("Dot: " + StringUtils.repeat(".", threads)));
+    }
+
+    @Test
+    public void test_different_resources_locked_concurrently() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch firstLocked = new CountDownLatch(1);
+        final CountDownLatch secondLocked = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.execute(new ResourceLockWorker(updateLockHelper, "FIRST-MNT", firstLocked, release));
+            assertThat(firstLocked.await(5, TimeUnit.SECONDS), is(true));
+
+            executor.execute(new ResourceLockWorker(updateLockHelper, "SECOND-MNT", secondLocked, release));
+            assertThat(secondLocked.await(5, TimeUnit.SECONDS), is(true));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void test_same_resource_locked_once() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch firstLocked = new CountDownLatch(1);
+        final CountDownLatch secondLocked = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.execute(new ResourceLockWorker(updateLockHelper, "TEST-MNT", firstLocked, release));
+            assertThat(firstLocked.await(5, TimeUnit.SECONDS), is(true));
+
+            executor.execute(new ResourceLockWorker(updateLockHelper, "test-mnt", secondLocked, release));
+            assertThat(secondLocked.await(1, TimeUnit.SECONDS), is(false));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(secondLocked.getCount(), is(0L));
+    }
+
+    @Test
+    public void test_serials_committed_in_order() throws Exception {
+        final CountDownLatch firstCreated = new CountDownLatch(1);
+        final CountDownLatch firstRelease = new CountDownLatch(1);
+        final CountDownLatch secondCreated = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.execute(new CreateObjectWorker(updateLockHelper, RpslObject.parse("mntner: FIRST-MNT"), firstCreated, firstRelease));
+            assertThat(firstCreated.await(5, TimeUnit.SECONDS), is(true));
+
+            // would get a higher serial_id, and commit before the first update does
+            executor.execute(new CreateObjectWorker(updateLockHelper, RpslObject.parse("mntner: SECOND-MNT"), secondCreated, new CountDownLatch(0)));
+            assertThat(secondCreated.await(1, TimeUnit.SECONDS), is(false));
+            assertThat(getSerialKeys(), hasSize(0));
+        } finally {
+            firstRelease.countDown();
+            executor.shutdown();
+        }
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(getSerialKeys(), contains("FIRST-MNT", "SECOND-MNT"));
+    }
+
+    private List<String> getSerialKeys() {
+        return whoisTemplate.queryForList("SELECT l.pkey FROM serials s JOIN last l ON l.object_id = s.object_id ORDER BY s.serial_id", String.class);
+    }
+
     private String getMntnerValue() {
         return whoisTemplate.queryForObject("SELECT mntner FROM mntner WHERE object_id = 1", String.class);
     }
@@ -70,4 +162,50 @@ public class UpdateLockTestIntegration extends AbstractUpdateDaoTest {
             updateLockHelper.testUpdateLock();
         }
     }
+
+    private static class CreateObjectWorker implements Runnable {
+        private final UpdateLockHelper updateLockHelper;
+        private final RpslObject object;
+        private final CountDownLatch created;
+        private final CountDownLatch release;
+
+        CreateObjectWorker(final UpdateLockHelper updateLockHelper, final RpslObject object, final CountDownLatch created, final CountDownLatch release) {
+            this.updateLockHelper = updateLockHelper;
+            this.object = object;
+            this.created = created;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            try {
+                updateLockHelper.createObject(object, created, release);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class ResourceLockWorker implements Runnable {
+        private final UpdateLockHelper updateLockHelper;
+        private final String resource;
+        private final CountDownLatch locked;
+        private final CountDownLatch release;
+
+        ResourceLockWorker(final UpdateLockHelper updateLockHelper, final String resource, final CountDownLatch locked, final CountDownLatch release) {
+            this.updateLockHelper = updateLockHelper;
+            this.resource = resource;
+            this.locked = locked;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            try {
+                updateLockHelper.holdResourceLock(resource, locked, release);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
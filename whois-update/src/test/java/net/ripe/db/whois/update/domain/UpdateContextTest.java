@@ -136,6 +136,24 @@ public class UpdateContextTest {
         assertThat(errors, contains(UpdateMessages.objectInUse(object), UpdateMessages.filteredNotAllowed()));
     }
 
+    @Test
+    public void createAck_in_submitted_order() {
+        final Update first = new Update(new Paragraph("mntner: FIRST-MNT"), Operation.UNSPECIFIED, Lists.<String>newArrayList(), RpslObject.parse("mntner: FIRST-MNT"));
+        final Update second = new Update(new Paragraph("mntner: SECOND-MNT"), Operation.UNSPECIFIED, Lists.<String>newArrayList(), RpslObject.parse("mntner: SECOND-MNT"));
+        subject.addUpdates(Lists.newArrayList(first, second));
+
+        subject.setAction(second, Action.CREATE);
+        subject.setAction(first, Action.CREATE);
+        subject.status(first, UpdateStatus.FAILED);
+        subject.prepareForReattempt(first);
+        subject.setAction(first, Action.CREATE);
+
+        final List<UpdateResult> updateResults = subject.createAck().getSucceededUpdates();
+        assertThat(updateResults, hasSize(2));
+        assertThat(updateResults.get(0).getUpdatedObject().getKey(), is(ciString("FIRST-MNT")));
+        assertThat(updateResults.get(1).getUpdatedObject().getKey(), is(ciString("SECOND-MNT")));
+    }
+
     @Test
     public void generated_nic_handle() {
         final AutoKey nicHandle = NicHandle.parse("DW1-RIPE", ciString("RIPE"), Collections.<CIString>emptySet());
@@ -0,0 +1,89 @@
+package net.ripe.db.whois.update.handler;
+
+import net.ripe.db.whois.common.DateTimeProvider;
+import net.ripe.db.whois.common.rpsl.AttributeSanitizer;
+import net.ripe.db.whois.common.rpsl.AttributeType;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.update.domain.Keyword;
+import net.ripe.db.whois.update.domain.Operation;
+import net.ripe.db.whois.update.domain.Origin;
+import net.ripe.db.whois.update.domain.Paragraph;
+import net.ripe.db.whois.update.domain.SyntaxCheckResult;
+import net.ripe.db.whois.update.domain.Update;
+import net.ripe.db.whois.update.domain.UpdateContext;
+import net.ripe.db.whois.update.domain.UpdateRequest;
+import net.ripe.db.whois.update.log.LoggerContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SyntaxCheckerTest {
+    @Mock DateTimeProvider dateTimeProvider;
+    @Mock LoggerContext loggerContext;
+    @Mock Origin origin;
+
+    private SyntaxChecker subject;
+    private UpdateContext updateContext;
+
+    @Before
+    public void setUp() {
+        subject = new SyntaxChecker(new AttributeSanitizer(dateTimeProvider));
+        subject.init();
+
+        updateContext = new UpdateContext(loggerContext);
+    }
+
+    @After
+    public void tearDown() {
+        subject.stop();
+    }
+
+    @Test
+    public void check() {
+        final SyntaxCheckResult result = subject.check(createUpdate(Operation.UNSPECIFIED, "inetnum: 10.0.0.0-10.0.0.255\nsource: test"));
+
+        assertThat(result.getUpdatedObject().getKey().toString(), is("10.0.0.0 - 10.0.0.255"));
+        assertThat(result.getMessages().hasErrors(), is(true));
+    }
+
+    @Test
+    public void check_all() {
+        final Update valid = createUpdate(Operation.UNSPECIFIED, "mntner: TEST-MNT\nadmin-c: TP1-TEST");
+        final Update invalid = createUpdate(Operation.UNSPECIFIED, "mntner: TEST-MNT\nadmin-c: invalid nic-hdl");
+        final Update delete = createUpdate(Operation.DELETE, "mntner: TEST-MNT");
+
+        subject.checkAll(new UpdateRequest(origin, Keyword.NONE, "", Arrays.asList(valid, invalid, delete)), updateContext);
+
+        assertThat(hasAdminCErrors(updateContext.getCachedSyntaxCheckResult(valid)), is(false));
+        assertThat(hasAdminCErrors(updateContext.getCachedSyntaxCheckResult(invalid)), is(true));
+        assertThat(updateContext.getCachedSyntaxCheckResult(delete), is(nullValue()));
+    }
+
+    @Test
+    public void single_update_checked_when_handled() {
+        final Update update = createUpdate(Operation.UNSPECIFIED, "mntner: TEST-MNT");
+
+        subject.checkAll(new UpdateRequest(origin, Keyword.NONE, "", Collections.singletonList(update)), updateContext);
+
+        assertThat(updateContext.getCachedSyntaxCheckResult(update), is(nullValue()));
+    }
+
+    private static boolean hasAdminCErrors(final SyntaxCheckResult result) {
+        return !result.getMessages().getMessages(result.getUpdatedObject().findAttribute(AttributeType.ADMIN_C)).getErrors().isEmpty();
+    }
+
+    private static Update createUpdate(final Operation operation, final String object) {
+        return new Update(new Paragraph(object), operation, Collections.<String>emptyList(), RpslObject.parse(object));
+    }
+}
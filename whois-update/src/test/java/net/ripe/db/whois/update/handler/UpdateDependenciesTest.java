@@ -0,0 +1,76 @@
+package net.ripe.db.whois.update.handler;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import net.ripe.db.whois.update.domain.Operation;
+import net.ripe.db.whois.update.domain.Paragraph;
+import net.ripe.db.whois.update.domain.Update;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class UpdateDependenciesTest {
+    private static final Predicate<Update> ALL_CREATED = Predicates.alwaysTrue();
+
+    @Test
+    public void referenced_object_first() {
+        final Update inetnum = createUpdate("inetnum: 10.0.0.0 - 10.0.0.255\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT");
+        final Update maintainer = createUpdate("mntner: TEST-MNT\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT");
+        final Update person = createUpdate("person: Test Person\nnic-hdl: TP1-TEST");
+
+        assertThat(UpdateDependencies.order(Arrays.asList(inetnum, maintainer, person), ALL_CREATED), contains(person, maintainer, inetnum));
+    }
+
+    @Test
+    public void submitted_order_kept() {
+        final Update person = createUpdate("person: Test Person\nnic-hdl: TP1-TEST");
+        final Update maintainer = createUpdate("mntner: TEST-MNT\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT");
+        final Update other = createUpdate("mntner: OTHER-MNT\nmnt-by: OTHER-MNT");
+
+        assertThat(UpdateDependencies.order(Arrays.asList(person, maintainer, other), ALL_CREATED), contains(person, maintainer, other));
+    }
+
+    @Test
+    public void earlier_update_of_referenced_key() {
+        final Update createPerson = createUpdate("person: Test Person\nnic-hdl: TP1-TEST");
+        final Update maintainer = createUpdate("mntner: TEST-MNT\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT");
+        final Update modifyPerson = createUpdate("person: Test Person\nnic-hdl: TP1-TEST\nremarks: modified");
+
+        assertThat(UpdateDependencies.order(Arrays.asList(createPerson, maintainer, modifyPerson), ALL_CREATED), contains(createPerson, maintainer, modifyPerson));
+    }
+
+    @Test
+    public void delete_not_moved_ahead() {
+        final Update maintainer = createUpdate("mntner: TEST-MNT\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT");
+        final Update deletePerson = new Update(new Paragraph(""), Operation.DELETE, Lists.newArrayList("reason"), RpslObject.parse("person: Test Person\nnic-hdl: TP1-TEST"));
+
+        assertThat(UpdateDependencies.order(Arrays.asList(maintainer, deletePerson), ALL_CREATED), contains(maintainer, deletePerson));
+    }
+
+    @Test
+    public void modified_object_not_moved_ahead() {
+        final Update inetnum = createUpdate("inetnum: 10.0.0.0 - 10.0.0.255\nmnt-by: TEST-MNT");
+        final Update modifyMaintainer = createUpdate("mntner: TEST-MNT\nmnt-by: TEST-MNT\nremarks: modified");
+
+        assertThat(UpdateDependencies.order(Arrays.asList(inetnum, modifyMaintainer), Predicates.<Update>alwaysFalse()), contains(inetnum, modifyMaintainer));
+    }
+
+    @Test
+    public void circular_references() {
+        final Update maintainer = createUpdate("mntner: TEST-MNT\nadmin-c: TP1-TEST\nmnt-by: TEST-MNT");
+        final Update person = createUpdate("person: Test Person\nnic-hdl: TP1-TEST\nmnt-by: TEST-MNT");
+
+        assertThat(UpdateDependencies.order(Arrays.asList(maintainer, person), ALL_CREATED), contains(person, maintainer));
+        assertThat(UpdateDependencies.order(Arrays.asList(person, maintainer), ALL_CREATED), contains(maintainer, person));
+    }
+
+    private static Update createUpdate(final String object) {
+        return new Update(new Paragraph(object), Operation.UNSPECIFIED, Collections.<String>emptyList(), RpslObject.parse(object));
+    }
+}
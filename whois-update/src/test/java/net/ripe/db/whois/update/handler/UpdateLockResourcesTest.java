@@ -0,0 +1,80 @@
+package net.ripe.db.whois.update.handler;
+
+import net.ripe.db.whois.common.rpsl.RpslObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertThat;
+
+public class UpdateLockResourcesTest {
+
+    @Test
+    public void key_and_references() {
+        final RpslObject object = RpslObject.parse("" +
+                "person:  Test Person\n" +
+                "nic-hdl: TP1-TEST\n" +
+                "admin-c: TP2-TEST\n" +
+                "mnt-by:  TEST-MNT\n" +
+                "remarks: not a reference\n" +
+                "source:  TEST");
+
+        assertThat(UpdateLockResources.getResources(object, object.getKey()), containsInAnyOrder("TP1-TEST", "TP2-TEST", "TEST-MNT"));
+    }
+
+    @Test
+    public void mnt_routes_maintainer() {
+        final RpslObject object = RpslObject.parse("" +
+                "aut-num:    AS123\n" +
+                "mnt-routes: ROUTES-MNT {10.0.0.0/8}\n" +
+                "mnt-by:     TEST-MNT");
+
+        assertThat(UpdateLockResources.getResources(object, object.getKey()), containsInAnyOrder(UpdateLockResources.ASN_HIERARCHY, "AS123", "ROUTES-MNT", "TEST-MNT"));
+    }
+
+    @Test
+    public void hierarchy_and_key() {
+        final RpslObject object = RpslObject.parse("" +
+                "route:  10.0.0.0/8\n" +
+                "origin: AS123\n" +
+                "mnt-by: TEST-MNT");
+
+        assertThat(UpdateLockResources.getResources(object, object.getKey()), containsInAnyOrder(UpdateLockResources.IPV4_HIERARCHY, object.getKey().toString(), "AS123", "TEST-MNT"));
+    }
+
+    @Test
+    public void domain_in_both_hierarchies() {
+        final RpslObject object = RpslObject.parse("domain: 0.0.10.in-addr.arpa");
+
+        assertThat(UpdateLockResources.getResources(object, object.getKey()), containsInAnyOrder(UpdateLockResources.IPV4_HIERARCHY, UpdateLockResources.IPV6_HIERARCHY, "0.0.10.in-addr.arpa"));
+    }
+
+    @Test
+    public void hierarchical_set_name() {
+        final RpslObject object = RpslObject.parse("as-set: AS123:AS-TEST:AS-SUB");
+
+        assertThat(UpdateLockResources.getResources(object, object.getKey()), containsInAnyOrder("AS123:AS-TEST:AS-SUB", "AS123:AS-TEST", "AS123"));
+    }
+
+    @Test
+    public void invalid_reference_ignored() {
+        final RpslObject object = RpslObject.parse("" +
+                "aut-num:    AS123\n" +
+                "mnt-routes: {invalid");
+
+        assertThat(UpdateLockResources.getResources(object, object.getKey()), containsInAnyOrder(UpdateLockResources.ASN_HIERARCHY, "AS123"));
+    }
+
+    @Test
+    public void aut_num_shares_key_with_route_and_as_set() {
+        final RpslObject autnum = RpslObject.parse("aut-num: AS123");
+        final RpslObject route = RpslObject.parse("" +
+                "route:  10.0.0.0/8\n" +
+                "origin: AS123");
+        final RpslObject asSet = RpslObject.parse("as-set: AS123:AS-TEST");
+
+        assertThat(UpdateLockResources.getResources(autnum, autnum.getKey()), hasItem("AS123"));
+        assertThat(UpdateLockResources.getResources(route, route.getKey()), hasItem("AS123"));
+        assertThat(UpdateLockResources.getResources(asSet, asSet.getKey()), hasItem("AS123"));
+    }
+}
@@ -1,6 +1,10 @@
 package net.ripe.db.whois.update.handler;
 
 import com.google.common.collect.Lists;
+import net.ripe.db.whois.common.dao.RpslObjectDao;
+import net.ripe.db.whois.common.dao.RpslObjectInfo;
+import net.ripe.db.whois.common.domain.CIString;
+import net.ripe.db.whois.common.rpsl.AttributeSanitizer;
 import net.ripe.db.whois.common.rpsl.ObjectType;
 import net.ripe.db.whois.common.rpsl.RpslObject;
 import net.ripe.db.whois.common.source.SourceContext;
@@ -23,15 +27,20 @@ import net.ripe.db.whois.update.sso.SsoTranslator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.util.Collections;
 
+import static net.ripe.db.whois.common.domain.CIString.ciString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -54,6 +63,9 @@ public class UpdateRequestHandlerTest {
     @Mock UpdateNotifier updateNotifier;
     @Mock UpdateLog updateLog;
     @Mock SsoTranslator ssoTranslator;
+    @Mock SyntaxChecker syntaxChecker;
+    @Mock RpslObjectDao rpslObjectDao;
+    @Mock AttributeSanitizer attributeSanitizer;
 
     @InjectMocks UpdateRequestHandler subject;
 
@@ -70,6 +82,33 @@ public class UpdateRequestHandlerTest {
         when(updateContext.createAck()).thenReturn(ack);
     }
 
+    @Test
+    public void handle_created_objects_first_and_report_in_submitted_order() {
+        final Update maintainer = createUpdate("mntner: TEST-MNT\nadmin-c: TP1-TEST\nmnt-by: OTHER-MNT");
+        final Update otherMaintainer = createUpdate("mntner: OTHER-MNT\nmnt-by: OTHER-MNT");
+        final Update person = createUpdate("person: Test Person\nnic-hdl: TP1-TEST");
+        when(updateRequest.getUpdates()).thenReturn(Lists.newArrayList(maintainer, otherMaintainer, person));
+
+        when(attributeSanitizer.sanitizeKey(any(RpslObject.class))).thenAnswer(new Answer<CIString>() {
+            @Override
+            public CIString answer(final InvocationOnMock invocation) throws Throwable {
+                return ((RpslObject) invocation.getArguments()[0]).getKey();
+            }
+        });
+        when(rpslObjectDao.findByKeyOrNull(ObjectType.MNTNER, ciString("OTHER-MNT"))).thenReturn(new RpslObjectInfo(1, ObjectType.MNTNER, "OTHER-MNT"));
+        when(ack.getUpdateStatus()).thenReturn(UpdateStatus.SUCCESS);
+
+        subject.handle(updateRequest, updateContext);
+
+        verify(updateContext).addUpdates(Lists.newArrayList(maintainer, otherMaintainer, person));
+
+        // the person is created by the request, the other maintainer is modified and keeps its position
+        final InOrder inOrder = inOrder(singleUpdateHandler);
+        inOrder.verify(singleUpdateHandler).handle(origin, Keyword.NONE, person, updateContext);
+        inOrder.verify(singleUpdateHandler).handle(origin, Keyword.NONE, maintainer, updateContext);
+        inOrder.verify(singleUpdateHandler).handle(origin, Keyword.NONE, otherMaintainer, updateContext);
+    }
+
     @Test
     public void handle_no_notifications() {
         when(updateRequest.getUpdates()).thenReturn(Lists.newArrayList(update));
@@ -86,6 +125,7 @@ public class UpdateRequestHandlerTest {
         verify(sourceContext).setCurrentSourceToWhoisMaster();
         verify(sourceContext).removeCurrentSource();
         verify(dnsChecker).checkAll(updateRequest, updateContext);
+        verify(syntaxChecker).checkAll(updateRequest, updateContext);
         verify(singleUpdateHandler).handle(origin, Keyword.NONE, update, updateContext);
         verifyZeroInteractions(updateNotifier);
     }
@@ -165,4 +205,8 @@ public class UpdateRequestHandlerTest {
         verify(sourceContext, never()).removeCurrentSource();
 
     }
+
+    private static Update createUpdate(final String object) {
+        return new Update(new Paragraph(object), Operation.UNSPECIFIED, Collections.<String>emptyList(), RpslObject.parse(object));
+    }
 }
@@ -77,6 +77,7 @@ public class LoggerContextTest {
                 outputStream.write("test".getBytes());
             }
         });
+        subject.remove();
 
         final InputStream is = new GZIPInputStream(new BufferedInputStream(new FileInputStream(new File(folder.getRoot(), "001.test.txt.gz"))));
         final String contents = new String(FileCopyUtils.copyToByteArray(is), Charsets.UTF_8);
@@ -85,6 +86,39 @@ public class LoggerContextTest {
         assertThat(contents, is("test"));
     }
 
+    @Test
+    public void log_after_stop() throws Exception {
+        subject.stop();
+
+        subject.log("test.txt", new LogCallback() {
+            @Override
+            public void log(final OutputStream outputStream) throws IOException {
+                outputStream.write("test".getBytes());
+            }
+        });
+
+        final InputStream is = new GZIPInputStream(new BufferedInputStream(new FileInputStream(new File(folder.getRoot(), "001.test.txt.gz"))));
+        final String contents = new String(FileCopyUtils.copyToByteArray(is), Charsets.UTF_8);
+
+        assertThat(contents, is("test"));
+    }
+
+    @Test
+    public void log_flushed_on_remove() throws Exception {
+        for (int i = 0; i < 2000; i++) {
+            subject.log("test.txt", new LogCallback() {
+                @Override
+                public void log(final OutputStream outputStream) throws IOException {
+                    outputStream.write("test".getBytes());
+                }
+            });
+        }
+
+        subject.remove();
+
+        assertThat(folder.getRoot().list().length, is(2001));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void log_throws_exception() {
         subject.log("filename", new LogCallback() {